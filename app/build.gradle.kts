@@ -37,6 +37,9 @@ android {
 
 dependencies {
 
+    // Nomes dos campos do Firestore (compartilhados com o semeador)
+    implementation(project(":esquema"))
+
     // Firebase BoM (controla versões de todos os módulos Firebase)
     implementation(platform("com.google.firebase:firebase-bom:34.6.0"))
 
@@ -51,6 +54,12 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+
+    // ViewModel/LiveData: estado da tela sobrevive à rotação sem novas leituras no Firestore
+    implementation(libs.lifecycle.viewmodel)
+    implementation(libs.lifecycle.livedata)
+    // ProcessLifecycleOwner: desliga o listener da enquete quando o app vai para segundo plano
+    implementation(libs.lifecycle.process)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
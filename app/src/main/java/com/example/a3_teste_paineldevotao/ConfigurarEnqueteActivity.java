@@ -1,25 +1,43 @@
 package com.example.a3_teste_paineldevotao;
 
+import android.net.Uri;
 import android.os.Bundle;
+import android.text.TextUtils;
+import android.view.View;
 import android.util.Log;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.RadioGroup;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import com.example.a3_teste_paineldevotao.data.CacheImagens;
+import com.example.a3_teste_paineldevotao.data.ContagemTurmas;
 import com.example.a3_teste_paineldevotao.data.EnqueteRepository;
+import com.example.a3_teste_paineldevotao.data.FirebaseManager;
+import com.example.a3_teste_paineldevotao.model.ImagensOpcoes;
 import com.google.android.material.appbar.MaterialToolbar;
 
+import java.text.ParseException;
+import java.util.List;
+
 /**
  * Tela de configuração da enquete.
  * <p>
  * Responsabilidades principais:
  * - Exibir os campos de edição (título e textos das opções A, B, C).
+ * - Alternar entre opções fixas e resposta livre (nuvem de palavras).
+ * - Ligar o modo quiz e marcar a opção correta (gabarito).
+ * - Listar as turmas que votam com contadores próprios (total combinado na tela principal).
+ * - Escolher imagens para as opções (publicadas como miniaturas pelo CacheImagens).
  * - Carregar a configuração atual da enquete a partir do Firestore.
  * - Validar os campos digitados pelo usuário.
  * - Salvar as novas configurações usando o EnqueteRepository.
@@ -38,7 +56,22 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
     private EditText edtOpcaoC;
     private EditText edtMensagemRodape;
     private EditText edtDataHoraEncerramento;
+    private CheckBox chkRespostaLivre;
+    private CheckBox chkModoQuiz;
+    private RadioGroup rgOpcaoCorreta;
+    private EditText edtTurmas;
     private Button btnSalvarConfig;
+    private Button btnImagemA;
+    private Button btnImagemB;
+    private Button btnImagemC;
+
+    // Imagens das opções: ids das miniaturas já publicadas
+    private ImagensOpcoes imagens = ImagensOpcoes.NENHUMA;
+    private String opcaoImagemEscolhida = "A";
+    private int publicacoesPendentes; // salvar espera as miniaturas terminarem de subir
+
+    private final ActivityResultLauncher<String> escolherImagem =
+            registerForActivityResult(new ActivityResultContracts.GetContent(), this::publicarImagem);
 
     // Repositório centraliza toda a lógica de Firestore
     private EnqueteRepository enqueteRepository;
@@ -59,6 +92,7 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
         inicializarViews();
         carregarConfiguracoesAtuais();
         configurarBotaoSalvar();
+        configurarBotoesImagem();
     }
 
     /**
@@ -128,7 +162,16 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
         edtOpcaoC = findViewById(R.id.edtOpcaoC);
         edtMensagemRodape = findViewById(R.id.edtMensagemRodape);
         edtDataHoraEncerramento = findViewById(R.id.edtDataHoraEncerramento);
+        chkRespostaLivre = findViewById(R.id.chkRespostaLivre);
+        chkModoQuiz = findViewById(R.id.chkModoQuiz);
+        rgOpcaoCorreta = findViewById(R.id.rgOpcaoCorreta);
+        edtTurmas = findViewById(R.id.edtTurmas);
+        chkModoQuiz.setOnCheckedChangeListener((botao, marcado) ->
+                rgOpcaoCorreta.setVisibility(marcado ? View.VISIBLE : View.GONE));
         btnSalvarConfig = findViewById(R.id.btnSalvarConfig);
+        btnImagemA = findViewById(R.id.btnImagemA);
+        btnImagemB = findViewById(R.id.btnImagemB);
+        btnImagemC = findViewById(R.id.btnImagemC);
     }
 
     // =====================================================================
@@ -140,14 +183,18 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
      * preenche os campos da tela.
      */
     private void carregarConfiguracoesAtuais() {
-        enqueteRepository.carregarConfiguracoes(new EnqueteRepository.ConfiguracaoCarregadaCallback() {
+        enqueteRepository.carregarConfiguracoes(this, new EnqueteRepository.ConfiguracaoCarregadaCallback() {
             @Override
             public void onConfiguracaoCarregada(String titulo,
                                                 String opcaoA,
                                                 String opcaoB,
                                                 String opcaoC,
                                                 String mensagemRodape,
-                                                String dataHoraEncerramento) {
+                                                String dataHoraEncerramento,
+                                                boolean respostaLivre,
+                                                ImagensOpcoes imagensSalvas,
+                                                String opcaoCorreta,
+                                                List<String> turmas) {
 
                 if (titulo != null) {
                     edtTituloEnquete.setText(titulo);
@@ -167,6 +214,14 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
                 if (dataHoraEncerramento != null) {
                     edtDataHoraEncerramento.setText(dataHoraEncerramento);
                 }
+                chkRespostaLivre.setChecked(respostaLivre);
+                imagens = imagensSalvas;
+                atualizarBotoesImagem();
+                chkModoQuiz.setChecked(opcaoCorreta != null);
+                if (opcaoCorreta != null) {
+                    rgOpcaoCorreta.check(idBotaoCorreta(opcaoCorreta));
+                }
+                edtTurmas.setText(TextUtils.join(", ", turmas));
             }
 
             @Override
@@ -199,6 +254,11 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
             String opcaoC = edtOpcaoC.getText().toString().trim();
             String mensagemRodape = edtMensagemRodape.getText().toString().trim();
             String dataHoraEnc = edtDataHoraEncerramento.getText().toString().trim();
+            boolean respostaLivre = chkRespostaLivre.isChecked();
+            String opcaoCorreta = chkModoQuiz.isChecked()
+                    ? opcaoDoBotao(rgOpcaoCorreta.getCheckedRadioButtonId())
+                    : null;
+            List<String> turmas = ContagemTurmas.lerNomes(edtTurmas.getText().toString());
 
             // Validações simples para evitar salvar dados incompletos
             if (titulo.isEmpty()) {
@@ -210,7 +270,8 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
                 return;
             }
 
-            if (opcaoA.isEmpty() || opcaoB.isEmpty() || opcaoC.isEmpty()) {
+            // Na resposta livre as opções não aparecem para o aluno
+            if (!respostaLivre && (opcaoA.isEmpty() || opcaoB.isEmpty() || opcaoC.isEmpty())) {
                 Toast.makeText(
                         this,
                         "Preencha as três opções (A, B e C).",
@@ -219,20 +280,23 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
                 return;
             }
 
-            // Validação de data/hora de encerramento (se preenchida), não pode ser no passado
+            if (chkModoQuiz.isChecked()) {
+                String problema = respostaLivre ? "O quiz usa as opções A, B e C, não a resposta livre."
+                        : opcaoCorreta == null ? "Marque a opção correta do quiz."
+                        : null;
+                if (problema != null) {
+                    Toast.makeText(this, problema, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+            }
+
+            // Validação de data/hora de encerramento (se preenchida), não pode ser no passado.
+            // O texto é interpretado uma única vez aqui e salvo também como Timestamp.
+            long encerramentoMillis = 0L;
             if (!dataHoraEnc.isEmpty()) {
                 try {
-                    java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm", java.util.Locale.getDefault());
-                    java.util.Date fim = sdf.parse(dataHoraEnc);
-                    if (fim != null && new java.util.Date().after(fim)) {
-                        Toast.makeText(
-                                this,
-                                "A data/hora de encerramento não pode estar no passado.",
-                                Toast.LENGTH_SHORT
-                        ).show();
-                        return;
-                    }
-                } catch (Exception e) {
+                    encerramentoMillis = EnqueteRepository.interpretarDataHora(dataHoraEnc);
+                } catch (ParseException e) {
                     Toast.makeText(
                             this,
                             "Data/hora inválida. Use o formato: 2025-12-02 20:00",
@@ -240,6 +304,15 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
                     ).show();
                     return;
                 }
+                long agora = FirebaseManager.getInstance(this).getRelogioServidor().agora();
+                if (agora > encerramentoMillis) {
+                    Toast.makeText(
+                            this,
+                            "A data/hora de encerramento não pode estar no passado.",
+                            Toast.LENGTH_SHORT
+                    ).show();
+                    return;
+                }
             }
 
             // Chama o repositório para salvar no Firestore
@@ -250,6 +323,12 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
                     opcaoC,
                     mensagemRodape.isEmpty() ? null : mensagemRodape,
                     dataHoraEnc.isEmpty() ? null : dataHoraEnc,
+                    encerramentoMillis,
+                    respostaLivre,
+                    imagens,
+                    opcaoCorreta,
+                    turmas,
+                    this,
                     new EnqueteRepository.OperacaoCallback() {
                         @Override
                         public void onSucesso() {
@@ -275,4 +354,86 @@ public class ConfigurarEnqueteActivity extends AppCompatActivity {
             );
         });
     }
-}
\ No newline at end of file
+
+    private static int idBotaoCorreta(String opcao) {
+        switch (opcao) {
+            case "A":
+                return R.id.rbCorretaA;
+            case "B":
+                return R.id.rbCorretaB;
+            default:
+                return R.id.rbCorretaC;
+        }
+    }
+
+    /**
+     * @return "A", "B" ou "C", ou null se nenhuma opção foi marcada
+     */
+    private static String opcaoDoBotao(int id) {
+        if (id == R.id.rbCorretaA) return "A";
+        if (id == R.id.rbCorretaB) return "B";
+        if (id == R.id.rbCorretaC) return "C";
+        return null;
+    }
+
+    // =====================================================================
+    //  Imagens das opções
+    // =====================================================================
+
+    /**
+     * Toque escolhe uma imagem da galeria para a opção; toque longo remove a imagem.
+     */
+    private void configurarBotoesImagem() {
+        configurarBotaoImagem(btnImagemA, "A");
+        configurarBotaoImagem(btnImagemB, "B");
+        configurarBotaoImagem(btnImagemC, "C");
+    }
+
+    private void configurarBotaoImagem(Button botao, String opcao) {
+        botao.setOnClickListener(v -> {
+            opcaoImagemEscolhida = opcao;
+            escolherImagem.launch("image/*");
+        });
+        botao.setOnLongClickListener(v -> {
+            if (imagens.getPara(opcao) == null) return false;
+            imagens = imagens.com(opcao, null);
+            atualizarBotoesImagem();
+            Toast.makeText(this, "Imagem da opção " + opcao + " removida.", Toast.LENGTH_SHORT).show();
+            return true;
+        });
+    }
+
+    /**
+     * Reduz a imagem escolhida e publica a miniatura; o id só entra na configuração
+     * depois de publicado, então salvar fica desabilitado enquanto isso.
+     */
+    private void publicarImagem(Uri uri) {
+        if (uri == null) return; // seleção cancelada
+        final String opcao = opcaoImagemEscolhida;
+        publicacoesPendentes++;
+        btnSalvarConfig.setEnabled(false);
+
+        CacheImagens.getInstance(this).publicar(getContentResolver(), uri)
+                .addOnCompleteListener(this, tarefa -> {
+                    publicacoesPendentes--;
+                    btnSalvarConfig.setEnabled(publicacoesPendentes == 0);
+                    if (tarefa.isSuccessful()) {
+                        imagens = imagens.com(opcao, tarefa.getResult());
+                        atualizarBotoesImagem();
+                    } else {
+                        Log.e(TAG, "Erro ao publicar imagem: ", tarefa.getException());
+                        Toast.makeText(
+                                this,
+                                "Erro ao enviar a imagem da opção " + opcao + ".",
+                                Toast.LENGTH_SHORT
+                        ).show();
+                    }
+                });
+    }
+
+    private void atualizarBotoesImagem() {
+        btnImagemA.setText(imagens.opcaoA != null ? "Imagem A ✓" : "Imagem A");
+        btnImagemB.setText(imagens.opcaoB != null ? "Imagem B ✓" : "Imagem B");
+        btnImagemC.setText(imagens.opcaoC != null ? "Imagem C ✓" : "Imagem C");
+    }
+}
@@ -1,25 +1,45 @@
 package com.example.a3_teste_paineldevotao;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ListView;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.FileProvider;
 
+import com.example.a3_teste_paineldevotao.data.CadastroAparelhos;
+import com.example.a3_teste_paineldevotao.data.CallbacksCicloDeVida;
+import com.example.a3_teste_paineldevotao.data.EnqueteRepository;
+import com.example.a3_teste_paineldevotao.data.ExportacaoVotos;
 import com.example.a3_teste_paineldevotao.data.FirebaseManager;
+import com.example.a3_teste_paineldevotao.model.DistribuicaoAparelhos;
+import com.example.a3_teste_paineldevotao.model.FiltroVotantes;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.Query;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Tela de uso do professor para listar os votantes.
@@ -30,9 +50,23 @@ public class ListaVotantesActivity extends AppCompatActivity {
 
     private static final String TAG = "ListaVotantes";
 
+    // Opções da barra de filtros
+    private static final String[] OPCOES = {"Todas", "A", "B", "C"};
+    private static final String[] PERIODOS = {"Todo o período", "Últimos 5 min", "Últimos 15 min", "Última hora"};
+    private static final int[] PERIODOS_MINUTOS = {0, 5, 15, 60};
+    private static final String[] ORDENS = {"Mais recentes", "Mais antigos"};
+
     private FirebaseManager firebaseManager;
+    private EnqueteRepository enqueteRepository;
+    private TextView txtDistribuicaoAparelhos;
     private ListView listVotantes;
+    private Spinner spinnerOpcao;
+    private Spinner spinnerPeriodo;
+    private Spinner spinnerOrdem;
+    @Nullable private int[] selecaoCarregada; // filtros da última consulta, para ignorar seleções repetidas
     private Button btnAtualizar;
+    private Button btnExportar;
+    @Nullable private ExportacaoVotos.Exportacao exportacao;
     private ArrayAdapter<String> adapter;
     private final List<String> itens = new ArrayList<>();
 
@@ -44,6 +78,7 @@ public class ListaVotantesActivity extends AppCompatActivity {
 
         configurarToolbar();
         inicializar();
+        carregarDistribuicaoAparelhos();
         carregarVotantes();
     }
 
@@ -65,40 +100,245 @@ public class ListaVotantesActivity extends AppCompatActivity {
 
     private void inicializar() {
         firebaseManager = FirebaseManager.getInstance(this);
+        enqueteRepository = new EnqueteRepository(this);
+        txtDistribuicaoAparelhos = findViewById(R.id.txtDistribuicaoAparelhos);
         listVotantes = findViewById(R.id.listVotantes);
         btnAtualizar = findViewById(R.id.btnAtualizar);
+        btnExportar = findViewById(R.id.btnExportar);
         adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, itens);
         listVotantes.setAdapter(adapter);
+        configurarFiltros();
+
+        btnAtualizar.setOnClickListener(v -> {
+            carregarDistribuicaoAparelhos();
+            carregarVotantes();
+        });
+        btnExportar.setOnClickListener(v -> {
+            if (exportacao != null) {
+                exportacao.cancelar();
+            } else {
+                exportarCsv();
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (exportacao != null) {
+            exportacao.cancelar();
+            exportacao = null;
+        }
+        super.onDestroy();
+    }
+
+    // =====================================================================
+    //  Exportação CSV
+    // =====================================================================
+
+    /**
+     * Exporta todos os votos para CSV em segundo plano; tocar de novo no botão cancela.
+     * O ouvinte fica preso ao ciclo de vida da tela: destruída, ele é solto e não
+     * segura a Activity até a exportação terminar.
+     */
+    private void exportarCsv() {
+        btnExportar.setText("Exportando… (toque para cancelar)");
+        exportacao = new ExportacaoVotos(this).exportar(CallbacksCicloDeVida.vincular(
+                this, ExportacaoVotos.Ouvinte.class, new ExportacaoVotos.Ouvinte() {
+            @Override
+            public void onProgresso(long votosExportados) {
+                if (exportacao == null) return;
+                btnExportar.setText("Exportando… " + votosExportados + " votos (toque para cancelar)");
+            }
+
+            @Override
+            public void onConcluida(File arquivo, long votosExportados) {
+                finalizarExportacao();
+                if (isFinishing()) return;
+                Toast.makeText(ListaVotantesActivity.this,
+                        votosExportados + " votos exportados.", Toast.LENGTH_SHORT).show();
+                compartilhar(arquivo);
+            }
 
-        btnAtualizar.setOnClickListener(v -> carregarVotantes());
+            @Override
+            public void onCancelada() {
+                finalizarExportacao();
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                finalizarExportacao();
+                if (isFinishing()) return;
+                Toast.makeText(ListaVotantesActivity.this,
+                        "Erro ao exportar votos.", Toast.LENGTH_SHORT).show();
+            }
+        }));
+    }
+
+    private void finalizarExportacao() {
+        exportacao = null;
+        btnExportar.setText("Exportar CSV");
+    }
+
+    private void compartilhar(File arquivo) {
+        Uri uri = FileProvider.getUriForFile(this, getPackageName() + ".arquivos", arquivo);
+        Intent envio = new Intent(Intent.ACTION_SEND);
+        envio.setType("text/csv");
+        envio.putExtra(Intent.EXTRA_STREAM, uri);
+        envio.putExtra(Intent.EXTRA_SUBJECT, "Votos da enquete");
+        envio.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(Intent.createChooser(envio, "Compartilhar votos"));
     }
 
+    /**
+     * Resumo de votos por modelo e por versão do Android. Lê só os documentos de
+     * estatísticas (poucos e de tamanho fixo), não a coleção de votos.
+     */
+    private void carregarDistribuicaoAparelhos() {
+        enqueteRepository.carregarDistribuicaoAparelhos(this, new EnqueteRepository.DistribuicaoAparelhosCallback() {
+            @Override
+            public void onDistribuicaoCarregada(DistribuicaoAparelhos distribuicao) {
+                if (isFinishing()) return;
+                if (distribuicao.isVazia()) {
+                    txtDistribuicaoAparelhos.setText("Nenhum voto por aparelho registrado.");
+                    return;
+                }
+                txtDistribuicaoAparelhos.setText("Por modelo: " + resumir(distribuicao.getPorModelo())
+                        + "\nPor versão do Android: " + resumir(distribuicao.getPorVersao()));
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                Log.e(TAG, "Erro ao carregar estatísticas de aparelhos: ", e);
+                if (!isFinishing()) {
+                    txtDistribuicaoAparelhos.setText("Não foi possível carregar os aparelhos.");
+                }
+            }
+        });
+    }
+
+    private static String resumir(List<Map.Entry<String, Long>> contagens) {
+        StringBuilder texto = new StringBuilder();
+        for (Map.Entry<String, Long> item : contagens) {
+            if (texto.length() > 0) texto.append(", ");
+            texto.append(item.getKey()).append(" (").append(item.getValue()).append(")");
+        }
+        return texto.toString();
+    }
+
+    // =====================================================================
+    //  Filtros e lista
+    // =====================================================================
+
+    private void configurarFiltros() {
+        spinnerOpcao = findViewById(R.id.spinnerOpcao);
+        spinnerPeriodo = findViewById(R.id.spinnerPeriodo);
+        spinnerOrdem = findViewById(R.id.spinnerOrdem);
+
+        AdapterView.OnItemSelectedListener aoMudar = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                // O Spinner também avisa a seleção inicial: só recarrega se o filtro mudou
+                if (!Arrays.equals(selecaoCarregada, selecaoAtual())) {
+                    carregarVotantes();
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        };
+        for (Spinner spinner : new Spinner[]{spinnerOpcao, spinnerPeriodo, spinnerOrdem}) {
+            String[] valores = spinner == spinnerOpcao ? OPCOES : spinner == spinnerPeriodo ? PERIODOS : ORDENS;
+            ArrayAdapter<String> valoresAdapter =
+                    new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, valores);
+            valoresAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+            spinner.setAdapter(valoresAdapter);
+            spinner.setOnItemSelectedListener(aoMudar);
+        }
+    }
+
+    private int[] selecaoAtual() {
+        return new int[]{
+                spinnerOpcao.getSelectedItemPosition(),
+                spinnerPeriodo.getSelectedItemPosition(),
+                spinnerOrdem.getSelectedItemPosition()
+        };
+    }
+
+    /**
+     * Filtro montado a partir da barra. O período é contado pelo relógio do servidor,
+     * o mesmo dos timestamps dos votos.
+     */
+    private FiltroVotantes montarFiltro(int[] selecao) {
+        String opcao = selecao[0] > 0 ? OPCOES[selecao[0]] : null;
+        int minutos = PERIODOS_MINUTOS[Math.max(0, selecao[1])];
+        long desde = minutos > 0
+                ? firebaseManager.getRelogioServidor().agora() - minutos * 60_000L
+                : 0;
+        return new FiltroVotantes(opcao, desde, selecao[2] <= 0, FiltroVotantes.LIMITE_PADRAO);
+    }
+
+    /**
+     * Busca só os votos que atendem ao filtro (filtrados, ordenados e limitados no servidor).
+     */
     private void carregarVotantes() {
-        firebaseManager
-                .getEnqueteRef()
-                .collection("votos")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    itens.clear();
-                    SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
-                    for (int i = 0; i < docs.size(); i++) {
-                        DocumentSnapshot doc = docs.get(i);
-                        String nome = "Votante " + (i + 1);
-                        String opcao = doc.getString("opcaoEscolhida");
-                        Timestamp ts = doc.getTimestamp("timestamp");
-                        String data = "—";
-                        if (ts != null) {
-                            Date d = ts.toDate();
-                            data = sdf.format(d);
-                        }
-                        String linha = nome + " - Opção " + (opcao != null ? opcao : "—") + " - " + data;
-                        itens.add(linha);
-                    }
-                    adapter.notifyDataSetChanged();
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "Erro ao carregar votantes: ", e));
+        int[] selecao = selecaoAtual();
+        selecaoCarregada = selecao;
+        FiltroVotantes filtro = montarFiltro(selecao);
+
+        enqueteRepository.buscarVotantes(filtro, this, new EnqueteRepository.VotantesCallback() {
+            @Override
+            public void onVotantesCarregados(List<DocumentSnapshot> docs) {
+                // Cada aparelho é resolvido uma vez (e fica em cache para as próximas cargas)
+                Set<String> aparelhos = new HashSet<>();
+                for (DocumentSnapshot doc : docs) {
+                    String aparelho = doc.getString("aparelho");
+                    if (aparelho != null) aparelhos.add(aparelho);
+                }
+                firebaseManager.getCadastroAparelhos().buscar(aparelhos)
+                        .addOnCompleteListener(ListaVotantesActivity.this, task -> exibirVotantes(docs,
+                                task.isSuccessful() ? task.getResult() : Collections.emptyMap(),
+                                docs.size() >= filtro.getLimite()));
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                Log.e(TAG, "Erro ao carregar votantes: ", e);
+            }
+        });
     }
-}
 
+    private void exibirVotantes(List<DocumentSnapshot> docs,
+                                Map<String, CadastroAparelhos.InfoAparelho> aparelhos,
+                                boolean limiteAtingido) {
+        itens.clear();
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
+        for (int i = 0; i < docs.size(); i++) {
+            DocumentSnapshot doc = docs.get(i);
+            String nome = "Votante " + (i + 1);
+            String opcao = doc.getString("opcaoEscolhida");
+            Timestamp ts = doc.getTimestamp("timestamp");
+            String data = "—";
+            if (ts != null) {
+                Date d = ts.toDate();
+                data = sdf.format(d);
+            }
+            String linha = nome + " - Opção " + (opcao != null ? opcao : "—") + " - " + data;
+
+            // Votos antigos trazem o modelo no próprio documento; os novos, só o id do aparelho
+            String modelo = doc.getString("deviceModel");
+            String aparelho = doc.getString("aparelho");
+            if (modelo == null && aparelho != null && aparelhos.containsKey(aparelho)) {
+                modelo = aparelhos.get(aparelho).deviceModel;
+            }
+            if (modelo != null) {
+                linha += " - " + modelo;
+            }
+            itens.add(linha);
+        }
+        if (limiteAtingido) {
+            itens.add("Mostrando os primeiros " + docs.size() + " votos. Use os filtros para ver outros.");
+        }
+        adapter.notifyDataSetChanged();
+    }
+}
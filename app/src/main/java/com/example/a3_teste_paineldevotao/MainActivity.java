@@ -1,11 +1,18 @@
 package com.example.a3_teste_paineldevotao;
 
 import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.InputType;
+import android.text.TextUtils;
+import android.util.TypedValue;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageButton;
@@ -14,23 +21,38 @@ import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.ViewModelProvider;
 
+import com.example.a3_teste_paineldevotao.data.CacheImagens;
+import com.example.a3_teste_paineldevotao.data.CallbacksCicloDeVida;
+import com.example.a3_teste_paineldevotao.data.Classificacao;
+import com.example.a3_teste_paineldevotao.data.ContagemTurmas;
 import com.example.a3_teste_paineldevotao.data.EnqueteRepository;
 import com.example.a3_teste_paineldevotao.data.FirebaseManager;
+import com.example.a3_teste_paineldevotao.data.HistoricoVotos;
+import com.example.a3_teste_paineldevotao.data.RelogioServidor;
+import com.example.a3_teste_paineldevotao.data.ResumoPalavras;
 import com.example.a3_teste_paineldevotao.model.Enquete;
+import com.example.a3_teste_paineldevotao.model.EstadoTelaEnquete;
+import com.example.a3_teste_paineldevotao.model.ImagensOpcoes;
 import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.ListenerRegistration;
 
 import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.List;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * Tela principal do aplicativo (Painel de Votação).
@@ -42,15 +64,34 @@ import java.util.Locale;
  * - Exibir qual foi o voto do usuário.
  * - Permitir reset da enquete (com código de professor).
  * - Permitir acesso à tela de configuração da enquete (menu).
+ * - Modo quiosque: um tablet compartilhado registra uma cédula por toque.
+ * - Modo agregador: o aparelho do professor apura os votos (menu).
+ * - Resposta livre: o aluno digita uma palavra e a tela mostra a nuvem das mais frequentes.
+ * - Quiz: classificação dos alunos por pontos (apelido e zerar pontuação pelo menu).
+ * - Turmas: contagem de cada turma abaixo do total combinado (turma do aparelho pelo menu).
  *
- * Toda a lógica de Firestore está encapsulada em EnqueteRepository e FirebaseManager.
+ * Toda a lógica de Firestore está encapsulada em EnqueteRepository e FirebaseManager,
+ * e o estado da tela fica no PainelVotacaoViewModel (sobrevive à rotação).
  * Aqui focamos na parte de UI e fluxo de tela.
  */
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "PainelVotacao";
 
+    // Palavras exibidas na nuvem de respostas livres
+    private static final int PALAVRAS_NA_NUVEM = 30;
+
+    // Lado do ícone das opções com imagem; as miniaturas são decodificadas já neste tamanho
+    private static final int LADO_IMAGEM_OPCAO_DP = 48;
+
     private Enquete enqueteAtual; // mantemos a última enquete para validações locais
+    @Nullable private List<String> turmasExibidas; // lista de turmas da última enquete exibida
+
+    // Encerramento agendado: um único callback desabilita os botões no instante exato
+    private final Handler handlerEncerramento = new Handler(Looper.getMainLooper());
+    private final Runnable encerrarVotacao = this::verificarEncerramento;
+    private long encerramentoAgendadoMillis;
+    private boolean votacaoEncerrada;
 
     // =====================================================================
     //  Componentes de interface
@@ -64,26 +105,39 @@ public class MainActivity extends AppCompatActivity {
     private TextView txtTotalB;
     private TextView txtTotalC;
     private TextView txtTotalGeral;
+    private TextView txtTurmas;
+    private TextView txtClassificacao;
     private TextView txtSeuVoto;
     private TextView txtDataVoto;
     private TextView txtUid;
     private TextView txtDeviceModel;
     private TextView txtAndroidVersion;
     private TextView txtRodape;
+    private VinculadorEnquete vinculadorEnquete;
 
-    private Button btnVotarA;
-    private Button btnVotarB;
-    private Button btnVotarC;
+    private MaterialButton btnVotarA;
+    private MaterialButton btnVotarB;
+    private MaterialButton btnVotarC;
     private Button btnReset;
 
+    // Resposta livre (substitui as opções A/B/C quando a enquete está nesse modo)
+    private View layoutRespostaLivre;
+    private EditText edtResposta;
+    private Button btnEnviarResposta;
+    private NuvemPalavrasView nuvemPalavras;
+    private TextView txtTotalRespostas;
+    private boolean modoRespostaLivre;
+    private ImagensOpcoes imagensExibidas = ImagensOpcoes.NENHUMA;
+
     // =====================================================================
     //  Firebase / Repositório
     // =====================================================================
 
-    private FirebaseManager firebaseManager;
     private FirebaseAuth auth;
-    private EnqueteRepository enqueteRepository;
-    private ListenerRegistration resultadosListener;
+    private RelogioServidor relogioServidor;
+
+    // Estado da enquete, listener e voto ficam no ViewModel (sobrevivem à rotação)
+    private PainelVotacaoViewModel viewModel;
 
     // =====================================================================
     //  Ciclo de vida
@@ -100,6 +154,7 @@ public class MainActivity extends AppCompatActivity {
 
         inicializarFirebase();
         inicializarViews();
+        observarViewModel();
         fazerLoginAnonimo();
         configurarBotoes();
     }
@@ -108,30 +163,23 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
 
-        // Reforço: carrega estado atual da enquete ao voltar para a tela
-        enqueteRepository.carregarEnquete(new EnqueteRepository.EnqueteCarregadaCallback() {
-            @Override
-            public void onEnqueteCarregada(Enquete enquete) {
-                atualizarUIComEnquete(enquete);
-            }
-
-            @Override
-            public void onErro(Exception e) {
-                Log.e(TAG, "Erro ao carregar enquete (onResume): ", e);
-            }
-        });
+        // Reforço: se o listener em tempo real ainda não está ativo (ex.: login em andamento),
+        // carrega enquete e voto uma vez. Em rotação o ViewModel já tem tudo e nada é lido.
+        viewModel.atualizarSeNecessario();
+    }
 
-        carregarVotoUsuario();
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Modo quiosque: não deixa cédulas esperando o intervalo com o app saindo de cena
+        viewModel.enviarCedulasPendentes();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Remove listener em tempo real para evitar leaks
-        if (resultadosListener != null) {
-            resultadosListener.remove();
-            resultadosListener = null;
-        }
+        handlerEncerramento.removeCallbacks(encerrarVotacao);
+        // O listener em tempo real pertence ao ViewModel e é removido em onCleared()
     }
 
     // =====================================================================
@@ -180,53 +228,259 @@ public class MainActivity extends AppCompatActivity {
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        MenuItem quiosque = menu.findItem(R.id.menu_modo_quiosque);
+        if (quiosque != null) {
+            quiosque.setChecked(viewModel.isModoQuiosque());
+        }
+        MenuItem agregador = menu.findItem(R.id.menu_modo_agregador);
+        if (agregador != null) {
+            agregador.setChecked(viewModel.isModoAgregador());
+        }
+        MenuItem servidorLocal = menu.findItem(R.id.menu_servidor_local);
+        if (servidorLocal != null) {
+            servidorLocal.setChecked(viewModel.isServidorLocalAtivo());
+        }
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     /**
-     * Menu superior da tela principal.
-     * Aqui só temos a opção de ir para "Configurar enquete".
+     * Menu superior da tela principal:
+     * "Atualizar resultados", "Configurar enquete", "Lista de votantes",
+     * "Modo quiosque", "Modo agregador", "Servidor na rede local",
+     * "Recontar pelo histórico", "Minha turma", "Meu apelido no quiz" e
+     * "Zerar pontuação do quiz".
      */
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
-        if (item.getItemId() == R.id.menu_configurar_enquete) {
+        if (item.getItemId() == R.id.menu_atualizar_resultados) {
+            viewModel.atualizarResultados();
+            return true;
+        } else if (item.getItemId() == R.id.menu_configurar_enquete) {
             Intent intent = new Intent(MainActivity.this, ConfigurarEnqueteActivity.class);
             startActivity(intent);
             return true;
         } else if (item.getItemId() == R.id.menu_lista_votantes) {
             // Protegido pela mesma senha usada no reset
-            AlertDialog.Builder builder = new AlertDialog.Builder(this);
-            builder.setTitle("Acesso do professor");
-            builder.setMessage("Digite o código do professor:");
-
-            final EditText input = new EditText(this);
-            input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
-            builder.setView(input);
-
-            builder.setPositiveButton("Confirmar", (dialog, which) -> {
-                if ("1234".equals(input.getText().toString().trim())) {
-                    Intent intent = new Intent(MainActivity.this, ListaVotantesActivity.class);
-                    startActivity(intent);
-                } else {
-                    Toast.makeText(this, "Código incorreto.", Toast.LENGTH_SHORT).show();
-                }
+            pedirCodigoProfessor(() -> {
+                Intent intent = new Intent(MainActivity.this, ListaVotantesActivity.class);
+                startActivity(intent);
             });
+            return true;
+        } else if (item.getItemId() == R.id.menu_modo_quiosque) {
+            // Ligar/desligar o quiosque também exige o código, para os alunos não mexerem
+            boolean ativar = !viewModel.isModoQuiosque();
+            pedirCodigoProfessor(() -> {
+                viewModel.setModoQuiosque(ativar);
+                invalidateOptionsMenu();
+                exibirVotoUsuario(viewModel.getVotoUsuario().getValue());
+                Toast.makeText(this,
+                        ativar ? "Modo quiosque ativado." : "Modo quiosque desativado.",
+                        Toast.LENGTH_SHORT).show();
+            });
+            return true;
+        } else if (item.getItemId() == R.id.menu_modo_agregador) {
+            // Este aparelho passa a contar os votos; os alunos deixam de mexer nos contadores
+            boolean ativar = !viewModel.isModoAgregador();
+            pedirCodigoProfessor(() -> viewModel.setModoAgregador(ativar, this,
+                    new EnqueteRepository.OperacaoCallback() {
+                        @Override
+                        public void onSucesso() {
+                            invalidateOptionsMenu();
+                            Toast.makeText(MainActivity.this,
+                                    ativar ? "Este aparelho agora apura os votos."
+                                            : "Modo agregador desativado.",
+                                    Toast.LENGTH_SHORT).show();
+                        }
 
-            builder.setNegativeButton("Cancelar", (dialog, which) -> dialog.dismiss());
-            builder.show();
+                        @Override
+                        public void onErro(Exception e) {
+                            Log.e(TAG, "Erro ao alterar o modo agregador: ", e);
+                            invalidateOptionsMenu();
+                            Toast.makeText(MainActivity.this,
+                                    "Não foi possível alterar o modo agregador.",
+                                    Toast.LENGTH_SHORT).show();
+                        }
+                    }));
+            return true;
+        } else if (item.getItemId() == R.id.menu_servidor_local) {
+            // Os alunos na mesma rede passam a receber os resultados deste aparelho
+            boolean ativar = !viewModel.isServidorLocalAtivo();
+            pedirCodigoProfessor(() -> {
+                String endereco = viewModel.setServidorLocal(ativar);
+                invalidateOptionsMenu();
+                String mensagem = !ativar ? "Servidor local desligado."
+                        : endereco != null ? "Resultados na rede local em " + endereco + "."
+                        : "Sem rede local disponível.";
+                Toast.makeText(this, mensagem, Toast.LENGTH_SHORT).show();
+            });
+            return true;
+        } else if (item.getItemId() == R.id.menu_recontar_historico) {
+            pedirCodigoProfessor(this::recontarPeloHistorico);
+            return true;
+        } else if (item.getItemId() == R.id.menu_turma) {
+            mostrarDialogoTurma(null);
+            return true;
+        } else if (item.getItemId() == R.id.menu_apelido) {
+            mostrarDialogoApelido();
+            return true;
+        } else if (item.getItemId() == R.id.menu_zerar_pontuacoes) {
+            pedirCodigoProfessor(this::zerarPontuacoes);
             return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Reconstrói os contadores pelo histórico de eventos e mostra, lado a lado,
+     * os contadores atuais da enquete.
+     */
+    private void recontarPeloHistorico() {
+        viewModel.recontarPeloHistorico(this, new EnqueteRepository.RecontagemCallback() {
+            @Override
+            public void onRecontagem(HistoricoVotos.Recontagem recontagem) {
+                if (isFinishing()) return;
+                StringBuilder mensagem = new StringBuilder();
+                mensagem.append("Histórico: A=").append(recontagem.opcaoA)
+                        .append(", B=").append(recontagem.opcaoB)
+                        .append(", C=").append(recontagem.opcaoC);
+                if (enqueteAtual != null) {
+                    mensagem.append("\nContadores: A=").append(enqueteAtual.getOpcaoA())
+                            .append(", B=").append(enqueteAtual.getOpcaoB())
+                            .append(", C=").append(enqueteAtual.getOpcaoC());
+                }
+                mensagem.append("\n\n").append(recontagem.eventosLidos)
+                        .append(" eventos lidos desde a última compactação.");
+                if (recontagem.compactou) mensagem.append(" Histórico compactado.");
+
+                new AlertDialog.Builder(MainActivity.this)
+                        .setTitle("Recontagem pelo histórico")
+                        .setMessage(mensagem)
+                        .setPositiveButton("OK", null)
+                        .show();
+            }
+
+            @Override
+            public void onErro(Exception e) {
+                Log.e(TAG, "Erro ao recontar pelo histórico: ", e);
+                Toast.makeText(MainActivity.this,
+                        "Erro ao ler o histórico.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * Escolha da turma deste aparelho entre as turmas da enquete (vale a partir do próximo voto).
+     *
+     * @param depois executado após a escolha (ex.: o voto que pediu a turma), ou null
+     */
+    private void mostrarDialogoTurma(@Nullable Runnable depois) {
+        if (enqueteAtual == null || !enqueteAtual.isPorTurma()) {
+            Toast.makeText(this, "Esta enquete não é separada por turma.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        List<String> turmas = enqueteAtual.getTurmas();
+        String[] nomes = turmas.toArray(new String[0]);
+
+        new AlertDialog.Builder(this)
+                .setTitle("Minha turma")
+                .setSingleChoiceItems(nomes, turmas.indexOf(viewModel.getTurma()), (dialog, escolhida) -> {
+                    viewModel.setTurma(nomes[escolhida]);
+                    dialog.dismiss();
+                    exibirTurmas(viewModel.getTurmas().getValue());
+                    if (depois != null) depois.run();
+                })
+                .setNegativeButton("Cancelar", null)
+                .show();
+    }
+
+    /**
+     * Apelido do aluno na classificação do quiz (vale a partir do próximo voto).
+     */
+    private void mostrarDialogoApelido() {
+        final EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_TEXT);
+        input.setText(viewModel.getApelido());
+
+        new AlertDialog.Builder(this)
+                .setTitle("Meu apelido no quiz")
+                .setView(input)
+                .setPositiveButton("Salvar", (dialog, which) -> {
+                    viewModel.setApelido(input.getText().toString());
+                    Toast.makeText(this, "Apelido salvo.", Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("Cancelar", null)
+                .show();
+    }
+
+    private void zerarPontuacoes() {
+        viewModel.zerarPontuacoes(this, new EnqueteRepository.OperacaoCallback() {
+            @Override
+            public void onSucesso() {
+                Toast.makeText(MainActivity.this,
+                        "Pontuação do quiz zerada.", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onErro(Exception e) {
+                Log.e(TAG, "Erro ao zerar pontuação: ", e);
+                Toast.makeText(MainActivity.this,
+                        "Erro ao zerar pontuação.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * Pede o código do professor e executa a ação se estiver correto.
+     */
+    private void pedirCodigoProfessor(Runnable aoConfirmar) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Acesso do professor");
+        builder.setMessage("Digite o código do professor:");
+
+        final EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        builder.setView(input);
+
+        builder.setPositiveButton("Confirmar", (dialog, which) -> {
+            if ("1234".equals(input.getText().toString().trim())) {
+                aoConfirmar.run();
+            } else {
+                Toast.makeText(this, "Código incorreto.", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        builder.setNegativeButton("Cancelar", (dialog, which) -> dialog.dismiss());
+        builder.show();
+    }
+
     // =====================================================================
     //  Inicialização (Firebase, Views, Login)
     // =====================================================================
 
     /**
-     * Inicializa FirebaseManager, FirebaseAuth e EnqueteRepository.
+     * Inicializa FirebaseAuth, o relógio do servidor e o ViewModel da tela.
      */
     private void inicializarFirebase() {
-        firebaseManager = FirebaseManager.getInstance(this);
+        FirebaseManager firebaseManager = FirebaseManager.getInstance(this);
         auth = firebaseManager.getAuth();
-        enqueteRepository = new EnqueteRepository(this);
+        relogioServidor = firebaseManager.getRelogioServidor();
+        viewModel = new ViewModelProvider(this).get(PainelVotacaoViewModel.class);
+    }
+
+    /**
+     * Liga os dados do ViewModel às Views. Após uma rotação, os últimos valores
+     * são reentregues imediatamente, sem nova consulta ao Firestore.
+     */
+    private void observarViewModel() {
+        viewModel.getEnquete().observe(this, this::atualizarUIComEnquete);
+        viewModel.getVotoUsuario().observe(this, this::exibirVotoUsuario);
+        viewModel.getCedulasPendentes().observe(this,
+                pendentes -> exibirVotoUsuario(viewModel.getVotoUsuario().getValue()));
+        viewModel.getRespostasLivres().observe(this, this::exibirRespostasLivres);
+        viewModel.getClassificacao().observe(this, this::exibirClassificacao);
+        viewModel.getTurmas().observe(this, this::exibirTurmas);
     }
 
     /**
@@ -241,6 +495,8 @@ public class MainActivity extends AppCompatActivity {
         txtTotalB = findViewById(R.id.txtTotalB);
         txtTotalC = findViewById(R.id.txtTotalC);
         txtTotalGeral = findViewById(R.id.txtTotalGeral);
+        txtTurmas = findViewById(R.id.txtTurmas);
+        txtClassificacao = findViewById(R.id.txtClassificacao);
         txtSeuVoto = findViewById(R.id.txtSeuVoto);
         txtDataVoto = findViewById(R.id.txtDataVoto);
         txtUid = findViewById(R.id.txtUid);
@@ -252,6 +508,18 @@ public class MainActivity extends AppCompatActivity {
         btnVotarB = findViewById(R.id.btnVotarB);
         btnVotarC = findViewById(R.id.btnVotarC);
         btnReset = findViewById(R.id.btnReset);
+
+        layoutRespostaLivre = findViewById(R.id.layoutRespostaLivre);
+        edtResposta = findViewById(R.id.edtResposta);
+        btnEnviarResposta = findViewById(R.id.btnEnviarResposta);
+        nuvemPalavras = findViewById(R.id.nuvemPalavras);
+        txtTotalRespostas = findViewById(R.id.txtTotalRespostas);
+
+        vinculadorEnquete = new VinculadorEnquete(
+                txtPergunta::setText,
+                btnVotarA::setText, btnVotarB::setText, btnVotarC::setText,
+                txtTotalA::setText, txtTotalB::setText, txtTotalC::setText,
+                txtTotalGeral::setText, txtRodape::setText);
     }
 
     /**
@@ -290,40 +558,11 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Configura o estado da tela após garantir que o usuário está logado:
-     * - Garante documento inicial da enquete.
-     * - Inicia listener em tempo real para os resultados.
-     * - Carrega o voto atual do usuário.
+     * Configura o estado da tela após garantir que o usuário está logado.
+     * O ViewModel faz a inicialização apenas uma vez (não se repete em rotação).
      */
     private void configurarPosLogin() {
-        // Garante que o documento da enquete exista
-        enqueteRepository.inicializarSeNecessario();
-
-        // Começa a ouvir as mudanças em tempo real da enquete
-        configurarListenerResultados();
-
-        // Atualiza a informação "Seu voto" na tela
-        carregarVotoUsuario();
-    }
-
-    /**
-     * Configura um listener em tempo real para acompanhar mudanças
-     * nos resultados da enquete.
-     */
-    private void configurarListenerResultados() {
-        resultadosListener = enqueteRepository.observarEnquete(new EnqueteRepository.EnqueteListener() {
-            @Override
-            public void onEnqueteAtualizada(Enquete enquete) {
-                atualizarUIComEnquete(enquete);
-            }
-
-            @Override
-            public void onErro(Exception e) {
-                if (e != null) {
-                    Log.e(TAG, "Erro no listener da enquete: ", e);
-                }
-            }
-        });
+        viewModel.iniciar();
     }
 
     // =====================================================================
@@ -335,79 +574,236 @@ public class MainActivity extends AppCompatActivity {
      * - Pergunta
      * - Texto dos botões de voto
      * - Contadores de votos e porcentagens
+     *
+     * A comparação com o estado anterior fica no {@link VinculadorEnquete}.
      */
     private void atualizarUIComEnquete(Enquete enquete) {
-        if (enquete == null) return;
+        if (enquete == null || enquete.equals(enqueteAtual)) return; // snapshot repetido
         this.enqueteAtual = enquete;
 
-        // Textos dinâmicos
-        if (enquete.getTituloEnquete() != null) {
-            txtPergunta.setText(enquete.getTituloEnquete());
+        // Só as Views cujo texto mudou são tocadas
+        vinculadorEnquete.aplicar(EstadoTelaEnquete.de(enquete));
+        alternarRespostaLivre(enquete.isRespostaLivre());
+        exibirImagensOpcoes(enquete.getImagens());
+        // A maioria dos snapshots é só contador: a lista de turmas é refeita quando ela muda
+        if (!enquete.getTurmas().equals(turmasExibidas)) {
+            turmasExibidas = enquete.getTurmas();
+            exibirTurmas(viewModel.getTurmas().getValue());
+        }
+
+        agendarEncerramento(enquete.getEncerramentoMillis());
+    }
+
+    /**
+     * Troca as opções A/B/C e seus resultados pelo campo de resposta e a nuvem de palavras.
+     */
+    private void alternarRespostaLivre(boolean ativo) {
+        if (ativo == modoRespostaLivre) return;
+        modoRespostaLivre = ativo;
+        int opcoes = ativo ? View.GONE : View.VISIBLE;
+        btnVotarA.setVisibility(opcoes);
+        btnVotarB.setVisibility(opcoes);
+        btnVotarC.setVisibility(opcoes);
+        txtTituloResultados.setVisibility(opcoes);
+        txtTotalA.setVisibility(opcoes);
+        txtTotalB.setVisibility(opcoes);
+        txtTotalC.setVisibility(opcoes);
+        txtTotalGeral.setVisibility(opcoes);
+        layoutRespostaLivre.setVisibility(ativo ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Coloca a miniatura de cada opção como ícone do botão (só quando os ids mudam).
+     * A imagem chega de forma assíncrona: o id guardado na tag do botão descarta
+     * uma resposta que chegue depois de a imagem ter sido trocada de novo.
+     */
+    private void exibirImagensOpcoes(ImagensOpcoes imagens) {
+        if (imagens.equals(imagensExibidas)) return;
+        imagensExibidas = imagens;
+        int lado = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                LADO_IMAGEM_OPCAO_DP, getResources().getDisplayMetrics());
+        exibirImagemOpcao(btnVotarA, imagens.opcaoA, lado);
+        exibirImagemOpcao(btnVotarB, imagens.opcaoB, lado);
+        exibirImagemOpcao(btnVotarC, imagens.opcaoC, lado);
+    }
+
+    private void exibirImagemOpcao(MaterialButton botao, String id, int lado) {
+        botao.setTag(id);
+        if (id == null) {
+            botao.setIcon(null);
+            return;
+        }
+        CacheImagens.getInstance(this).carregar(id, lado, lado, CallbacksCicloDeVida.vincular(
+                this, CacheImagens.Ouvinte.class, new CacheImagens.Ouvinte() {
+            @Override
+            public void onImagemCarregada(String carregada, Bitmap imagem) {
+                if (!carregada.equals(botao.getTag())) return;
+                botao.setIconTint(null); // mantém as cores da imagem
+                botao.setIconSize(lado);
+                botao.setIconGravity(MaterialButton.ICON_GRAVITY_TEXT_START);
+                botao.setIcon(new BitmapDrawable(getResources(), imagem));
+            }
+
+            @Override
+            public void onErro(String falhou, Exception e) {
+                // Sem a imagem a opção continua utilizável pelo texto
+                Log.w(TAG, "Falha ao carregar a imagem " + falhou, e);
+            }
+        }));
+    }
+
+    /**
+     * Lista a contagem de cada turma, na ordem da configuração (null = enquete sem turmas).
+     * O total combinado já está nos contadores acima; "Sem turma" e turmas retiradas da
+     * configuração aparecem no fim se tiverem votos.
+     */
+    private void exibirTurmas(ContagemTurmas contagem) {
+        if (contagem == null || enqueteAtual == null) {
+            txtTurmas.setVisibility(View.GONE);
+            return;
         }
-        if (enquete.getTextoOpcaoA() != null) {
-            btnVotarA.setText(enquete.getTextoOpcaoA());
+        StringBuilder texto = new StringBuilder("Por turma");
+        Set<String> exibidas = new HashSet<>();
+        String minha = viewModel.getTurma();
+        for (String nome : enqueteAtual.getTurmas()) {
+            String id = ContagemTurmas.idDaTurma(nome);
+            exibidas.add(id);
+            ContagemTurmas.Turma turma = contagem.getTurma(id);
+            linhaTurma(texto, nome, turma != null ? turma : new ContagemTurmas.Turma(id, nome, 0, 0, 0),
+                    nome.equals(minha));
         }
-        if (enquete.getTextoOpcaoB() != null) {
-            btnVotarB.setText(enquete.getTextoOpcaoB());
+        for (ContagemTurmas.Turma turma : contagem.getTurmas()) {
+            if (!exibidas.contains(turma.id)) linhaTurma(texto, turma.nome, turma, false);
         }
-        if (enquete.getTextoOpcaoC() != null) {
-            btnVotarC.setText(enquete.getTextoOpcaoC());
+        // Texto igual ao já exibido: não refaz o layout do TextView
+        if (!TextUtils.equals(texto, txtTurmas.getText())) txtTurmas.setText(texto);
+        txtTurmas.setVisibility(View.VISIBLE);
+    }
+
+    private static void linhaTurma(StringBuilder texto, String nome, ContagemTurmas.Turma turma,
+                                   boolean minha) {
+        texto.append('\n').append(nome).append(": A=").append(turma.opcaoA)
+                .append(", B=").append(turma.opcaoB)
+                .append(", C=").append(turma.opcaoC)
+                .append(" (").append(turma.getTotal()).append(')');
+        if (minha) texto.append(" (sua turma)");
+    }
+
+    /**
+     * Lista os primeiros do quiz (null = fora do modo quiz, a lista some).
+     */
+    private void exibirClassificacao(Classificacao classificacao) {
+        if (classificacao == null) {
+            txtClassificacao.setVisibility(View.GONE);
+            return;
+        }
+        StringBuilder texto = new StringBuilder("Classificação do quiz");
+        List<Classificacao.Entrada> entradas = classificacao.getEntradas();
+        if (entradas.isEmpty()) texto.append("\nNinguém pontuou ainda.");
+        String eu = FirebaseManager.getInstance(this).getCurrentVoterId();
+        for (int i = 0; i < entradas.size(); i++) {
+            Classificacao.Entrada e = entradas.get(i);
+            texto.append('\n').append(i + 1).append(". ").append(e.nome)
+                    .append(" — ").append(e.pontos).append(e.pontos == 1 ? " ponto" : " pontos");
+            if (e.id.equals(eu)) texto.append(" (você)");
+        }
+        txtClassificacao.setText(texto);
+        txtClassificacao.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Atualiza a nuvem com as palavras mais frequentes do resumo (null = sem respostas).
+     */
+    private void exibirRespostasLivres(ResumoPalavras resumo) {
+        if (resumo == null || resumo.getTotal() == 0) {
+            nuvemPalavras.setPalavras(Collections.emptyList());
+            txtTotalRespostas.setText("Nenhuma resposta ainda");
+            return;
         }
+        nuvemPalavras.setPalavras(resumo.getMaisFrequentes(PALAVRAS_NA_NUVEM));
+        txtTotalRespostas.setText("Total de respostas: " + resumo.getTotal());
+    }
 
-        long votosA = enquete.getOpcaoA();
-        long votosB = enquete.getOpcaoB();
-        long votosC = enquete.getOpcaoC();
-        long total = votosA + votosB + votosC;
+    // =====================================================================
+    //  Encerramento da votação
+    // =====================================================================
 
-        long percA = (total > 0) ? (votosA * 100 / total) : 0;
-        long percB = (total > 0) ? (votosB * 100 / total) : 0;
-        long percC = (total > 0) ? (votosC * 100 / total) : 0;
+    /**
+     * Agenda (ou reagenda) o encerramento da votação.
+     * Só faz algo quando o horário de encerramento realmente mudou no snapshot.
+     *
+     * @param encerramentoMillis horário de encerramento (servidor), 0 = sem encerramento
+     */
+    private void agendarEncerramento(long encerramentoMillis) {
+        if (encerramentoMillis == encerramentoAgendadoMillis) return;
 
-        txtTotalA.setText("Opção A: " + votosA + " votos (" + percA + "%)");
-        txtTotalB.setText("Opção B: " + votosB + " votos (" + percB + "%)");
-        txtTotalC.setText("Opção C: " + votosC + " votos (" + percC + "%)");
-        txtTotalGeral.setText("Total de votos: " + total);
+        handlerEncerramento.removeCallbacks(encerrarVotacao);
+        encerramentoAgendadoMillis = encerramentoMillis;
+        votacaoEncerrada = false;
+        habilitarBotoesVoto(true);
 
-        // Mensagem de rodapé (se existir)
-        String rodape = enquete.getMensagemRodape();
-        if (rodape != null && !rodape.trim().isEmpty()) {
-            txtRodape.setText(rodape);
-        } else {
-            txtRodape.setText("");
+        if (encerramentoMillis > 0) {
+            verificarEncerramento();
         }
     }
 
     /**
-     * Carrega do Firestore qual opção o usuário já votou (se houver)
-     * e atualiza os textos "Seu voto", "Data do voto" e "Seu UID".
-     * Leitura pontual: chamada no onResume para refletir o estado atual
-     * sem manter um listener dedicado para esses dados.
+     * Encerra a votação se o horário (corrigido pelo servidor) já passou;
+     * caso contrário, agenda nova verificação para o tempo restante.
+     * A reverificação cobre o caso do aparelho ter dormido, já que o Handler
+     * conta apenas o tempo acordado.
      */
-    private void carregarVotoUsuario() {
-        enqueteRepository.carregarVotoUsuario(info -> {
-            if (info != null && info.opcaoEscolhida != null) {
-                txtSeuVoto.setText("Seu voto: opção " + info.opcaoEscolhida);
-            } else {
-                txtSeuVoto.setText("Seu voto: ainda não votou");
-            }
+    private void verificarEncerramento() {
+        long restante = encerramentoAgendadoMillis - relogioServidor.agora();
+        if (restante > 0) {
+            handlerEncerramento.postDelayed(encerrarVotacao, restante);
+            return;
+        }
+        votacaoEncerrada = true;
+        habilitarBotoesVoto(false);
+        txtSeuVoto.setText("Votação encerrada.");
+    }
 
-            // Formata Timestamp -> Date -> String legível
-            String dataFormatada = "—";
-            if (info != null && info.timestamp != null) {
-                Date d = info.timestamp.toDate(); // conforme requisito
-                SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-                dataFormatada = sdf.format(d);
-            }
-            txtDataVoto.setText("Data do voto: " + dataFormatada);
+    private void habilitarBotoesVoto(boolean habilitar) {
+        btnVotarA.setEnabled(habilitar);
+        btnVotarB.setEnabled(habilitar);
+        btnVotarC.setEnabled(habilitar);
+        btnEnviarResposta.setEnabled(habilitar);
+    }
 
-            String uidText = (info != null && info.voterId != null) ? info.voterId : "—";
-            txtUid.setText("Seu UID: " + uidText);
+    /**
+     * Preenche "Seu voto", "Data do voto", "Seu UID" e dados do aparelho.
+     *
+     * @param info voto carregado ou null se o usuário ainda não votou
+     */
+    private void exibirVotoUsuario(EnqueteRepository.VotoUsuarioInfo info) {
+        if (viewModel.isModoQuiosque()) {
+            Integer pendentes = viewModel.getCedulasPendentes().getValue();
+            txtSeuVoto.setText("Modo quiosque: "
+                    + (pendentes != null ? pendentes : 0) + " cédula(s) aguardando envio");
+        } else if (info != null && info.opcaoEscolhida != null) {
+            txtSeuVoto.setText("Seu voto: opção " + info.opcaoEscolhida
+                    + (info.pendente ? " (enviando…)" : ""));
+        } else {
+            txtSeuVoto.setText("Seu voto: ainda não votou");
+        }
 
-            String modelText = (info != null && info.deviceModel != null) ? info.deviceModel : "—";
-            String verText = (info != null && info.androidVersion != null) ? info.androidVersion : "—";
-            txtDeviceModel.setText("Modelo: " + modelText);
-            txtAndroidVersion.setText("Android: " + verText);
-        });
+        // Formata Timestamp -> Date -> String legível
+        String dataFormatada = "—";
+        if (info != null && info.timestamp != null) {
+            Date d = info.timestamp.toDate(); // conforme requisito
+            SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
+            dataFormatada = sdf.format(d);
+        }
+        txtDataVoto.setText("Data do voto: " + dataFormatada);
+
+        String uidText = (info != null && info.voterId != null) ? info.voterId : "—";
+        txtUid.setText("Seu UID: " + uidText);
+
+        String modelText = (info != null && info.deviceModel != null) ? info.deviceModel : "—";
+        String verText = (info != null && info.androidVersion != null) ? info.androidVersion : "—";
+        txtDeviceModel.setText("Modelo: " + modelText);
+        txtAndroidVersion.setText("Android: " + verText);
     }
 
     // =====================================================================
@@ -422,45 +818,60 @@ public class MainActivity extends AppCompatActivity {
         btnVotarB.setOnClickListener(v -> registrarVoto("B"));
         btnVotarC.setOnClickListener(v -> registrarVoto("C"));
         btnReset.setOnClickListener(v -> mostrarDialogoReset());
+        btnEnviarResposta.setOnClickListener(v -> enviarResposta());
+    }
+
+    /**
+     * Encerramento já calculado a partir do snapshot: nenhuma requisição é feita após o prazo.
+     * Se encerrada, avisa o usuário.
+     */
+    private boolean avisarSeEncerrada() {
+        if (votacaoEncerrada
+                || (encerramentoAgendadoMillis > 0 && relogioServidor.agora() >= encerramentoAgendadoMillis)) {
+            Toast.makeText(
+                    MainActivity.this,
+                    "Votação encerrada pelo professor.",
+                    Toast.LENGTH_SHORT
+            ).show();
+            txtSeuVoto.setText("Votação encerrada.");
+            return true;
+        }
+        return false;
     }
 
     /**
      * Envia a opção selecionada para o EnqueteRepository registrar o voto.
      */
     private void registrarVoto(String opcao) {
-        // Verificação local de encerramento da votação com base no horário do dispositivo.
-        // Em sistemas reais, o ideal é usar horário do servidor para evitar inconsistências.
-        if (enqueteAtual != null && enqueteAtual.getDataHoraEncerramento() != null) {
-            String fimStr = enqueteAtual.getDataHoraEncerramento().trim();
-            if (!fimStr.isEmpty()) {
-                try {
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-                    Date fim = sdf.parse(fimStr);
-                    if (fim != null && (new Date().equals(fim) || new Date().after(fim))) {
-                        Toast.makeText(
-                                MainActivity.this,
-                                "Votação encerrada pelo professor.",
-                                Toast.LENGTH_SHORT
-                        ).show();
-                        txtSeuVoto.setText("Votação encerrada.");
-                        return;
-                    }
-                } catch (Exception ignored) {
-                }
-            }
+        if (avisarSeEncerrada()) return;
+        // Enquete por turma e turma ainda não escolhida: pergunta antes de votar
+        if (enqueteAtual != null && enqueteAtual.isPorTurma()
+                && !enqueteAtual.getTurmas().contains(viewModel.getTurma())) {
+            mostrarDialogoTurma(() -> registrarVoto(opcao));
+            return;
         }
 
-        enqueteRepository.registrarVoto(opcao, new EnqueteRepository.RegistrarVotoCallback() {
+        viewModel.registrarVoto(opcao, this, new EnqueteRepository.RegistrarVotoCallback() {
             @Override
             public void onVotoRegistrado(String opcaoRegistrada) {
-                txtSeuVoto.setText("Seu voto: opção " + opcaoRegistrada);
                 Toast.makeText(
                         MainActivity.this,
-                        "Voto registrado.",
+                        viewModel.isModoQuiosque()
+                                ? "Voto registrado. Passe o tablet para o próximo."
+                                : "Voto registrado.",
                         Toast.LENGTH_SHORT
                 ).show();
             }
 
+            @Override
+            public void onVotoNaFila(String opcaoNaFila) {
+                Toast.makeText(
+                        MainActivity.this,
+                        "Sem conexão: o voto será enviado quando a internet voltar.",
+                        Toast.LENGTH_LONG
+                ).show();
+            }
+
             @Override
             public void onJaVotou(String opcaoExistente) {
                 txtSeuVoto.setText("Seu voto: opção " + opcaoExistente);
@@ -483,6 +894,46 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Envia a resposta livre digitada (uma por aparelho, como o voto).
+     */
+    private void enviarResposta() {
+        if (avisarSeEncerrada()) return;
+
+        viewModel.responderTexto(edtResposta.getText().toString(), this, new EnqueteRepository.RegistrarVotoCallback() {
+            @Override
+            public void onVotoRegistrado(String palavra) {
+                edtResposta.setText("");
+                txtSeuVoto.setText("Sua resposta: " + palavra);
+                Toast.makeText(MainActivity.this, "Resposta enviada.", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onVotoNaFila(String palavra) {
+                // Respostas livres não entram na fila: sem conexão chegam como onErro
+                onVotoRegistrado(palavra);
+            }
+
+            @Override
+            public void onJaVotou(String palavraExistente) {
+                txtSeuVoto.setText("Sua resposta: " + palavraExistente);
+                Toast.makeText(MainActivity.this, "Você já respondeu.", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onErro(Exception e) {
+                Log.e(TAG, "Erro ao enviar resposta: ", e);
+                Toast.makeText(
+                        MainActivity.this,
+                        e instanceof IllegalArgumentException
+                                ? "Digite uma palavra."
+                                : "Erro ao enviar resposta.",
+                        Toast.LENGTH_SHORT
+                ).show();
+            }
+        });
+    }
+
     /**
      * Exibe um diálogo pedindo o "código do professor" para autorizar o reset.
      */
@@ -511,10 +962,9 @@ public class MainActivity extends AppCompatActivity {
      * Chama o repositório para zerar contadores e votos no Firestore.
      */
     private void resetarEnquete() {
-        enqueteRepository.resetarEnquete(new EnqueteRepository.OperacaoCallback() {
+        viewModel.resetarEnquete(this, new EnqueteRepository.OperacaoCallback() {
             @Override
             public void onSucesso() {
-                txtSeuVoto.setText("Seu voto: ainda não votou");
                 Toast.makeText(
                         MainActivity.this,
                         "Enquete zerada.",
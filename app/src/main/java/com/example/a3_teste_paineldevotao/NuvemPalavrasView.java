@@ -0,0 +1,157 @@
+package com.example.a3_teste_paineldevotao;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.data.ResumoPalavras;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Nuvem de palavras das respostas livres: as palavras mais frequentes em linhas
+ * centralizadas, com o tamanho do texto proporcional à raiz da contagem.
+ *
+ * A disposição (posição e tamanho de cada palavra) só é recalculada quando a
+ * lista ou a largura mudam; onDraw apenas desenha o que já foi calculado.
+ */
+public class NuvemPalavrasView extends View {
+
+    private static final float TAMANHO_MINIMO_SP = 14f;
+    private static final float TAMANHO_MAXIMO_SP = 40f;
+    private static final float ESPACO_DP = 8f;
+
+    private static final int[] CORES = {
+            0xFF1976D2, 0xFF4CAF50, 0xFFF44336, 0xFF7B1FA2, 0xFFFF9800, 0xFF00897B
+    };
+
+    /**
+     * Palavra já posicionada (x da esquerda, y da linha de base).
+     */
+    private static class Posicao {
+        final String palavra;
+        final float tamanho;
+        final int cor;
+        float x;
+        float y;
+
+        Posicao(String palavra, float tamanho, int cor) {
+            this.palavra = palavra;
+            this.tamanho = tamanho;
+            this.cor = cor;
+        }
+    }
+
+    private final Paint pincel = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float tamanhoMinimo;
+    private final float tamanhoMaximo;
+    private final float espaco;
+
+    private List<ResumoPalavras.Entrada> palavras = Collections.emptyList();
+    private final List<Posicao> posicoes = new ArrayList<>();
+    private int larguraDisposta = -1;
+    private float alturaDisposta;
+
+    public NuvemPalavrasView(Context context) {
+        this(context, null);
+    }
+
+    public NuvemPalavrasView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        tamanhoMinimo = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                TAMANHO_MINIMO_SP, getResources().getDisplayMetrics());
+        tamanhoMaximo = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                TAMANHO_MAXIMO_SP, getResources().getDisplayMetrics());
+        espaco = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                ESPACO_DP, getResources().getDisplayMetrics());
+        pincel.setFakeBoldText(true);
+    }
+
+    /**
+     * Palavras da maior para a menor contagem. Uma lista igual à anterior não faz nada.
+     */
+    public void setPalavras(List<ResumoPalavras.Entrada> novas) {
+        if (novas.equals(palavras)) return;
+        palavras = new ArrayList<>(novas);
+        larguraDisposta = -1;
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int largura = MeasureSpec.getSize(widthMeasureSpec);
+        dispor(largura - getPaddingLeft() - getPaddingRight());
+        int altura = (int) Math.ceil(alturaDisposta) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(largura, resolveSize(altura, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        for (Posicao p : posicoes) {
+            pincel.setTextSize(p.tamanho);
+            pincel.setColor(p.cor);
+            canvas.drawText(p.palavra, getPaddingLeft() + p.x, getPaddingTop() + p.y, pincel);
+        }
+    }
+
+    /**
+     * Quebra as palavras em linhas que cabem na largura e centraliza cada linha.
+     */
+    private void dispor(int largura) {
+        if (largura == larguraDisposta) return;
+        larguraDisposta = largura;
+        posicoes.clear();
+        alturaDisposta = 0;
+        if (palavras.isEmpty() || largura <= 0) return;
+
+        double raizMaior = Math.sqrt(palavras.get(0).contagem);
+        List<Posicao> linha = new ArrayList<>();
+        float larguraLinha = 0;
+        for (int i = 0; i < palavras.size(); i++) {
+            ResumoPalavras.Entrada e = palavras.get(i);
+            float fracao = raizMaior > 0 ? (float) (Math.sqrt(e.contagem) / raizMaior) : 0f;
+            Posicao p = new Posicao(e.palavra,
+                    tamanhoMinimo + (tamanhoMaximo - tamanhoMinimo) * fracao,
+                    CORES[i % CORES.length]);
+            pincel.setTextSize(p.tamanho);
+            float larguraPalavra = pincel.measureText(p.palavra);
+
+            if (!linha.isEmpty() && larguraLinha + espaco + larguraPalavra > largura) {
+                fecharLinha(linha, larguraLinha, largura);
+                linha.clear();
+                larguraLinha = 0;
+            }
+            if (!linha.isEmpty()) larguraLinha += espaco;
+            p.x = larguraLinha;
+            larguraLinha += larguraPalavra;
+            linha.add(p);
+        }
+        fecharLinha(linha, larguraLinha, largura);
+    }
+
+    private void fecharLinha(List<Posicao> linha, float larguraLinha, int largura) {
+        if (linha.isEmpty()) return;
+        float maior = 0;
+        for (Posicao p : linha) maior = Math.max(maior, p.tamanho);
+        pincel.setTextSize(maior);
+        Paint.FontMetrics metricas = pincel.getFontMetrics();
+
+        float deslocamento = Math.max(0, (largura - larguraLinha) / 2);
+        float base = alturaDisposta - metricas.ascent;
+        for (Posicao p : linha) {
+            p.x += deslocamento;
+            p.y = base;
+            posicoes.add(p);
+        }
+        alturaDisposta = base + metricas.descent + espaco / 2;
+    }
+}
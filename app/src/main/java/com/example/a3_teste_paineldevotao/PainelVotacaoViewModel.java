@@ -0,0 +1,1055 @@
+package com.example.a3_teste_paineldevotao;
+
+import android.app.Application;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import com.example.a3_teste_paineldevotao.data.Agendador;
+import com.example.a3_teste_paineldevotao.data.AgendadorAndroid;
+import com.example.a3_teste_paineldevotao.data.AgregadorVotos;
+import com.example.a3_teste_paineldevotao.data.CacheImagens;
+import com.example.a3_teste_paineldevotao.data.CallbacksCicloDeVida;
+import com.example.a3_teste_paineldevotao.data.Classificacao;
+import com.example.a3_teste_paineldevotao.data.ClienteResultadosLocal;
+import com.example.a3_teste_paineldevotao.data.ContagemTurmas;
+import com.example.a3_teste_paineldevotao.data.CorretorQuiz;
+import com.example.a3_teste_paineldevotao.data.EnqueteRepository;
+import com.example.a3_teste_paineldevotao.data.EstatisticasSegundoPlano;
+import com.example.a3_teste_paineldevotao.data.FirebaseManager;
+import com.example.a3_teste_paineldevotao.data.Futuros;
+import com.example.a3_teste_paineldevotao.data.ModoAtualizacao;
+import com.example.a3_teste_paineldevotao.data.ObservadorEnqueteCicloDeVida;
+import com.example.a3_teste_paineldevotao.data.ResumoPalavras;
+import com.example.a3_teste_paineldevotao.data.ServidorResultadosLocal;
+import com.example.a3_teste_paineldevotao.data.UrnaQuiosque;
+import com.example.a3_teste_paineldevotao.model.Enquete;
+import com.example.a3_teste_paineldevotao.model.ImagensOpcoes;
+import com.example.a3_teste_paineldevotao.model.PlacarResultados;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ViewModel da tela principal (Painel de Votação).
+ *
+ * Guarda o estado que NÃO deve ser refeito a cada rotação de tela:
+ * - Enquete atual (alimentada pelo listener em tempo real)
+ * - Voto do usuário (exibido na hora, antes da confirmação do servidor)
+ * - Listener do Firestore (desligado em segundo plano, ver ObservadorEnqueteCicloDeVida)
+ * - Urna do modo quiosque (cédulas aguardando envio em lote)
+ * - Agregador de votos, quando este é o aparelho do professor no modo agregador
+ * - Correção do quiz, quando este aparelho gravou o gabarito (CorretorQuiz)
+ * - Servidor de resultados na rede local (professor) ou a conexão com ele (alunos):
+ *   conectado, o listener do Firestore fica suspenso e os contadores chegam pela rede local
+ * - Pré-carga das miniaturas das opções assim que a configuração chega
+ * - Resumo das respostas livres (nuvem de palavras), observado só enquanto a enquete
+ *   está no modo de resposta livre
+ * - Classificação do quiz, observada só enquanto a enquete está no modo quiz
+ * - Contadores por turma, observados só em enquetes por turma; o total exibido
+ *   soma o documento da enquete e as turmas
+ *
+ * A MainActivity apenas observa os LiveData e liga os dados às Views;
+ * recriar a Activity (rotação, mudança de idioma etc.) não gera tráfego no Firestore.
+ */
+public class PainelVotacaoViewModel extends AndroidViewModel {
+
+    private static final String TAG = "PainelVotacaoVM";
+
+    // Prazo para carregar enquete + voto antes do listener estar ativo
+    private static final long PRAZO_ESTADO_INICIAL_MS = 10_000L;
+
+    // Intervalo mínimo entre tentativas de conexão ao servidor local do professor
+    private static final long INTERVALO_TENTATIVA_LOCAL_MS = 30_000L;
+
+    // Voto aceito pelo servidor que ainda não apareceu nos contadores recebidos (ex.: modo
+    // agregador, que grava os totais em intervalos): a exibição otimista sai depois deste prazo
+    private static final long PRAZO_VOTO_OTIMISTA_MS = 10_000L;
+
+    private final FirebaseManager firebaseManager;
+    private final EnqueteRepository enqueteRepository;
+
+    private final MutableLiveData<Enquete> enquete = new MutableLiveData<>();
+    private final MutableLiveData<EnqueteRepository.VotoUsuarioInfo> votoUsuario = new MutableLiveData<>();
+    private final MutableLiveData<Integer> cedulasPendentes = new MutableLiveData<>();
+    private final MutableLiveData<ResumoPalavras> respostasLivres = new MutableLiveData<>();
+    private final MutableLiveData<Classificacao> classificacao = new MutableLiveData<>();
+    private final MutableLiveData<ContagemTurmas> turmas = new MutableLiveData<>();
+
+    private final UrnaQuiosque urna;
+    private final AgregadorVotos agregador;
+    private final CorretorQuiz corretor;
+
+    // Voto otimista: somado aos contadores exibidos até um snapshot do servidor incluí-lo
+    @Nullable private String opcaoOtimista;
+    private long contagemAntesDoVoto; // contador da opção quando o voto foi feito (-1: desconhecido)
+    private long rodadaDoVoto;
+    private boolean votoOtimistaAceito; // servidor confirmou; falta aparecer nos contadores
+    @Nullable private Agendador.Tarefa prazoVotoOtimista;
+    @Nullable private Enquete enqueteServidor; // último dado do Firestore, sem o voto otimista
+    private final Agendador agendador = new AgendadorAndroid();
+
+    // Rede local: servidor (aparelho do professor) ou cliente (aparelhos dos alunos)
+    @Nullable private ServidorResultadosLocal servidorLocal;
+    @Nullable private ClienteResultadosLocal clienteLocal;
+    @Nullable private PlacarResultados ultimoPlacarLocal;
+    private long ultimaTentativaLocalMillis;
+    private boolean releituraEmAndamento;
+
+    // Reenvio do voto guardado sem conexão em andamento (ver EnqueteRepository.reenviarVotoNaFila)
+    private boolean reenvioEmAndamento;
+    private long ultimoReenvioPelaRedeLocalMillis;
+
+    // Listener dos resumos das respostas livres (null fora do modo de resposta livre
+    // ou fora do tempo real)
+    @Nullable private ListenerRegistration registroRespostasLivres;
+
+    // Resumo das respostas livres, pelo listener (tempo real) ou por leituras avulsas
+    private final EnqueteRepository.RespostasLivresListener ouvinteRespostasLivres =
+            new EnqueteRepository.RespostasLivresListener() {
+                @Override
+                public void onResumoAtualizado(ResumoPalavras resumo) {
+                    Enquete base = enqueteServidor;
+                    if (base == null || !base.isRespostaLivre()) return; // resposta de antes de sair do modo
+                    respostasLivres.setValue(resumo);
+                }
+
+                @Override
+                public void onErro(@Nullable Exception e) {
+                    Log.e(TAG, "Erro ao ler as respostas livres: ", e);
+                }
+            };
+
+    // Listener da classificação do quiz (null fora do modo quiz ou fora do tempo real)
+    @Nullable private ListenerRegistration registroClassificacao;
+
+    // Classificação do quiz, pelo listener (tempo real) ou por leituras avulsas
+    private final EnqueteRepository.ClassificacaoListener ouvinteClassificacao =
+            new EnqueteRepository.ClassificacaoListener() {
+                @Override
+                public void onClassificacaoAtualizada(Classificacao nova) {
+                    Enquete base = enqueteServidor;
+                    if (base == null || !base.isModoQuiz()) return; // resposta de antes de sair do quiz
+                    classificacao.setValue(nova);
+                }
+
+                @Override
+                public void onErro(@Nullable Exception e) {
+                    Log.e(TAG, "Erro ao ler a classificação: ", e);
+                }
+            };
+
+    // Listener e última contagem das turmas (null fora das enquetes por turma)
+    @Nullable private ListenerRegistration registroTurmas;
+    @Nullable private ContagemTurmas contagemTurmas;
+
+    // Contadores das turmas, pelo listener (tempo real) ou por leituras avulsas
+    private final EnqueteRepository.TurmasListener ouvinteTurmas = new EnqueteRepository.TurmasListener() {
+        @Override
+        public void onTurmasAtualizadas(ContagemTurmas contagem) {
+            Enquete base = enqueteServidor;
+            if (base == null || !base.isPorTurma()) return; // resposta de antes de tirar as turmas
+            contagemTurmas = contagem;
+            turmas.setValue(contagem);
+            republicarEnquete();
+            publicarNoServidorLocal();
+        }
+
+        @Override
+        public void onErro(@Nullable Exception e) {
+            Log.e(TAG, "Erro ao ler as turmas: ", e);
+        }
+    };
+
+    // Imagens das opções já pedidas ao CacheImagens
+    private ImagensOpcoes imagensPreCarregadas = ImagensOpcoes.NENHUMA;
+
+    private ObservadorEnqueteCicloDeVida observadorResultados;
+    private CompletableFuture<EnqueteRepository.EstadoInicial> estadoInicialFuturo;
+    private boolean iniciado;
+
+    public PainelVotacaoViewModel(@NonNull Application application) {
+        super(application);
+        firebaseManager = FirebaseManager.getInstance(application);
+        enqueteRepository = new EnqueteRepository(application);
+
+        urna = new UrnaQuiosque(application, firebaseManager.getRelogioServidor(),
+                new AgendadorAndroid(),
+                (loteId, cedulas) -> enqueteRepository.enviarLoteCedulas(loteId, cedulas)
+                        .addOnFailureListener(e -> Log.w(TAG, "Falha ao enviar lote " + loteId
+                                + "; nova tentativa em " + UrnaQuiosque.INTERVALO_ENVIO_MS + " ms", e)));
+        urna.setOuvinte(() -> cedulasPendentes.setValue(urna.getPendentes()));
+        cedulasPendentes.setValue(urna.getPendentes());
+        // Cédulas que ficaram na fila da última execução saem agora
+        urna.enviarAgora();
+
+        agregador = new AgregadorVotos(application, firebaseManager, new AgendadorAndroid());
+        corretor = new CorretorQuiz(firebaseManager, enqueteRepository);
+    }
+
+    // =====================================================================
+    //  Estado observado pela Activity
+    // =====================================================================
+
+    public LiveData<Enquete> getEnquete() {
+        return enquete;
+    }
+
+    /**
+     * Voto do usuário; o valor null significa "ainda não votou".
+     */
+    public LiveData<EnqueteRepository.VotoUsuarioInfo> getVotoUsuario() {
+        return votoUsuario;
+    }
+
+    /**
+     * Cédulas do modo quiosque registradas e ainda não confirmadas pelo servidor.
+     */
+    public LiveData<Integer> getCedulasPendentes() {
+        return cedulasPendentes;
+    }
+
+    /**
+     * Resumo combinado das respostas livres; null fora do modo de resposta livre.
+     */
+    public LiveData<ResumoPalavras> getRespostasLivres() {
+        return respostasLivres;
+    }
+
+    /**
+     * Primeiros colocados do quiz; null fora do modo quiz.
+     */
+    public LiveData<Classificacao> getClassificacao() {
+        return classificacao;
+    }
+
+    /**
+     * Contagem de cada turma e total combinado; null se a enquete não é por turma.
+     */
+    public LiveData<ContagemTurmas> getTurmas() {
+        return turmas;
+    }
+
+    public boolean isModoQuiosque() {
+        return urna.isAtivo();
+    }
+
+    /**
+     * Liga/desliga o modo quiosque (tablet compartilhado: um voto por cédula, não por aparelho).
+     */
+    public void setModoQuiosque(boolean ativo) {
+        urna.setAtivo(ativo);
+    }
+
+    /**
+     * Envia as cédulas do modo quiosque que ainda estão na fila (ex.: app indo para segundo plano).
+     */
+    public void enviarCedulasPendentes() {
+        urna.enviarAgora();
+    }
+
+    public boolean isModoAgregador() {
+        return agregador.isAtivoNesteAparelho();
+    }
+
+    /**
+     * Liga/desliga o modo agregador com ESTE aparelho (do professor) fazendo a contagem.
+     * Em caso de erro o modo continua como estava.
+     */
+    public void setModoAgregador(boolean ativo, LifecycleOwner dono,
+                                 EnqueteRepository.OperacaoCallback callbackTela) {
+        final EnqueteRepository.OperacaoCallback callback = CallbacksCicloDeVida.vincular(
+                dono, EnqueteRepository.OperacaoCallback.class, callbackTela);
+        (ativo ? agregador.ativar() : agregador.desativar()).addOnCompleteListener(task -> {
+            atualizarCompactacaoPeriodica();
+            if (task.isSuccessful()) {
+                callback.onSucesso();
+            } else {
+                callback.onErro(task.getException());
+            }
+        });
+    }
+
+    public boolean isServidorLocalAtivo() {
+        return servidorLocal != null;
+    }
+
+    /**
+     * Liga/desliga, neste aparelho (do professor), o servidor de resultados na rede local
+     * e o anuncia no documento da enquete para os alunos se conectarem.
+     *
+     * @return endereço anunciado ("host:porta"), ou null se desligado ou sem rede local
+     */
+    @Nullable
+    public String setServidorLocal(boolean ativo) {
+        if (!ativo) {
+            pararServidorLocal();
+            return null;
+        }
+        String host = ServidorResultadosLocal.enderecoNaRede();
+        if (host == null) return null;
+        if (servidorLocal == null) {
+            ServidorResultadosLocal servidor = new ServidorResultadosLocal();
+            try {
+                servidor.iniciar(ServidorResultadosLocal.PORTA_PADRAO);
+            } catch (IOException e) {
+                Log.w(TAG, "Não foi possível abrir o servidor local: ", e);
+                return null;
+            }
+            servidorLocal = servidor;
+            // Este aparelho passa a ser a fonte: não é cliente de outro servidor, e o
+            // listener do Firestore fica ligado e em tempo real enquanto houver alunos
+            desconectarServidorLocal();
+            if (observadorResultados != null) observadorResultados.setFonteDaRedeLocal(true);
+            publicarNoServidorLocal();
+            atualizarCompactacaoPeriodica();
+        }
+        String endereco = host + ":" + servidorLocal.getPorta();
+        enqueteRepository.anunciarServidorLocal(endereco)
+                .addOnFailureListener(e -> Log.w(TAG, "Falha ao anunciar o servidor local: ", e));
+        return endereco;
+    }
+
+    private void pararServidorLocal() {
+        if (servidorLocal == null) return;
+        servidorLocal.parar();
+        servidorLocal = null;
+        if (observadorResultados != null) observadorResultados.setFonteDaRedeLocal(false);
+        atualizarCompactacaoPeriodica();
+        enqueteRepository.anunciarServidorLocal(null)
+                .addOnFailureListener(e -> Log.w(TAG, "Falha ao retirar o servidor local: ", e));
+    }
+
+    /**
+     * O histórico é compactado periodicamente pelo aparelho do professor (agregador
+     * ou servidor local ligado); os dos alunos não fazem essa leitura.
+     */
+    private void atualizarCompactacaoPeriodica() {
+        enqueteRepository.setCompactacaoPeriodica(
+                agregador.isAtivoNesteAparelho() || servidorLocal != null);
+    }
+
+    public EnqueteRepository getRepository() {
+        return enqueteRepository;
+    }
+
+    /**
+     * Contadores do listener em segundo plano (null antes do login).
+     */
+    @Nullable
+    public EstatisticasSegundoPlano getEstatisticasSegundoPlano() {
+        return observadorResultados != null ? observadorResultados.getEstatisticas() : null;
+    }
+
+    // =====================================================================
+    //  Inicialização (uma única vez por ViewModel)
+    // =====================================================================
+
+    /**
+     * Configura o estado após o login:
+     * - Garante documento inicial da enquete.
+     * - Mede a diferença entre o relógio do aparelho e o do servidor.
+     * - Inicia listener em tempo real para os resultados.
+     * - Carrega o voto atual do usuário.
+     *
+     * Chamadas repetidas (ex.: Activity recriada após rotação) são ignoradas.
+     */
+    public void iniciar() {
+        if (iniciado) return;
+        iniciado = true;
+
+        // Garante que o documento da enquete exista
+        enqueteRepository.inicializarSeNecessario();
+
+        // Corrige o relógio local para o encerramento valer no mesmo instante para todos
+        firebaseManager.getRelogioServidor().calibrar(firebaseManager.getRelogioRef());
+
+        // Aparelho do professor no modo agregador: retoma a contagem do último checkpoint
+        if (agregador.isAtivoNesteAparelho()) {
+            agregador.iniciar();
+        }
+        // Aparelho que gravou o gabarito: corrige as respostas do quiz
+        if (enqueteRepository.isCorretorDoQuiz()) {
+            corretor.iniciar();
+        }
+        atualizarCompactacaoPeriodica();
+
+        // Começa a ouvir as mudanças em tempo real da enquete (apenas com o app visível)
+        observadorResultados = new ObservadorEnqueteCicloDeVida(
+                enqueteRepository,
+                new EnqueteRepository.EnqueteListener() {
+                    @Override
+                    public void onEnqueteAtualizada(Enquete nova) {
+                        publicarEnquete(nova);
+                        // Fora do tempo real as turmas, as respostas livres e a
+                        // classificação são lidas junto com cada consulta
+                        if (nova.isPorTurma() && !emTempoReal()) carregarTurmas();
+                        if (nova.isRespostaLivre() && !emTempoReal()) carregarRespostasLivres();
+                        if (nova.isModoQuiz() && !emTempoReal()) carregarClassificacao();
+                        // Snapshot do servidor: há conexão para o voto que ficou na fila
+                        if (!nova.isDoCache()) reenviarVotoNaFila();
+                        if (servidorLocal != null) {
+                            publicarNoServidorLocal();
+                        } else {
+                            conectarServidorLocalSeAnunciado();
+                        }
+                    }
+
+                    @Override
+                    public void onErro(Exception e) {
+                        if (e != null) {
+                            Log.e(TAG, "Erro no listener da enquete: ", e);
+                        }
+                    }
+                },
+                ObservadorEnqueteCicloDeVida.CARENCIA_PADRAO_MS);
+        observadorResultados.setFonteDaRedeLocal(servidorLocal != null);
+        observadorResultados.setAoMudarEstado(this::atualizarObservacoesAcompanhantes);
+        observadorResultados.iniciar(ProcessLifecycleOwner.get().getLifecycle());
+
+        // Atualiza a informação "Seu voto"
+        carregarVotoUsuario();
+    }
+
+    /**
+     * Leitura pontual de enquete + voto (em paralelo), usada só enquanto o listener
+     * em tempo real ainda não está ativo — por exemplo, antes do login terminar.
+     */
+    public void atualizarSeNecessario() {
+        if (observadorResultados != null) return;
+        if (estadoInicialFuturo != null && !estadoInicialFuturo.isDone()) return;
+
+        estadoInicialFuturo = enqueteRepository.carregarEstadoInicial(PRAZO_ESTADO_INICIAL_MS);
+        estadoInicialFuturo.whenCompleteAsync((estado, erro) -> {
+            if (erro != null) {
+                if (!(erro instanceof CancellationException)) {
+                    Log.e(TAG, "Erro ao carregar enquete: ", Futuros.causa(erro));
+                }
+                return;
+            }
+            // O listener pode ter entregado um dado mais novo nesse meio-tempo
+            if (enquete.getValue() == null) {
+                publicarEnquete(estado.enquete);
+            }
+            votoUsuario.setValue(estado.voto);
+        }, ContextCompat.getMainExecutor(getApplication()));
+    }
+
+    /**
+     * Atualização pedida pelo usuário (menu). Necessária quando a rede/bateria
+     * colocou os resultados em modo manual; nos outros modos apenas antecipa a leitura.
+     */
+    public void atualizarResultados() {
+        if (observadorResultados != null) {
+            observadorResultados.atualizarAgora();
+        } else {
+            atualizarSeNecessario();
+        }
+    }
+
+    /**
+     * Recarrega do Firestore o voto do usuário.
+     */
+    public void carregarVotoUsuario() {
+        enqueteRepository.carregarVotoUsuario(votoUsuario::setValue);
+    }
+
+    // =====================================================================
+    //  Ações (votar e resetar)
+    // =====================================================================
+
+    /**
+     * Registra o voto. Exibição otimista: o voto aparece em "Seu voto" e nos
+     * contadores na hora, marcado como pendente; uma recusa (já votou, erro)
+     * desfaz a mudança. Confirmado, o voto continua somado até chegar um snapshot
+     * do servidor que já o inclua, para os contadores não voltarem um passo.
+     *
+     * No modo quiosque, a cédula é guardada na urna local e o callback é chamado
+     * na hora; o envio ao Firestore acontece depois, em lote.
+     *
+     * Sem conexão, o voto fica na fila do repositório e continua exibido como
+     * pendente; ele é reenviado no primeiro snapshot vindo do servidor.
+     *
+     * O estado do ViewModel é atualizado mesmo que a tela seja destruída no meio
+     * do caminho; só o callback da tela é descartado (ver CallbacksCicloDeVida).
+     */
+    public void registrarVoto(String opcao, LifecycleOwner dono,
+                              EnqueteRepository.RegistrarVotoCallback callbackTela) {
+        final EnqueteRepository.RegistrarVotoCallback callback = CallbacksCicloDeVida.vincular(
+                dono, EnqueteRepository.RegistrarVotoCallback.class, callbackTela);
+        if (urna.isAtivo()) {
+            urna.depositar(opcao);
+            callback.onVotoRegistrado(opcao);
+            return;
+        }
+
+        // Só antecipa quando, até onde sabemos, o usuário ainda não votou
+        final EnqueteRepository.VotoUsuarioInfo votoAnterior = votoUsuario.getValue();
+        final boolean otimista = opcaoOtimista == null
+                && (votoAnterior == null || votoAnterior.opcaoEscolhida == null);
+        if (otimista) {
+            iniciarVotoOtimista(opcao);
+            EnqueteRepository.VotoUsuarioInfo pendente = criarVotoLocal(opcao);
+            pendente.pendente = true;
+            votoUsuario.setValue(pendente);
+            republicarEnquete();
+        }
+
+        enqueteRepository.registrarVoto(opcao, new EnqueteRepository.RegistrarVotoCallback() {
+            @Override
+            public void onVotoRegistrado(String opcaoRegistrada) {
+                // Confirmado: continua somado até o snapshot do servidor trazer o incremento
+                if (otimista) aceitarVotoOtimista();
+                votoUsuario.setValue(criarVotoLocal(opcaoRegistrada));
+                callback.onVotoRegistrado(opcaoRegistrada);
+            }
+
+            @Override
+            public void onVotoNaFila(String opcaoNaFila) {
+                // Continua pendente (contadores e "Seu voto") até o reenvio
+                callback.onVotoNaFila(opcaoNaFila);
+            }
+
+            @Override
+            public void onJaVotou(@Nullable String opcaoExistente) {
+                if (otimista) {
+                    descartarVotoOtimista();
+                    votoUsuario.setValue(votoAnterior);
+                }
+                callback.onJaVotou(opcaoExistente);
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                if (otimista) {
+                    descartarVotoOtimista();
+                    votoUsuario.setValue(votoAnterior);
+                }
+                Log.w(TAG, "Escrita falhou após retentativas: "
+                        + enqueteRepository.getMetricasRetentativa(), e);
+                callback.onErro(e);
+            }
+        });
+    }
+
+    /**
+     * Reenvia o voto guardado sem conexão, se houver, e aplica a resposta do servidor
+     * à exibição: confirmado, já votado antes (outra opção) ou descartado.
+     */
+    private void reenviarVotoNaFila() {
+        if (reenvioEmAndamento || !enqueteRepository.temVotoNaFila()) return;
+        reenvioEmAndamento = true;
+        enqueteRepository.reenviarVotoNaFila().addOnCompleteListener(
+                ContextCompat.getMainExecutor(getApplication()), tarefa -> {
+                    reenvioEmAndamento = false;
+                    if (enqueteRepository.temVotoNaFila()) return; // ainda sem conexão
+                    EnqueteRepository.ResultadoVoto resultado =
+                            tarefa.isSuccessful() ? tarefa.getResult() : null;
+                    if (opcaoOtimista != null) {
+                        if (resultado != null && !resultado.jaVotou
+                                && opcaoOtimista.equals(resultado.opcao)) {
+                            aceitarVotoOtimista();
+                        } else {
+                            descartarVotoOtimista();
+                        }
+                    }
+                    if (resultado != null && resultado.opcao != null) {
+                        votoUsuario.setValue(criarVotoLocal(resultado.opcao));
+                    } else {
+                        if (tarefa.getException() != null) {
+                            Log.w(TAG, "Voto da fila recusado pelo servidor: ", tarefa.getException());
+                        }
+                        carregarVotoUsuario();
+                    }
+                });
+    }
+
+    /**
+     * Registra a resposta livre do usuário (callback com a palavra normalizada).
+     */
+    public void responderTexto(String texto, LifecycleOwner dono,
+                               EnqueteRepository.RegistrarVotoCallback callback) {
+        enqueteRepository.responderTexto(texto, dono, callback);
+    }
+
+    // =====================================================================
+    //  Exibição otimista
+    // =====================================================================
+
+    /**
+     * Entrega a enquete vinda do Firestore à tela, com o voto otimista somado se houver.
+     */
+    private void publicarEnquete(Enquete nova) {
+        enqueteServidor = nova;
+        conferirVotoOtimista();
+        // Quiz ligado neste aparelho depois de iniciar() (tela de configuração)
+        if (nova.isModoQuiz() && enqueteRepository.isCorretorDoQuiz()) corretor.iniciar();
+        atualizarObservacoesAcompanhantes();
+        preCarregarImagens(nova.getImagens());
+        republicarEnquete();
+    }
+
+    /**
+     * Liga o listener da classificação só enquanto a enquete está no modo quiz e é
+     * acompanhada em tempo real, como o das turmas. Ao sair do tempo real a
+     * classificação é lida uma vez e depois junto com cada consulta da enquete;
+     * fora do quiz ela é descartada.
+     */
+    private void atualizarObservacaoClassificacao() {
+        Enquete base = enqueteServidor;
+        boolean quiz = base != null && base.isModoQuiz();
+        boolean ativo = quiz && emTempoReal();
+        if (ativo && registroClassificacao == null) {
+            registroClassificacao = enqueteRepository.observarClassificacao(ouvinteClassificacao);
+        } else if (!ativo && registroClassificacao != null) {
+            registroClassificacao.remove();
+            registroClassificacao = null;
+            if (quiz) carregarClassificacao();
+        }
+        if (!quiz && classificacao.getValue() != null) {
+            classificacao.setValue(null);
+        }
+    }
+
+    /**
+     * Leitura única da classificação, fora do tempo real.
+     */
+    private void carregarClassificacao() {
+        enqueteRepository.carregarClassificacao(ouvinteClassificacao);
+    }
+
+    /**
+     * Liga/desliga os listeners que acompanham a enquete (respostas livres,
+     * classificação e turmas) conforme o modo da enquete e o estado do observador dela.
+     */
+    private void atualizarObservacoesAcompanhantes() {
+        atualizarObservacaoRespostasLivres();
+        atualizarObservacaoClassificacao();
+        atualizarObservacaoTurmas();
+    }
+
+    /**
+     * Liga/desliga o listener dos contadores das turmas junto com o da enquete: ele só
+     * fica ligado enquanto a enquete é observada em tempo real. Em segundo plano, com
+     * os resultados vindo da rede local (o placar já chega somado) ou na consulta
+     * periódica/manual, o listener sai e a última contagem continua valendo.
+     * Cada mudança de turma atualiza o total exibido (e o placar da rede local).
+     */
+    private void atualizarObservacaoTurmas() {
+        Enquete base = enqueteServidor;
+        boolean porTurma = base != null && base.isPorTurma();
+        boolean ativo = porTurma && emTempoReal();
+        if (ativo && registroTurmas == null) {
+            registroTurmas = enqueteRepository.observarTurmas(ouvinteTurmas);
+        } else if (!ativo && registroTurmas != null) {
+            registroTurmas.remove();
+            registroTurmas = null;
+        }
+        if (!porTurma && contagemTurmas != null) {
+            contagemTurmas = null;
+            turmas.setValue(null);
+        }
+    }
+
+    /**
+     * A enquete é acompanhada em tempo real? (não com o listener desligado, suspenso
+     * pela rede local ou fora do modo tempo real). Os listeners das turmas, das
+     * respostas livres e da classificação só ficam ligados nesse caso.
+     */
+    private boolean emTempoReal() {
+        return ultimoPlacarLocal == null
+                && observadorResultados != null
+                && observadorResultados.getModo() == ModoAtualizacao.TEMPO_REAL;
+    }
+
+    /**
+     * Leitura única das turmas, no ritmo das consultas da enquete (periódica ou manual).
+     */
+    private void carregarTurmas() {
+        enqueteRepository.carregarTurmas(ouvinteTurmas);
+    }
+
+    /**
+     * Baixa para o disco as miniaturas novas antes de a tela pedi-las: quando o botão
+     * for desenhado, só falta decodificar.
+     */
+    private void preCarregarImagens(ImagensOpcoes imagens) {
+        if (imagens.equals(imagensPreCarregadas)) return;
+        imagensPreCarregadas = imagens;
+        CacheImagens cache = CacheImagens.getInstance(getApplication());
+        for (String id : new String[]{imagens.opcaoA, imagens.opcaoB, imagens.opcaoC}) {
+            if (id == null) continue;
+            cache.preCarregar(id)
+                    .addOnFailureListener(e -> Log.w(TAG, "Falha ao pré-carregar a imagem " + id, e));
+        }
+    }
+
+    /**
+     * Liga o listener dos resumos de respostas livres só enquanto a enquete está nesse
+     * modo e é acompanhada em tempo real, como o das turmas. Ao sair do tempo real
+     * (segundo plano, rede local, consulta periódica/manual) o resumo é lido uma vez e
+     * depois junto com cada consulta da enquete; fora do modo ele é descartado.
+     */
+    private void atualizarObservacaoRespostasLivres() {
+        Enquete base = enqueteServidor;
+        boolean respostaLivre = base != null && base.isRespostaLivre();
+        boolean ativo = respostaLivre && emTempoReal();
+        if (ativo && registroRespostasLivres == null) {
+            registroRespostasLivres = enqueteRepository.observarRespostasLivres(ouvinteRespostasLivres);
+        } else if (!ativo && registroRespostasLivres != null) {
+            registroRespostasLivres.remove();
+            registroRespostasLivres = null;
+            if (respostaLivre) carregarRespostasLivres();
+        }
+        if (!respostaLivre && respostasLivres.getValue() != null) {
+            respostasLivres.setValue(null);
+        }
+    }
+
+    /**
+     * Leitura única do resumo das respostas livres, fora do tempo real.
+     */
+    private void carregarRespostasLivres() {
+        enqueteRepository.carregarRespostasLivres(ouvinteRespostasLivres);
+    }
+
+    private void republicarEnquete() {
+        Enquete apurada = enqueteApurada();
+        if (apurada == null) return;
+        enquete.setValue(opcaoOtimista != null
+                ? apurada.comVotoPendente(opcaoOtimista)
+                : apurada);
+    }
+
+    /**
+     * Enquete do servidor com o total combinado: contadores do documento da enquete
+     * (votos sem turma, somados pelos alunos ou pelo agregador) mais os de todas as
+     * turmas. Os dois nunca contam o mesmo voto: com ou sem agregador, o voto com
+     * turma só entra no documento da turma.
+     * O placar do servidor local do professor já chega somado.
+     */
+    @Nullable
+    private Enquete enqueteApurada() {
+        Enquete base = enqueteServidor;
+        ContagemTurmas contagem = contagemTurmas;
+        if (base == null || contagem == null || ultimoPlacarLocal != null) return base;
+        return base.comContadores(base.getRodada(),
+                base.getOpcaoA() + contagem.getTotalA(),
+                base.getOpcaoB() + contagem.getTotalB(),
+                base.getOpcaoC() + contagem.getTotalC());
+    }
+
+    private void publicarNoServidorLocal() {
+        Enquete apurada = enqueteApurada();
+        if (servidorLocal != null && apurada != null) {
+            servidorLocal.publicar(placarDe(apurada));
+        }
+    }
+
+    /**
+     * Placar com os modos vistos no documento: se o professor liga o agregador ou
+     * troca o servidor, a configuração muda e os alunos da rede local releem a enquete.
+     */
+    private PlacarResultados placarDe(Enquete enquete) {
+        return PlacarResultados.de(enquete, enqueteRepository.isModoAgregadorNaEnquete(),
+                enqueteRepository.getEnderecoServidorLocal());
+    }
+
+    private void iniciarVotoOtimista(String opcao) {
+        Enquete apurada = enqueteApurada();
+        opcaoOtimista = opcao;
+        contagemAntesDoVoto = apurada != null ? contador(apurada, opcao) : -1;
+        rodadaDoVoto = apurada != null ? apurada.getRodada() : -1;
+        votoOtimistaAceito = false;
+    }
+
+    /**
+     * O servidor aceitou o voto otimista: ele sai da exibição quando um snapshot do
+     * servidor o incluir (ou após {@link #PRAZO_VOTO_OTIMISTA_MS}).
+     */
+    private void aceitarVotoOtimista() {
+        votoOtimistaAceito = true;
+        if (prazoVotoOtimista != null) prazoVotoOtimista.cancelar();
+        prazoVotoOtimista = agendador.agendar(() -> {
+            prazoVotoOtimista = null;
+            if (opcaoOtimista != null) descartarVotoOtimista();
+        }, PRAZO_VOTO_OTIMISTA_MS);
+
+        // Fora do tempo real o próximo snapshot pode demorar: pede um agora
+        if (observadorResultados != null && ultimoPlacarLocal == null
+                && observadorResultados.getModo() != ModoAtualizacao.TEMPO_REAL) {
+            observadorResultados.atualizarAgora();
+        }
+        if (conferirVotoOtimista()) republicarEnquete();
+    }
+
+    /**
+     * Tira o voto otimista já aceito se os contadores recebidos do servidor (ou do
+     * placar da rede local) já o incluem, ou se a rodada mudou.
+     *
+     * @return true se o voto saiu da exibição
+     */
+    private boolean conferirVotoOtimista() {
+        if (opcaoOtimista == null || !votoOtimistaAceito) return false;
+        Enquete base = enqueteServidor;
+        if (base == null || (base.isDoCache() && ultimoPlacarLocal == null)) return false;
+
+        Enquete apurada = enqueteApurada();
+        if (apurada.getRodada() == rodadaDoVoto
+                && contador(apurada, opcaoOtimista) <= contagemAntesDoVoto) {
+            return false;
+        }
+        limparVotoOtimista();
+        return true;
+    }
+
+    private void descartarVotoOtimista() {
+        limparVotoOtimista();
+        republicarEnquete();
+    }
+
+    private void limparVotoOtimista() {
+        opcaoOtimista = null;
+        votoOtimistaAceito = false;
+        if (prazoVotoOtimista != null) {
+            prazoVotoOtimista.cancelar();
+            prazoVotoOtimista = null;
+        }
+    }
+
+    private static long contador(Enquete enquete, String opcao) {
+        switch (opcao) {
+            case "A":
+                return enquete.getOpcaoA();
+            case "B":
+                return enquete.getOpcaoB();
+            default:
+                return enquete.getOpcaoC();
+        }
+    }
+
+    /**
+     * Zera a enquete e limpa o estado "Seu voto" em caso de sucesso.
+     */
+    public void resetarEnquete(LifecycleOwner dono, EnqueteRepository.OperacaoCallback callbackTela) {
+        final EnqueteRepository.OperacaoCallback callback = CallbacksCicloDeVida.vincular(
+                dono, EnqueteRepository.OperacaoCallback.class, callbackTela);
+        enqueteRepository.resetarEnquete(new EnqueteRepository.OperacaoCallback() {
+            @Override
+            public void onSucesso() {
+                votoUsuario.setValue(null);
+                callback.onSucesso();
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                Log.w(TAG, "Escrita falhou após retentativas: "
+                        + enqueteRepository.getMetricasRetentativa(), e);
+                callback.onErro(e);
+            }
+        });
+    }
+
+    /**
+     * Apaga as pontuações do quiz (o professor começa um quiz novo).
+     */
+    public void zerarPontuacoes(LifecycleOwner dono, EnqueteRepository.OperacaoCallback callback) {
+        enqueteRepository.zerarPontuacoes(dono, callback);
+    }
+
+    public String getApelido() {
+        return enqueteRepository.getApelido();
+    }
+
+    public void setApelido(String apelido) {
+        enqueteRepository.setApelido(apelido);
+    }
+
+    @Nullable
+    public String getTurma() {
+        return enqueteRepository.getTurma();
+    }
+
+    /**
+     * Turma deste aparelho; vale a partir do próximo voto.
+     */
+    public void setTurma(@Nullable String turma) {
+        enqueteRepository.setTurma(turma);
+    }
+
+    /**
+     * Reconstrói os contadores pelo histórico de eventos (conferência do professor).
+     */
+    public void recontarPeloHistorico(LifecycleOwner dono, EnqueteRepository.RecontagemCallback callback) {
+        enqueteRepository.recontarPeloHistorico(dono, callback);
+    }
+
+    private EnqueteRepository.VotoUsuarioInfo criarVotoLocal(String opcao) {
+        EnqueteRepository.VotoUsuarioInfo info = new EnqueteRepository.VotoUsuarioInfo();
+        info.opcaoEscolhida = opcao;
+        info.timestamp = Timestamp.now();
+        info.voterId = firebaseManager.getCurrentVoterId();
+        info.deviceModel = Build.MODEL;
+        info.androidVersion = Build.VERSION.RELEASE;
+        return info;
+    }
+
+    // =====================================================================
+    //  Resultados pela rede local (alunos)
+    // =====================================================================
+
+    /**
+     * Se o professor anunciou um servidor local, tenta conectar (no máximo uma
+     * tentativa a cada {@link #INTERVALO_TENTATIVA_LOCAL_MS}). Chamado a cada
+     * snapshot do Firestore, ou seja, só enquanto o Firestore é a fonte.
+     */
+    private void conectarServidorLocalSeAnunciado() {
+        if (clienteLocal != null) return;
+        String endereco = enqueteRepository.getEnderecoServidorLocal();
+        if (endereco == null) return;
+        long agora = SystemClock.elapsedRealtime();
+        if (ultimaTentativaLocalMillis != 0
+                && agora - ultimaTentativaLocalMillis < INTERVALO_TENTATIVA_LOCAL_MS) {
+            return;
+        }
+        ultimaTentativaLocalMillis = agora;
+
+        clienteLocal = ClienteResultadosLocal.paraEndereco(endereco,
+                ContextCompat.getMainExecutor(getApplication()),
+                new ClienteResultadosLocal.Ouvinte() {
+                    @Override
+                    public void onPlacar(PlacarResultados placar) {
+                        aplicarPlacarLocal(placar);
+                    }
+
+                    @Override
+                    public void onDesconectado(@Nullable Exception erro) {
+                        Log.d(TAG, "Servidor local indisponível; voltando ao Firestore", erro);
+                        desconectarServidorLocal();
+                    }
+                });
+        if (clienteLocal != null) clienteLocal.conectar();
+    }
+
+    /**
+     * Placar recebido pela rede local. Na primeira mensagem o listener do Firestore
+     * é suspenso. Se a rodada ou os textos mudaram, o documento é relido uma vez
+     * (textos não trafegam pela rede local; a rodada alimenta o índice local de votos).
+     */
+    private void aplicarPlacarLocal(PlacarResultados placar) {
+        if (ultimoPlacarLocal == null && observadorResultados != null) {
+            observadorResultados.setSuspenso(true);
+        }
+        ultimoPlacarLocal = placar;
+
+        // Com o Firestore suspenso não chegam snapshots do servidor: o voto da fila é
+        // tentado de tempos em tempos
+        long agora = SystemClock.elapsedRealtime();
+        if (enqueteRepository.temVotoNaFila()
+                && agora - ultimoReenvioPelaRedeLocalMillis >= INTERVALO_TENTATIVA_LOCAL_MS) {
+            ultimoReenvioPelaRedeLocalMillis = agora;
+            reenviarVotoNaFila();
+        }
+
+        Enquete base = enqueteServidor;
+        if (base == null
+                || base.getRodada() != placar.rodada
+                || placarDe(base).configuracao != placar.configuracao) {
+            relerEnquete();
+        }
+        if (base != null) {
+            publicarEnquete(base.comContadoresConfirmados(
+                    placar.rodada, placar.opcaoA, placar.opcaoB, placar.opcaoC));
+        }
+    }
+
+    private void relerEnquete() {
+        if (releituraEmAndamento) return;
+        releituraEmAndamento = true;
+        enqueteRepository.carregarEnquete(new EnqueteRepository.EnqueteCarregadaCallback() {
+            @Override
+            public void onEnqueteCarregada(Enquete lida) {
+                releituraEmAndamento = false;
+                // Contadores da rede local são mais recentes que os do documento relido
+                PlacarResultados placar = ultimoPlacarLocal;
+                publicarEnquete(placar != null
+                        ? lida.comContadoresConfirmados(
+                                placar.rodada, placar.opcaoA, placar.opcaoB, placar.opcaoC)
+                        : lida);
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                releituraEmAndamento = false;
+                Log.w(TAG, "Falha ao reler a enquete: ", e);
+            }
+        });
+    }
+
+    /**
+     * Encerra a conexão com o servidor local e devolve os resultados ao Firestore.
+     */
+    private void desconectarServidorLocal() {
+        if (clienteLocal == null) return;
+        clienteLocal.desconectar();
+        clienteLocal = null;
+        ultimoPlacarLocal = null;
+        if (observadorResultados != null) observadorResultados.setSuspenso(false);
+    }
+
+    // =====================================================================
+    //  Ciclo de vida
+    // =====================================================================
+
+    /**
+     * Chamado quando a tela é finalizada de verdade (não em rotação):
+     * só aqui o listener do Firestore é removido.
+     */
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        urna.setOuvinte(null);
+        urna.enviarAgora();
+        agregador.parar();
+        corretor.parar();
+        limparVotoOtimista();
+        pararServidorLocal();
+        enqueteRepository.setCompactacaoPeriodica(false);
+        if (registroRespostasLivres != null) {
+            registroRespostasLivres.remove();
+            registroRespostasLivres = null;
+        }
+        if (registroClassificacao != null) {
+            registroClassificacao.remove();
+            registroClassificacao = null;
+        }
+        if (registroTurmas != null) {
+            registroTurmas.remove();
+            registroTurmas = null;
+        }
+        if (clienteLocal != null) {
+            clienteLocal.desconectar();
+            clienteLocal = null;
+        }
+        if (estadoInicialFuturo != null) {
+            estadoInicialFuturo.cancel(false);
+            estadoInicialFuturo = null;
+        }
+        if (observadorResultados != null) {
+            observadorResultados.encerrar();
+            observadorResultados = null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.a3_teste_paineldevotao;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.EstadoTelaEnquete;
+
+import java.util.Objects;
+
+/**
+ * Aplica o {@link EstadoTelaEnquete} às Views da tela principal, chamando
+ * setText só nas Views cujo conteúdo mudou desde a última aplicação.
+ *
+ * Um snapshot que só altera um contador toca em duas Views (a opção e o total;
+ * as outras opções só mudam se a porcentagem delas mudar). Campos inalterados
+ * não geram texto novo nem nova passagem de layout. Números e porcentagens
+ * pequenos vêm de tabelas pré-formatadas.
+ *
+ * Usado apenas na main thread.
+ */
+class VinculadorEnquete {
+
+    /**
+     * Destino de um texto (ex.: TextView::setText).
+     */
+    interface Texto {
+        void definir(CharSequence texto);
+    }
+
+    private static final int NUMEROS_EM_CACHE = 1024;
+    private static final String[] NUMEROS = new String[NUMEROS_EM_CACHE];
+    private static final String[] SUFIXOS_PERCENTUAL = new String[101];
+
+    static {
+        for (int i = 0; i < SUFIXOS_PERCENTUAL.length; i++) {
+            SUFIXOS_PERCENTUAL[i] = " votos (" + i + "%)";
+        }
+    }
+
+    private final Texto pergunta;
+    private final Texto botaoA;
+    private final Texto botaoB;
+    private final Texto botaoC;
+    private final Texto totalA;
+    private final Texto totalB;
+    private final Texto totalC;
+    private final Texto totalGeral;
+    private final Texto rodape;
+
+    private final StringBuilder texto = new StringBuilder(48);
+    @Nullable private EstadoTelaEnquete anterior;
+
+    VinculadorEnquete(Texto pergunta,
+                      Texto botaoA, Texto botaoB, Texto botaoC,
+                      Texto totalA, Texto totalB, Texto totalC,
+                      Texto totalGeral, Texto rodape) {
+        this.pergunta = pergunta;
+        this.botaoA = botaoA;
+        this.botaoB = botaoB;
+        this.botaoC = botaoC;
+        this.totalA = totalA;
+        this.totalB = totalB;
+        this.totalC = totalC;
+        this.totalGeral = totalGeral;
+        this.rodape = rodape;
+    }
+
+    /**
+     * Atualiza as Views que mudaram.
+     *
+     * @return quantidade de Views alteradas (0 quando o estado é igual ao anterior)
+     */
+    int aplicar(EstadoTelaEnquete novo) {
+        if (novo.equals(anterior)) return 0;
+        EstadoTelaEnquete antes = anterior;
+        anterior = novo;
+        int alteradas = 0;
+
+        // Textos nulos mantêm o que já está na tela
+        alteradas += definirSeMudou(pergunta, novo.pergunta, antes != null ? antes.pergunta : null);
+        alteradas += definirSeMudou(botaoA, novo.textoBotaoA, antes != null ? antes.textoBotaoA : null);
+        alteradas += definirSeMudou(botaoB, novo.textoBotaoB, antes != null ? antes.textoBotaoB : null);
+        alteradas += definirSeMudou(botaoC, novo.textoBotaoC, antes != null ? antes.textoBotaoC : null);
+
+        if (antes == null || novo.votosA != antes.votosA || novo.percentualA != antes.percentualA) {
+            totalA.definir(linhaOpcao("Opção A: ", novo.votosA, novo.percentualA));
+            alteradas++;
+        }
+        if (antes == null || novo.votosB != antes.votosB || novo.percentualB != antes.percentualB) {
+            totalB.definir(linhaOpcao("Opção B: ", novo.votosB, novo.percentualB));
+            alteradas++;
+        }
+        if (antes == null || novo.votosC != antes.votosC || novo.percentualC != antes.percentualC) {
+            totalC.definir(linhaOpcao("Opção C: ", novo.votosC, novo.percentualC));
+            alteradas++;
+        }
+        if (antes == null || novo.total != antes.total || novo.sincronizando != antes.sincronizando) {
+            texto.setLength(0);
+            texto.append("Total de votos: ").append(numero(novo.total));
+            // Escritas ainda não confirmadas pelo servidor (ex.: voto recém-enviado)
+            if (novo.sincronizando) texto.append(" (sincronizando…)");
+            totalGeral.definir(texto.toString());
+            alteradas++;
+        }
+        if (antes == null || !novo.rodape.equals(antes.rodape)) {
+            rodape.definir(novo.rodape);
+            alteradas++;
+        }
+        return alteradas;
+    }
+
+    private static int definirSeMudou(Texto destino, @Nullable String novo, @Nullable String antigo) {
+        if (novo == null || Objects.equals(novo, antigo)) return 0;
+        destino.definir(novo);
+        return 1;
+    }
+
+    private String linhaOpcao(String prefixo, long votos, int percentual) {
+        texto.setLength(0);
+        texto.append(prefixo).append(numero(votos));
+        if (percentual >= 0 && percentual < SUFIXOS_PERCENTUAL.length) {
+            texto.append(SUFIXOS_PERCENTUAL[percentual]);
+        } else {
+            texto.append(" votos (").append(percentual).append("%)");
+        }
+        return texto.toString();
+    }
+
+    private static String numero(long valor) {
+        if (valor < 0 || valor >= NUMEROS_EM_CACHE) {
+            return Long.toString(valor);
+        }
+        int indice = (int) valor;
+        String pronto = NUMEROS[indice];
+        if (pronto == null) {
+            pronto = Integer.toString(indice);
+            NUMEROS[indice] = pronto;
+        }
+        return pronto;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.a3_teste_paineldevotao.data;
+
+/**
+ * Relógio + agendamento de tarefas, abstraído para que a lógica de
+ * atualização adaptativa possa ser testada com tempo simulado.
+ *
+ * A implementação real é {@link AgendadorAndroid} (main thread).
+ */
+public interface Agendador {
+
+    /**
+     * Tempo monotônico atual, em milissegundos.
+     */
+    long agoraMillis();
+
+    /**
+     * Agenda a tarefa para daqui a {@code atrasoMillis}.
+     *
+     * @return tarefa agendada, que pode ser cancelada
+     */
+    Tarefa agendar(Runnable tarefa, long atrasoMillis);
+
+    /**
+     * Tarefa agendada.
+     */
+    interface Tarefa {
+        void cancelar();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Agendador na main thread, usando o tempo desde o boot (não muda com o relógio do usuário).
+ */
+public class AgendadorAndroid implements Agendador {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public long agoraMillis() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public Tarefa agendar(Runnable tarefa, long atrasoMillis) {
+        handler.postDelayed(tarefa, atrasoMillis);
+        return () -> handler.removeCallbacks(tarefa);
+    }
+}
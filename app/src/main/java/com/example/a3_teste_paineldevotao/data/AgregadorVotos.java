@@ -0,0 +1,316 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.esquema.CamposVoto;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo agregador: o aparelho do professor faz a contagem dos votos.
+ *
+ * Com o modo ligado (campo "modoAgregador" no documento da enquete), os alunos
+ * só criam o próprio documento em "votos" e não tocam nos contadores da enquete;
+ * o documento da enquete deixa de ser disputado a cada voto. Os contadores das
+ * turmas já são disputados só pela própria turma e seguem com os alunos. Este agregador:
+ * - escuta os documentos de voto e mantém a contagem em memória ({@link ApuracaoVotos});
+ *   votos com turma continuam somados pelos alunos no documento da turma e ficam de fora;
+ * - grava os totais (valores absolutos) no documento da enquete no máximo a cada
+ *   {@link #INTERVALO_ESCRITA_MS};
+ * - salva um checkpoint em "agregador/checkpoint" a cada {@link #INTERVALO_CHECKPOINT_MS}.
+ *
+ * Ao reiniciar (app fechado, outro aparelho do professor), a contagem parte do
+ * checkpoint e só os votos a partir dele (menos uma janela de segurança, ver
+ * {@link ApuracaoVotos}) são lidos. Um reset avança a rodada e a contagem
+ * recomeça do zero.
+ *
+ * Usado apenas na main thread.
+ */
+public class AgregadorVotos {
+
+    private static final String TAG = "AgregadorVotos";
+    private static final String PREFS = "agregador_votos";
+    private static final String CHAVE_ATIVO = "ativo_neste_aparelho";
+
+    public static final long INTERVALO_ESCRITA_MS = 2_000L;
+    public static final long INTERVALO_CHECKPOINT_MS = 30_000L;
+
+    private final FirebaseManager firebaseManager;
+    private final DocumentReference enqueteRef;
+    private final DocumentReference checkpointRef;
+    private final Agendador agendador;
+    private final SharedPreferences prefs;
+    private final ApuracaoVotos apuracao = new ApuracaoVotos();
+
+    @Nullable private ListenerRegistration registroEnquete;
+    @Nullable private ListenerRegistration registroVotos;
+    @Nullable private Agendador.Tarefa proximaEscrita;
+    @Nullable private Agendador.Tarefa proximoCheckpoint;
+    private boolean rodando;
+    private boolean contagemPronta;  // checkpoint já carregado para a rodada atual
+    private boolean totaisPendentes; // contagem mudou desde a última escrita
+    private long rodadaAtual = -1;
+
+    public AgregadorVotos(Context context, FirebaseManager firebaseManager, Agendador agendador) {
+        this.firebaseManager = firebaseManager;
+        this.enqueteRef = firebaseManager.getEnqueteRef();
+        this.checkpointRef = enqueteRef.collection("agregador").document("checkpoint");
+        this.agendador = agendador;
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Este aparelho é o agregador? (lembrado entre execuções do app)
+     */
+    public boolean isAtivoNesteAparelho() {
+        return prefs.getBoolean(CHAVE_ATIVO, false);
+    }
+
+    /**
+     * Liga o modo agregador na enquete e passa a contar neste aparelho.
+     * Se a gravação falhar, nada muda e a Task devolve o erro.
+     */
+    public Task<Void> ativar() {
+        return enqueteRef.update("modoAgregador", true).continueWith(task -> {
+            if (!task.isSuccessful()) throw erroDa(task);
+            prefs.edit().putBoolean(CHAVE_ATIVO, true).apply();
+            iniciar();
+            return null;
+        });
+    }
+
+    /**
+     * Grava a contagem final e devolve os contadores aos alunos (incremento a cada voto).
+     * Se a enquete não puder ser atualizada, este aparelho continua contando (os
+     * alunos ainda não mexem nos contadores) e a Task devolve o erro.
+     */
+    public Task<Void> desativar() {
+        parar();
+        return enqueteRef.update("modoAgregador", false).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                iniciar();
+                throw erroDa(task);
+            }
+            prefs.edit().putBoolean(CHAVE_ATIVO, false).apply();
+            return null;
+        });
+    }
+
+    /**
+     * Começa a agregar (se ainda não estiver rodando). A rodada atual vem do documento da enquete.
+     */
+    public void iniciar() {
+        if (rodando) return;
+        rodando = true;
+        registroEnquete = enqueteRef.addSnapshotListener((snapshot, e) -> {
+            if (e != null || snapshot == null || !snapshot.exists()) return;
+            Long rodada = snapshot.getLong("rodada");
+            long lida = rodada != null ? rodada : 0;
+            if (lida != rodadaAtual) {
+                rodadaAtual = lida;
+                carregarCheckpoint(lida);
+            }
+        });
+        agendarCheckpoint();
+    }
+
+    /**
+     * Para de agregar neste aparelho, gravando antes os totais e o checkpoint.
+     */
+    public void parar() {
+        if (!rodando) return;
+        if (contagemPronta) {
+            escreverTotais();
+            salvarCheckpoint();
+        }
+        rodando = false;
+        contagemPronta = false;
+        rodadaAtual = -1;
+        if (registroEnquete != null) {
+            registroEnquete.remove();
+            registroEnquete = null;
+        }
+        removerListenerVotos();
+        cancelar(proximaEscrita);
+        cancelar(proximoCheckpoint);
+        proximaEscrita = null;
+        proximoCheckpoint = null;
+    }
+
+    // =====================================================================
+    //  Recontagem a partir do checkpoint
+    // =====================================================================
+
+    private void carregarCheckpoint(long rodada) {
+        contagemPronta = false;
+        removerListenerVotos();
+
+        checkpointRef.get().addOnCompleteListener(task -> {
+            if (!rodando || rodada != rodadaAtual) return;
+            ApuracaoVotos.Checkpoint checkpoint =
+                    task.isSuccessful() ? lerCheckpoint(task.getResult()) : null;
+            apuracao.iniciar(rodada, checkpoint);
+            contagemPronta = true;
+            // Após recontar, grava sempre: corrige incrementos de clientes que ainda não viram o modo
+            totaisPendentes = true;
+            Log.d(TAG, "Contagem da rodada " + rodada + " a partir de "
+                    + (apuracao.getLimiteNanos() != ApuracaoVotos.SEM_LIMITE ? "checkpoint" : "zero"));
+            ouvirVotos();
+        });
+    }
+
+    private void ouvirVotos() {
+        Query consulta = enqueteRef.collection("votos");
+        long inicio = apuracao.getInicioConsultaNanos();
+        if (inicio != ApuracaoVotos.SEM_LIMITE) {
+            consulta = consulta.whereGreaterThanOrEqualTo(CamposVoto.TIMESTAMP, deNanos(inicio));
+        }
+
+        registroVotos = consulta.addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Erro ao ouvir votos: ", e);
+                return;
+            }
+            if (snapshot == null) return;
+
+            boolean mudou = false;
+            for (DocumentChange mudanca : snapshot.getDocumentChanges()) {
+                DocumentSnapshot doc = mudanca.getDocument();
+                if (mudanca.getType() == DocumentChange.Type.REMOVED) {
+                    mudou |= apuracao.remover(doc.getId());
+                } else {
+                    Timestamp instante = doc.getTimestamp(CamposVoto.TIMESTAMP);
+                    mudou |= apuracao.aplicar(doc.getId(), doc.getString(CamposVoto.OPCAO_ESCOLHIDA),
+                            doc.getString(CamposVoto.TURMA),
+                            instante != null ? emNanos(instante) : ApuracaoVotos.SEM_LIMITE);
+                }
+            }
+            if (mudou) totaisPendentes = true;
+            if (totaisPendentes) agendarEscrita();
+        });
+    }
+
+    private void removerListenerVotos() {
+        if (registroVotos != null) {
+            registroVotos.remove();
+            registroVotos = null;
+        }
+    }
+
+    // =====================================================================
+    //  Escrita com taxa limitada
+    // =====================================================================
+
+    private void agendarEscrita() {
+        if (proximaEscrita != null) return;
+        proximaEscrita = agendador.agendar(() -> {
+            proximaEscrita = null;
+            if (rodando && contagemPronta) escreverTotais();
+        }, INTERVALO_ESCRITA_MS);
+    }
+
+    private void escreverTotais() {
+        if (!totaisPendentes) return;
+        totaisPendentes = false;
+
+        Map<String, Object> totais = new HashMap<>();
+        totais.put("opcaoA", apuracao.getTotalA());
+        totais.put("opcaoB", apuracao.getTotalB());
+        totais.put("opcaoC", apuracao.getTotalC());
+        totais.put("agregadoEm", FieldValue.serverTimestamp());
+        enqueteRef.update(totais).addOnFailureListener(e -> {
+            Log.w(TAG, "Falha ao gravar totais; nova tentativa na próxima escrita", e);
+            totaisPendentes = true;
+            if (rodando) agendarEscrita();
+        });
+    }
+
+    private void agendarCheckpoint() {
+        proximoCheckpoint = agendador.agendar(() -> {
+            if (!rodando) return;
+            if (contagemPronta) salvarCheckpoint();
+            agendarCheckpoint();
+        }, INTERVALO_CHECKPOINT_MS);
+    }
+
+    private void salvarCheckpoint() {
+        ApuracaoVotos.Checkpoint checkpoint = apuracao.gerarCheckpoint();
+        if (checkpoint == null) return; // algum voto sem timestamp ainda: fica para o próximo
+
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("rodada", checkpoint.rodada);
+        dados.put("opcaoA", checkpoint.opcaoA);
+        dados.put("opcaoB", checkpoint.opcaoB);
+        dados.put("opcaoC", checkpoint.opcaoC);
+        dados.put("limite", checkpoint.limiteNanos != ApuracaoVotos.SEM_LIMITE
+                ? deNanos(checkpoint.limiteNanos) : null);
+        dados.put("contadosNaJanela", new HashMap<>(checkpoint.contadosNaJanela));
+        dados.put("agregador", firebaseManager.getCurrentVoterId());
+        dados.put("salvoEm", FieldValue.serverTimestamp());
+        checkpointRef.set(dados);
+    }
+
+    @Nullable
+    private static ApuracaoVotos.Checkpoint lerCheckpoint(@Nullable DocumentSnapshot doc) {
+        if (doc == null || !doc.exists()) return null;
+        Long rodada = doc.getLong("rodada");
+        if (rodada == null) return null;
+
+        Long a = doc.getLong("opcaoA");
+        Long b = doc.getLong("opcaoB");
+        Long c = doc.getLong("opcaoC");
+        Timestamp limite = doc.getTimestamp("limite");
+        long limiteNanos = limite != null ? emNanos(limite) : ApuracaoVotos.SEM_LIMITE;
+
+        Map<String, Long> contados = new HashMap<>();
+        Object janela = doc.get("contadosNaJanela");
+        if (janela instanceof Map) {
+            for (Map.Entry<?, ?> item : ((Map<?, ?>) janela).entrySet()) {
+                if (item.getKey() instanceof String && item.getValue() instanceof Number) {
+                    contados.put((String) item.getKey(), ((Number) item.getValue()).longValue());
+                }
+            }
+        }
+        // Checkpoints antigos só guardavam os ids exatamente no limite
+        Object ids = doc.get("idsNoLimite");
+        if (ids instanceof List) {
+            for (Object id : (List<?>) ids) {
+                if (id instanceof String) contados.put((String) id, limiteNanos);
+            }
+        }
+        return new ApuracaoVotos.Checkpoint(rodada,
+                a != null ? a : 0, b != null ? b : 0, c != null ? c : 0,
+                limiteNanos, contados);
+    }
+
+    private static long emNanos(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1_000_000_000L + timestamp.getNanoseconds();
+    }
+
+    private static Timestamp deNanos(long nanos) {
+        return new Timestamp(nanos / 1_000_000_000L, (int) (nanos % 1_000_000_000L));
+    }
+
+    private static Exception erroDa(Task<?> task) {
+        Exception erro = task.getException();
+        return erro != null ? erro : new IllegalStateException("Falha ao atualizar a enquete");
+    }
+
+    private static void cancelar(@Nullable Agendador.Tarefa tarefa) {
+        if (tarefa != null) tarefa.cancelar();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.a3_teste_paineldevotao.data;
+
+/**
+ * Cálculo do fator de amostragem usado ao decodificar imagens
+ * (BitmapFactory.Options.inSampleSize).
+ *
+ * O decodificador lê 1 a cada {@code fator} pixels em cada direção, então a
+ * imagem nunca é decodificada em tamanho cheio só para ser reduzida depois.
+ * Classe sem dependência de Android para poder ser testada isoladamente.
+ */
+public final class Amostragem {
+
+    private Amostragem() {
+    }
+
+    /**
+     * Maior potência de 2 que ainda deixa a imagem com pelo menos o tamanho do alvo
+     * nas duas dimensões (a imagem decodificada nunca fica menor que o destino).
+     *
+     * @return 1 quando a imagem já é menor que o alvo ou as dimensões são inválidas
+     */
+    public static int fator(int larguraOriginal, int alturaOriginal, int larguraAlvo, int alturaAlvo) {
+        if (larguraOriginal <= 0 || alturaOriginal <= 0 || larguraAlvo <= 0 || alturaAlvo <= 0) {
+            return 1;
+        }
+        int fator = 1;
+        while (larguraOriginal / (fator * 2) >= larguraAlvo
+                && alturaOriginal / (fator * 2) >= alturaAlvo) {
+            fator *= 2;
+        }
+        return fator;
+    }
+
+    /**
+     * Dimensões que cabem em um quadrado de {@code lado} mantendo a proporção
+     * (imagens menores não são ampliadas).
+     *
+     * @return {largura, altura}
+     */
+    public static int[] caber(int largura, int altura, int lado) {
+        if (largura <= lado && altura <= lado) return new int[]{largura, altura};
+        if (largura >= altura) {
+            return new int[]{lado, Math.max(1, Math.round((float) altura * lado / largura))};
+        }
+        return new int[]{Math.max(1, Math.round((float) largura * lado / altura)), lado};
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.EventoVoto;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reconstrói os contadores a partir do histórico de eventos ({@link EventoVoto}),
+ * partindo da última compactação.
+ *
+ * Os eventos devem chegar em ordem de timestamp. A compactação guarda os totais
+ * até um instante e os ids dos eventos exatamente nesse instante: a consulta
+ * "timestamp >= limite" volta a entregá-los e eles não podem ser contados de novo
+ * (mesma técnica do checkpoint de {@link ApuracaoVotos}).
+ *
+ * Classe sem dependência de Android/Firestore para poder ser testada isoladamente.
+ */
+public class ApuracaoEventos {
+
+    /** Sem compactação: o histórico é lido desde o primeiro evento. */
+    public static final long SEM_LIMITE = -1L;
+
+    /**
+     * Estado compactado: totais até o limite, sem precisar dos eventos anteriores.
+     */
+    public static class Compactacao {
+        public final long rodada;
+        public final long opcaoA;
+        public final long opcaoB;
+        public final long opcaoC;
+        public final long limiteNanos;
+        public final Set<String> idsNoLimite;
+        public final long eventos; // total de eventos já incorporados
+
+        public Compactacao(long rodada, long opcaoA, long opcaoB, long opcaoC,
+                           long limiteNanos, Set<String> idsNoLimite, long eventos) {
+            this.rodada = rodada;
+            this.opcaoA = opcaoA;
+            this.opcaoB = opcaoB;
+            this.opcaoC = opcaoC;
+            this.limiteNanos = limiteNanos;
+            this.idsNoLimite = Collections.unmodifiableSet(new HashSet<>(idsNoLimite));
+            this.eventos = eventos;
+        }
+    }
+
+    private long rodada;
+    private long opcaoA, opcaoB, opcaoC;
+    private long limiteNanos = SEM_LIMITE;
+    private final Set<String> idsNoLimite = new HashSet<>();
+    private long eventos;
+    private long eventosDesdeCompactacao;
+
+    /**
+     * Recomeça a partir da compactação (ou do zero, sem compactação).
+     */
+    public void iniciar(@Nullable Compactacao base) {
+        idsNoLimite.clear();
+        eventosDesdeCompactacao = 0;
+        if (base != null) {
+            rodada = base.rodada;
+            opcaoA = base.opcaoA;
+            opcaoB = base.opcaoB;
+            opcaoC = base.opcaoC;
+            limiteNanos = base.limiteNanos;
+            idsNoLimite.addAll(base.idsNoLimite);
+            eventos = base.eventos;
+        } else {
+            rodada = opcaoA = opcaoB = opcaoC = 0;
+            limiteNanos = SEM_LIMITE;
+            eventos = 0;
+        }
+    }
+
+    /**
+     * Limite inferior da consulta de eventos ("timestamp >= limite"), ou SEM_LIMITE.
+     */
+    public long getLimiteNanos() {
+        return limiteNanos;
+    }
+
+    /**
+     * Aplica o próximo evento (em ordem de timestamp).
+     *
+     * @return false se o evento já estava incorporado ou ainda não tem timestamp do servidor
+     */
+    public boolean aplicar(EventoVoto evento) {
+        long instante = evento.getInstanteNanos();
+        if (instante == SEM_LIMITE) return false;
+        if (limiteNanos != SEM_LIMITE) {
+            if (instante < limiteNanos) return false;
+            if (instante == limiteNanos && idsNoLimite.contains(evento.getId())) return false;
+        }
+
+        switch (evento.getTipo()) {
+            case VOTO:
+            case LOTE:
+                opcaoA += evento.getVotosA();
+                opcaoB += evento.getVotosB();
+                opcaoC += evento.getVotosC();
+                break;
+            case RESET:
+                opcaoA = opcaoB = opcaoC = 0;
+                rodada++;
+                break;
+            case CONFIGURACAO:
+                // Só auditoria: não altera os contadores
+                break;
+        }
+
+        if (instante != limiteNanos) {
+            limiteNanos = instante;
+            idsNoLimite.clear();
+        }
+        idsNoLimite.add(evento.getId());
+        eventos++;
+        eventosDesdeCompactacao++;
+        return true;
+    }
+
+    public long getRodada() {
+        return rodada;
+    }
+
+    public long getOpcaoA() {
+        return opcaoA;
+    }
+
+    public long getOpcaoB() {
+        return opcaoB;
+    }
+
+    public long getOpcaoC() {
+        return opcaoC;
+    }
+
+    /**
+     * Eventos aplicados além da compactação usada em {@link #iniciar}.
+     */
+    public long getEventosDesdeCompactacao() {
+        return eventosDesdeCompactacao;
+    }
+
+    /**
+     * Estado atual compactado (a partir dele a reconstrução não precisa dos eventos anteriores).
+     */
+    public Compactacao compactar() {
+        return new Compactacao(rodada, opcaoA, opcaoB, opcaoC, limiteNanos, idsNoLimite, eventos);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contagem em memória usada pelo agregador do professor ({@link AgregadorVotos}).
+ *
+ * Total de cada opção = base do checkpoint + votos vistos depois dele.
+ * O checkpoint guarda a contagem até um instante (timestamp do servidor, o
+ * "limite"). Um voto pode ser confirmado depois do checkpoint com timestamp
+ * anterior ao limite, então a retomada relê uma janela antes dele
+ * ("timestamp >= limite - janela"). Para não contar duas vezes o que já está
+ * na base, o checkpoint leva os ids (e instantes) dos votos contados dentro
+ * dessa janela; o resto da janela é voto novo.
+ *
+ * Votos com turma ficam de fora: mesmo no modo agregador eles são somados pelos
+ * próprios alunos no documento da turma ({@link ContagemTurmas}), e o total exibido
+ * é o documento da enquete mais as turmas. Contá-los aqui os somaria duas vezes.
+ *
+ * Instantes são nanossegundos desde a época (precisão do Timestamp do Firestore).
+ * Classe sem dependência de Android/Firestore para poder ser testada isoladamente.
+ */
+public class ApuracaoVotos {
+
+    /** Sem checkpoint: todos os votos da rodada são contados a partir de zero. */
+    public static final long SEM_LIMITE = -1L;
+
+    /** Janela relida antes do limite do checkpoint ao retomar a contagem. */
+    public static final long JANELA_PADRAO_NANOS = 60_000_000_000L;
+
+    /**
+     * Estado salvo para recontar a partir dele após reiniciar.
+     */
+    public static class Checkpoint {
+        public final long rodada;
+        public final long opcaoA;
+        public final long opcaoB;
+        public final long opcaoC;
+        public final long limiteNanos;
+        /** Votos já contados na janela antes do limite: id -> instante. */
+        public final Map<String, Long> contadosNaJanela;
+
+        public Checkpoint(long rodada, long opcaoA, long opcaoB, long opcaoC,
+                          long limiteNanos, Map<String, Long> contadosNaJanela) {
+            this.rodada = rodada;
+            this.opcaoA = opcaoA;
+            this.opcaoB = opcaoB;
+            this.opcaoC = opcaoC;
+            this.limiteNanos = limiteNanos;
+            this.contadosNaJanela = Collections.unmodifiableMap(new HashMap<>(contadosNaJanela));
+        }
+    }
+
+    private static class Voto {
+        final String opcao;
+        final long instanteNanos; // SEM_LIMITE enquanto o servidor não definiu
+
+        Voto(String opcao, long instanteNanos) {
+            this.opcao = opcao;
+            this.instanteNanos = instanteNanos;
+        }
+    }
+
+    private final long janelaNanos;
+
+    private long rodada;
+    private long baseA, baseB, baseC;
+    private long limiteNanos = SEM_LIMITE;
+    private final Map<String, Long> contadosNaJanela = new HashMap<>(); // já na base
+    private final Map<String, Voto> votos = new HashMap<>(); // vistos desde o checkpoint
+
+    public ApuracaoVotos() {
+        this(JANELA_PADRAO_NANOS);
+    }
+
+    /**
+     * @param janelaNanos atraso máximo aceito entre o timestamp de um voto e a
+     *                    confirmação dele no servidor
+     */
+    public ApuracaoVotos(long janelaNanos) {
+        this.janelaNanos = janelaNanos;
+    }
+
+    /**
+     * Recomeça a contagem: a partir do checkpoint se ele for desta rodada, senão do zero.
+     */
+    public void iniciar(long rodadaAtual, @Nullable Checkpoint checkpoint) {
+        rodada = rodadaAtual;
+        votos.clear();
+        contadosNaJanela.clear();
+        if (checkpoint != null && checkpoint.rodada == rodadaAtual) {
+            baseA = checkpoint.opcaoA;
+            baseB = checkpoint.opcaoB;
+            baseC = checkpoint.opcaoC;
+            limiteNanos = checkpoint.limiteNanos;
+            contadosNaJanela.putAll(checkpoint.contadosNaJanela);
+        } else {
+            baseA = baseB = baseC = 0;
+            limiteNanos = SEM_LIMITE;
+        }
+    }
+
+    public long getRodada() {
+        return rodada;
+    }
+
+    /**
+     * Maior instante já incluído na base do checkpoint, ou SEM_LIMITE.
+     */
+    public long getLimiteNanos() {
+        return limiteNanos;
+    }
+
+    /**
+     * Limite inferior da consulta de votos ("timestamp >= início"): o limite do
+     * checkpoint menos a janela, ou SEM_LIMITE para ler a rodada inteira.
+     */
+    public long getInicioConsultaNanos() {
+        return limiteNanos != SEM_LIMITE ? Math.max(0, limiteNanos - janelaNanos) : SEM_LIMITE;
+    }
+
+    /**
+     * Voto sem turma criado ou alterado.
+     *
+     * @param instanteNanos timestamp do servidor, ou SEM_LIMITE se ainda pendente
+     * @return true se a contagem mudou
+     */
+    public boolean aplicar(String id, @Nullable String opcao, long instanteNanos) {
+        return aplicar(id, opcao, null, instanteNanos);
+    }
+
+    /**
+     * Voto criado ou alterado. Um voto com turma não entra na contagem (já está no
+     * documento da turma).
+     *
+     * @param turma         turma gravada no voto, ou null
+     * @param instanteNanos timestamp do servidor, ou SEM_LIMITE se ainda pendente
+     * @return true se a contagem mudou
+     */
+    public boolean aplicar(String id, @Nullable String opcao, @Nullable String turma,
+                           long instanteNanos) {
+        if (turma != null) return remover(id);
+        // Já incluído na base do checkpoint
+        if (contadosNaJanela.containsKey(id)) return false;
+        long inicio = getInicioConsultaNanos();
+        if (instanteNanos != SEM_LIMITE && inicio != SEM_LIMITE && instanteNanos < inicio) {
+            return false;
+        }
+
+        Voto anterior = votos.get(id);
+        if (opcao == null) {
+            return remover(id);
+        }
+        votos.put(id, new Voto(opcao, instanteNanos));
+        return anterior == null || !anterior.opcao.equals(opcao);
+    }
+
+    /**
+     * Voto apagado (ex.: reset em andamento).
+     *
+     * @return true se a contagem mudou
+     */
+    public boolean remover(String id) {
+        return votos.remove(id) != null;
+    }
+
+    public long getTotalA() {
+        return baseA + contar("A");
+    }
+
+    public long getTotalB() {
+        return baseB + contar("B");
+    }
+
+    public long getTotalC() {
+        return baseC + contar("C");
+    }
+
+    /**
+     * Checkpoint com tudo o que já foi contado, ou null se algum voto ainda
+     * não tem timestamp do servidor (o limite não estaria bem definido).
+     */
+    @Nullable
+    public Checkpoint gerarCheckpoint() {
+        long maior = limiteNanos;
+        for (Voto voto : votos.values()) {
+            if (voto.instanteNanos == SEM_LIMITE) return null;
+            maior = Math.max(maior, voto.instanteNanos);
+        }
+
+        // Tudo o que já foi contado dentro da janela antes do novo limite
+        long inicio = maior != SEM_LIMITE ? maior - janelaNanos : SEM_LIMITE;
+        Map<String, Long> janela = new HashMap<>();
+        for (Map.Entry<String, Long> item : contadosNaJanela.entrySet()) {
+            if (item.getValue() >= inicio) janela.put(item.getKey(), item.getValue());
+        }
+        for (Map.Entry<String, Voto> item : votos.entrySet()) {
+            if (item.getValue().instanteNanos >= inicio) {
+                janela.put(item.getKey(), item.getValue().instanteNanos);
+            }
+        }
+
+        return new Checkpoint(rodada, getTotalA(), getTotalB(), getTotalC(), maior, janela);
+    }
+
+    private long contar(String opcao) {
+        long total = 0;
+        for (Voto voto : votos.values()) {
+            if (voto.opcao.equals(opcao)) total++;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Cache em disco de arquivos pequenos (ex.: miniaturas), um arquivo por chave,
+ * com limite de tamanho total: ao passar do limite, os menos usados são apagados.
+ *
+ * A ordem de uso fica em memória (LinkedHashMap em ordem de acesso) e é montada
+ * na primeira chamada a partir da data de modificação dos arquivos, que é
+ * atualizada a cada leitura para sobreviver ao fim do processo.
+ *
+ * Faz I/O: usar fora da main thread. Sem dependência de Android para poder ser
+ * testada isoladamente.
+ */
+public class CacheDisco {
+
+    private static final Pattern CHAVE_VALIDA = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String SUFIXO_PARCIAL = ".parcial";
+
+    private final File pasta;
+    private final long limiteBytes;
+
+    // chave -> tamanho em bytes, do menos para o mais recentemente usado
+    private final LinkedHashMap<String, Long> arquivos = new LinkedHashMap<>(16, 0.75f, true);
+    private long tamanhoTotal;
+    private boolean carregado;
+
+    public CacheDisco(File pasta, long limiteBytes) {
+        this.pasta = pasta;
+        this.limiteBytes = limiteBytes;
+    }
+
+    /**
+     * @return o arquivo da chave, ou null se não estiver em cache
+     */
+    @Nullable
+    public synchronized File obter(String chave) {
+        carregar();
+        if (arquivos.get(validar(chave)) == null) return null;
+        File arquivo = new File(pasta, chave);
+        if (!arquivo.isFile()) {
+            // Apagado por fora (ex.: sistema limpando o cache)
+            tamanhoTotal -= arquivos.remove(chave);
+            return null;
+        }
+        arquivo.setLastModified(System.currentTimeMillis());
+        return arquivo;
+    }
+
+    /**
+     * Grava (ou substitui) o conteúdo da chave e apaga os menos usados se passar do limite.
+     * A gravação vai para um arquivo temporário e só então é renomeada: uma leitura
+     * nunca vê um arquivo pela metade.
+     */
+    public synchronized File gravar(String chave, byte[] dados) throws IOException {
+        carregar();
+        validar(chave);
+        if (!pasta.isDirectory() && !pasta.mkdirs()) {
+            throw new IOException("Não foi possível criar " + pasta);
+        }
+        File arquivo = new File(pasta, chave);
+        File parcial = new File(pasta, chave + SUFIXO_PARCIAL);
+        try (FileOutputStream saida = new FileOutputStream(parcial)) {
+            saida.write(dados);
+        }
+        if (!parcial.renameTo(arquivo)) {
+            parcial.delete();
+            throw new IOException("Não foi possível gravar " + arquivo);
+        }
+
+        Long anterior = arquivos.put(chave, (long) dados.length);
+        tamanhoTotal += dados.length - (anterior != null ? anterior : 0);
+        aparar(chave);
+        return arquivo;
+    }
+
+    public synchronized boolean contem(String chave) {
+        carregar();
+        return arquivos.containsKey(chave);
+    }
+
+    public synchronized long getTamanhoTotal() {
+        carregar();
+        return tamanhoTotal;
+    }
+
+    /**
+     * Apaga os arquivos menos usados até caber no limite, sem apagar o recém-gravado.
+     */
+    private void aparar(String manter) {
+        Iterator<Map.Entry<String, Long>> it = arquivos.entrySet().iterator();
+        while (tamanhoTotal > limiteBytes && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            if (e.getKey().equals(manter)) continue;
+            new File(pasta, e.getKey()).delete();
+            tamanhoTotal -= e.getValue();
+            it.remove();
+        }
+    }
+
+    /**
+     * Monta o índice a partir da pasta, do arquivo usado há mais tempo para o mais recente.
+     */
+    private void carregar() {
+        if (carregado) return;
+        carregado = true;
+        File[] existentes = pasta.listFiles();
+        if (existentes == null) return;
+        Arrays.sort(existentes, Comparator.comparingLong(File::lastModified));
+        for (File arquivo : existentes) {
+            String nome = arquivo.getName();
+            if (nome.endsWith(SUFIXO_PARCIAL)) {
+                arquivo.delete(); // gravação interrompida
+            } else if (arquivo.isFile() && CHAVE_VALIDA.matcher(nome).matches()) {
+                arquivos.put(nome, arquivo.length());
+                tamanhoTotal += arquivo.length();
+            }
+        }
+        aparar(null);
+    }
+
+    private static String validar(String chave) {
+        if (!CHAVE_VALIDA.matcher(chave).matches()) {
+            throw new IllegalArgumentException("Chave inválida: " + chave);
+        }
+        return chave;
+    }
+}
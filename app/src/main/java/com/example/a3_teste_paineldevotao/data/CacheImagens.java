@@ -0,0 +1,220 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Miniaturas das imagens das opções, com cache em dois níveis.
+ *
+ * - Publicação (aparelho do professor): a imagem escolhida é reduzida UMA vez para
+ *   no máximo {@link #LADO_MINIATURA_PX} pixels e gravada em "imagens/{hash}" como
+ *   JPEG. Os alunos baixam só essa miniatura, nunca a imagem original.
+ * - Disco ({@link CacheDisco}): a miniatura baixada fica em cache/miniaturas; como o
+ *   id é o hash do conteúdo, nunca fica desatualizada.
+ * - Memória (LruCache): bitmaps já decodificados, limitado a 1/8 do heap do app.
+ *
+ * A decodificação roda fora da main thread e já reduz a imagem ao tamanho pedido
+ * (inSampleSize, ver {@link Amostragem}). Pedidos iguais simultâneos (ex.: pré-carga
+ * e exibição) compartilham o mesmo download e a mesma decodificação.
+ */
+public class CacheImagens {
+
+    public static final int LADO_MINIATURA_PX = 256;
+    private static final int QUALIDADE_JPEG = 80;
+    private static final long LIMITE_DISCO_BYTES = 10L * 1024 * 1024;
+    private static final String PASTA = "miniaturas";
+
+    // Decodificação e gravação em disco; duas threads bastam para as três opções
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2);
+
+    // Continuações que só encadeiam Tasks
+    private static final Executor DIRETO = Runnable::run;
+
+    private static CacheImagens instance;
+
+    /**
+     * Entregue na main thread.
+     */
+    public interface Ouvinte {
+        void onImagemCarregada(String id, Bitmap imagem);
+
+        void onErro(String id, @Nullable Exception e);
+    }
+
+    private final CollectionReference imagensRef;
+    private final Executor executorPrincipal;
+    private final CacheDisco disco;
+    private final LruCache<String, Bitmap> memoria;
+    private final ChamadasEmAndamento chamadas = new ChamadasEmAndamento();
+
+    private CacheImagens(Context context) {
+        Context appContext = context.getApplicationContext();
+        imagensRef = FirebaseManager.getInstance(appContext).getEnqueteRef().collection("imagens");
+        executorPrincipal = ContextCompat.getMainExecutor(appContext);
+        disco = new CacheDisco(new File(appContext.getCacheDir(), PASTA), LIMITE_DISCO_BYTES);
+
+        // Tamanho em KB: 1/8 da memória máxima do processo
+        int limiteKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        memoria = new LruCache<String, Bitmap>(limiteKb) {
+            @Override
+            protected int sizeOf(String chave, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+    }
+
+    /**
+     * Instância única: os caches são compartilhados por todas as telas.
+     */
+    public static synchronized CacheImagens getInstance(Context context) {
+        if (instance == null) {
+            instance = new CacheImagens(context);
+        }
+        return instance;
+    }
+
+    // =====================================================================
+    //  Leitura (alunos)
+    // =====================================================================
+
+    /**
+     * Garante a miniatura no disco sem decodificar. Chamado assim que a configuração
+     * da enquete chega, para a imagem já estar local quando o botão for desenhado.
+     */
+    public Task<File> preCarregar(String id) {
+        return chamadas.executar("miniatura:" + id, () ->
+                Tasks.call(EXECUTOR, () -> disco.obter(id)).continueWithTask(DIRETO, t -> {
+                    File arquivo = t.getResult();
+                    return arquivo != null ? Tasks.forResult(arquivo) : baixar(id);
+                }));
+    }
+
+    /**
+     * Carrega a miniatura reduzida para caber em larguraPx x alturaPx.
+     * Se o bitmap já está em memória, o ouvinte é chamado na hora.
+     */
+    public void carregar(String id, int larguraPx, int alturaPx, Ouvinte ouvinte) {
+        String chave = id + "@" + larguraPx + "x" + alturaPx;
+        Bitmap pronto = memoria.get(chave);
+        if (pronto != null) {
+            ouvinte.onImagemCarregada(id, pronto);
+            return;
+        }
+        chamadas.executar("bitmap:" + chave, () ->
+                preCarregar(id).continueWith(EXECUTOR, t -> {
+                    Bitmap bitmap = decodificar(t.getResult(), larguraPx, alturaPx);
+                    memoria.put(chave, bitmap);
+                    return bitmap;
+                }))
+                .addOnSuccessListener(executorPrincipal, bitmap -> ouvinte.onImagemCarregada(id, bitmap))
+                .addOnFailureListener(executorPrincipal, e -> ouvinte.onErro(id, e));
+    }
+
+    private Task<File> baixar(String id) {
+        return imagensRef.document(id).get().continueWith(EXECUTOR, t -> {
+            DocumentSnapshot doc = t.getResult();
+            Blob dados = doc.getBlob("dados");
+            if (dados == null) {
+                throw new FileNotFoundException("Miniatura " + id + " não encontrada.");
+            }
+            return disco.gravar(id, dados.toBytes());
+        });
+    }
+
+    private static Bitmap decodificar(File arquivo, int larguraPx, int alturaPx) throws IOException {
+        // Primeiro só as dimensões, depois a leitura já reduzida
+        BitmapFactory.Options opcoes = new BitmapFactory.Options();
+        opcoes.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(arquivo.getPath(), opcoes);
+
+        opcoes.inSampleSize = Amostragem.fator(opcoes.outWidth, opcoes.outHeight, larguraPx, alturaPx);
+        opcoes.inJustDecodeBounds = false;
+        Bitmap bitmap = BitmapFactory.decodeFile(arquivo.getPath(), opcoes);
+        if (bitmap == null) throw new IOException("Imagem inválida: " + arquivo);
+        return bitmap;
+    }
+
+    // =====================================================================
+    //  Publicação (professor)
+    // =====================================================================
+
+    /**
+     * Reduz a imagem escolhida a uma miniatura JPEG e a grava no Firestore
+     * (e no cache em disco deste aparelho).
+     *
+     * @return id da miniatura (hash do conteúdo), para salvar na configuração da enquete
+     */
+    public Task<String> publicar(ContentResolver resolver, Uri uri) {
+        return Tasks.call(EXECUTOR, () -> gerarMiniatura(resolver, uri)).onSuccessTask(DIRETO, jpeg -> {
+            String id = hash(jpeg);
+            Map<String, Object> dados = new HashMap<>();
+            dados.put("dados", Blob.fromBytes(jpeg));
+            dados.put("criadaEm", FieldValue.serverTimestamp());
+            // Mesmo conteúdo, mesmo documento: publicar de novo não duplica nada
+            return imagensRef.document(id).set(dados).continueWith(EXECUTOR, t -> {
+                if (!t.isSuccessful()) throw t.getException();
+                disco.gravar(id, jpeg);
+                return id;
+            });
+        });
+    }
+
+    private static byte[] gerarMiniatura(ContentResolver resolver, Uri uri) throws IOException {
+        BitmapFactory.Options opcoes = new BitmapFactory.Options();
+        opcoes.inJustDecodeBounds = true;
+        try (InputStream entrada = resolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(entrada, null, opcoes);
+        }
+        int[] destino = Amostragem.caber(opcoes.outWidth, opcoes.outHeight, LADO_MINIATURA_PX);
+        opcoes.inSampleSize = Amostragem.fator(opcoes.outWidth, opcoes.outHeight, destino[0], destino[1]);
+        opcoes.inJustDecodeBounds = false;
+
+        Bitmap lida;
+        try (InputStream entrada = resolver.openInputStream(uri)) {
+            lida = BitmapFactory.decodeStream(entrada, null, opcoes);
+        }
+        if (lida == null) throw new IOException("Imagem inválida: " + uri);
+
+        Bitmap miniatura = Bitmap.createScaledBitmap(lida, destino[0], destino[1], true);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        miniatura.compress(Bitmap.CompressFormat.JPEG, QUALIDADE_JPEG, saida);
+        if (miniatura != lida) miniatura.recycle();
+        lida.recycle();
+        return saida.toByteArray();
+    }
+
+    private static String hash(byte[] dados) throws NoSuchAlgorithmException {
+        byte[] resumo = MessageDigest.getInstance("SHA-256").digest(dados);
+        StringBuilder hex = new StringBuilder();
+        // 16 bytes bastam para identificar as imagens de uma enquete
+        for (int i = 0; i < 16; i++) hex.append(String.format("%02x", resumo[i]));
+        return hex.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Metadados dos aparelhos (modelo e versão do Android), gravados UMA vez por
+ * aparelho em vez de repetidos em cada documento de voto.
+ *
+ * O documento de voto guarda só o id do aparelho (campo "aparelho"); quem
+ * precisa do modelo/versão busca aqui. Os metadados quase nunca mudam, então
+ * os últimos {@link #LIMITE_MEMORIA} lidos ficam em memória (LruCache). Nada é
+ * gravado em disco por aparelho: uma turma grande não vira centenas de chaves
+ * em SharedPreferences.
+ *
+ * Estrutura no Firestore:
+ *   aparelhos/{aparelhoId}
+ */
+public class CadastroAparelhos {
+
+    private static final String TAG = "CadastroAparelhos";
+    private static final String PREFS = "cadastro_aparelhos";
+    private static final String CHAVE_REGISTRO = "registro_atual";
+    // Versões anteriores guardavam um item por aparelho com este prefixo
+    private static final String PREFIXO_CACHE_ANTIGO = "aparelho:";
+    private static final String CHAVE_CACHE_ANTIGO_REMOVIDO = "cache_antigo_removido";
+
+    // Máximo de valores aceitos por um filtro "in" do Firestore
+    private static final int LIMITE_CONSULTA_IN = 30;
+
+    /** Aparelhos mantidos em memória (os menos usados saem primeiro). */
+    public static final int LIMITE_MEMORIA = 500;
+
+    // Continuações das leituras: rodam na thread de entrega do Firestore, não na main thread
+    private static final Executor DIRETO = Runnable::run;
+
+    /**
+     * Modelo e versão do Android de um aparelho.
+     */
+    public static class InfoAparelho {
+        @Nullable public final String deviceModel;
+        @Nullable public final String androidVersion;
+
+        public InfoAparelho(@Nullable String deviceModel, @Nullable String androidVersion) {
+            this.deviceModel = deviceModel;
+            this.androidVersion = androidVersion;
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final CollectionReference aparelhosRef;
+    private final LruCache<String, InfoAparelho> memoria = new LruCache<>(LIMITE_MEMORIA);
+
+    // Gravação do registro deste aparelho em andamento (uma por vez)
+    @Nullable private Task<Void> registroEmAndamento;
+    @Nullable private String assinaturaEmAndamento;
+    private boolean cacheAntigoVerificado;
+
+    public CadastroAparelhos(Context context, FirebaseFirestore db) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.aparelhosRef = db.collection("aparelhos");
+    }
+
+    /**
+     * Grava os metadados deste aparelho se ainda não foram gravados com estes valores
+     * (de novo só depois de uma atualização do Android, por exemplo).
+     *
+     * Chamadas durante uma gravação em andamento recebem a mesma Task. Se a gravação
+     * falhar, o erro é registrado no log e a próxima chamada (o próximo voto) tenta de novo.
+     */
+    public synchronized Task<Void> garantirRegistro(String aparelhoId) {
+        removerCacheAntigo();
+        InfoAparelho atual = new InfoAparelho(Build.MODEL, Build.VERSION.RELEASE);
+        memoria.put(aparelhoId, atual);
+
+        final String assinatura = aparelhoId + "|" + serializar(atual);
+        if (assinatura.equals(prefs.getString(CHAVE_REGISTRO, null))) {
+            return Tasks.forResult(null);
+        }
+        if (registroEmAndamento != null && assinatura.equals(assinaturaEmAndamento)) {
+            return registroEmAndamento;
+        }
+
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("deviceModel", atual.deviceModel);
+        dados.put("androidVersion", atual.androidVersion);
+        dados.put("atualizadoEm", FieldValue.serverTimestamp());
+        Task<Void> gravacao = aparelhosRef.document(aparelhoId).set(dados, SetOptions.merge());
+        registroEmAndamento = gravacao;
+        assinaturaEmAndamento = assinatura;
+
+        return gravacao.addOnCompleteListener(DIRETO, task -> {
+            synchronized (this) {
+                if (registroEmAndamento == gravacao) {
+                    registroEmAndamento = null;
+                    assinaturaEmAndamento = null;
+                }
+            }
+            if (task.isSuccessful()) {
+                prefs.edit().putString(CHAVE_REGISTRO, assinatura).apply();
+            } else {
+                Log.w(TAG, "Falha ao registrar o aparelho; nova tentativa no próximo voto",
+                        task.getException());
+            }
+        });
+    }
+
+    /**
+     * Metadados já conhecidos localmente, sem ir ao Firestore (null se não estiver no cache).
+     */
+    @Nullable
+    public InfoAparelho buscarNoCache(String aparelhoId) {
+        return memoria.get(aparelhoId);
+    }
+
+    /**
+     * Metadados dos aparelhos informados. Só os que não estão em cache são lidos,
+     * em consultas "in" de até 30 ids. Aparelhos sem cadastro ficam fora do mapa.
+     */
+    public Task<Map<String, InfoAparelho>> buscar(Collection<String> aparelhoIds) {
+        return buscar(aparelhoIds, true);
+    }
+
+    /**
+     * Como {@link #buscar}, mas o que vier do Firestore não entra no cache: para
+     * leituras em massa (ex.: exportação), em que cada aparelho só interessa à
+     * página atual e encheria o cache com aparelhos que a tela não vai mostrar.
+     */
+    public Task<Map<String, InfoAparelho>> buscarSemGuardar(Collection<String> aparelhoIds) {
+        return buscar(aparelhoIds, false);
+    }
+
+    private Task<Map<String, InfoAparelho>> buscar(Collection<String> aparelhoIds, boolean guardar) {
+        Map<String, InfoAparelho> resultado = new HashMap<>();
+        List<String> faltando = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(aparelhoIds)) {
+            InfoAparelho info = buscarNoCache(id);
+            if (info != null) {
+                resultado.put(id, info);
+            } else {
+                faltando.add(id);
+            }
+        }
+        if (faltando.isEmpty()) {
+            return Tasks.forResult(resultado);
+        }
+
+        List<Task<QuerySnapshot>> consultas = new ArrayList<>();
+        for (int i = 0; i < faltando.size(); i += LIMITE_CONSULTA_IN) {
+            List<String> bloco = faltando.subList(i, Math.min(i + LIMITE_CONSULTA_IN, faltando.size()));
+            consultas.add(aparelhosRef.whereIn(FieldPath.documentId(), new ArrayList<>(bloco)).get());
+        }
+
+        return Tasks.whenAllSuccess(consultas).continueWith(DIRETO, task -> {
+            for (Object item : task.getResult()) {
+                for (DocumentSnapshot doc : ((QuerySnapshot) item).getDocuments()) {
+                    InfoAparelho info = new InfoAparelho(
+                            doc.getString("deviceModel"), doc.getString("androidVersion"));
+                    if (guardar) memoria.put(doc.getId(), info);
+                    resultado.put(doc.getId(), info);
+                }
+            }
+            return resultado;
+        });
+    }
+
+    /**
+     * Apaga, uma única vez, as chaves por aparelho gravadas pelas versões anteriores.
+     */
+    private void removerCacheAntigo() {
+        if (cacheAntigoVerificado) return;
+        cacheAntigoVerificado = true;
+        if (prefs.getBoolean(CHAVE_CACHE_ANTIGO_REMOVIDO, false)) return;
+
+        SharedPreferences.Editor edicao = prefs.edit().putBoolean(CHAVE_CACHE_ANTIGO_REMOVIDO, true);
+        for (String chave : prefs.getAll().keySet()) {
+            if (chave.startsWith(PREFIXO_CACHE_ANTIGO)) edicao.remove(chave);
+        }
+        edicao.apply();
+    }
+
+    private static String serializar(InfoAparelho info) {
+        return (info.deviceModel != null ? info.deviceModel : "") + "\n"
+                + (info.androidVersion != null ? info.androidVersion : "");
+    }
+}
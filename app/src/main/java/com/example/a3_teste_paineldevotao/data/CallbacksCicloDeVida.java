@@ -0,0 +1,126 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Liga os callbacks do repositório ao ciclo de vida da tela que os pediu.
+ *
+ * Um callback anônimo criado na Activity guarda uma referência a ela. Se a
+ * leitura/escrita no Firestore demora e a tela é destruída antes (rotação,
+ * voltar), a Task pendente segura a Activity morta na memória e, ao terminar,
+ * mexe em views que não existem mais.
+ *
+ * {@link #vincular} devolve um callback do mesmo tipo que só repassa as chamadas
+ * enquanto o dono não foi destruído. No ON_DESTROY a referência ao callback
+ * original é solta: a Task pendente passa a segurar só o intermediário vazio e
+ * o resultado que chegar depois é descartado. A operação em si não é cancelada
+ * (um voto enviado continua valendo); só a entrega para a tela morta.
+ *
+ * Os callbacks do repositório entregam um único resultado: depois da primeira
+ * chamada o vínculo é solto na hora, sem esperar o ON_DESTROY. Métodos que podem
+ * vir várias vezes antes do resultado (ex.: progresso) são marcados com
+ * {@link Parcial} e não soltam o vínculo.
+ *
+ * Deve ser chamado na main thread, como qualquer acesso ao Lifecycle.
+ */
+public final class CallbacksCicloDeVida {
+
+    private CallbacksCicloDeVida() {
+    }
+
+    /**
+     * Método do callback que não encerra a entrega (ex.: progresso de uma exportação).
+     */
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Parcial {
+    }
+
+    /**
+     * @param dono     tela (Activity/Fragment) que recebe o resultado
+     * @param tipo     interface do callback (ex.: {@code EnqueteRepository.OperacaoCallback.class})
+     * @param callback callback original, normalmente anônimo
+     * @return callback do mesmo tipo, desligado do original quando o dono é destruído
+     */
+    public static <C> C vincular(LifecycleOwner dono, Class<C> tipo, C callback) {
+        Vinculo<C> vinculo = new Vinculo<>(callback);
+        Lifecycle lifecycle = dono.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            vinculo.soltar(); // tela já destruída: nada será entregue
+        } else {
+            vinculo.lifecycle = lifecycle;
+            lifecycle.addObserver(vinculo);
+        }
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, vinculo));
+    }
+
+    /**
+     * Intermediário entre a Task pendente e o callback da tela.
+     * Fica registrado no Lifecycle do dono (que pertence à própria tela) até o
+     * resultado ser entregue ou o ON_DESTROY, o que vier primeiro.
+     */
+    private static final class Vinculo<C> implements InvocationHandler, DefaultLifecycleObserver {
+
+        @Nullable private volatile C destino;
+        @Nullable private Lifecycle lifecycle;
+
+        Vinculo(C destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            if (metodo.getDeclaringClass() == Object.class) {
+                switch (metodo.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "CallbackVinculado{" + (destino != null ? destino : "descartado") + "}";
+                }
+            }
+            C alvo = destino;
+            if (alvo == null) {
+                return null; // dono destruído: resultado descartado (callbacks retornam void)
+            }
+            try {
+                return metodo.invoke(alvo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (!metodo.isAnnotationPresent(Parcial.class)) {
+                    soltar(); // resultado entregue: nada mais chega por este vínculo
+                }
+            }
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            soltar();
+        }
+
+        void soltar() {
+            destino = null;
+            if (lifecycle != null) {
+                lifecycle.removeObserver(this);
+                lifecycle = null;
+            }
+        }
+    }
+}
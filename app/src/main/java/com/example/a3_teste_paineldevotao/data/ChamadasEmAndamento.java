@@ -0,0 +1,59 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicação de chamadas em andamento ("single-flight").
+ *
+ * Enquanto uma operação identificada por uma chave ainda não terminou,
+ * novas chamadas com a mesma chave recebem a MESMA Task em vez de disparar
+ * outra ida ao Firestore. Quando a Task termina (sucesso ou erro), a chave
+ * é liberada e a próxima chamada inicia uma operação nova.
+ *
+ * Exemplos de uso no repositório:
+ * - Duplo toque no botão de voto: as duas chamadas compartilham um único registro.
+ * - Leituras simultâneas do documento da enquete no início do app.
+ */
+public class ChamadasEmAndamento {
+
+    private final Map<String, Task<?>> emAndamento = new HashMap<>();
+
+    /**
+     * Retorna a Task em andamento para a chave ou inicia uma nova com a operação informada.
+     *
+     * @param chave    identifica operações equivalentes (ex.: "voto:registrar:{caminho}")
+     * @param operacao inicia a operação; só é chamada se não houver outra em andamento
+     * @return Task compartilhada por todos os chamadores concorrentes
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Task<T> executar(String chave, Supplier<Task<T>> operacao) {
+        Task<T> existente = (Task<T>) emAndamento.get(chave);
+        if (existente != null) {
+            return existente;
+        }
+
+        Task<T> nova = operacao.get();
+        emAndamento.put(chave, nova);
+        // Executor direto: a chave é liberada assim que a Task termina, sem depender da main thread
+        nova.addOnCompleteListener(Runnable::run, t -> liberar(chave, nova));
+        return nova;
+    }
+
+    /**
+     * Quantidade de operações ainda em andamento (útil para testes e diagnóstico).
+     */
+    public synchronized int getQuantidadeEmAndamento() {
+        return emAndamento.size();
+    }
+
+    private synchronized void liberar(String chave, Task<?> tarefa) {
+        // Só remove se ainda for a mesma Task (evita apagar uma operação mais nova)
+        if (emAndamento.get(chave) == tarefa) {
+            emAndamento.remove(chave);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Os {@code tamanho} alunos com mais pontos no quiz, mantidos a cada resposta.
+ *
+ * Como a pontuação de um aluno só aumenta, quem está fora da lista só pode entrar
+ * pela própria atualização: basta comparar a nova pontuação com a última da lista,
+ * sem nunca reler as pontuações da turma. Cada atualização custa O(tamanho).
+ *
+ * Listas de fragmentos disjuntos (cada aluno em um só fragmento) são combinadas
+ * sem perda por {@link #mesclar}: os primeiros da turma estão entre os primeiros
+ * de algum fragmento. Um aluno que aparece em mais de uma lista (fragmentos de
+ * uma divisão anterior) conta uma vez, com a maior pontuação.
+ *
+ * Classe sem dependência de Android/Firestore para poder ser testada isoladamente.
+ */
+public class Classificacao {
+
+    /**
+     * Um aluno da lista.
+     */
+    public static class Entrada {
+        public final String id;
+        public final String nome;
+        public final long pontos;
+
+        public Entrada(String id, String nome, long pontos) {
+            this.id = id;
+            this.nome = nome;
+            this.pontos = pontos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entrada)) return false;
+            Entrada outra = (Entrada) o;
+            return pontos == outra.pontos && id.equals(outra.id) && nome.equals(outra.nome);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, nome, pontos);
+        }
+    }
+
+    // Mais pontos primeiro; empate pelo id, para todos os aparelhos verem a mesma ordem
+    private static final Comparator<Entrada> ORDEM = (a, b) -> {
+        int c = Long.compare(b.pontos, a.pontos);
+        return c != 0 ? c : a.id.compareTo(b.id);
+    };
+
+    private final int tamanho;
+    private final List<Entrada> entradas = new ArrayList<>();
+
+    public Classificacao(int tamanho) {
+        if (tamanho <= 0) throw new IllegalArgumentException("Tamanho deve ser positivo.");
+        this.tamanho = tamanho;
+    }
+
+    /**
+     * Reconstrói uma lista salva (ex.: fragmento no Firestore).
+     */
+    public static Classificacao de(int tamanho, Collection<Entrada> salvas) {
+        Classificacao classificacao = new Classificacao(tamanho);
+        classificacao.entradas.addAll(salvas);
+        classificacao.ordenarEAparar();
+        return classificacao;
+    }
+
+    /**
+     * Registra a pontuação atual do aluno. Uma pontuação menor que a já registrada
+     * (atualização atrasada, que chegou depois de uma mais nova) é ignorada.
+     *
+     * @return true se a lista mudou (só então é preciso gravá-la)
+     */
+    public boolean atualizar(String id, String nome, long pontos) {
+        Entrada nova = new Entrada(id, nome, pontos);
+        int atual = posicao(id);
+        if (atual >= 0) {
+            Entrada registrada = entradas.get(atual);
+            if (registrada.equals(nova) || registrada.pontos > pontos) return false;
+            entradas.set(atual, nova);
+            ordenarEAparar();
+            return true;
+        }
+        if (entradas.size() >= tamanho && ORDEM.compare(nova, entradas.get(entradas.size() - 1)) >= 0) {
+            return false; // não passa do último
+        }
+        entradas.add(nova);
+        ordenarEAparar();
+        return true;
+    }
+
+    /**
+     * Posição do aluno (0 = primeiro), ou -1 se não está na lista.
+     */
+    public int posicao(String id) {
+        for (int i = 0; i < entradas.size(); i++) {
+            if (entradas.get(i).id.equals(id)) return i;
+        }
+        return -1;
+    }
+
+    public List<Entrada> getEntradas() {
+        return Collections.unmodifiableList(entradas);
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    private void ordenarEAparar() {
+        entradas.sort(ORDEM);
+        while (entradas.size() > tamanho) entradas.remove(entradas.size() - 1);
+    }
+
+    /**
+     * Primeiros {@code tamanho} entre as listas de fragmentos disjuntos.
+     */
+    public static Classificacao mesclar(Collection<Classificacao> partes, int tamanho) {
+        Map<String, Entrada> porAluno = new HashMap<>();
+        for (Classificacao parte : partes) {
+            for (Entrada entrada : parte.entradas) {
+                porAluno.merge(entrada.id, entrada, (a, b) -> ORDEM.compare(a, b) <= 0 ? a : b);
+            }
+        }
+        return de(tamanho, porAluno.values());
+    }
+}
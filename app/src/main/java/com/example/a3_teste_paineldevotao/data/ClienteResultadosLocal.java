@@ -0,0 +1,151 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.PlacarResultados;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * Cliente do {@link ServidorResultadosLocal}: abre "GET /resultados" no aparelho
+ * do professor e entrega cada placar recebido.
+ *
+ * Usa uma thread própria com socket bloqueante (é uma única conexão por aparelho).
+ * Se nada chegar em {@link #PRAZO_LEITURA_MS} (nem o pulso do servidor), a
+ * conexão é considerada perdida e {@link Ouvinte#onDesconectado} é chamado:
+ * quem usa o cliente volta ao Firestore.
+ *
+ * Classe sem dependência de Android para poder ser testada pela interface de loopback.
+ */
+public class ClienteResultadosLocal {
+
+    public static final int PRAZO_CONEXAO_MS = 2_000;
+    public static final int PRAZO_LEITURA_MS = (int) (2 * ServidorResultadosLocal.INTERVALO_PULSO_MS);
+
+    /**
+     * Callbacks entregues no executor informado no construtor.
+     */
+    public interface Ouvinte {
+        void onPlacar(PlacarResultados placar);
+
+        /**
+         * Conexão recusada, perdida ou sem resposta. Não é chamado após {@link #desconectar()}.
+         */
+        void onDesconectado(@Nullable Exception erro);
+    }
+
+    private final String host;
+    private final int porta;
+    private final Executor entrega;
+    private final Ouvinte ouvinte;
+
+    @Nullable private volatile Socket socket;
+    private volatile boolean encerrado; // desconectar() chamado: nenhum callback depois disso
+    private boolean iniciado;
+
+    public ClienteResultadosLocal(String host, int porta, Executor entrega, Ouvinte ouvinte) {
+        this.host = host;
+        this.porta = porta;
+        this.entrega = entrega;
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Interpreta "host:porta" (formato publicado pelo professor no documento da enquete).
+     *
+     * @return null se o texto não estiver nesse formato
+     */
+    @Nullable
+    public static ClienteResultadosLocal paraEndereco(String endereco, Executor entrega, Ouvinte ouvinte) {
+        int separador = endereco.lastIndexOf(':');
+        if (separador <= 0) return null;
+        try {
+            int porta = Integer.parseInt(endereco.substring(separador + 1));
+            return new ClienteResultadosLocal(endereco.substring(0, separador), porta, entrega, ouvinte);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Conecta em segundo plano. Só pode ser chamado uma vez por instância.
+     */
+    public synchronized void conectar() {
+        if (iniciado) throw new IllegalStateException("Cliente já iniciado.");
+        iniciado = true;
+        Thread thread = new Thread(this::executar, "cliente-resultados");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Fecha a conexão sem avisar o ouvinte. Chamado na thread de entrega, garante
+     * que nenhum callback já enfileirado chegue depois.
+     */
+    public void desconectar() {
+        encerrado = true;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // Já fechado
+            }
+        }
+    }
+
+    private void executar() {
+        Exception erro;
+        try (Socket s = new Socket()) {
+            socket = s;
+            if (encerrado) return;
+            s.connect(new InetSocketAddress(host, porta), PRAZO_CONEXAO_MS);
+            s.setSoTimeout(PRAZO_LEITURA_MS);
+
+            OutputStream saida = s.getOutputStream();
+            saida.write(("GET " + ServidorResultadosLocal.CAMINHO + " HTTP/1.1\r\n"
+                    + "Host: " + host + ":" + porta + "\r\n"
+                    + "Accept: text/event-stream\r\n"
+                    + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            saida.flush();
+
+            BufferedReader entrada = new BufferedReader(
+                    new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            String status = entrada.readLine();
+            if (status == null || !status.startsWith("HTTP/1.1 200")) {
+                throw new IOException("Resposta inesperada: " + status);
+            }
+            String linha;
+            while ((linha = entrada.readLine()) != null && !linha.isEmpty()) {
+                // Cabeçalhos: nada a usar
+            }
+
+            PlacarResultados placar = PlacarResultados.VAZIO;
+            while ((linha = entrada.readLine()) != null) {
+                if (!linha.startsWith("data:")) continue; // pulso (":") ou separador
+                placar = placar.aplicar(linha.substring(5));
+                final PlacarResultados recebido = placar;
+                entrega.execute(() -> {
+                    if (!encerrado) ouvinte.onPlacar(recebido);
+                });
+            }
+            erro = new EOFException("Servidor encerrou a conexão.");
+        } catch (IOException | IllegalArgumentException e) {
+            erro = e;
+        }
+
+        if (encerrado) return;
+        final Exception causa = erro;
+        entrega.execute(() -> {
+            if (!encerrado) ouvinte.onDesconectado(causa);
+        });
+    }
+}
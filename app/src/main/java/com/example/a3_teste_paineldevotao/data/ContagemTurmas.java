@@ -0,0 +1,179 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Contadores de cada turma e o total combinado de todas elas.
+ *
+ * Cada turma tem o próprio documento de contadores: votos de turmas diferentes
+ * não disputam o mesmo contador, e abrir uma turma a mais não deixa as outras
+ * mais lentas (as estatísticas por aparelho continuam em fragmentos comuns a
+ * todas).
+ *
+ * O total combinado é mantido aqui somando só a diferença de cada documento que
+ * mudou ({@link #atualizar}): o custo é por turma alterada, nunca por voto, e
+ * nenhum voto individual é lido.
+ *
+ * Classe sem dependência de Android/Firestore para poder ser testada isoladamente.
+ */
+public class ContagemTurmas {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[,;\\n]+");
+
+    /**
+     * Contadores de uma turma.
+     */
+    public static class Turma {
+        public final String id;
+        public final String nome;
+        public final long opcaoA;
+        public final long opcaoB;
+        public final long opcaoC;
+
+        public Turma(String id, String nome, long opcaoA, long opcaoB, long opcaoC) {
+            this.id = id;
+            this.nome = nome;
+            this.opcaoA = opcaoA;
+            this.opcaoB = opcaoB;
+            this.opcaoC = opcaoC;
+        }
+
+        public long getTotal() {
+            return opcaoA + opcaoB + opcaoC;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Turma)) return false;
+            Turma outra = (Turma) o;
+            return opcaoA == outra.opcaoA && opcaoB == outra.opcaoB && opcaoC == outra.opcaoC
+                    && id.equals(outra.id) && nome.equals(outra.nome);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, nome, opcaoA, opcaoB, opcaoC);
+        }
+    }
+
+    // Ordem de chegada dos documentos; a tela usa a ordem da configuração
+    private final Map<String, Turma> turmas = new LinkedHashMap<>();
+    private long totalA;
+    private long totalB;
+    private long totalC;
+
+    public ContagemTurmas() {
+    }
+
+    /**
+     * Cópia (a tela recebe uma foto que não muda com as próximas atualizações).
+     */
+    public ContagemTurmas(ContagemTurmas outra) {
+        turmas.putAll(outra.turmas);
+        totalA = outra.totalA;
+        totalB = outra.totalB;
+        totalC = outra.totalC;
+    }
+
+    /**
+     * Id do documento da turma a partir do nome digitado ("1º A" e "1 a" viram "1_a").
+     *
+     * @return null se o nome não tem letras nem dígitos
+     */
+    @Nullable
+    public static String idDaTurma(@Nullable String nome) {
+        String normalizado = NormalizadorResposta.normalizar(nome);
+        return normalizado != null ? normalizado.replace(' ', '_') : null;
+    }
+
+    /**
+     * Nomes digitados pelo professor, separados por vírgula, ponto e vírgula ou linha.
+     * Ignora vazios e turmas repetidas (mesmo id), mantendo a ordem.
+     */
+    public static List<String> lerNomes(@Nullable String texto) {
+        if (texto == null) return Collections.emptyList();
+        List<String> nomes = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (String parte : SEPARADORES.split(texto)) {
+            String nome = parte.trim();
+            String id = idDaTurma(nome);
+            if (id != null && ids.add(id)) nomes.add(nome);
+        }
+        return nomes;
+    }
+
+    /**
+     * Aplica o estado atual do documento de uma turma.
+     *
+     * @return true se a turma mudou (contadores ou nome)
+     */
+    public boolean atualizar(String id, String nome, long opcaoA, long opcaoB, long opcaoC) {
+        Turma nova = new Turma(id, nome, opcaoA, opcaoB, opcaoC);
+        Turma antiga = turmas.put(id, nova);
+        if (antiga != null) {
+            if (antiga.equals(nova)) return false;
+            subtrair(antiga);
+        }
+        totalA += opcaoA;
+        totalB += opcaoB;
+        totalC += opcaoC;
+        return true;
+    }
+
+    /**
+     * Documento da turma apagado (ex.: reset da enquete).
+     *
+     * @return true se a turma existia
+     */
+    public boolean remover(String id) {
+        Turma antiga = turmas.remove(id);
+        if (antiga == null) return false;
+        subtrair(antiga);
+        return true;
+    }
+
+    private void subtrair(Turma turma) {
+        totalA -= turma.opcaoA;
+        totalB -= turma.opcaoB;
+        totalC -= turma.opcaoC;
+    }
+
+    /**
+     * Contadores da turma, ou null se ela ainda não recebeu votos.
+     */
+    @Nullable
+    public Turma getTurma(String id) {
+        return turmas.get(id);
+    }
+
+    public List<Turma> getTurmas() {
+        return Collections.unmodifiableList(new ArrayList<>(turmas.values()));
+    }
+
+    public long getTotalA() {
+        return totalA;
+    }
+
+    public long getTotalB() {
+        return totalB;
+    }
+
+    public long getTotalC() {
+        return totalC;
+    }
+
+    public long getTotal() {
+        return totalA + totalB + totalC;
+    }
+}
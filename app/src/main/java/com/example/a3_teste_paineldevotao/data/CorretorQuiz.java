@@ -0,0 +1,161 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.esquema.CamposEnquete;
+import com.example.a3_teste_paineldevotao.esquema.CamposVoto;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Correção do quiz no aparelho do professor, o que gravou o gabarito
+ * ({@link EnqueteRepository#isCorretorDoQuiz}).
+ *
+ * O aluno só cria o próprio voto, com o apelido e a rodada; não lê o gabarito nem
+ * grava pontos. Este corretor:
+ * - escuta o gabarito e os votos da rodada atual enquanto a enquete está no modo quiz;
+ * - compara cada voto novo com o gabarito e soma a pontuação do aluno
+ *   ({@link EnqueteRepository#corrigirResposta}), que leva os acertos à classificação.
+ *
+ * A pontuação guarda a última rodada corrigida, então rever votos já corrigidos
+ * (reinício do app, outro aparelho do professor) não soma de novo. Cédulas do
+ * quiosque e votos de outra rodada são ignorados.
+ *
+ * Usado apenas na main thread.
+ */
+public class CorretorQuiz {
+
+    private static final String TAG = "CorretorQuiz";
+
+    private final DocumentReference enqueteRef;
+    private final EnqueteRepository enqueteRepository;
+
+    @Nullable private ListenerRegistration registroEnquete;
+    @Nullable private ListenerRegistration registroGabarito;
+    @Nullable private ListenerRegistration registroVotos;
+    private boolean rodando;
+    private long rodadaAtual = -1;
+    @Nullable private String opcaoCorreta;
+
+    // Votos já enviados à correção nesta rodada (a pontuação barra repetições entre execuções)
+    private final Set<String> corrigidos = new HashSet<>();
+
+    public CorretorQuiz(FirebaseManager firebaseManager, EnqueteRepository enqueteRepository) {
+        this.enqueteRef = firebaseManager.getEnqueteRef();
+        this.enqueteRepository = enqueteRepository;
+    }
+
+    /**
+     * Começa a corrigir (se ainda não estiver rodando). O modo quiz e a rodada vêm do
+     * documento da enquete; fora do quiz só esse listener fica ligado.
+     */
+    public void iniciar() {
+        if (rodando) return;
+        rodando = true;
+        registroEnquete = enqueteRef.addSnapshotListener((snapshot, e) -> {
+            if (e != null || snapshot == null || !snapshot.exists()) return;
+            if (!Boolean.TRUE.equals(snapshot.getBoolean(CamposEnquete.MODO_QUIZ))) {
+                pararCorrecao();
+                return;
+            }
+            Long rodada = snapshot.getLong(CamposEnquete.RODADA);
+            long lida = rodada != null ? rodada : 0;
+            if (lida != rodadaAtual || registroGabarito == null) {
+                pararCorrecao();
+                rodadaAtual = lida;
+                ouvirGabarito();
+            }
+        });
+    }
+
+    /**
+     * Para de corrigir neste aparelho. Votos chegados depois são corrigidos quando
+     * o corretor voltar a rodar.
+     */
+    public void parar() {
+        if (!rodando) return;
+        rodando = false;
+        if (registroEnquete != null) {
+            registroEnquete.remove();
+            registroEnquete = null;
+        }
+        pararCorrecao();
+    }
+
+    private void pararCorrecao() {
+        if (registroGabarito != null) {
+            registroGabarito.remove();
+            registroGabarito = null;
+        }
+        removerListenerVotos();
+        opcaoCorreta = null;
+        rodadaAtual = -1;
+        corrigidos.clear();
+    }
+
+    // =====================================================================
+    //  Gabarito e votos
+    // =====================================================================
+
+    /**
+     * O gabarito é escutado (um documento pequeno): se o professor trocar a opção
+     * correta, os votos corrigidos dali em diante usam a nova.
+     */
+    private void ouvirGabarito() {
+        registroGabarito = enqueteRepository.gabaritoRef().addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Erro ao ouvir o gabarito: ", e);
+                return;
+            }
+            opcaoCorreta = snapshot != null ? snapshot.getString("opcaoCorreta") : null;
+            if (opcaoCorreta != null && registroVotos == null) ouvirVotos();
+        });
+    }
+
+    private void ouvirVotos() {
+        long rodada = rodadaAtual;
+        registroVotos = enqueteRef.collection("votos")
+                .whereEqualTo(CamposVoto.RODADA, rodada)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Erro ao ouvir votos: ", e);
+                        return;
+                    }
+                    if (snapshot == null || rodada != rodadaAtual) return;
+                    for (DocumentChange mudanca : snapshot.getDocumentChanges()) {
+                        if (mudanca.getType() != DocumentChange.Type.ADDED) continue;
+                        corrigir(mudanca.getDocument(), rodada);
+                    }
+                });
+    }
+
+    private void corrigir(DocumentSnapshot voto, long rodada) {
+        String gabarito = opcaoCorreta;
+        String aparelho = voto.getString(CamposVoto.APARELHO);
+        if (gabarito == null || aparelho == null || voto.contains(CamposVoto.LOTE)) return;
+        if (!corrigidos.add(voto.getId())) return;
+
+        String apelido = voto.getString(CamposVoto.APELIDO);
+        boolean acertou = gabarito.equals(voto.getString(CamposVoto.OPCAO_ESCOLHIDA));
+        enqueteRepository.corrigirResposta(aparelho, apelido != null ? apelido : aparelho, rodada, acertou)
+                .addOnFailureListener(erro -> {
+                    Log.w(TAG, "Falha ao corrigir o voto " + voto.getId(), erro);
+                    // Fica para a próxima vez que o voto for visto (listener reiniciado)
+                    corrigidos.remove(voto.getId());
+                });
+    }
+
+    private void removerListenerVotos() {
+        if (registroVotos != null) {
+            registroVotos.remove();
+            registroVotos = null;
+        }
+    }
+}
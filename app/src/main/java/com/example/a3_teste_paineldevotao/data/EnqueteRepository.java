@@ -1,19 +1,47 @@
 package com.example.a3_teste_paineldevotao.data;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Build;
 
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LifecycleOwner;
 
+import com.example.a3_teste_paineldevotao.esquema.CamposEnquete;
+import com.example.a3_teste_paineldevotao.esquema.CamposVoto;
+import com.example.a3_teste_paineldevotao.model.Cedula;
+import com.example.a3_teste_paineldevotao.model.DistribuicaoAparelhos;
 import com.example.a3_teste_paineldevotao.model.Enquete;
+import com.example.a3_teste_paineldevotao.model.FiltroVotantes;
+import com.example.a3_teste_paineldevotao.model.ImagensOpcoes;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Repositório responsável por TODA a comunicação com o Firestore
@@ -25,21 +53,112 @@ import java.util.Map;
  * - Salvar configurações (título e opções)
  * - Registrar votos do usuário
  * - Resetar votação
+ * - Estatísticas de votos por aparelho/versão do Android
+ * - Consultar votantes com filtro (opção/período), no servidor
+ * - Respostas livres resumidas em palavras mais frequentes ({@link ResumoPalavras})
+ * - Quiz: pontuação por aluno e classificação, corrigidas pelo professor ({@link CorretorQuiz})
+ * - Contadores por turma, somados no total combinado ({@link ContagemTurmas})
+ * - Histórico de eventos e recontagem a partir dele ({@link HistoricoVotos})
+ * - Anúncio do servidor de resultados na rede local ({@link ServidorResultadosLocal})
+ *
+ * Cada operação existe em duas formas: com callback (entregue na main thread)
+ * e com CompletableFuture (métodos *Async), que permitem compor fluxos,
+ * executar leituras independentes em paralelo e aplicar prazos.
  *
  * A ideia é deixar a Activity “limpa”, chamando apenas métodos
  * deste repositório.
  */
 public class EnqueteRepository {
 
+    private static final String PREFS = "enquete_repository";
+
+    // Nomes das operações nas métricas de retentativa
+    public static final String OPERACAO_REGISTRAR_VOTO = "registrarVoto";
+    public static final String OPERACAO_SALVAR_CONFIGURACOES = "salvarConfiguracoes";
+    public static final String OPERACAO_RESETAR_ENQUETE = "resetarEnquete";
+    public static final String OPERACAO_ENVIAR_LOTE = "enviarLoteQuiosque";
+    public static final String OPERACAO_RESPONDER_TEXTO = "responderTexto";
+    public static final String OPERACAO_ZERAR_PONTUACOES = "zerarPontuacoes";
+    public static final String OPERACAO_ATUALIZAR_CLASSIFICACAO = "atualizarClassificacao";
+
+    // Fragmentos das estatísticas por aparelho: espalham as escritas de votos simultâneos
+    private static final int FRAGMENTOS_ESTATISTICAS = 4;
+
+    // Resumos das respostas livres: fragmentos e palavras guardadas em cada um
+    private static final int FRAGMENTOS_RESPOSTAS = 8;
+    public static final int CAPACIDADE_RESUMO = 64;
+
+    // Classificação do quiz: fragmentos e alunos guardados em cada um
+    private static final int FRAGMENTOS_CLASSIFICACAO = 32;
+    public static final int TAMANHO_CLASSIFICACAO = 10;
+    public static final long PONTOS_POR_ACERTO = 1;
+    private static final String CHAVE_APELIDO = "apelidoQuiz";
+    // Este aparelho gravou o gabarito do quiz em vigor e corrige as respostas (CorretorQuiz)
+    private static final String CHAVE_CORRETOR_QUIZ = "corretorQuiz";
+
+    // Turmas: votos de aparelhos sem turma escolhida (ou de turma removida) contam aqui
+    private static final String ID_SEM_TURMA = "sem_turma";
+    public static final String NOME_SEM_TURMA = "Sem turma";
+    private static final String CHAVE_TURMA = "turma";
+
+    // Voto que não chegou ao servidor (sem conexão): "rodada;opcao;chave", reenviado depois
+    private static final String CHAVE_VOTO_NA_FILA = "votoNaFila:";
+
+    // Executor direto: completa os futures na própria thread de entrega do Firestore
+    private static final Executor DIRETO = Runnable::run;
+
+    private static final ThreadLocal<SimpleDateFormat> FORMATO_DATA_HORA =
+            ThreadLocal.withInitial(() -> {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+                sdf.setLenient(false);
+                return sdf;
+            });
+
+    private final Context appContext;
     private final FirebaseManager firebaseManager;
     private final DocumentReference enqueteRef;
+    private final IndiceVotosLocal indiceVotos;
+    private final ChamadasEmAndamento chamadas;
+    private final Retentativas retentativas;
+    private final CadastroAparelhos cadastroAparelhos;
+    private final HistoricoVotos historico;
+    private final SharedPreferences prefs;
+    private final Executor executorPrincipal;
+
+    // Modo agregador (visto no último snapshot): os votos não incrementam os contadores
+    private volatile boolean modoAgregador;
+
+    // Modo quiz (visto no último snapshot): o voto leva o apelido e a rodada para a correção
+    private volatile boolean modoQuiz;
+
+    // Turmas da enquete (vistas no último snapshot): vazia = contadores no documento da enquete
+    private volatile List<String> turmas = Collections.emptyList();
+
+    // Servidor de resultados do professor na rede local ("host:porta"), visto no último snapshot
+    @Nullable private volatile String enderecoServidorLocal;
 
     /**
-     * Construtor recebe o Context apenas para inicializar o FirebaseManager.
+     * Construtor recebe o Context para inicializar o FirebaseManager, as preferências locais
+     * e os serviços do sistema usados na observação adaptativa.
      */
     public EnqueteRepository(Context context) {
+        this.appContext = context.getApplicationContext();
         this.firebaseManager = FirebaseManager.getInstance(context);
         this.enqueteRef = firebaseManager.getEnqueteRef();
+        this.indiceVotos = firebaseManager.getIndiceVotosLocal();
+        this.chamadas = firebaseManager.getChamadasEmAndamento();
+        this.retentativas = firebaseManager.getRetentativas();
+        this.cadastroAparelhos = firebaseManager.getCadastroAparelhos();
+        this.historico = new HistoricoVotos(enqueteRef, new AgendadorAndroid());
+        this.prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.executorPrincipal = ContextCompat.getMainExecutor(context);
+    }
+
+    /**
+     * Caminho do documento da enquete no Firestore (ex.: "enquetes/enquete_geral").
+     */
+    public String getCaminhoEnquete() {
+        return enqueteRef.getPath();
     }
 
     // =====================================================================
@@ -50,11 +169,21 @@ public class EnqueteRepository {
      * Cria uma enquete padrão no Firestore CASO ainda não exista.
      * Deve ser chamado, por exemplo, na tela principal ao iniciar o app,
      * apenas para garantir que o documento base esteja criado.
+     *
+     * A criação é feita em uma transação (cria somente se ausente), então dois
+     * aparelhos iniciando juntos não sobrescrevem um ao outro. Depois que a
+     * enquete é vista existindo, um marcador local evita qualquer leitura nos
+     * próximos inícios do app.
      */
     public void inicializarSeNecessario() {
-        enqueteRef.get().addOnSuccessListener(snapshot -> {
+        if (prefs.getBoolean(chaveEnqueteExiste(), false)) {
+            return;
+        }
+
+        firebaseManager.getDb().runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(enqueteRef);
             // Se o documento não existe, criamos a enquete padrão
-            if (snapshot == null || !snapshot.exists()) {
+            if (!snapshot.exists()) {
                 Enquete enquetePadrao = new Enquete(
                         "Em qual opção você deseja votar?",
                         "Opção A",
@@ -63,9 +192,31 @@ public class EnqueteRepository {
                         0, 0, 0
                 );
                 // Salvamos o mapa da enquete no Firestore
-                enqueteRef.set(enquetePadrao.toMap());
+                transaction.set(enqueteRef, enquetePadrao.toMap());
             }
-        });
+            return null;
+        }).addOnSuccessListener(unused -> marcarEnqueteExiste(true));
+    }
+
+    /**
+     * Marcador local de que o documento da enquete já existe no servidor.
+     */
+    private void marcarEnqueteExiste(boolean existe) {
+        if (prefs.getBoolean(chaveEnqueteExiste(), false) != existe) {
+            prefs.edit().putBoolean(chaveEnqueteExiste(), existe).apply();
+        }
+    }
+
+    private String chaveEnqueteExiste() {
+        return "enquete_existe:" + enqueteRef.getPath();
+    }
+
+    /**
+     * Leitura do documento da enquete compartilhada entre chamadas simultâneas
+     * (ex.: onResume e outra tela pedindo a enquete ao mesmo tempo).
+     */
+    private Task<DocumentSnapshot> lerEnquete() {
+        return chamadas.executar("enquete:ler:" + enqueteRef.getPath(), enqueteRef::get);
     }
 
     // =====================================================================
@@ -79,41 +230,161 @@ public class EnqueteRepository {
      * notificado e a Activity (ou Fragment) receberá o objeto Enquete
      * atualizado pelo callback {@link EnqueteListener#onEnqueteAtualizada(Enquete)}.
      *
+     * Mudanças só de metadados também são entregues: a passagem do cache para o
+     * servidor (mesmo sem dado novo) e a confirmação das escritas pendentes
+     * chegam como uma Enquete com {@link Enquete#isDoCache()} /
+     * {@link Enquete#isEscritasPendentes()} atualizados.
+     *
      * @param listener interface de callback para notificar a UI
      * @return ListenerRegistration para permitir remover o listener no onStop/onDestroy
      */
     public ListenerRegistration observarEnquete(EnqueteListener listener) {
-        return enqueteRef.addSnapshotListener((snapshot, error) -> {
+        return enqueteRef.addSnapshotListener(MetadataChanges.INCLUDE, (snapshot, error) -> {
 
             // Se houve erro ou o documento não existe, avisamos a UI
             if (error != null || snapshot == null || !snapshot.exists()) {
+                // Documento apagado no servidor: o próximo início volta a criar a enquete padrão
+                if (error == null && snapshot != null && !snapshot.getMetadata().isFromCache()) {
+                    marcarEnqueteExiste(false);
+                }
                 listener.onErro(error);
                 return;
             }
 
             // Monta o objeto Enquete a partir do documento do Firestore
-            Enquete enquete = new Enquete();
-            enquete.setTituloEnquete(snapshot.getString("tituloEnquete"));
-            enquete.setTextoOpcaoA(snapshot.getString("textoOpcaoA"));
-            enquete.setTextoOpcaoB(snapshot.getString("textoOpcaoB"));
-            enquete.setTextoOpcaoC(snapshot.getString("textoOpcaoC"));
-            enquete.setMensagemRodape(snapshot.getString("mensagemRodape"));
-            enquete.setDataHoraEncerramento(snapshot.getString("dataHoraEncerramento"));
-
-            // Contadores podem ser nulos, então tratamos para evitar NullPointerException
-            Long a = snapshot.getLong("opcaoA");
-            Long b = snapshot.getLong("opcaoB");
-            Long c = snapshot.getLong("opcaoC");
-
-            enquete.setOpcaoA(a != null ? a : 0);
-            enquete.setOpcaoB(b != null ? b : 0);
-            enquete.setOpcaoC(c != null ? c : 0);
+            Enquete enquete = montarEnquete(snapshot);
 
             // Notifica a UI com a enquete atualizada
             listener.onEnqueteAtualizada(enquete);
         });
     }
 
+    /**
+     * Converte o documento da enquete em objeto Enquete.
+     *
+     * O horário de encerramento é interpretado aqui, uma única vez por snapshot:
+     * preferimos o Timestamp "encerramentoEm"; documentos antigos que só têm o
+     * texto "dataHoraEncerramento" são convertidos a partir dele.
+     */
+    private Enquete montarEnquete(DocumentSnapshot snapshot) {
+        // Se chegou um snapshot com dados, a enquete existe: a inicialização pode ser pulada
+        marcarEnqueteExiste(true);
+
+        String dataHoraEncerramento = snapshot.getString(CamposEnquete.DATA_HORA_ENCERRAMENTO);
+        long encerramentoMillis = 0;
+        Timestamp encerramentoEm = snapshot.getTimestamp(CamposEnquete.ENCERRAMENTO_EM);
+        if (encerramentoEm != null) {
+            encerramentoMillis = encerramentoEm.toDate().getTime();
+        } else if (dataHoraEncerramento != null) {
+            try {
+                encerramentoMillis = interpretarDataHora(dataHoraEncerramento);
+            } catch (ParseException ignored) {
+                // Texto inválido: tratamos como enquete sem encerramento
+            }
+        }
+
+        // Contadores podem ser nulos, então tratamos para evitar NullPointerException
+        Long a = snapshot.getLong(CamposEnquete.OPCAO_A);
+        Long b = snapshot.getLong(CamposEnquete.OPCAO_B);
+        Long c = snapshot.getLong(CamposEnquete.OPCAO_C);
+
+        // Rodada atual alimenta o índice local de votos (documentos antigos não têm o campo)
+        Long rodada = snapshot.getLong(CamposEnquete.RODADA);
+
+        Enquete enquete = new Enquete(
+                snapshot.getString(CamposEnquete.TITULO),
+                snapshot.getString(CamposEnquete.TEXTO_OPCAO_A),
+                snapshot.getString(CamposEnquete.TEXTO_OPCAO_B),
+                snapshot.getString(CamposEnquete.TEXTO_OPCAO_C),
+                snapshot.getString(CamposEnquete.MENSAGEM_RODAPE),
+                dataHoraEncerramento,
+                encerramentoMillis,
+                a != null ? a : 0,
+                b != null ? b : 0,
+                c != null ? c : 0,
+                rodada != null ? rodada : 0,
+                Boolean.TRUE.equals(snapshot.getBoolean(CamposEnquete.RESPOSTA_LIVRE)),
+                lerImagens(snapshot),
+                Boolean.TRUE.equals(snapshot.getBoolean(CamposEnquete.MODO_QUIZ)),
+                lerTurmas(snapshot),
+                snapshot.getMetadata().isFromCache(),
+                snapshot.getMetadata().hasPendingWrites());
+
+        indiceVotos.atualizarRodada(enqueteRef.getId(), enquete.getRodada());
+        modoAgregador = Boolean.TRUE.equals(snapshot.getBoolean("modoAgregador"));
+        modoQuiz = enquete.isModoQuiz();
+        turmas = enquete.getTurmas();
+        enderecoServidorLocal = snapshot.getString("servidorLocal");
+
+        return enquete;
+    }
+
+    private static ImagensOpcoes lerImagens(DocumentSnapshot snapshot) {
+        return new ImagensOpcoes(
+                snapshot.getString(CamposEnquete.IMAGEM_OPCAO_A),
+                snapshot.getString(CamposEnquete.IMAGEM_OPCAO_B),
+                snapshot.getString(CamposEnquete.IMAGEM_OPCAO_C));
+    }
+
+    private static List<String> lerTurmas(DocumentSnapshot snapshot) {
+        Object salvas = snapshot.get(CamposEnquete.TURMAS);
+        if (!(salvas instanceof List)) return Collections.emptyList();
+        List<String> nomes = new ArrayList<>();
+        for (Object nome : (List<?>) salvas) {
+            if (nome instanceof String) nomes.add((String) nome);
+        }
+        return nomes;
+    }
+
+    /**
+     * Interpreta o texto digitado pelo professor ("yyyy-MM-dd HH:mm") em epoch millis.
+     * O formatador é reaproveitado por thread, evitando criar um SimpleDateFormat a cada chamada.
+     *
+     * @throws ParseException se o texto não estiver no formato esperado
+     */
+    public static long interpretarDataHora(String texto) throws ParseException {
+        Date data = FORMATO_DATA_HORA.get().parse(texto.trim());
+        if (data == null) {
+            throw new ParseException(texto, 0);
+        }
+        return data.getTime();
+    }
+
+    /**
+     * Observa a enquete escolhendo sozinho entre tempo real, consulta periódica
+     * e atualização manual, conforme rede, bateria e taxa de mudanças.
+     * O listener recebido é o mesmo da versão em tempo real.
+     *
+     * @return observação adaptativa; chame remove() para encerrar
+     */
+    public ObservadorAdaptativo observarEnqueteAdaptativo(EnqueteListener listener) {
+        return observarEnquete(listener,
+                new EstadoAparelhoAndroid(appContext),
+                new AgendadorAndroid(),
+                new PoliticaAtualizacao());
+    }
+
+    /**
+     * Versão adaptativa com dependências explícitas (usada nos testes com relógio e rede falsos).
+     */
+    public ObservadorAdaptativo observarEnquete(EnqueteListener listener,
+                                                EstadoAparelho estado,
+                                                Agendador agendador,
+                                                PoliticaAtualizacao politica) {
+        ObservadorAdaptativo.FonteEnquete fonte = new ObservadorAdaptativo.FonteEnquete() {
+            @Override
+            public ListenerRegistration ouvir(EnqueteListener l) {
+                return observarEnquete(l);
+            }
+
+            @Override
+            public void buscar(EnqueteCarregadaCallback callback) {
+                carregarEnquete(callback);
+            }
+        };
+        return new ObservadorAdaptativo(fonte, estado, agendador, politica, listener).iniciar();
+    }
+
     // =====================================================================
     //  Leitura pontual da enquete (ex.: onResume)
     // =====================================================================
@@ -127,7 +398,7 @@ public class EnqueteRepository {
      * @param callback callback chamado com sucesso ou erro
      */
     public void carregarEnquete(final EnqueteCarregadaCallback callback) {
-        enqueteRef.get()
+        lerEnquete()
                 .addOnSuccessListener(snapshot -> {
                     // Se não existe, avisamos erro genérico (poderia ser tratado melhor)
                     if (snapshot == null || !snapshot.exists()) {
@@ -136,21 +407,7 @@ public class EnqueteRepository {
                     }
 
                     // Monta o objeto Enquete a partir do documento
-                    Enquete enquete = new Enquete();
-                    enquete.setTituloEnquete(snapshot.getString("tituloEnquete"));
-                    enquete.setTextoOpcaoA(snapshot.getString("textoOpcaoA"));
-                    enquete.setTextoOpcaoB(snapshot.getString("textoOpcaoB"));
-                    enquete.setTextoOpcaoC(snapshot.getString("textoOpcaoC"));
-                    enquete.setMensagemRodape(snapshot.getString("mensagemRodape"));
-                    enquete.setDataHoraEncerramento(snapshot.getString("dataHoraEncerramento"));
-
-                    Long a = snapshot.getLong("opcaoA");
-                    Long b = snapshot.getLong("opcaoB");
-                    Long c = snapshot.getLong("opcaoC");
-
-                    enquete.setOpcaoA(a != null ? a : 0);
-                    enquete.setOpcaoB(b != null ? b : 0);
-                    enquete.setOpcaoC(c != null ? c : 0);
+                    Enquete enquete = montarEnquete(snapshot);
 
                     callback.onEnqueteCarregada(enquete);
                 })
@@ -169,6 +426,11 @@ public class EnqueteRepository {
      * @param opcaoA  texto da opção A
      * @param opcaoB  texto da opção B
      * @param opcaoC  texto da opção C
+     * @param encerramentoMillis horário de encerramento em epoch millis (0 = sem encerramento)
+     * @param respostaLivre pergunta aberta (o aluno digita uma palavra) em vez das opções A/B/C
+     * @param imagens ids das miniaturas já publicadas ({@link CacheImagens#publicar})
+     * @param opcaoCorreta gabarito do quiz ("A", "B" ou "C"); null desliga o modo quiz
+     * @param turmas  nomes das turmas com contadores próprios; vazia = contagem única
      * @param callback chamado em sucesso ou erro
      */
     public void salvarConfiguracoes(String titulo,
@@ -177,8 +439,29 @@ public class EnqueteRepository {
                                     String opcaoC,
                                     @Nullable String mensagemRodape,
                                     @Nullable String dataHoraEncerramento,
+                                    long encerramentoMillis,
+                                    boolean respostaLivre,
+                                    ImagensOpcoes imagens,
+                                    @Nullable String opcaoCorreta,
+                                    List<String> turmas,
                                     OperacaoCallback callback) {
+        tarefaSalvarConfiguracoes(titulo, opcaoA, opcaoB, opcaoC, mensagemRodape,
+                dataHoraEncerramento, encerramentoMillis, respostaLivre, imagens, opcaoCorreta, turmas)
+                .addOnSuccessListener(unused -> callback.onSucesso())
+                .addOnFailureListener(callback::onErro);
+    }
 
+    private Task<Void> tarefaSalvarConfiguracoes(String titulo,
+                                                 String opcaoA,
+                                                 String opcaoB,
+                                                 String opcaoC,
+                                                 @Nullable String mensagemRodape,
+                                                 @Nullable String dataHoraEncerramento,
+                                                 long encerramentoMillis,
+                                                 boolean respostaLivre,
+                                                 ImagensOpcoes imagens,
+                                                 @Nullable String opcaoCorreta,
+                                                 List<String> turmas) {
         Map<String, Object> dados = new HashMap<>();
         dados.put("tituloEnquete", titulo);
         dados.put("textoOpcaoA", opcaoA);
@@ -186,11 +469,37 @@ public class EnqueteRepository {
         dados.put("textoOpcaoC", opcaoC);
         dados.put("mensagemRodape", mensagemRodape);
         dados.put("dataHoraEncerramento", dataHoraEncerramento);
+        // Timestamp é o valor usado pelos clientes; o texto fica apenas para exibição/edição
+        dados.put("encerramentoEm",
+                encerramentoMillis > 0 ? new Timestamp(new Date(encerramentoMillis)) : null);
+        dados.put("respostaLivre", respostaLivre);
+        // Só os ids: as miniaturas ficam em "imagens" e não pesam nos snapshots da enquete
+        dados.put("imagemOpcaoA", imagens.opcaoA);
+        dados.put("imagemOpcaoB", imagens.opcaoB);
+        dados.put("imagemOpcaoC", imagens.opcaoC);
+        dados.put("modoQuiz", opcaoCorreta != null);
+        dados.put("turmas", turmas);
 
-        // merge() apenas atualiza estes campos, mantendo os demais (contadores, etc.)
-        enqueteRef.set(dados, SetOptions.merge())
-                .addOnSuccessListener(unused -> callback.onSucesso())
-                .addOnFailureListener(callback::onErro);
+        // merge() apenas atualiza estes campos, mantendo os demais (contadores, etc.).
+        // Grava valores absolutos e o evento tem id fixo por salvamento,
+        // então repetir a escrita é naturalmente idempotente.
+        final String chave = UUID.randomUUID().toString();
+        return retentativas.executar(OPERACAO_SALVAR_CONFIGURACOES, () -> {
+            WriteBatch batch = firebaseManager.getDb().batch();
+            batch.set(enqueteRef, dados, SetOptions.merge());
+            // O gabarito fica fora do documento da enquete, que todos os alunos observam;
+            // só o aparelho do professor o lê ({@link #gabaritoRef})
+            if (opcaoCorreta != null) {
+                Map<String, Object> gabarito = new HashMap<>();
+                gabarito.put("opcaoCorreta", opcaoCorreta);
+                batch.set(gabaritoRef(), gabarito);
+            } else {
+                batch.delete(gabaritoRef());
+            }
+            historico.registrarConfiguracao(batch, chave, dados);
+            return batch.commit();
+        }).addOnSuccessListener(DIRETO, unused ->
+                prefs.edit().putBoolean(CHAVE_CORRETOR_QUIZ, opcaoCorreta != null).apply());
     }
 
     /**
@@ -200,7 +509,7 @@ public class EnqueteRepository {
      * @param callback callback com os textos carregados ou erro
      */
     public void carregarConfiguracoes(ConfiguracaoCarregadaCallback callback) {
-        enqueteRef.get()
+        lerEnquete()
                 .addOnSuccessListener(snapshot -> {
                     if (snapshot == null || !snapshot.exists()) {
                         callback.onErro(null);
@@ -213,8 +522,21 @@ public class EnqueteRepository {
                     String opcaoC = snapshot.getString("textoOpcaoC");
                     String mensagemRodape = snapshot.getString("mensagemRodape");
                     String dataHoraEncerramento = snapshot.getString("dataHoraEncerramento");
+                    boolean respostaLivre = Boolean.TRUE.equals(snapshot.getBoolean("respostaLivre"));
+                    ImagensOpcoes imagens = lerImagens(snapshot);
+                    List<String> turmas = lerTurmas(snapshot);
 
-                    callback.onConfiguracaoCarregada(titulo, opcaoA, opcaoB, opcaoC, mensagemRodape, dataHoraEncerramento);
+                    if (!Boolean.TRUE.equals(snapshot.getBoolean("modoQuiz"))) {
+                        callback.onConfiguracaoCarregada(titulo, opcaoA, opcaoB, opcaoC, mensagemRodape,
+                                dataHoraEncerramento, respostaLivre, imagens, null, turmas);
+                        return;
+                    }
+                    // Quiz: o gabarito é lido à parte (só a tela de configuração precisa dele)
+                    gabaritoRef().get()
+                            .addOnSuccessListener(gabarito -> callback.onConfiguracaoCarregada(
+                                    titulo, opcaoA, opcaoB, opcaoC, mensagemRodape, dataHoraEncerramento,
+                                    respostaLivre, imagens, gabarito.getString("opcaoCorreta"), turmas))
+                            .addOnFailureListener(callback::onErro);
                 })
                 .addOnFailureListener(callback::onErro);
     }
@@ -231,199 +553,1374 @@ public class EnqueteRepository {
      * @param callback callback com informações do voto ou null
      */
     public void carregarVotoUsuario(VotoUsuarioCallback callback) {
+        tarefaVotoUsuario()
+                .addOnSuccessListener(callback::onVotoCarregado)
+                .addOnFailureListener(e -> callback.onVotoCarregado(null));
+    }
+
+    /**
+     * Leitura do voto do usuário como Task (null quando não há voto ou usuário).
+     */
+    private Task<VotoUsuarioInfo> tarefaVotoUsuario() {
         DocumentReference votoRef = firebaseManager.getUserVoteRef();
 
         // Se não há usuário logado, não há como buscar voto
         if (votoRef == null) {
-            callback.onVotoCarregado(null);
-            return;
+            return Tasks.forResult(null);
         }
 
-        votoRef.get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot != null && snapshot.exists()) {
-                        VotoUsuarioInfo info = new VotoUsuarioInfo();
-                        info.opcaoEscolhida = snapshot.getString("opcaoEscolhida");
-                        info.timestamp = snapshot.getTimestamp("timestamp");
-                        info.voterId = firebaseManager.getCurrentVoterId();
+        return chamadas.executar("voto:ler:" + votoRef.getPath(), votoRef::get)
+                .onSuccessTask(snapshot -> {
+                    if (snapshot == null || !snapshot.exists()) {
+                        return Tasks.forResult(votoNaFilaComoInfo());
+                    }
+                    VotoUsuarioInfo info = new VotoUsuarioInfo();
+                    info.opcaoEscolhida = snapshot.getString(CamposVoto.OPCAO_ESCOLHIDA);
+                    info.timestamp = snapshot.getTimestamp(CamposVoto.TIMESTAMP);
+                    info.voterId = firebaseManager.getCurrentVoterId();
+                    if (info.opcaoEscolhida != null) {
+                        indiceVotos.registrarVoto(enqueteRef.getId(),
+                                indiceVotos.getRodadaConhecida(enqueteRef.getId()),
+                                info.opcaoEscolhida);
+                    }
+
+                    // Votos antigos trazem os metadados no próprio documento
+                    if (snapshot.contains("deviceModel")) {
                         info.deviceModel = snapshot.getString("deviceModel");
                         info.androidVersion = snapshot.getString("androidVersion");
-                        callback.onVotoCarregado(info);
-                    } else {
-                        callback.onVotoCarregado(null);
+                        return Tasks.forResult(info);
                     }
-                })
-                .addOnFailureListener(e -> callback.onVotoCarregado(null));
+                    String aparelho = snapshot.getString(CamposVoto.APARELHO);
+                    if (aparelho == null) {
+                        return Tasks.forResult(info);
+                    }
+                    return cadastroAparelhos.buscar(Collections.singleton(aparelho))
+                            .continueWith(DIRETO, task -> {
+                                CadastroAparelhos.InfoAparelho aparelhoInfo =
+                                        task.isSuccessful() ? task.getResult().get(aparelho) : null;
+                                if (aparelhoInfo != null) {
+                                    info.deviceModel = aparelhoInfo.deviceModel;
+                                    info.androidVersion = aparelhoInfo.androidVersion;
+                                }
+                                return info;
+                            });
+                });
     }
 
     /**
      * Registra o voto do usuário em uma das opções (A/B/C), garantindo:
      * - O usuário só pode votar uma vez (se já houver documento, chama onJaVotou).
+     *   O índice local é consultado antes: se este aparelho já votou nesta rodada,
+     *   respondemos onJaVotou sem nenhuma leitura no Firestore.
      * - Incrementa o contador da opção escolhida no documento da enquete.
      * - Cria/atualiza o documento de voto do usuário com a opção e timestamp.
      *
+     * Falhas transitórias são repetidas com backoff (ver {@link Retentativas});
+     * a chave de idempotência gravada com o voto impede contagem dupla.
+     *
+     * O voto é uma transação, e transações não entram na fila offline do Firestore:
+     * sem conexão, elas falham. Se as tentativas se esgotam com um erro transitório
+     * (ex.: aparelho offline), o voto e a sua chave são guardados neste aparelho e
+     * o callback recebe onVotoNaFila. {@link #reenviarVotoNaFila()} repete a mesma
+     * transação, com a mesma chave, quando a conexão voltar.
+     *
      * @param opcao    "A", "B" ou "C"
-     * @param callback callback com sucesso, já votou ou erro
+     * @param callback callback com sucesso, voto na fila, já votou ou erro
      */
     public void registrarVoto(String opcao, RegistrarVotoCallback callback) {
+        tarefaRegistrarVoto(opcao)
+                .addOnSuccessListener(resultado -> {
+                    if (resultado.jaVotou) {
+                        callback.onJaVotou(resultado.opcao);
+                    } else if (resultado.naFila) {
+                        callback.onVotoNaFila(resultado.opcao);
+                    } else {
+                        callback.onVotoRegistrado(resultado.opcao);
+                    }
+                })
+                .addOnFailureListener(callback::onErro);
+    }
 
+    /**
+     * Registro de voto como Task, compartilhado pelas versões com callback e com future.
+     */
+    private Task<ResultadoVoto> tarefaRegistrarVoto(String opcao) {
         DocumentReference votoRef = firebaseManager.getUserVoteRef();
         if (votoRef == null) {
-            callback.onErro(new IllegalStateException("Usuário não logado."));
-            return;
+            return Tasks.forException(new IllegalStateException("Usuário não logado."));
         }
 
-        // Primeiro verificamos se o usuário já votou
-        votoRef.get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot != null && snapshot.exists()) {
-                        String jaVotouOpcao = snapshot.getString("opcaoEscolhida");
-                        callback.onJaVotou(jaVotouOpcao);
-                        return;
+        // Resposta local: voto já conhecido nesta rodada, nenhuma ida ao servidor
+        final String enqueteId = enqueteRef.getId();
+        String votoLocal = indiceVotos.buscarVoto(enqueteId);
+        if (votoLocal != null) {
+            return Tasks.forResult(new ResultadoVoto(true, votoLocal));
+        }
+        VotoNaFila naFila = lerVotoNaFila();
+        if (naFila != null) {
+            return Tasks.forResult(new ResultadoVoto(true, naFila.opcao));
+        }
+        final long rodada = indiceVotos.getRodadaConhecida(enqueteId);
+
+        // Toques repetidos enquanto o registro ainda está em andamento compartilham a mesma Task,
+        // então o contador é incrementado uma única vez. A chave vale para todas as tentativas.
+        return chamadas.executar("voto:registrar:" + votoRef.getPath(), () -> {
+            cadastroAparelhos.garantirRegistro(firebaseManager.getCurrentVoterId());
+            String chave = UUID.randomUUID().toString();
+            return retentativas.executar(OPERACAO_REGISTRAR_VOTO,
+                    () -> executarRegistroVoto(votoRef, opcao, enqueteId, rodada, chave))
+                    .continueWithTask(DIRETO, tentativas -> {
+                        if (!retentativas.ehTransitoria(tentativas.getException())) {
+                            return tentativas;
+                        }
+                        // Sem conexão: o voto espera neste aparelho, com a mesma chave
+                        guardarVotoNaFila(new VotoNaFila(rodada, opcao, chave));
+                        indiceVotos.registrarVoto(enqueteId, rodada, opcao);
+                        return Tasks.forResult(new ResultadoVoto(false, opcao, true));
+                    });
+        });
+    }
+
+    /**
+     * Reenvia o voto guardado sem conexão ({@link #registrarVoto}), se houver: mesma
+     * transação e mesma chave, então um envio anterior que chegou ao servidor não conta
+     * de novo. Chamar quando a conexão voltar (ex.: ao receber um snapshot do servidor).
+     *
+     * A fila é esvaziada quando o servidor responde (registrado ou já votou), quando a
+     * falha não é transitória, ou se a enquete foi resetada enquanto o voto esperava.
+     *
+     * @return resultado do reenvio; null se não havia voto na fila ou ele foi descartado
+     */
+    public Task<ResultadoVoto> reenviarVotoNaFila() {
+        VotoNaFila naFila = lerVotoNaFila();
+        DocumentReference votoRef = firebaseManager.getUserVoteRef();
+        if (naFila == null || votoRef == null) {
+            return Tasks.forResult(null);
+        }
+        final String enqueteId = enqueteRef.getId();
+        long rodadaAtual = indiceVotos.getRodadaConhecida(enqueteId);
+        if (naFila.rodada >= 0 && rodadaAtual >= 0 && naFila.rodada != rodadaAtual) {
+            // Voto da rodada anterior ao reset: não vale mais
+            descartarVotoNaFila();
+            return Tasks.forResult(null);
+        }
+        return chamadas.executar("voto:registrar:" + votoRef.getPath(),
+                () -> retentativas.executar(OPERACAO_REGISTRAR_VOTO,
+                        () -> executarRegistroVoto(votoRef, naFila.opcao, enqueteId, naFila.rodada, naFila.chave)))
+                .addOnCompleteListener(DIRETO, tentativas -> {
+                    if (retentativas.ehTransitoria(tentativas.getException())) return;
+                    descartarVotoNaFila();
+                    if (!tentativas.isSuccessful()) {
+                        // Recusado (ex.: permissão): o índice local não pode dizer que votou
+                        indiceVotos.removerVoto(enqueteId, naFila.rodada);
                     }
+                });
+    }
 
-                    // Mapeia "A", "B" ou "C" para o campo correspondente no Firestore
-                    String campo =
-                            opcao.equals("A") ? "opcaoA" :
-                                    opcao.equals("B") ? "opcaoB" : "opcaoC";
-
-                    // Incrementa o contador da opção no documento da enquete
-                    enqueteRef.update(campo, FieldValue.increment(1))
-                            .addOnSuccessListener(unused -> {
-                                // Depois de atualizar o contador, salvamos o voto do usuário
-                                Map<String, Object> voto = new HashMap<>();
-                                voto.put("opcaoEscolhida", opcao);
-                                voto.put("timestamp", FieldValue.serverTimestamp());
-                                // Metadados do dispositivo úteis para suporte/estatísticas
-                                voto.put("deviceModel", Build.MODEL);
-                                voto.put("androidVersion", Build.VERSION.RELEASE);
-
-                                votoRef.set(voto)
-                                        .addOnSuccessListener(unused2 -> callback.onVotoRegistrado(opcao))
-                                        .addOnFailureListener(callback::onErro);
-                            })
-                            .addOnFailureListener(callback::onErro);
-                })
-                .addOnFailureListener(callback::onErro);
+    public boolean temVotoNaFila() {
+        return lerVotoNaFila() != null;
+    }
+
+    /**
+     * Voto que espera conexão: a chave de idempotência é a da primeira tentativa.
+     */
+    private static final class VotoNaFila {
+        final long rodada;
+        final String opcao;
+        final String chave;
+
+        VotoNaFila(long rodada, String opcao, String chave) {
+            this.rodada = rodada;
+            this.opcao = opcao;
+            this.chave = chave;
+        }
+    }
+
+    @Nullable
+    private VotoNaFila lerVotoNaFila() {
+        String texto = prefs.getString(CHAVE_VOTO_NA_FILA + enqueteRef.getPath(), null);
+        if (texto == null) return null;
+        String[] partes = texto.split(";", 3);
+        if (partes.length < 3) return null;
+        try {
+            return new VotoNaFila(Long.parseLong(partes[0]), partes[1], partes[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void guardarVotoNaFila(VotoNaFila voto) {
+        prefs.edit()
+                .putString(CHAVE_VOTO_NA_FILA + enqueteRef.getPath(),
+                        voto.rodada + ";" + voto.opcao + ";" + voto.chave)
+                .apply();
+    }
+
+    private void descartarVotoNaFila() {
+        prefs.edit().remove(CHAVE_VOTO_NA_FILA + enqueteRef.getPath()).apply();
+    }
+
+    /**
+     * Voto na fila exibido como "Seu voto" pendente enquanto o servidor não o tem.
+     */
+    @Nullable
+    private VotoUsuarioInfo votoNaFilaComoInfo() {
+        VotoNaFila naFila = lerVotoNaFila();
+        if (naFila == null) return null;
+        VotoUsuarioInfo info = new VotoUsuarioInfo();
+        info.opcaoEscolhida = naFila.opcao;
+        info.voterId = firebaseManager.getCurrentVoterId();
+        info.deviceModel = Build.MODEL;
+        info.androidVersion = Build.VERSION.RELEASE;
+        info.pendente = true;
+        return info;
+    }
+
+    /**
+     * Uma tentativa de registro do voto, em transação: verifica no servidor se o usuário
+     * já votou e, se não, incrementa o contador e grava o voto juntos (ou nenhum dos dois).
+     *
+     * Se o documento de voto já tem a MESMA chave, foi uma tentativa anterior desta
+     * operação que gravou (só a resposta se perdeu): o voto conta como registrado agora.
+     *
+     * No modo agregador o contador da enquete não é tocado; quem conta os votos sem
+     * turma é o aparelho do professor ({@link AgregadorVotos}).
+     *
+     * No modo quiz o voto leva o apelido e a rodada do aluno. Quem corrige é o aparelho
+     * do professor ({@link CorretorQuiz}): o aluno não lê o gabarito nem grava pontos.
+     *
+     * Numa enquete por turma o incremento vai para o documento da turma do aparelho
+     * ({@link #turmaRef}), sem leitura: turmas diferentes não disputam o mesmo contador.
+     * Isso vale também no modo agregador, que deixa os votos com turma de fora.
+     * Os fragmentos de estatísticas ({@link #somarEstatisticasAparelho}) continuam
+     * compartilhados pela enquete toda.
+     */
+    private Task<ResultadoVoto> executarRegistroVoto(DocumentReference votoRef,
+                                                     String opcao,
+                                                     String enqueteId,
+                                                     long rodada,
+                                                     String chaveIdempotencia) {
+        // Mapeia "A", "B" ou "C" para o campo correspondente no Firestore
+        String campo =
+                opcao.equals("A") ? "opcaoA" :
+                        opcao.equals("B") ? "opcaoB" : "opcaoC";
+        final boolean incrementar = !modoAgregador;
+        final boolean quiz = modoQuiz;
+        final String turma = turmaDosVotos();
+        final String nome = getApelido();
+
+        return firebaseManager.getDb().runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(votoRef);
+            if (snapshot.exists()) {
+                boolean mesmaOperacao =
+                        chaveIdempotencia.equals(snapshot.getString(CamposVoto.CHAVE_IDEMPOTENCIA));
+                return new ResultadoVoto(!mesmaOperacao, snapshot.getString(CamposVoto.OPCAO_ESCOLHIDA));
+            }
+
+            // Incrementa o contador da opção no documento da turma (em qualquer modo)
+            // ou no da enquete (fora do modo agregador)
+            if (turma != null) {
+                transaction.set(turmaRef(turma),
+                        dadosTurma(turma, Collections.singletonMap(campo, FieldValue.increment(1))),
+                        SetOptions.merge());
+            } else if (incrementar) {
+                transaction.update(enqueteRef, campo, FieldValue.increment(1));
+            }
+
+            Map<String, Object> voto = new HashMap<>();
+            voto.put(CamposVoto.OPCAO_ESCOLHIDA, opcao);
+            voto.put(CamposVoto.TIMESTAMP, FieldValue.serverTimestamp());
+            voto.put(CamposVoto.CHAVE_IDEMPOTENCIA, chaveIdempotencia);
+            // Só a referência ao aparelho; modelo/versão ficam em "aparelhos" (CadastroAparelhos)
+            voto.put(CamposVoto.APARELHO, firebaseManager.getCurrentVoterId());
+            if (turma != null) voto.put(CamposVoto.TURMA, turma);
+            if (quiz) {
+                voto.put(CamposVoto.APELIDO, nome);
+                voto.put(CamposVoto.RODADA, rodada);
+            }
+            transaction.set(votoRef, voto);
+            somarEstatisticasAparelho(transaction, firebaseManager.getCurrentVoterId(), 1);
+            historico.registrarVoto(transaction, chaveIdempotencia, opcao,
+                    firebaseManager.getCurrentVoterId());
+
+            return new ResultadoVoto(false, opcao);
+        }).onSuccessTask(DIRETO, resultado -> {
+            if (resultado.opcao != null) {
+                indiceVotos.registrarVoto(enqueteId, rodada, resultado.opcao);
+            }
+            return Tasks.forResult(resultado);
+        });
     }
 
     // =====================================================================
-    //  Reset da enquete
+    //  Modo quiosque (várias cédulas por aparelho)
     // =====================================================================
 
     /**
-     * Reseta a enquete:
-     * - Zera os contadores das três opções.
-     * - Remove todos os documentos da subcoleção "votos" (votos por usuário).
-     *
-     * Útil na tela de administração para começar uma votação “do zero”.
+     * Grava um lote de cédulas do modo quiosque: um documento em "votos" por
+     * cédula (id da cédula) e um único incremento agregado por opção, na turma do
+     * quiosque se a enquete for por turma (também no modo agregador, que só conta
+     * os votos sem turma) ou no documento da enquete (fora do modo agregador).
      *
-     * @param callback callback de sucesso ou erro
+     * Tudo vai na mesma transação, junto com o marcador "lotes/{loteId}" e um
+     * único evento do histórico com a soma do lote.
+     * Se o marcador já existe, o lote foi aplicado antes (resposta perdida ou
+     * app fechado durante o envio) e nada é gravado de novo.
      */
-    public void resetarEnquete(OperacaoCallback callback) {
-        Map<String, Object> dados = new HashMap<>();
-        dados.put("opcaoA", 0L);
-        dados.put("opcaoB", 0L);
-        dados.put("opcaoC", 0L);
-
-        // Primeiro zera os contadores
-        enqueteRef.set(dados, SetOptions.merge())
-                .addOnSuccessListener(unused -> {
-
-                    // Depois remove todos os documentos da subcoleção "votos"
-                    enqueteRef.collection("votos")
-                            .get()
-                            .addOnSuccessListener(querySnapshot -> {
-                                querySnapshot.getDocuments()
-                                        .forEach(doc -> doc.getReference().delete());
-
-                                // Registra um log do reset na subcoleção "logs"
-                                Map<String, Object> log = new HashMap<>();
-                                log.put("timestamp", FieldValue.serverTimestamp());
-                                log.put("tipo", "reset_votacao");
-                                log.put("observacao", "reset solicitado pelo professor em sala");
-                                enqueteRef.collection("logs")
-                                        .add(log)
-                                        .addOnSuccessListener(ref -> callback.onSucesso())
-                                        .addOnFailureListener(callback::onErro);
-                            })
-                            .addOnFailureListener(callback::onErro);
+    public Task<Void> enviarLoteCedulas(String loteId, List<Cedula> cedulas) {
+        DocumentReference marcadorRef = enqueteRef.collection("lotes").document(loteId);
 
-                })
-                .addOnFailureListener(callback::onErro);
+        Map<String, Object> incrementos = new HashMap<>();
+        long contagemA = 0, contagemB = 0, contagemC = 0;
+        for (Cedula cedula : cedulas) {
+            switch (cedula.getOpcao()) {
+                case "A": contagemA++; break;
+                case "B": contagemB++; break;
+                default: contagemC++; break;
+            }
+        }
+        final long votosA = contagemA, votosB = contagemB, votosC = contagemC;
+        if (votosA > 0) incrementos.put("opcaoA", FieldValue.increment(votosA));
+        if (votosB > 0) incrementos.put("opcaoB", FieldValue.increment(votosB));
+        if (votosC > 0) incrementos.put("opcaoC", FieldValue.increment(votosC));
+
+        String quiosque = firebaseManager.getCurrentVoterId();
+        final boolean incrementar = !modoAgregador;
+        final String turma = turmaDosVotos();
+        cadastroAparelhos.garantirRegistro(quiosque);
+
+        return retentativas.executar(OPERACAO_ENVIAR_LOTE,
+                () -> firebaseManager.getDb().runTransaction(transaction -> {
+                    if (transaction.get(marcadorRef).exists()) {
+                        return null;
+                    }
+
+                    if (!incrementos.isEmpty() && turma != null) {
+                        transaction.set(turmaRef(turma), dadosTurma(turma, incrementos), SetOptions.merge());
+                    } else if (incrementar && !incrementos.isEmpty()) {
+                        transaction.update(enqueteRef, incrementos);
+                    }
+                    for (Cedula cedula : cedulas) {
+                        Map<String, Object> voto = new HashMap<>();
+                        voto.put(CamposVoto.OPCAO_ESCOLHIDA, cedula.getOpcao());
+                        // "timestamp" é o do servidor (ordem usada pelo agregador);
+                        // "registradaEm" guarda o momento em que o aluno votou
+                        voto.put(CamposVoto.TIMESTAMP, FieldValue.serverTimestamp());
+                        voto.put(CamposVoto.REGISTRADA_EM, new Timestamp(new Date(cedula.getRegistradaEmMillis())));
+                        voto.put(CamposVoto.APARELHO, quiosque);
+                        voto.put(CamposVoto.LOTE, loteId);
+                        if (turma != null) voto.put(CamposVoto.TURMA, turma);
+                        transaction.set(enqueteRef.collection("votos").document(cedula.getId()), voto);
+                    }
+                    somarEstatisticasAparelho(transaction, quiosque, cedulas.size());
+                    historico.registrarLote(transaction, loteId, votosA, votosB, votosC, quiosque);
+
+                    Map<String, Object> marcador = new HashMap<>();
+                    marcador.put("timestamp", FieldValue.serverTimestamp());
+                    marcador.put("quantidade", cedulas.size());
+                    marcador.put("quiosque", quiosque);
+                    transaction.set(marcadorRef, marcador);
+                    return null;
+                }));
     }
 
     // =====================================================================
-    //  Interfaces de callback
+    //  Quiz (pontuação e classificação)
     // =====================================================================
 
     /**
-     * Informações do voto do usuário retornadas em leitura pontual.
+     * Este aparelho gravou o gabarito em vigor? Só ele corrige as respostas
+     * ({@link CorretorQuiz}); os alunos nunca leem o gabarito.
      */
-    public static class VotoUsuarioInfo {
-        @Nullable public String opcaoEscolhida;
-        @Nullable public Timestamp timestamp;
-        @Nullable public String voterId;
-        @Nullable public String deviceModel;
-        @Nullable public String androidVersion;
+    public boolean isCorretorDoQuiz() {
+        return prefs.getBoolean(CHAVE_CORRETOR_QUIZ, false);
     }
 
     /**
-     * Listener para receber atualizações em tempo real da enquete.
+     * Soma a resposta de um aluno à pontuação dele, uma vez por rodada. Chamado só
+     * pelo aparelho do professor ({@link CorretorQuiz}), que comparou o voto com o gabarito.
+     *
+     * A pontuação guarda a última rodada corrigida: corrigir de novo o mesmo voto
+     * (corretor reiniciado, dois aparelhos do professor) não soma duas vezes. Depois
+     * de um acerto, a classificação é atualizada em transação própria.
+     *
+     * Cédulas do modo quiosque não pontuam: não identificam o aluno.
      */
-    public interface EnqueteListener {
-        void onEnqueteAtualizada(Enquete enquete);
+    Task<Void> corrigirResposta(String aparelho, String nome, long rodada, boolean acertou) {
+        DocumentReference pontuacaoRef = enqueteRef.collection("pontuacoes").document(aparelho);
+        return firebaseManager.getDb().runTransaction(transaction -> {
+            DocumentSnapshot pontuacao = transaction.get(pontuacaoRef);
+            Long rodadaCorrigida = pontuacao.getLong("rodadaCorrigida");
+            if (rodadaCorrigida != null && rodadaCorrigida >= rodada) return -1L;
 
-        void onErro(@Nullable Exception e);
+            Long pontosAntes = pontuacao.getLong("pontos");
+            Long respostasAntes = pontuacao.getLong("respostas");
+            long pontos = (pontosAntes != null ? pontosAntes : 0) + (acertou ? PONTOS_POR_ACERTO : 0);
+
+            Map<String, Object> dados = new HashMap<>();
+            dados.put("pontos", pontos);
+            dados.put("respostas", (respostasAntes != null ? respostasAntes : 0) + 1);
+            dados.put("nome", nome);
+            dados.put("rodadaCorrigida", rodada);
+            dados.put("atualizadoEm", FieldValue.serverTimestamp());
+            transaction.set(pontuacaoRef, dados);
+            return acertou ? pontos : -1L;
+        }).onSuccessTask(DIRETO, pontos -> {
+            if (pontos != null && pontos >= 0) atualizarClassificacao(aparelho, nome, pontos);
+            return Tasks.forResult(null);
+        });
     }
 
     /**
-     * Callback para carregamento pontual da enquete.
+     * Leva a pontuação após um acerto ao fragmento da classificação do aluno, em
+     * transação própria, depois da correção confirmada: o fragmento é disputado por
+     * vários alunos e um conflito nele não atrasa nem derruba a correção.
+     *
+     * Conflitos são repetidos com backoff ({@link Retentativas}). Pontuações só
+     * aumentam e uma atualização atrasada não rebaixa o aluno
+     * ({@link Classificacao#atualizar}), então repetir é seguro; se as tentativas
+     * se esgotam, o próximo acerto do aluno corrige o fragmento.
      */
-    public interface EnqueteCarregadaCallback {
-        void onEnqueteCarregada(Enquete enquete);
+    private void atualizarClassificacao(String aparelho, String nome, long pontos) {
+        DocumentReference fragmentoRef = fragmentoClassificacao(aparelho);
+        retentativas.executar(OPERACAO_ATUALIZAR_CLASSIFICACAO,
+                () -> firebaseManager.getDb().runTransaction(transaction -> {
+                    Classificacao fragmento = lerClassificacao(transaction.get(fragmentoRef));
+                    if (fragmento.atualizar(aparelho, nome, pontos)) {
+                        transaction.set(fragmentoRef, dadosClassificacao(fragmento));
+                    }
+                    return null;
+                }));
+    }
 
-        void onErro(@Nullable Exception e);
+    /**
+     * Observa os fragmentos da classificação e entrega os primeiros da turma a cada mudança.
+     * São no máximo {@link #FRAGMENTOS_CLASSIFICACAO} documentos pequenos, qualquer que
+     * seja o número de alunos.
+     */
+    public ListenerRegistration observarClassificacao(ClassificacaoListener listener) {
+        return enqueteRef.collection("classificacao").addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                listener.onErro(e);
+                return;
+            }
+            if (snapshot == null) return;
+            List<Classificacao> fragmentos = new ArrayList<>();
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                fragmentos.add(lerClassificacao(doc));
+            }
+            listener.onClassificacaoAtualizada(
+                    Classificacao.mesclar(fragmentos, TAMANHO_CLASSIFICACAO));
+        });
     }
 
     /**
-     * Callback para carregamento apenas das configurações (título e textos).
+     * Leitura única dos fragmentos da classificação, para quem não mantém o
+     * listener de {@link #observarClassificacao} ligado.
      */
-    public interface ConfiguracaoCarregadaCallback {
-        void onConfiguracaoCarregada(String titulo,
-                                     String opcaoA,
-                                     String opcaoB,
-                                     String opcaoC,
-                                     @Nullable String mensagemRodape,
-                                     @Nullable String dataHoraEncerramento);
+    public void carregarClassificacao(ClassificacaoListener listener) {
+        enqueteRef.collection("classificacao").get()
+                .addOnSuccessListener(snapshot -> {
+                    List<Classificacao> fragmentos = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        fragmentos.add(lerClassificacao(doc));
+                    }
+                    listener.onClassificacaoAtualizada(
+                            Classificacao.mesclar(fragmentos, TAMANHO_CLASSIFICACAO));
+                })
+                .addOnFailureListener(listener::onErro);
+    }
 
-        void onErro(@Nullable Exception e);
+    /**
+     * Apaga as pontuações e a classificação (começo de um novo quiz).
+     * O reset da enquete não mexe nelas: os pontos somam entre as perguntas.
+     */
+    public void zerarPontuacoes(OperacaoCallback callback) {
+        CompletableFuture<Void> apagarPontuacoes =
+                apagarColecao(OPERACAO_ZERAR_PONTUACOES, "pontuacoes");
+        CompletableFuture<Void> apagarClassificacao =
+                apagarColecao(OPERACAO_ZERAR_PONTUACOES, "classificacao");
+        CompletableFuture.allOf(apagarPontuacoes, apagarClassificacao)
+                .whenCompleteAsync((unused, erro) -> {
+                    if (erro == null) {
+                        callback.onSucesso();
+                    } else {
+                        callback.onErro(Futuros.causa(erro));
+                    }
+                }, executorPrincipal);
     }
 
     /**
-     * Callback genérico para operações simples (sucesso/erro).
+     * Nome exibido na classificação (guardado só neste aparelho).
      */
-    public interface OperacaoCallback {
-        void onSucesso();
+    public String getApelido() {
+        String apelido = prefs.getString(CHAVE_APELIDO, null);
+        if (apelido != null) return apelido;
+        String id = firebaseManager.getCurrentVoterId();
+        return "Aluno " + id.substring(Math.max(0, id.length() - 4)).toUpperCase(Locale.ROOT);
+    }
 
-        void onErro(@Nullable Exception e);
+    /**
+     * Troca o apelido; vale a partir do próximo voto no quiz. Vazio volta ao padrão.
+     */
+    public void setApelido(@Nullable String apelido) {
+        String limpo = apelido != null ? apelido.trim() : "";
+        if (limpo.isEmpty()) {
+            prefs.edit().remove(CHAVE_APELIDO).apply();
+        } else {
+            prefs.edit().putString(CHAVE_APELIDO, limpo).apply();
+        }
     }
 
     /**
-     * Callback para informar qual opção o usuário já votou (ou null).
+     * Estrutura:
+     *   enquetes/enquete_geral/quiz/gabarito { opcaoCorreta }
+     *
+     * Só o professor lê e grava este documento (regra do Firestore); os alunos não o
+     * leem nem depois de responder. Pontuações e classificação também só são gravadas
+     * pelo professor.
      */
-    public interface VotoUsuarioCallback {
-        void onVotoCarregado(@Nullable VotoUsuarioInfo info);
+    DocumentReference gabaritoRef() {
+        return enqueteRef.collection("quiz").document("gabarito");
     }
 
     /**
-     * Callback completo para registrar voto:
-     * - onVotoRegistrado: voto salvo com sucesso
-     * - onJaVotou: usuário já tinha votado antes
-     * - onErro: falha geral
+     * Estrutura:
+     *   enquetes/enquete_geral/classificacao/fragmento_{n}
+     *     { entradas: [{id, nome, pontos}, ...] }   (do primeiro para o último)
      */
-    public interface RegistrarVotoCallback {
-        void onVotoRegistrado(String opcao);
+    private DocumentReference fragmentoClassificacao(String aparelho) {
+        int indice = Math.floorMod(aparelho.hashCode(), FRAGMENTOS_CLASSIFICACAO);
+        return enqueteRef.collection("classificacao").document("fragmento_" + indice);
+    }
+
+    private static Classificacao lerClassificacao(DocumentSnapshot doc) {
+        List<Classificacao.Entrada> entradas = new ArrayList<>();
+        Object salvas = doc.get("entradas");
+        if (salvas instanceof List) {
+            for (Object item : (List<?>) salvas) {
+                if (!(item instanceof Map)) continue;
+                Map<?, ?> mapa = (Map<?, ?>) item;
+                Object id = mapa.get("id");
+                Object nome = mapa.get("nome");
+                Object pontos = mapa.get("pontos");
+                if (id instanceof String && pontos instanceof Number) {
+                    entradas.add(new Classificacao.Entrada((String) id,
+                            nome instanceof String ? (String) nome : (String) id,
+                            ((Number) pontos).longValue()));
+                }
+            }
+        }
+        return Classificacao.de(TAMANHO_CLASSIFICACAO, entradas);
+    }
+
+    private static Map<String, Object> dadosClassificacao(Classificacao classificacao) {
+        List<Map<String, Object>> entradas = new ArrayList<>();
+        for (Classificacao.Entrada e : classificacao.getEntradas()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", e.id);
+            item.put("nome", e.nome);
+            item.put("pontos", e.pontos);
+            entradas.add(item);
+        }
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("entradas", entradas);
+        dados.put("atualizadoEm", FieldValue.serverTimestamp());
+        return dados;
+    }
+
+    // =====================================================================
+    //  Turmas (contadores por turma e total combinado)
+    // =====================================================================
+
+    /**
+     * Observa os documentos de contadores das turmas e entrega a contagem de cada uma
+     * e o total combinado ({@link ContagemTurmas}).
+     *
+     * O total é mantido a partir das mudanças de cada snapshot: só as turmas que
+     * receberam votos desde o último snapshot são somadas de novo, e os votos
+     * individuais nunca são lidos.
+     */
+    public ListenerRegistration observarTurmas(TurmasListener listener) {
+        ContagemTurmas contagem = new ContagemTurmas();
+        return enqueteRef.collection("turmas").addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                listener.onErro(e);
+                return;
+            }
+            if (snapshot == null) return;
+            boolean mudou = false;
+            for (DocumentChange mudanca : snapshot.getDocumentChanges()) {
+                DocumentSnapshot doc = mudanca.getDocument();
+                if (mudanca.getType() == DocumentChange.Type.REMOVED) {
+                    mudou |= contagem.remover(doc.getId());
+                } else {
+                    String nome = doc.getString("nome");
+                    mudou |= contagem.atualizar(doc.getId(), nome != null ? nome : doc.getId(),
+                            contador(doc, "opcaoA"), contador(doc, "opcaoB"), contador(doc, "opcaoC"));
+                }
+            }
+            // O primeiro snapshot é entregue mesmo vazio: a tela passa a saber que não há votos
+            if (mudou || snapshot.getDocumentChanges().isEmpty()) {
+                listener.onTurmasAtualizadas(new ContagemTurmas(contagem));
+            }
+        });
+    }
+
+    /**
+     * Leitura única dos contadores das turmas (um documento por turma), para quem não
+     * mantém o listener de {@link #observarTurmas} ligado.
+     */
+    public void carregarTurmas(TurmasListener listener) {
+        enqueteRef.collection("turmas").get()
+                .addOnSuccessListener(snapshot -> {
+                    ContagemTurmas contagem = new ContagemTurmas();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        String nome = doc.getString("nome");
+                        contagem.atualizar(doc.getId(), nome != null ? nome : doc.getId(),
+                                contador(doc, "opcaoA"), contador(doc, "opcaoB"), contador(doc, "opcaoC"));
+                    }
+                    listener.onTurmasAtualizadas(contagem);
+                })
+                .addOnFailureListener(listener::onErro);
+    }
+
+    /**
+     * Turma escolhida neste aparelho (null se nenhuma).
+     */
+    @Nullable
+    public String getTurma() {
+        return prefs.getString(CHAVE_TURMA, null);
+    }
+
+    /**
+     * Troca a turma deste aparelho; vale a partir do próximo voto. Null ou vazia remove.
+     */
+    public void setTurma(@Nullable String turma) {
+        if (turma == null || turma.trim().isEmpty()) {
+            prefs.edit().remove(CHAVE_TURMA).apply();
+        } else {
+            prefs.edit().putString(CHAVE_TURMA, turma.trim()).apply();
+        }
+    }
+
+    /**
+     * Turma em que os votos deste aparelho contam, ou null se a enquete não é por turma.
+     * Turma não escolhida (ou que saiu da configuração) conta em "Sem turma".
+     */
+    @Nullable
+    private String turmaDosVotos() {
+        List<String> atuais = turmas;
+        if (atuais.isEmpty()) return null;
+        String escolhida = getTurma();
+        return escolhida != null && atuais.contains(escolhida) ? escolhida : NOME_SEM_TURMA;
+    }
+
+    /**
+     * Estrutura:
+     *   enquetes/enquete_geral/turmas/{id da turma} { nome, opcaoA, opcaoB, opcaoC }
+     */
+    private DocumentReference turmaRef(String nome) {
+        String id = ContagemTurmas.idDaTurma(nome);
+        return enqueteRef.collection("turmas").document(id != null ? id : ID_SEM_TURMA);
+    }
+
+    /**
+     * Incrementos do documento da turma; gravados com merge, criam o documento no primeiro voto.
+     */
+    private static Map<String, Object> dadosTurma(String nome, Map<String, Object> incrementos) {
+        Map<String, Object> dados = new HashMap<>(incrementos);
+        dados.put("nome", nome);
+        return dados;
+    }
+
+    private static long contador(DocumentSnapshot doc, String campo) {
+        Long valor = doc.getLong(campo);
+        return valor != null ? valor : 0;
+    }
+
+    // =====================================================================
+    //  Respostas livres (nuvem de palavras)
+    // =====================================================================
+
+    /**
+     * Registra a resposta livre do usuário (uma por aparelho e rodada).
+     *
+     * A resposta normalizada ({@link NormalizadorResposta}) é somada, na mesma transação,
+     * ao resumo do fragmento do aparelho, que guarda no máximo {@link #CAPACIDADE_RESUMO}
+     * palavras ({@link ResumoPalavras}). O documento "respostas/{id}" só marca que o
+     * aparelho já respondeu: ninguém precisa ler todas as respostas para montar a nuvem.
+     *
+     * @param callback onVotoRegistrado/onJaVotou recebem a palavra normalizada
+     */
+    public void responderTexto(String texto, RegistrarVotoCallback callback) {
+        String palavra = NormalizadorResposta.normalizar(texto);
+        if (palavra == null) {
+            callback.onErro(new IllegalArgumentException("Resposta vazia."));
+            return;
+        }
+        String aparelho = firebaseManager.getCurrentVoterId();
+        DocumentReference marcadorRef = enqueteRef.collection("respostas").document(aparelho);
+        DocumentReference fragmentoRef =
+                fragmentoRespostas(Math.floorMod(aparelho.hashCode(), FRAGMENTOS_RESPOSTAS));
+
+        // Mesma proteção do voto: toques repetidos compartilham a Task, tentativas a chave
+        chamadas.executar("resposta:registrar:" + marcadorRef.getPath(), () -> {
+            String chave = UUID.randomUUID().toString();
+            return retentativas.executar(OPERACAO_RESPONDER_TEXTO,
+                    () -> firebaseManager.getDb().runTransaction(transaction -> {
+                        DocumentSnapshot marcador = transaction.get(marcadorRef);
+                        if (marcador.exists()) {
+                            boolean mesmaOperacao = chave.equals(marcador.getString("chaveIdempotencia"));
+                            return new ResultadoVoto(!mesmaOperacao, marcador.getString("palavra"));
+                        }
+
+                        ResumoPalavras resumo = lerResumo(transaction.get(fragmentoRef));
+                        resumo.registrar(palavra);
+                        transaction.set(fragmentoRef, dadosResumo(resumo));
+
+                        Map<String, Object> resposta = new HashMap<>();
+                        resposta.put("palavra", palavra);
+                        resposta.put("timestamp", FieldValue.serverTimestamp());
+                        resposta.put("chaveIdempotencia", chave);
+                        resposta.put("aparelho", aparelho);
+                        transaction.set(marcadorRef, resposta);
+                        return new ResultadoVoto(false, palavra);
+                    }));
+        }).addOnSuccessListener(resultado -> {
+            if (resultado.jaVotou) {
+                callback.onJaVotou(resultado.opcao);
+            } else {
+                callback.onVotoRegistrado(resultado.opcao);
+            }
+        }).addOnFailureListener(callback::onErro);
+    }
+
+    /**
+     * Observa os fragmentos de respostas livres e entrega o resumo combinado a cada mudança.
+     * São no máximo {@link #FRAGMENTOS_RESPOSTAS} documentos pequenos, qualquer que seja
+     * a quantidade de respostas ou de palavras diferentes.
+     */
+    public ListenerRegistration observarRespostasLivres(RespostasLivresListener listener) {
+        return enqueteRef.collection("respostasLivres").addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                listener.onErro(e);
+                return;
+            }
+            if (snapshot == null) return;
+            List<ResumoPalavras> fragmentos = new ArrayList<>();
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                fragmentos.add(lerResumo(doc));
+            }
+            listener.onResumoAtualizado(ResumoPalavras.mesclar(fragmentos, CAPACIDADE_RESUMO));
+        });
+    }
+
+    /**
+     * Leitura única dos fragmentos de respostas livres, para quem não mantém o
+     * listener de {@link #observarRespostasLivres} ligado.
+     */
+    public void carregarRespostasLivres(RespostasLivresListener listener) {
+        enqueteRef.collection("respostasLivres").get()
+                .addOnSuccessListener(snapshot -> {
+                    List<ResumoPalavras> fragmentos = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        fragmentos.add(lerResumo(doc));
+                    }
+                    listener.onResumoAtualizado(ResumoPalavras.mesclar(fragmentos, CAPACIDADE_RESUMO));
+                })
+                .addOnFailureListener(listener::onErro);
+    }
+
+    /**
+     * Estrutura:
+     *   enquetes/enquete_geral/respostasLivres/fragmento_{n}
+     *     { palavras: {palavra: contagem}, erros: {palavra: erro}, total }
+     */
+    private DocumentReference fragmentoRespostas(int indice) {
+        return enqueteRef.collection("respostasLivres").document("fragmento_" + indice);
+    }
+
+    private static ResumoPalavras lerResumo(DocumentSnapshot doc) {
+        if (!doc.exists()) return new ResumoPalavras(CAPACIDADE_RESUMO);
+        Long total = doc.getLong("total");
+        return ResumoPalavras.de(CAPACIDADE_RESUMO,
+                numeros(doc.get("palavras")), numeros(doc.get("erros")),
+                total != null ? total : 0);
+    }
+
+    private static Map<String, Long> numeros(@Nullable Object mapa) {
+        Map<String, Long> resultado = new HashMap<>();
+        if (mapa instanceof Map) {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) mapa).entrySet()) {
+                if (e.getKey() instanceof String && e.getValue() instanceof Number) {
+                    resultado.put((String) e.getKey(), ((Number) e.getValue()).longValue());
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static Map<String, Object> dadosResumo(ResumoPalavras resumo) {
+        // set() sem merge: palavras que saíram do resumo somem do documento
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("palavras", resumo.getContagens());
+        dados.put("erros", resumo.getErros());
+        dados.put("total", resumo.getTotal());
+        dados.put("atualizadoEm", FieldValue.serverTimestamp());
+        return dados;
+    }
+
+    // =====================================================================
+    //  Estatísticas por aparelho (modelo e versão do Android)
+    // =====================================================================
+
+    /**
+     * Soma os votos ao fragmento de estatísticas do aparelho, na mesma transação do voto.
+     * Cada aparelho cai sempre no mesmo fragmento; votos de aparelhos diferentes
+     * se espalham pelos {@link #FRAGMENTOS_ESTATISTICAS} documentos.
+     */
+    private void somarEstatisticasAparelho(Transaction transaction, String aparelhoId, long quantidade) {
+        Map<String, Object> modelos = new HashMap<>();
+        modelos.put(nomeOuDesconhecido(Build.MODEL), FieldValue.increment(quantidade));
+        Map<String, Object> versoes = new HashMap<>();
+        versoes.put(nomeOuDesconhecido(Build.VERSION.RELEASE), FieldValue.increment(quantidade));
+
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("modelos", modelos);
+        dados.put("versoes", versoes);
+        int fragmento = Math.floorMod(aparelhoId.hashCode(), FRAGMENTOS_ESTATISTICAS);
+        transaction.set(fragmentoEstatisticas(fragmento), dados, SetOptions.merge());
+    }
+
+    /**
+     * Estrutura:
+     *   enquetes/enquete_geral/estatisticas/aparelhos_{n}
+     */
+    private DocumentReference fragmentoEstatisticas(int indice) {
+        return enqueteRef.collection("estatisticas").document("aparelhos_" + indice);
+    }
+
+    private static String nomeOuDesconhecido(@Nullable String nome) {
+        return nome != null && !nome.trim().isEmpty() ? nome : "desconhecido";
+    }
+
+    /**
+     * Votos por modelo de aparelho e por versão do Android. Lê apenas os fragmentos
+     * de estatísticas: o custo não cresce com a quantidade de votos.
+     *
+     * @param callback distribuição somada ou erro
+     */
+    @SuppressWarnings("unchecked")
+    public void carregarDistribuicaoAparelhos(DistribuicaoAparelhosCallback callback) {
+        List<Task<DocumentSnapshot>> leituras = new ArrayList<>();
+        for (int i = 0; i < FRAGMENTOS_ESTATISTICAS; i++) {
+            leituras.add(fragmentoEstatisticas(i).get());
+        }
+        Tasks.whenAllSuccess(leituras)
+                .addOnSuccessListener(snapshots -> {
+                    DistribuicaoAparelhos distribuicao = new DistribuicaoAparelhos();
+                    for (Object item : snapshots) {
+                        DocumentSnapshot snapshot = (DocumentSnapshot) item;
+                        if (!snapshot.exists()) continue;
+                        distribuicao.somarFragmento(
+                                (Map<String, Object>) snapshot.get("modelos"),
+                                (Map<String, Object>) snapshot.get("versoes"));
+                    }
+                    callback.onDistribuicaoCarregada(distribuicao);
+                })
+                .addOnFailureListener(callback::onErro);
+    }
+
+    // =====================================================================
+    //  Consulta de votantes
+    // =====================================================================
+
+    /**
+     * Votos que atendem ao filtro, já ordenados por timestamp e limitados pelo Firestore.
+     * Opção + período/ordenação usam os índices compostos (opcaoEscolhida, timestamp)
+     * definidos em firestore.indexes.json.
+     *
+     * @param filtro   opção, período, ordem e limite
+     * @param callback documentos de voto ou erro
+     */
+    public void buscarVotantes(FiltroVotantes filtro, VotantesCallback callback) {
+        Query consulta = enqueteRef.collection("votos");
+        if (filtro.getOpcao() != null) {
+            consulta = consulta.whereEqualTo(CamposVoto.OPCAO_ESCOLHIDA, filtro.getOpcao());
+        }
+        if (filtro.getDesdeMillis() > 0) {
+            consulta = consulta.whereGreaterThanOrEqualTo(CamposVoto.TIMESTAMP,
+                    new Timestamp(new Date(filtro.getDesdeMillis())));
+        }
+        consulta = consulta
+                .orderBy(CamposVoto.TIMESTAMP, filtro.isMaisRecentesPrimeiro()
+                        ? Query.Direction.DESCENDING : Query.Direction.ASCENDING)
+                .limit(filtro.getLimite());
+
+        consulta.get()
+                .addOnSuccessListener(snapshot -> callback.onVotantesCarregados(snapshot.getDocuments()))
+                .addOnFailureListener(callback::onErro);
+    }
+
+    // =====================================================================
+    //  Servidor de resultados na rede local
+    // =====================================================================
+
+    /**
+     * Modo agregador visto no último snapshot (ou leitura) do documento da enquete.
+     */
+    public boolean isModoAgregadorNaEnquete() {
+        return modoAgregador;
+    }
+
+    /**
+     * Endereço ("host:porta") do servidor local anunciado pelo professor, ou null.
+     */
+    @Nullable
+    public String getEnderecoServidorLocal() {
+        return enderecoServidorLocal;
+    }
+
+    /**
+     * Anuncia (ou retira, com null) o servidor local deste aparelho no documento da enquete.
+     */
+    public Task<Void> anunciarServidorLocal(@Nullable String endereco) {
+        return enqueteRef.update("servidorLocal", endereco != null ? endereco : FieldValue.delete());
+    }
+
+    // =====================================================================
+    //  Histórico de eventos
+    // =====================================================================
+
+    /**
+     * Reconstrói os contadores pelo histórico de eventos (última compactação +
+     * eventos seguintes), para comparar com os contadores do documento da enquete.
+     * Compacta o histórico se necessário.
+     *
+     * Votos anteriores à existência do histórico não aparecem na reconstrução.
+     *
+     * @param callback contadores reconstruídos ou erro
+     */
+    public void recontarPeloHistorico(RecontagemCallback callback) {
+        historico.recontar()
+                .addOnSuccessListener(callback::onRecontagem)
+                .addOnFailureListener(callback::onErro);
+    }
+
+    /**
+     * Liga/desliga a compactação periódica do histórico neste aparelho (o do professor:
+     * basta um aparelho fazendo isso). Chamado na main thread.
+     */
+    public void setCompactacaoPeriodica(boolean ativa) {
+        historico.setCompactacaoPeriodica(ativa);
+    }
+
+    // =====================================================================
+    //  Reset da enquete
+    // =====================================================================
+
+    /**
+     * Reseta a enquete:
+     * - Zera os contadores das três opções e as estatísticas por aparelho.
+     * - Avança a "rodada", invalidando os índices locais de voto dos aparelhos.
+     * - Remove todos os documentos da subcoleção "votos" (votos por usuário).
+     * - Apaga as respostas livres (resumos e marcas de quem já respondeu).
+     * - Apaga os contadores das turmas.
+     * - Registra o reset no histórico; os eventos anteriores são mantidos.
+     *
+     * Útil na tela de administração para começar uma votação “do zero”.
+     *
+     * @param callback callback de sucesso ou erro
+     */
+    public void resetarEnquete(OperacaoCallback callback) {
+        resetarEnqueteAsync().whenCompleteAsync((unused, erro) -> {
+            if (erro == null) {
+                callback.onSucesso();
+            } else {
+                callback.onErro(Futuros.causa(erro));
+            }
+        }, executorPrincipal);
+    }
+
+    // =====================================================================
+    //  Callbacks ligados ao ciclo de vida da tela
+    // =====================================================================
+
+    // Mesmas operações, mas o resultado só é entregue enquanto o dono não foi destruído
+    // (ver CallbacksCicloDeVida). É o que as Activities devem usar: uma chamada lenta
+    // não segura a tela destruída na memória nem mexe em views mortas.
+
+    public void carregarConfiguracoes(LifecycleOwner dono, ConfiguracaoCarregadaCallback callback) {
+        carregarConfiguracoes(CallbacksCicloDeVida.vincular(dono, ConfiguracaoCarregadaCallback.class, callback));
+    }
+
+    public void salvarConfiguracoes(String titulo,
+                                    String opcaoA,
+                                    String opcaoB,
+                                    String opcaoC,
+                                    @Nullable String mensagemRodape,
+                                    @Nullable String dataHoraEncerramento,
+                                    long encerramentoMillis,
+                                    boolean respostaLivre,
+                                    ImagensOpcoes imagens,
+                                    @Nullable String opcaoCorreta,
+                                    List<String> turmas,
+                                    LifecycleOwner dono,
+                                    OperacaoCallback callback) {
+        salvarConfiguracoes(titulo, opcaoA, opcaoB, opcaoC, mensagemRodape, dataHoraEncerramento,
+                encerramentoMillis, respostaLivre, imagens, opcaoCorreta, turmas,
+                CallbacksCicloDeVida.vincular(dono, OperacaoCallback.class, callback));
+    }
+
+    public void responderTexto(String texto, LifecycleOwner dono, RegistrarVotoCallback callback) {
+        responderTexto(texto, CallbacksCicloDeVida.vincular(dono, RegistrarVotoCallback.class, callback));
+    }
+
+    public void zerarPontuacoes(LifecycleOwner dono, OperacaoCallback callback) {
+        zerarPontuacoes(CallbacksCicloDeVida.vincular(dono, OperacaoCallback.class, callback));
+    }
+
+    public void carregarDistribuicaoAparelhos(LifecycleOwner dono, DistribuicaoAparelhosCallback callback) {
+        carregarDistribuicaoAparelhos(
+                CallbacksCicloDeVida.vincular(dono, DistribuicaoAparelhosCallback.class, callback));
+    }
+
+    public void buscarVotantes(FiltroVotantes filtro, LifecycleOwner dono, VotantesCallback callback) {
+        buscarVotantes(filtro, CallbacksCicloDeVida.vincular(dono, VotantesCallback.class, callback));
+    }
+
+    public void recontarPeloHistorico(LifecycleOwner dono, RecontagemCallback callback) {
+        recontarPeloHistorico(CallbacksCicloDeVida.vincular(dono, RecontagemCallback.class, callback));
+    }
+
+    // =====================================================================
+    //  API baseada em CompletableFuture
+    // =====================================================================
+
+    // Os futures abaixo são completados na thread em que o Firestore entrega o resultado.
+    // Quem for tocar em Views deve encadear com *Async(..., executor da main thread).
+
+    /**
+     * Carrega a enquete uma vez. Falha com IllegalStateException se o documento não existir.
+     */
+    public CompletableFuture<Enquete> carregarEnqueteAsync() {
+        return Futuros.deTask(lerEnquete(), DIRETO).thenApply(snapshot -> {
+            if (snapshot == null || !snapshot.exists()) {
+                throw new IllegalStateException("Enquete não encontrada.");
+            }
+            return montarEnquete(snapshot);
+        });
+    }
+
+    /**
+     * Carrega o voto do usuário (null se não votou). Falhas de leitura também resultam
+     * em null, como na versão com callback, para não derrubar fluxos combinados.
+     */
+    public CompletableFuture<VotoUsuarioInfo> carregarVotoUsuarioAsync() {
+        return Futuros.deTask(tarefaVotoUsuario(), DIRETO).exceptionally(e -> null);
+    }
+
+    /**
+     * Carrega enquete e voto do usuário EM PARALELO, com prazo para as duas leituras.
+     * Se o prazo estourar, as duas leituras são canceladas e o future falha com TimeoutException.
+     *
+     * @param prazoMillis prazo total em milissegundos
+     */
+    public CompletableFuture<EstadoInicial> carregarEstadoInicial(long prazoMillis) {
+        CompletableFuture<Enquete> enquete = carregarEnqueteAsync();
+        CompletableFuture<VotoUsuarioInfo> voto = carregarVotoUsuarioAsync();
+
+        CompletableFuture<EstadoInicial> estado = enquete.thenCombine(voto, EstadoInicial::new);
+        Futuros.comPrazo(estado, prazoMillis, TimeUnit.MILLISECONDS);
+        estado.whenComplete((r, e) -> {
+            if (e != null) {
+                enquete.cancel(false);
+                voto.cancel(false);
+            }
+        });
+        return estado;
+    }
+
+    /**
+     * Versão com future de {@link #registrarVoto(String, RegistrarVotoCallback)}.
+     */
+    public CompletableFuture<ResultadoVoto> registrarVotoAsync(String opcao) {
+        return Futuros.deTask(tarefaRegistrarVoto(opcao), DIRETO);
+    }
+
+    /**
+     * Versão com future de {@link #salvarConfiguracoes}.
+     */
+    public CompletableFuture<Void> salvarConfiguracoesAsync(String titulo,
+                                                           String opcaoA,
+                                                           String opcaoB,
+                                                           String opcaoC,
+                                                           @Nullable String mensagemRodape,
+                                                           @Nullable String dataHoraEncerramento,
+                                                           long encerramentoMillis,
+                                                           boolean respostaLivre,
+                                                           ImagensOpcoes imagens,
+                                                           @Nullable String opcaoCorreta,
+                                                           List<String> turmas) {
+        return Futuros.deTask(
+                tarefaSalvarConfiguracoes(titulo, opcaoA, opcaoB, opcaoC, mensagemRodape,
+                        dataHoraEncerramento, encerramentoMillis, respostaLivre, imagens, opcaoCorreta, turmas),
+                DIRETO);
+    }
+
+    /**
+     * Reset com as etapas independentes em paralelo:
+     * zerar contadores, listar/apagar votos, respostas e turmas e gravar o log não dependem um do outro.
+     *
+     * Cada etapa é repetida em falhas transitórias e todas usam a mesma chave de
+     * idempotência, então repetir não avança a rodada duas vezes nem duplica o log.
+     */
+    public CompletableFuture<Void> resetarEnqueteAsync() {
+        final String chave = UUID.randomUUID().toString();
+
+        // Zera os contadores e avança a rodada, a menos que este mesmo reset já tenha sido aplicado
+        CompletableFuture<Void> zerarContadores = Futuros.deTask(
+                retentativas.executar(OPERACAO_RESETAR_ENQUETE,
+                        () -> firebaseManager.getDb().runTransaction(transaction -> {
+                            DocumentSnapshot snapshot = transaction.get(enqueteRef);
+                            if (chave.equals(snapshot.getString("ultimoReset"))) {
+                                return null;
+                            }
+                            Map<String, Object> dados = new HashMap<>();
+                            dados.put("opcaoA", 0L);
+                            dados.put("opcaoB", 0L);
+                            dados.put("opcaoC", 0L);
+                            dados.put("rodada", FieldValue.increment(1));
+                            dados.put("ultimoReset", chave);
+                            transaction.set(enqueteRef, dados, SetOptions.merge());
+                            for (int i = 0; i < FRAGMENTOS_ESTATISTICAS; i++) {
+                                transaction.delete(fragmentoEstatisticas(i));
+                            }
+                            for (int i = 0; i < FRAGMENTOS_RESPOSTAS; i++) {
+                                transaction.delete(fragmentoRespostas(i));
+                            }
+                            // Os eventos anteriores ficam: o reset é mais um evento do histórico
+                            historico.registrarReset(transaction, chave);
+                            return null;
+                        })),
+                DIRETO);
+
+        // Remove os votos, as marcas de resposta livre e os contadores das turmas da rodada
+        CompletableFuture<Void> apagarVotos = apagarColecao(OPERACAO_RESETAR_ENQUETE, "votos");
+        CompletableFuture<Void> apagarRespostas = apagarColecao(OPERACAO_RESETAR_ENQUETE, "respostas");
+        CompletableFuture<Void> apagarTurmas = apagarColecao(OPERACAO_RESETAR_ENQUETE, "turmas");
+
+        // Registra um log do reset na subcoleção "logs" (id = chave, então não duplica)
+        Map<String, Object> log = new HashMap<>();
+        log.put("timestamp", FieldValue.serverTimestamp());
+        log.put("tipo", "reset_votacao");
+        log.put("observacao", "reset solicitado pelo professor em sala");
+        CompletableFuture<Void> registrarLog = Futuros.deTask(
+                retentativas.executar(OPERACAO_RESETAR_ENQUETE,
+                        () -> enqueteRef.collection("logs").document(chave).set(log)),
+                DIRETO);
+
+        CompletableFuture<Void> reset = CompletableFuture.allOf(
+                zerarContadores, apagarVotos, apagarRespostas, apagarTurmas, registrarLog);
+        // Fim de rodada: bom momento para compactar o histórico (só grava se passou do limiar)
+        reset.thenRun(historico::recontar);
+        return reset;
+    }
+
+    /**
+     * Remove todos os documentos de uma subcoleção da enquete, com as exclusões em paralelo
+     * (apagar de novo um documento já apagado não tem efeito).
+     */
+    private CompletableFuture<Void> apagarColecao(String operacao, String nome) {
+        return Futuros.deTask(
+                retentativas.executar(operacao,
+                        () -> enqueteRef.collection(nome).get().onSuccessTask(DIRETO, querySnapshot -> {
+                            List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                            List<Task<Void>> exclusoes = new ArrayList<>(docs.size());
+                            for (DocumentSnapshot doc : docs) {
+                                exclusoes.add(doc.getReference().delete());
+                            }
+                            return Tasks.whenAll(exclusoes);
+                        })),
+                DIRETO);
+    }
+
+    /**
+     * Contadores de tentativas, repetições e desistências das escritas.
+     */
+    public MetricasRetentativa getMetricasRetentativa() {
+        return retentativas.getMetricas();
+    }
+
+    // =====================================================================
+    //  Interfaces de callback
+    // =====================================================================
+
+    /**
+     * Informações do voto do usuário retornadas em leitura pontual.
+     */
+    public static class VotoUsuarioInfo {
+        @Nullable public String opcaoEscolhida;
+        @Nullable public Timestamp timestamp;
+        @Nullable public String voterId;
+        @Nullable public String deviceModel;
+        @Nullable public String androidVersion;
+        // Voto exibido antes da confirmação do servidor (exibição otimista)
+        public boolean pendente;
+    }
+
+    /**
+     * Resultado do registro de voto (compartilhado entre chamadas simultâneas):
+     * jaVotou = true quando o voto já existia, com a opção votada anteriormente;
+     * naFila = true quando o voto ficou guardado para ser reenviado com conexão.
+     */
+    public static class ResultadoVoto {
+        public final boolean jaVotou;
+        @Nullable public final String opcao;
+        public final boolean naFila;
+
+        ResultadoVoto(boolean jaVotou, @Nullable String opcao) {
+            this(jaVotou, opcao, false);
+        }
+
+        ResultadoVoto(boolean jaVotou, @Nullable String opcao, boolean naFila) {
+            this.jaVotou = jaVotou;
+            this.opcao = opcao;
+            this.naFila = naFila;
+        }
+    }
+
+    /**
+     * Estado carregado ao abrir a tela: enquete e voto do usuário (null se não votou).
+     */
+    public static class EstadoInicial {
+        public final Enquete enquete;
+        @Nullable public final VotoUsuarioInfo voto;
+
+        EstadoInicial(Enquete enquete, @Nullable VotoUsuarioInfo voto) {
+            this.enquete = enquete;
+            this.voto = voto;
+        }
+    }
+
+    /**
+     * Listener para receber atualizações em tempo real da enquete.
+     */
+    public interface EnqueteListener {
+        void onEnqueteAtualizada(Enquete enquete);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback para carregamento pontual da enquete.
+     */
+    public interface EnqueteCarregadaCallback {
+        void onEnqueteCarregada(Enquete enquete);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback para carregamento apenas das configurações (título e textos).
+     */
+    public interface ConfiguracaoCarregadaCallback {
+        void onConfiguracaoCarregada(String titulo,
+                                     String opcaoA,
+                                     String opcaoB,
+                                     String opcaoC,
+                                     @Nullable String mensagemRodape,
+                                     @Nullable String dataHoraEncerramento,
+                                     boolean respostaLivre,
+                                     ImagensOpcoes imagens,
+                                     @Nullable String opcaoCorreta,
+                                     List<String> turmas);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback genérico para operações simples (sucesso/erro).
+     */
+    public interface OperacaoCallback {
+        void onSucesso();
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback para as estatísticas de votos por aparelho/versão do Android.
+     */
+    public interface DistribuicaoAparelhosCallback {
+        void onDistribuicaoCarregada(DistribuicaoAparelhos distribuicao);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback da consulta filtrada de votantes.
+     */
+    public interface VotantesCallback {
+        void onVotantesCarregados(List<DocumentSnapshot> votos);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback da recontagem pelo histórico de eventos.
+     */
+    public interface RecontagemCallback {
+        void onRecontagem(HistoricoVotos.Recontagem recontagem);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Listener dos primeiros colocados do quiz.
+     */
+    public interface ClassificacaoListener {
+        void onClassificacaoAtualizada(Classificacao classificacao);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Listener dos contadores por turma (contagem de cada turma e total combinado).
+     */
+    public interface TurmasListener {
+        void onTurmasAtualizadas(ContagemTurmas contagem);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Listener do resumo combinado das respostas livres.
+     */
+    public interface RespostasLivresListener {
+        void onResumoAtualizado(ResumoPalavras resumo);
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Callback para informar qual opção o usuário já votou (ou null).
+     */
+    public interface VotoUsuarioCallback {
+        void onVotoCarregado(@Nullable VotoUsuarioInfo info);
+    }
+
+    /**
+     * Callback completo para registrar voto:
+     * - onVotoRegistrado: voto salvo com sucesso
+     * - onVotoNaFila: sem conexão; o voto foi guardado e será enviado quando ela voltar
+     * - onJaVotou: usuário já tinha votado antes
+     * - onErro: falha geral
+     */
+    public interface RegistrarVotoCallback {
+        void onVotoRegistrado(String opcao);
+
+        void onVotoNaFila(String opcao);
 
         void onJaVotou(@Nullable String opcaoExistente);
 
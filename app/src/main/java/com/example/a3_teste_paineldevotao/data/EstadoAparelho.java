@@ -0,0 +1,29 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Fonte das condições do aparelho usadas para escolher o {@link ModoAtualizacao}.
+ *
+ * A implementação real é {@link EstadoAparelhoAndroid}; nos testes usamos uma
+ * versão falsa, controlada pelo próprio teste.
+ */
+public interface EstadoAparelho {
+
+    boolean isConectado();
+
+    /**
+     * Rede tarifada (dados móveis, hotspot) ou conexão fraca.
+     */
+    boolean isRedeLimitada();
+
+    /**
+     * Modo de economia de bateria ativado.
+     */
+    boolean isEconomiaBateria();
+
+    /**
+     * Define quem será avisado quando alguma das condições mudar (null remove).
+     */
+    void setOuvinte(@Nullable Runnable aoMudar);
+}
@@ -0,0 +1,126 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Condições reais do aparelho: conectividade (tipo/qualidade da rede) e economia de bateria.
+ *
+ * Os avisos de mudança chegam em threads do sistema e são repassados na main thread.
+ * Os receivers só ficam registrados enquanto houver um ouvinte definido.
+ */
+public class EstadoAparelhoAndroid implements EstadoAparelho {
+
+    // Abaixo disso (estimativa do sistema) tratamos a conexão como fraca
+    private static final int BANDA_MINIMA_KBPS = 1_000;
+
+    private final Context context;
+    private final ConnectivityManager connectivityManager;
+    private final PowerManager powerManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Nullable private Runnable ouvinte;
+    @Nullable private ConnectivityManager.NetworkCallback callbackRede;
+    @Nullable private BroadcastReceiver receiverBateria;
+
+    public EstadoAparelhoAndroid(Context context) {
+        this.context = context.getApplicationContext();
+        this.connectivityManager =
+                (ConnectivityManager) this.context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.powerManager = (PowerManager) this.context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    @Override
+    public boolean isConectado() {
+        NetworkCapabilities caps = capacidadesAtuais();
+        return caps != null && caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    @Override
+    public boolean isRedeLimitada() {
+        if (connectivityManager == null) return false;
+        if (connectivityManager.isActiveNetworkMetered()) return true;
+        NetworkCapabilities caps = capacidadesAtuais();
+        return caps != null && caps.getLinkDownstreamBandwidthKbps() > 0
+                && caps.getLinkDownstreamBandwidthKbps() < BANDA_MINIMA_KBPS;
+    }
+
+    @Override
+    public boolean isEconomiaBateria() {
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+
+    @Override
+    public void setOuvinte(@Nullable Runnable aoMudar) {
+        this.ouvinte = aoMudar;
+        if (aoMudar != null) {
+            registrar();
+        } else {
+            desregistrar();
+        }
+    }
+
+    @Nullable
+    private NetworkCapabilities capacidadesAtuais() {
+        if (connectivityManager == null) return null;
+        Network rede = connectivityManager.getActiveNetwork();
+        return rede != null ? connectivityManager.getNetworkCapabilities(rede) : null;
+    }
+
+    private void avisar() {
+        handler.post(() -> {
+            Runnable atual = ouvinte;
+            if (atual != null) atual.run();
+        });
+    }
+
+    private void registrar() {
+        if (callbackRede == null && connectivityManager != null) {
+            callbackRede = new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onCapabilitiesChanged(@NonNull Network network,
+                                                  @NonNull NetworkCapabilities capabilities) {
+                    avisar();
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    avisar();
+                }
+            };
+            connectivityManager.registerDefaultNetworkCallback(callbackRede);
+        }
+        if (receiverBateria == null) {
+            receiverBateria = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context c, Intent intent) {
+                    avisar();
+                }
+            };
+            context.registerReceiver(receiverBateria,
+                    new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        }
+    }
+
+    private void desregistrar() {
+        if (callbackRede != null && connectivityManager != null) {
+            connectivityManager.unregisterNetworkCallback(callbackRede);
+            callbackRede = null;
+        }
+        if (receiverBateria != null) {
+            context.unregisterReceiver(receiverBateria);
+            receiverBateria = null;
+        }
+    }
+}
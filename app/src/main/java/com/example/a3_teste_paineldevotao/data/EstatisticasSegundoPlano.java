@@ -0,0 +1,94 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.firebase.Timestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores do listener da enquete com o app em segundo plano.
+ *
+ * - snapshots/bytes recebidos em segundo plano: chegaram durante o período de
+ *   carência, antes de o listener ser desligado.
+ * - snapshots/bytes evitados: mudanças que aconteceram com o listener desligado
+ *   (estimadas pela diferença no total de votos ao voltar).
+ *
+ * Os bytes são uma estimativa baseada nas regras de tamanho de documento do
+ * Firestore; servem para comparar ordens de grandeza, não para faturamento.
+ */
+public class EstatisticasSegundoPlano {
+
+    private final AtomicLong pausas = new AtomicLong();
+    private final AtomicLong snapshotsRecebidosSegundoPlano = new AtomicLong();
+    private final AtomicLong bytesRecebidosSegundoPlano = new AtomicLong();
+    private final AtomicLong snapshotsEvitados = new AtomicLong();
+    private final AtomicLong bytesEvitados = new AtomicLong();
+
+    void registrarPausa() {
+        pausas.incrementAndGet();
+    }
+
+    void registrarRecebidoSegundoPlano(long bytes) {
+        snapshotsRecebidosSegundoPlano.incrementAndGet();
+        bytesRecebidosSegundoPlano.addAndGet(bytes);
+    }
+
+    void registrarEvitados(long snapshots, long bytesPorSnapshot) {
+        if (snapshots <= 0) return;
+        snapshotsEvitados.addAndGet(snapshots);
+        bytesEvitados.addAndGet(snapshots * bytesPorSnapshot);
+    }
+
+    public long getPausas() {
+        return pausas.get();
+    }
+
+    public long getSnapshotsRecebidosSegundoPlano() {
+        return snapshotsRecebidosSegundoPlano.get();
+    }
+
+    public long getBytesRecebidosSegundoPlano() {
+        return bytesRecebidosSegundoPlano.get();
+    }
+
+    public long getSnapshotsEvitados() {
+        return snapshotsEvitados.get();
+    }
+
+    public long getBytesEvitados() {
+        return bytesEvitados.get();
+    }
+
+    @Override
+    public String toString() {
+        return "pausas=" + getPausas()
+                + ", recebidosSegundoPlano=" + getSnapshotsRecebidosSegundoPlano()
+                + " (" + getBytesRecebidosSegundoPlano() + " B)"
+                + ", evitados=" + getSnapshotsEvitados()
+                + " (" + getBytesEvitados() + " B)";
+    }
+
+    /**
+     * Estima o tamanho de um documento do Firestore:
+     * nome do documento + 32 bytes + (nome do campo + 1 + valor) para cada campo.
+     */
+    public static long estimarTamanhoDocumento(String caminho, Map<String, Object> dados) {
+        long total = utf8(caminho) + 1 + 32;
+        for (Map.Entry<String, Object> campo : dados.entrySet()) {
+            total += utf8(campo.getKey()) + 1 + tamanhoValor(campo.getValue());
+        }
+        return total;
+    }
+
+    private static long tamanhoValor(Object valor) {
+        if (valor == null || valor instanceof Boolean) return 1;
+        if (valor instanceof String) return utf8((String) valor) + 1;
+        if (valor instanceof Number || valor instanceof Timestamp) return 8;
+        return 16; // tipos não usados pela enquete: estimativa conservadora
+    }
+
+    private static long utf8(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
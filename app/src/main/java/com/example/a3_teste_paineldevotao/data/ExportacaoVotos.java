@@ -0,0 +1,224 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exporta a lista de votantes para um arquivo CSV em cache/exportacoes,
+ * pronto para ser compartilhado (FileProvider).
+ *
+ * A coleção "votos" é lida em páginas de {@link ExportadorCsv#TAMANHO_PAGINA}
+ * (ordenadas por timestamp, continuando com startAfter), e cada página é gravada
+ * no arquivo antes da próxima ser buscada: a memória usada não cresce com a
+ * quantidade de votos. O trabalho roda em uma thread própria; o ouvinte é
+ * chamado na main thread.
+ */
+public class ExportacaoVotos {
+
+    private static final String TAG = "ExportacaoVotos";
+    public static final String PASTA = "exportacoes";
+
+    private static final String[] CABECALHO = {
+            "id", "opcao", "data_hora", "aparelho", "modelo", "versao_android", "lote"
+    };
+
+    // Uma exportação por vez; as páginas são esperadas nesta thread
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    // Continuações das leituras do Firestore: rodam na thread de entrega, não na main thread
+    private static final Executor DIRETO = Runnable::run;
+
+    /**
+     * Resultado da exportação, entregue na main thread.
+     */
+    public interface Ouvinte {
+        @CallbacksCicloDeVida.Parcial
+        void onProgresso(long votosExportados);
+
+        void onConcluida(File arquivo, long votosExportados);
+
+        void onCancelada();
+
+        void onErro(@Nullable Exception e);
+    }
+
+    /**
+     * Exportação em andamento.
+     */
+    public static class Exportacao {
+        private final ExportadorCsv exportador;
+        private Future<?> futuro;
+
+        Exportacao(ExportadorCsv exportador) {
+            this.exportador = exportador;
+        }
+
+        /**
+         * Interrompe a exportação (também a espera de uma página); o arquivo parcial é apagado.
+         */
+        public void cancelar() {
+            exportador.cancelar();
+            if (futuro != null) futuro.cancel(true);
+        }
+    }
+
+    private final Context appContext;
+    private final FirebaseManager firebaseManager;
+    private final Executor executorPrincipal;
+
+    public ExportacaoVotos(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.firebaseManager = FirebaseManager.getInstance(context);
+        this.executorPrincipal = ContextCompat.getMainExecutor(appContext);
+    }
+
+    /**
+     * Começa a exportação em segundo plano.
+     */
+    public Exportacao exportar(Ouvinte ouvinte) {
+        ExportadorCsv exportador =
+                new ExportadorCsv(CABECALHO, this::buscarPagina, ExportadorCsv.TAMANHO_PAGINA);
+        Exportacao exportacao = new Exportacao(exportador);
+
+        SimpleDateFormat formatoNome = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US);
+        File pasta = new File(appContext.getCacheDir(), PASTA);
+        File arquivo = new File(pasta, "votos-" + formatoNome.format(new Date()) + ".csv");
+        File parcial = new File(pasta, arquivo.getName() + ".parcial");
+
+        exportacao.futuro = EXECUTOR.submit(() -> {
+            long total;
+            try {
+                if (!pasta.isDirectory() && !pasta.mkdirs()) {
+                    throw new IOException("Não foi possível criar " + pasta);
+                }
+                apagarExportacoesAnteriores(pasta);
+                try (Writer saida = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(parcial), StandardCharsets.UTF_8))) {
+                    total = exportador.exportar(saida, linhas ->
+                            executorPrincipal.execute(() -> ouvinte.onProgresso(linhas)));
+                }
+                if (!parcial.renameTo(arquivo)) {
+                    throw new IOException("Não foi possível finalizar " + arquivo);
+                }
+            } catch (CancellationException | InterruptedException e) {
+                parcial.delete();
+                executorPrincipal.execute(ouvinte::onCancelada);
+                return;
+            } catch (Exception e) {
+                parcial.delete();
+                if (exportador.isCancelado()) {
+                    executorPrincipal.execute(ouvinte::onCancelada);
+                } else {
+                    Log.e(TAG, "Erro ao exportar votos: ", e);
+                    executorPrincipal.execute(() -> ouvinte.onErro(e));
+                }
+                return;
+            }
+            final long exportados = total;
+            executorPrincipal.execute(() -> ouvinte.onConcluida(arquivo, exportados));
+        });
+        return exportacao;
+    }
+
+    private static void apagarExportacoesAnteriores(File pasta) {
+        File[] antigos = pasta.listFiles();
+        if (antigos == null) return;
+        for (File antigo : antigos) {
+            antigo.delete();
+        }
+    }
+
+    /**
+     * Uma página de votos, com modelo/versão resolvidos pelo cadastro de aparelhos.
+     * Os aparelhos da página são lidos só para ela (nada é guardado), então a memória
+     * não cresce com a exportação; as continuações rodam fora da main thread.
+     */
+    private Task<ExportadorCsv.Pagina> buscarPagina(@Nullable Object cursor, int tamanho) {
+        Query consulta = firebaseManager.getEnqueteRef()
+                .collection("votos")
+                .orderBy("timestamp")
+                .limit(tamanho);
+        if (cursor != null) {
+            consulta = consulta.startAfter((DocumentSnapshot) cursor);
+        }
+
+        return consulta.get().onSuccessTask(DIRETO, snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            Set<String> aparelhos = new HashSet<>();
+            for (DocumentSnapshot doc : docs) {
+                String aparelho = doc.getString("aparelho");
+                if (aparelho != null) aparelhos.add(aparelho);
+            }
+            Task<Map<String, CadastroAparelhos.InfoAparelho>> infos = aparelhos.isEmpty()
+                    ? Tasks.forResult(null)
+                    : firebaseManager.getCadastroAparelhos().buscarSemGuardar(aparelhos);
+
+            return infos.continueWith(DIRETO, task -> {
+                Map<String, CadastroAparelhos.InfoAparelho> cadastro =
+                        task.isSuccessful() ? task.getResult() : null;
+                SimpleDateFormat formato = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+                List<String[]> linhas = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    linhas.add(montarLinha(doc, cadastro, formato));
+                }
+                Object proximo = docs.size() < tamanho ? null : docs.get(docs.size() - 1);
+                return new ExportadorCsv.Pagina(linhas, proximo);
+            });
+        });
+    }
+
+    private static String[] montarLinha(DocumentSnapshot doc,
+                                        @Nullable Map<String, CadastroAparelhos.InfoAparelho> cadastro,
+                                        SimpleDateFormat formato) {
+        Timestamp ts = doc.getTimestamp("timestamp");
+        String aparelho = doc.getString("aparelho");
+
+        // Votos antigos trazem os metadados no próprio documento
+        String modelo = doc.getString("deviceModel");
+        String versao = doc.getString("androidVersion");
+        if (modelo == null && aparelho != null && cadastro != null && cadastro.containsKey(aparelho)) {
+            modelo = cadastro.get(aparelho).deviceModel;
+            versao = cadastro.get(aparelho).androidVersion;
+        }
+
+        return new String[]{
+                doc.getId(),
+                doc.getString("opcaoEscolhida"),
+                ts != null ? formato.format(ts.toDate()) : null,
+                aparelho,
+                modelo,
+                versao,
+                doc.getString("lote")
+        };
+    }
+}
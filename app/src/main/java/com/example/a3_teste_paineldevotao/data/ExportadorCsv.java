@@ -0,0 +1,163 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Exporta linhas em CSV página a página: busca uma página, grava as linhas no
+ * destino e só então busca a próxima. Só uma página fica em memória, então o
+ * uso de memória não depende da quantidade total de linhas.
+ *
+ * Cada página é esperada bloqueando a thread atual: {@link #exportar} deve rodar
+ * fora da main thread. A espera não usa Tasks.await (que consulta o Looper da main
+ * thread), então a classe não depende de Android/Firestore e pode ser testada isoladamente.
+ */
+public class ExportadorCsv {
+
+    public static final int TAMANHO_PAGINA = 500;
+
+    /**
+     * Uma página de linhas e a posição a partir da qual buscar a seguinte.
+     */
+    public static class Pagina {
+        public final List<String[]> linhas;
+        @Nullable public final Object cursor; // null: não há mais páginas
+
+        public Pagina(List<String[]> linhas, @Nullable Object cursor) {
+            this.linhas = linhas;
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * Fonte das páginas (ex.: consulta do Firestore com startAfter).
+     */
+    public interface Paginador {
+        /**
+         * @param cursor  cursor devolvido pela página anterior, ou null na primeira
+         * @param tamanho máximo de linhas da página
+         */
+        Task<Pagina> buscar(@Nullable Object cursor, int tamanho);
+    }
+
+    /**
+     * Chamado (na thread da exportação) após cada página gravada.
+     */
+    public interface Progresso {
+        @CallbacksCicloDeVida.Parcial
+        void onProgresso(long linhasExportadas);
+    }
+
+    private final String[] cabecalho;
+    private final Paginador paginador;
+    private final int tamanhoPagina;
+    private volatile boolean cancelado;
+
+    public ExportadorCsv(String[] cabecalho, Paginador paginador, int tamanhoPagina) {
+        this.cabecalho = cabecalho;
+        this.paginador = paginador;
+        this.tamanhoPagina = tamanhoPagina;
+    }
+
+    /**
+     * Interrompe a exportação antes da próxima página.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * Grava o cabeçalho e todas as páginas no destino (que deve ser bufferizado).
+     *
+     * @return quantidade de linhas exportadas (sem o cabeçalho)
+     * @throws CancellationException se {@link #cancelar()} foi chamado
+     */
+    public long exportar(Writer destino, @Nullable Progresso progresso)
+            throws IOException, ExecutionException, InterruptedException {
+        escreverLinha(destino, cabecalho);
+
+        long total = 0;
+        Object cursor = null;
+        do {
+            verificarCancelamento();
+            Pagina pagina = aguardar(paginador.buscar(cursor, tamanhoPagina));
+            verificarCancelamento();
+
+            for (String[] linha : pagina.linhas) {
+                escreverLinha(destino, linha);
+            }
+            // A página vai para o arquivo antes da próxima ser buscada
+            destino.flush();
+            total += pagina.linhas.size();
+            if (progresso != null) {
+                progresso.onProgresso(total);
+            }
+            cursor = pagina.cursor;
+        } while (cursor != null);
+
+        return total;
+    }
+
+    /**
+     * Espera a Task terminar (interrompível, ex.: Future.cancel(true)).
+     */
+    static <T> T aguardar(Task<T> task) throws ExecutionException, InterruptedException {
+        if (!task.isComplete()) {
+            CountDownLatch concluida = new CountDownLatch(1);
+            task.addOnCompleteListener(Runnable::run, t -> concluida.countDown());
+            concluida.await();
+        }
+        if (task.isCanceled()) {
+            throw new CancellationException("Página cancelada.");
+        }
+        if (!task.isSuccessful()) {
+            throw new ExecutionException(task.getException());
+        }
+        return task.getResult();
+    }
+
+    private void verificarCancelamento() {
+        if (cancelado) {
+            throw new CancellationException("Exportação cancelada.");
+        }
+    }
+
+    private static void escreverLinha(Writer destino, String[] campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) destino.write(',');
+            escreverCampo(destino, campos[i]);
+        }
+        destino.write("\r\n");
+    }
+
+    /**
+     * Campo no formato CSV (RFC 4180): entre aspas quando tem vírgula, aspas ou quebra de linha.
+     */
+    static void escreverCampo(Writer destino, @Nullable String valor) throws IOException {
+        if (valor == null) return;
+        boolean precisaAspas = false;
+        for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+            char c = valor.charAt(i);
+            precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!precisaAspas) {
+            destino.write(valor);
+            return;
+        }
+        destino.write('"');
+        destino.write(valor.replace("\"", "\"\""));
+        destino.write('"');
+    }
+}
@@ -8,6 +8,8 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.util.Random;
+
 /**
  * FirebaseManager simplificado para gravação anônima.
  *
@@ -26,6 +28,12 @@ public class FirebaseManager {
     private final DocumentReference enqueteRef;
     private final String voterId;
     private final FirebaseAuth auth;
+    private final RelogioServidor relogioServidor;
+    private final IndiceVotosLocal indiceVotosLocal;
+    private final CadastroAparelhos cadastroAparelhos;
+    private final ChamadasEmAndamento chamadasEmAndamento = new ChamadasEmAndamento();
+    private final Retentativas retentativas =
+            new Retentativas(new PoliticaRetentativa(), new AgendadorAndroid(), new Random());
 
     private FirebaseManager(Context context) {
         FirebaseApp.initializeApp(context.getApplicationContext());
@@ -40,6 +48,10 @@ public class FirebaseManager {
                 context.getApplicationContext().getContentResolver(),
                 Settings.Secure.ANDROID_ID
         );
+
+        relogioServidor = new RelogioServidor(context);
+        indiceVotosLocal = new IndiceVotosLocal(context);
+        cadastroAparelhos = new CadastroAparelhos(context, db);
     }
 
     public static FirebaseManager getInstance(Context context) {
@@ -101,6 +113,54 @@ public class FirebaseManager {
         return enqueteRef.collection("votos").document(); // Cria ID aleatório
     }
 
+    /**
+     * Relógio corrigido pelo horário do servidor (usado no encerramento da votação).
+     */
+    public RelogioServidor getRelogioServidor() {
+        return relogioServidor;
+    }
+
+    /**
+     * Índice local das enquetes/rodadas em que este aparelho já votou.
+     */
+    public IndiceVotosLocal getIndiceVotosLocal() {
+        return indiceVotosLocal;
+    }
+
+    /**
+     * Metadados dos aparelhos (modelo/versão), gravados uma vez por aparelho e mantidos em cache.
+     * Estrutura:
+     *   aparelhos/{voterId}
+     */
+    public CadastroAparelhos getCadastroAparelhos() {
+        return cadastroAparelhos;
+    }
+
+    /**
+     * Registro das chamadas ao Firestore em andamento, compartilhado por todos os
+     * repositórios para que telas diferentes também reaproveitem a mesma Task.
+     */
+    public ChamadasEmAndamento getChamadasEmAndamento() {
+        return chamadasEmAndamento;
+    }
+
+    /**
+     * Camada de retentativa das escritas, compartilhada para que as métricas
+     * somem as operações de todas as telas.
+     */
+    public Retentativas getRetentativas() {
+        return retentativas;
+    }
+
+    /**
+     * Documento usado para medir a diferença entre o relógio local e o do servidor.
+     * Estrutura:
+     *   enquetes/enquete_geral/relogio/{voterId}
+     */
+    public DocumentReference getRelogioRef() {
+        return enqueteRef.collection("relogio").document(getCurrentVoterId());
+    }
+
     /**
      * Retorna a instância do Firestore caso você precise acessar manualmente.
      */
@@ -0,0 +1,101 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Utilitários para usar as Tasks do Firebase como CompletableFuture.
+ *
+ * - {@link #deTask(Task, Executor)} converte uma Task em future, completando no executor informado.
+ * - {@link #comPrazo(CompletableFuture, long, TimeUnit)} aplica um prazo (deadline) a um future.
+ * - {@link #causa(Throwable)} desembrulha o erro original para os callbacks.
+ *
+ * As Tasks do Firestore não podem ser canceladas; cancelar o future apenas
+ * descarta o resultado quando ele chegar.
+ *
+ * Observação: orTimeout/completeOnTimeout só existem a partir do Android 12 (API 31),
+ * por isso o prazo é implementado aqui com um agendador próprio.
+ */
+public final class Futuros {
+
+    // Uma única thread (daemon) basta: ela só dispara os prazos, não executa trabalho
+    private static final ScheduledExecutorService AGENDADOR =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "enquete-prazos");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private Futuros() {
+    }
+
+    /**
+     * Converte uma Task do Firebase em CompletableFuture.
+     *
+     * @param tarefa   Task de origem
+     * @param executor onde o future será completado (ex.: main thread ou executor direto)
+     */
+    public static <T> CompletableFuture<T> deTask(Task<T> tarefa, Executor executor) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        tarefa.addOnCompleteListener(executor, t -> {
+            if (t.isCanceled()) {
+                futuro.cancel(false);
+            } else if (t.isSuccessful()) {
+                futuro.complete(t.getResult());
+            } else {
+                futuro.completeExceptionally(t.getException());
+            }
+        });
+        return futuro;
+    }
+
+    /**
+     * Extrai a exceção original de um erro vindo de um CompletableFuture
+     * (que costuma vir embrulhada em CompletionException).
+     */
+    public static Exception causa(Throwable erro) {
+        Throwable atual = erro;
+        while ((atual instanceof CompletionException || atual instanceof ExecutionException)
+                && atual.getCause() != null) {
+            atual = atual.getCause();
+        }
+        return (atual instanceof Exception) ? (Exception) atual : new RuntimeException(atual);
+    }
+
+    /**
+     * Aplica um prazo ao future: se não terminar a tempo, ele é completado com
+     * {@link TimeoutException}. O próprio future é retornado para encadear chamadas.
+     */
+    public static <T> CompletableFuture<T> comPrazo(CompletableFuture<T> futuro,
+                                                   long prazo,
+                                                   TimeUnit unidade) {
+        return comPrazo(futuro, prazo, unidade, AGENDADOR);
+    }
+
+    /**
+     * Mesmo que {@link #comPrazo(CompletableFuture, long, TimeUnit)}, com agendador explícito.
+     */
+    public static <T> CompletableFuture<T> comPrazo(CompletableFuture<T> futuro,
+                                                   long prazo,
+                                                   TimeUnit unidade,
+                                                   ScheduledExecutorService agendador) {
+        if (futuro.isDone()) return futuro;
+
+        ScheduledFuture<?> disparo = agendador.schedule(
+                () -> futuro.completeExceptionally(
+                        new TimeoutException("Prazo de " + unidade.toMillis(prazo) + " ms excedido")),
+                prazo, unidade);
+        // Terminou antes do prazo: o disparo não é mais necessário
+        futuro.whenComplete((r, e) -> disparo.cancel(false));
+        return futuro;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.esquema.CamposEvento;
+import com.example.a3_teste_paineldevotao.model.EventoVoto;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Histórico da enquete: cada voto, lote do quiosque, reset e alteração de
+ * configuração vira um documento em "eventos", gravado na mesma transação
+ * (ou batch) da operação. Os eventos nunca são alterados nem apagados.
+ *
+ * Os contadores podem ser reconstruídos a qualquer momento: última compactação
+ * (coleção "compactacoes") + eventos a partir dela ({@link ApuracaoEventos}).
+ * Tudo é lido do servidor (nunca do cache local, que offline pode estar
+ * incompleto) e os eventos vêm em páginas de {@link #TAMANHO_PAGINA}.
+ * Quando a reconstrução passa de {@link #LIMIAR_COMPACTACAO} eventos, grava uma
+ * nova compactação e a próxima leitura começa dali.
+ *
+ * Além da conferência pedida pelo professor e do reset, a reconstrução roda a cada
+ * {@link #INTERVALO_COMPACTACAO_MS} no aparelho que ligar a compactação periódica,
+ * para o histórico não crescer sem compactação entre uma conferência e outra.
+ *
+ * Estrutura:
+ *   enquetes/enquete_geral/eventos/{tipo}-{chave}
+ *   enquetes/enquete_geral/compactacoes/ate-{limite em nanos}
+ */
+public class HistoricoVotos {
+
+    /** Eventos lidos além da compactação a partir dos quais uma nova é gravada. */
+    public static final int LIMIAR_COMPACTACAO = 500;
+
+    /** Eventos lidos por consulta durante a reconstrução. */
+    public static final int TAMANHO_PAGINA = 500;
+
+    /** Intervalo da compactação periódica. */
+    public static final long INTERVALO_COMPACTACAO_MS = 15 * 60_000L;
+
+    private static final String TAG = "HistoricoVotos";
+
+    // Executor direto: encadeia as leituras na própria thread de entrega do Firestore
+    private static final Executor DIRETO = Runnable::run;
+
+    /**
+     * Contadores reconstruídos pelo histórico.
+     */
+    public static class Recontagem {
+        public final long rodada;
+        public final long opcaoA;
+        public final long opcaoB;
+        public final long opcaoC;
+        public final long eventosLidos;  // eventos lidos além da compactação usada
+        public final boolean compactou;  // uma nova compactação foi gravada
+
+        Recontagem(ApuracaoEventos apuracao, boolean compactou) {
+            this.rodada = apuracao.getRodada();
+            this.opcaoA = apuracao.getOpcaoA();
+            this.opcaoB = apuracao.getOpcaoB();
+            this.opcaoC = apuracao.getOpcaoC();
+            this.eventosLidos = apuracao.getEventosDesdeCompactacao();
+            this.compactou = compactou;
+        }
+    }
+
+    private final CollectionReference eventos;
+    private final CollectionReference compactacoes;
+    private final Agendador agendador;
+
+    // Compactação periódica (main thread)
+    @Nullable private Agendador.Tarefa proximaCompactacao;
+    private volatile boolean compactacaoEmAndamento;
+
+    public HistoricoVotos(DocumentReference enqueteRef, Agendador agendador) {
+        this.eventos = enqueteRef.collection("eventos");
+        this.compactacoes = enqueteRef.collection("compactacoes");
+        this.agendador = agendador;
+    }
+
+    // =====================================================================
+    //  Gravação (dentro da transação/batch da própria operação)
+    // =====================================================================
+
+    /**
+     * Evento de um voto. A chave é a de idempotência do voto: tentativas repetidas
+     * regravam o mesmo documento.
+     */
+    public void registrarVoto(Transaction transaction, String chave, String opcao, String aparelho) {
+        Map<String, Object> evento = novoEvento(CamposEvento.TIPO_VOTO);
+        evento.put(CamposEvento.OPCAO, opcao);
+        evento.put(CamposEvento.APARELHO, aparelho);
+        transaction.set(eventos.document("voto-" + chave), evento);
+    }
+
+    /**
+     * Um único evento por lote do quiosque, com a soma das cédulas por opção
+     * (mantém o lote dentro do limite de escritas da transação).
+     */
+    public void registrarLote(Transaction transaction, String loteId,
+                              long votosA, long votosB, long votosC, String aparelho) {
+        Map<String, Object> evento = novoEvento(CamposEvento.TIPO_LOTE);
+        evento.put(CamposEvento.OPCAO_A, votosA);
+        evento.put(CamposEvento.OPCAO_B, votosB);
+        evento.put(CamposEvento.OPCAO_C, votosC);
+        evento.put(CamposEvento.APARELHO, aparelho);
+        transaction.set(eventos.document("lote-" + loteId), evento);
+    }
+
+    public void registrarReset(Transaction transaction, String chave) {
+        transaction.set(eventos.document("reset-" + chave), novoEvento(CamposEvento.TIPO_RESET));
+    }
+
+    /**
+     * Evento de alteração de configuração, com os campos gravados (só auditoria).
+     */
+    public void registrarConfiguracao(WriteBatch batch, String chave, Map<String, Object> dados) {
+        Map<String, Object> evento = novoEvento(CamposEvento.TIPO_CONFIGURACAO);
+        evento.put(CamposEvento.DADOS, dados);
+        batch.set(eventos.document("configuracao-" + chave), evento);
+    }
+
+    private static Map<String, Object> novoEvento(String tipo) {
+        Map<String, Object> evento = new HashMap<>();
+        evento.put(CamposEvento.TIPO, tipo);
+        evento.put(CamposEvento.TIMESTAMP, FieldValue.serverTimestamp());
+        return evento;
+    }
+
+    // =====================================================================
+    //  Reconstrução e compactação
+    // =====================================================================
+
+    /**
+     * Reconstrói os contadores: lê do servidor a compactação mais recente e os eventos
+     * a partir dela, em ordem de timestamp e em páginas. Grava uma nova compactação se
+     * foram lidos {@link #LIMIAR_COMPACTACAO} eventos ou mais. Sem conexão, falha (em
+     * vez de compactar a partir de um cache incompleto).
+     */
+    public Task<Recontagem> recontar() {
+        return compactacoes.orderBy("limite", Query.Direction.DESCENDING).limit(1).get(Source.SERVER)
+                .onSuccessTask(DIRETO, snapshot -> {
+                    ApuracaoEventos apuracao = new ApuracaoEventos();
+                    apuracao.iniciar(snapshot.isEmpty()
+                            ? null : lerCompactacao(snapshot.getDocuments().get(0)));
+
+                    Query consulta = eventos.orderBy("timestamp");
+                    long limite = apuracao.getLimiteNanos();
+                    if (limite != ApuracaoEventos.SEM_LIMITE) {
+                        consulta = consulta.whereGreaterThanOrEqualTo("timestamp", deNanos(limite));
+                    }
+                    return lerPaginas(apuracao, consulta, null);
+                });
+    }
+
+    /**
+     * Liga/desliga a reconstrução (e compactação, se necessária) a cada
+     * {@link #INTERVALO_COMPACTACAO_MS}. Chamado na main thread.
+     */
+    public void setCompactacaoPeriodica(boolean ativa) {
+        if (ativa == (proximaCompactacao != null)) return;
+        if (ativa) {
+            agendarCompactacao();
+        } else {
+            proximaCompactacao.cancelar();
+            proximaCompactacao = null;
+        }
+    }
+
+    private void agendarCompactacao() {
+        proximaCompactacao = agendador.agendar(() -> {
+            agendarCompactacao();
+            if (compactacaoEmAndamento) return; // a anterior ainda está lendo
+            compactacaoEmAndamento = true;
+            recontar().addOnCompleteListener(DIRETO, task -> {
+                compactacaoEmAndamento = false;
+                if (!task.isSuccessful()) {
+                    Log.w(TAG, "Compactação periódica falhou; nova tentativa no próximo intervalo",
+                            task.getException());
+                }
+            });
+        }, INTERVALO_COMPACTACAO_MS);
+    }
+
+    /**
+     * Aplica os eventos página a página (startAfter no último lido) e compacta no fim.
+     */
+    private Task<Recontagem> lerPaginas(ApuracaoEventos apuracao, Query consulta,
+                                        @Nullable DocumentSnapshot ultimo) {
+        Query pagina = ultimo != null ? consulta.startAfter(ultimo) : consulta;
+        return pagina.limit(TAMANHO_PAGINA).get(Source.SERVER).onSuccessTask(DIRETO, lidos -> {
+            List<DocumentSnapshot> docs = lidos.getDocuments();
+            for (DocumentSnapshot doc : docs) {
+                EventoVoto evento = lerEvento(doc);
+                if (evento != null) apuracao.aplicar(evento);
+            }
+            if (docs.size() < TAMANHO_PAGINA) {
+                return compactarSeNecessario(apuracao);
+            }
+            return lerPaginas(apuracao, consulta, docs.get(docs.size() - 1));
+        });
+    }
+
+    private Task<Recontagem> compactarSeNecessario(ApuracaoEventos apuracao) {
+        if (apuracao.getEventosDesdeCompactacao() < LIMIAR_COMPACTACAO) {
+            return Tasks.forResult(new Recontagem(apuracao, false));
+        }
+
+        ApuracaoEventos.Compactacao compactacao = apuracao.compactar();
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("rodada", compactacao.rodada);
+        dados.put("opcaoA", compactacao.opcaoA);
+        dados.put("opcaoB", compactacao.opcaoB);
+        dados.put("opcaoC", compactacao.opcaoC);
+        dados.put("limite", deNanos(compactacao.limiteNanos));
+        dados.put("idsNoLimite", new ArrayList<>(compactacao.idsNoLimite));
+        dados.put("eventos", compactacao.eventos);
+        dados.put("criadaEm", FieldValue.serverTimestamp());
+        // Id pelo limite: duas reconstruções simultâneas gravam o mesmo documento
+        return compactacoes.document("ate-" + compactacao.limiteNanos).set(dados)
+                .continueWith(DIRETO, escrita -> new Recontagem(apuracao, escrita.isSuccessful()));
+    }
+
+    @Nullable
+    private static EventoVoto lerEvento(DocumentSnapshot doc) {
+        Timestamp instante = doc.getTimestamp(CamposEvento.TIMESTAMP);
+        long nanos = instante != null ? emNanos(instante) : ApuracaoEventos.SEM_LIMITE;
+        String tipo = doc.getString(CamposEvento.TIPO);
+        if (tipo == null) return null;
+
+        switch (tipo) {
+            case CamposEvento.TIPO_VOTO:
+                return EventoVoto.voto(doc.getId(), doc.getString(CamposEvento.OPCAO), nanos);
+            case CamposEvento.TIPO_LOTE:
+                return new EventoVoto(doc.getId(), EventoVoto.Tipo.LOTE,
+                        valor(doc, CamposEvento.OPCAO_A), valor(doc, CamposEvento.OPCAO_B),
+                        valor(doc, CamposEvento.OPCAO_C), nanos);
+            case CamposEvento.TIPO_RESET:
+                return new EventoVoto(doc.getId(), EventoVoto.Tipo.RESET, 0, 0, 0, nanos);
+            case CamposEvento.TIPO_CONFIGURACAO:
+                return new EventoVoto(doc.getId(), EventoVoto.Tipo.CONFIGURACAO, 0, 0, 0, nanos);
+            default:
+                return null; // tipo de uma versão mais nova do app
+        }
+    }
+
+    @Nullable
+    private static ApuracaoEventos.Compactacao lerCompactacao(DocumentSnapshot doc) {
+        Timestamp limite = doc.getTimestamp("limite");
+        if (limite == null) return null;
+        List<?> ids = (List<?>) doc.get("idsNoLimite");
+
+        HashSet<String> idsNoLimite = new HashSet<>();
+        if (ids != null) {
+            for (Object id : ids) {
+                if (id instanceof String) idsNoLimite.add((String) id);
+            }
+        }
+        return new ApuracaoEventos.Compactacao(valor(doc, "rodada"),
+                valor(doc, "opcaoA"), valor(doc, "opcaoB"), valor(doc, "opcaoC"),
+                emNanos(limite), idsNoLimite, valor(doc, "eventos"));
+    }
+
+    private static long valor(DocumentSnapshot doc, String campo) {
+        Long valor = doc.getLong(campo);
+        return valor != null ? valor : 0;
+    }
+
+    private static long emNanos(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1_000_000_000L + timestamp.getNanoseconds();
+    }
+
+    private static Timestamp deNanos(long nanos) {
+        return new Timestamp(nanos / 1_000_000_000L, (int) (nanos % 1_000_000_000L));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice local (persistente) das enquetes em que este aparelho já votou.
+ *
+ * Cada entrada é identificada por enquete + rodada. A "rodada" é o contador
+ * que o reset da enquete incrementa no Firestore; assim, depois de um reset,
+ * as entradas antigas simplesmente deixam de valer.
+ *
+ * O índice só responde quando a rodada atual já foi vista em um snapshot
+ * neste processo — com rodada desconhecida devolvemos null e o repositório
+ * consulta o servidor normalmente. As regras do Firestore (criação única do
+ * documento de voto) continuam sendo a fonte da verdade.
+ */
+public class IndiceVotosLocal {
+
+    private static final String PREFS = "indice_votos_local";
+
+    private final SharedPreferences prefs;
+
+    // Rodada atual de cada enquete, conhecida apenas em memória (vinda dos snapshots)
+    private final Map<String, Long> rodadasConhecidas = new HashMap<>();
+
+    public IndiceVotosLocal(Context context) {
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Atualiza a rodada atual da enquete (chamado a cada snapshot recebido).
+     */
+    public synchronized void atualizarRodada(String enqueteId, long rodada) {
+        rodadasConhecidas.put(enqueteId, rodada);
+    }
+
+    /**
+     * Rodada atual da enquete, ou -1 se ainda não chegou nenhum snapshot.
+     */
+    public synchronized long getRodadaConhecida(String enqueteId) {
+        Long rodada = rodadasConhecidas.get(enqueteId);
+        return rodada != null ? rodada : -1L;
+    }
+
+    /**
+     * Opção já votada neste aparelho na rodada atual, ou null se não houver
+     * registro local (ou se a rodada ainda não for conhecida).
+     */
+    @Nullable
+    public synchronized String buscarVoto(String enqueteId) {
+        long rodada = getRodadaConhecida(enqueteId);
+        if (rodada < 0) return null;
+        return prefs.getString(chave(enqueteId, rodada), null);
+    }
+
+    /**
+     * Guarda que este aparelho votou na enquete/rodada informada.
+     * Entradas de rodadas anteriores da mesma enquete são descartadas.
+     */
+    public synchronized void registrarVoto(String enqueteId, long rodada, String opcao) {
+        if (rodada < 0) return;
+
+        SharedPreferences.Editor editor = prefs.edit();
+        String prefixo = enqueteId + "#";
+        for (String chave : prefs.getAll().keySet()) {
+            if (chave.startsWith(prefixo)) {
+                editor.remove(chave);
+            }
+        }
+        editor.putString(chave(enqueteId, rodada), opcao).apply();
+    }
+
+    /**
+     * Esquece o voto registrado na enquete/rodada (ex.: voto da fila recusado pelo servidor).
+     */
+    public synchronized void removerVoto(String enqueteId, long rodada) {
+        if (rodada < 0) return;
+        prefs.edit().remove(chave(enqueteId, rodada)).apply();
+    }
+
+    private static String chave(String enqueteId, long rodada) {
+        return enqueteId + "#" + rodada;
+    }
+}
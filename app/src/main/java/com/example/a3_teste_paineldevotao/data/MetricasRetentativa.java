@@ -0,0 +1,88 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores das escritas com retentativa, por operação (ex.: "registrarVoto").
+ *
+ * - operações: chamadas lógicas (uma por toque do usuário)
+ * - tentativas: idas ao servidor, contando as repetições
+ * - sucessos após retentativa: falharam pelo menos uma vez e depois deram certo
+ * - desistências: esgotaram as tentativas com erro transitório
+ * - falhas definitivas: erro não transitório, sem repetição
+ */
+public class MetricasRetentativa {
+
+    private final Map<String, Contadores> porOperacao = new ConcurrentHashMap<>();
+
+    void registrarOperacao(String operacao) {
+        contadores(operacao).operacoes.incrementAndGet();
+    }
+
+    void registrarTentativa(String operacao) {
+        contadores(operacao).tentativas.incrementAndGet();
+    }
+
+    void registrarSucessoAposRetentativa(String operacao) {
+        contadores(operacao).sucessosAposRetentativa.incrementAndGet();
+    }
+
+    void registrarDesistencia(String operacao) {
+        contadores(operacao).desistencias.incrementAndGet();
+    }
+
+    void registrarFalhaDefinitiva(String operacao) {
+        contadores(operacao).falhasDefinitivas.incrementAndGet();
+    }
+
+    public long getOperacoes(String operacao) {
+        return contadores(operacao).operacoes.get();
+    }
+
+    public long getTentativas(String operacao) {
+        return contadores(operacao).tentativas.get();
+    }
+
+    public long getSucessosAposRetentativa(String operacao) {
+        return contadores(operacao).sucessosAposRetentativa.get();
+    }
+
+    public long getDesistencias(String operacao) {
+        return contadores(operacao).desistencias.get();
+    }
+
+    public long getFalhasDefinitivas(String operacao) {
+        return contadores(operacao).falhasDefinitivas.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Contadores> item : new TreeMap<>(porOperacao).entrySet()) {
+            Contadores c = item.getValue();
+            if (sb.length() > 0) sb.append("; ");
+            sb.append(item.getKey())
+                    .append(": operacoes=").append(c.operacoes.get())
+                    .append(", tentativas=").append(c.tentativas.get())
+                    .append(", sucessosAposRetentativa=").append(c.sucessosAposRetentativa.get())
+                    .append(", desistencias=").append(c.desistencias.get())
+                    .append(", falhasDefinitivas=").append(c.falhasDefinitivas.get());
+        }
+        return sb.toString();
+    }
+
+    private Contadores contadores(String operacao) {
+        return porOperacao.computeIfAbsent(operacao, k -> new Contadores());
+    }
+
+    private static class Contadores {
+        final AtomicLong operacoes = new AtomicLong();
+        final AtomicLong tentativas = new AtomicLong();
+        final AtomicLong sucessosAposRetentativa = new AtomicLong();
+        final AtomicLong desistencias = new AtomicLong();
+        final AtomicLong falhasDefinitivas = new AtomicLong();
+    }
+}
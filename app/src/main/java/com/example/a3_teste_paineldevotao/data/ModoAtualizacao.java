@@ -0,0 +1,14 @@
+package com.example.a3_teste_paineldevotao.data;
+
+/**
+ * Como os resultados da enquete chegam ao aparelho.
+ *
+ * - TEMPO_REAL: listener do Firestore (cada voto gera um snapshot).
+ * - CONSULTA_PERIODICA: leituras pontuais em intervalo, com backoff quando nada muda.
+ * - MANUAL: nada automático; o usuário pede a atualização.
+ */
+public enum ModoAtualizacao {
+    TEMPO_REAL,
+    CONSULTA_PERIODICA,
+    MANUAL
+}
@@ -0,0 +1,43 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza as respostas livres para que variações da mesma palavra sejam
+ * contadas juntas: "  Café!", "cafe" e "CAFÉ" viram "cafe".
+ *
+ * - minúsculas e sem acentos;
+ * - só letras, dígitos e espaços (pontuação vira espaço);
+ * - espaços repetidos colapsados;
+ * - no máximo {@link #MAXIMO_CARACTERES} caracteres.
+ */
+public final class NormalizadorResposta {
+
+    public static final int MAXIMO_CARACTERES = 30;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NAO_PALAVRA = Pattern.compile("[^a-z0-9 ]+");
+    private static final Pattern ESPACOS = Pattern.compile(" {2,}");
+
+    private NormalizadorResposta() {
+    }
+
+    /**
+     * @return a resposta normalizada, ou null se não sobrar nada
+     */
+    @Nullable
+    public static String normalizar(@Nullable String texto) {
+        if (texto == null) return null;
+        String semAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String limpa = NAO_PALAVRA.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        limpa = ESPACOS.matcher(limpa).replaceAll(" ").trim();
+        if (limpa.length() > MAXIMO_CARACTERES) {
+            limpa = limpa.substring(0, MAXIMO_CARACTERES).trim();
+        }
+        return limpa.isEmpty() ? null : limpa;
+    }
+}
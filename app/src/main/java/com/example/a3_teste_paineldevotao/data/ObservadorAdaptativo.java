@@ -0,0 +1,307 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.Enquete;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * Observação da enquete que alterna entre tempo real, consulta periódica e
+ * atualização manual conforme a rede, a bateria e a taxa de mudanças do documento.
+ *
+ * Para quem usa, nada muda: os dados chegam pelo mesmo
+ * {@link EnqueteRepository.EnqueteListener} e a observação é encerrada com
+ * {@link #remove()}, como um ListenerRegistration comum.
+ *
+ * A taxa de mudanças é medida pela variação do total de votos (em tempo real
+ * cada voto gera um snapshot), então ela também pode ser estimada durante a
+ * consulta periódica.
+ *
+ * Todas as chamadas acontecem na thread do {@link Agendador} (main thread no app).
+ */
+public class ObservadorAdaptativo implements ListenerRegistration {
+
+    /**
+     * De onde os dados vêm: listener em tempo real e leitura pontual.
+     * No app é o próprio EnqueteRepository; nos testes, uma fonte falsa.
+     */
+    public interface FonteEnquete {
+        ListenerRegistration ouvir(EnqueteRepository.EnqueteListener listener);
+
+        void buscar(EnqueteRepository.EnqueteCarregadaCallback callback);
+    }
+
+    private final FonteEnquete fonte;
+    private final EstadoAparelho estado;
+    private final Agendador agendador;
+    private final PoliticaAtualizacao politica;
+    private final EnqueteRepository.EnqueteListener destino;
+
+    private ModoAtualizacao modo;
+    @Nullable private ListenerRegistration registroTempoReal;
+    @Nullable private Agendador.Tarefa proximaConsulta;
+    @Nullable private Agendador.Tarefa proximaReavaliacao;
+    private long intervaloAtual;
+    private int geracao; // descarta respostas de consultas de um modo anterior
+    private boolean removido;
+    private boolean tempoRealObrigatorio;
+    @Nullable private Runnable aoMudarModo;
+
+    @Nullable private Enquete ultimaEnquete;
+    // Pares (instante, peso) das mudanças observadas dentro da janela
+    private final ArrayDeque<long[]> mudancas = new ArrayDeque<>();
+
+    public ObservadorAdaptativo(FonteEnquete fonte,
+                                EstadoAparelho estado,
+                                Agendador agendador,
+                                PoliticaAtualizacao politica,
+                                EnqueteRepository.EnqueteListener destino) {
+        this.fonte = fonte;
+        this.estado = estado;
+        this.agendador = agendador;
+        this.politica = politica;
+        this.destino = destino;
+        this.intervaloAtual = politica.intervaloBaseMillis;
+    }
+
+    /**
+     * Escolhe o modo inicial e passa a reagir às mudanças do aparelho.
+     */
+    public ObservadorAdaptativo iniciar() {
+        estado.setOuvinte(this::reavaliar);
+        aplicarModo(escolherModo(0, null));
+        agendarReavaliacao();
+        return this;
+    }
+
+    @Nullable
+    public ModoAtualizacao getModo() {
+        return modo;
+    }
+
+    /**
+     * Mudanças por minuto observadas na janela atual.
+     */
+    public double getMudancasPorMinuto() {
+        long agora = agendador.agoraMillis();
+        while (!mudancas.isEmpty() && agora - mudancas.peekFirst()[0] > politica.janelaTaxaMillis) {
+            mudancas.pollFirst();
+        }
+        long soma = 0;
+        for (long[] mudanca : mudancas) {
+            soma += mudanca[1];
+        }
+        return soma * 60_000.0 / politica.janelaTaxaMillis;
+    }
+
+    /**
+     * Busca os dados agora (botão "Atualizar"). No modo periódico, reinicia o backoff.
+     */
+    public void atualizarAgora() {
+        if (removido) return;
+        if (modo == ModoAtualizacao.CONSULTA_PERIODICA) {
+            cancelarConsulta();
+            intervaloAtual = politica.intervaloBaseMillis;
+            geracao++; // descarta a consulta periódica que ainda estiver em andamento
+            consultar(geracao);
+        } else {
+            final int geracaoAtual = geracao;
+            fonte.buscar(new EnqueteRepository.EnqueteCarregadaCallback() {
+                @Override
+                public void onEnqueteCarregada(Enquete enquete) {
+                    if (!removido && geracaoAtual == geracao) entregar(enquete);
+                }
+
+                @Override
+                public void onErro(@Nullable Exception e) {
+                    if (!removido) destino.onErro(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Avisado a cada troca de modo (quem acompanha outros listeners pode segui-la).
+     */
+    public void setAoMudarModo(@Nullable Runnable aoMudarModo) {
+        this.aoMudarModo = aoMudarModo;
+    }
+
+    /**
+     * Fixa o modo em tempo real, ignorando rede e bateria (ex.: o aparelho
+     * repassa os resultados aos alunos pelo servidor local e não pode atrasá-los).
+     * Desligado, a política volta a decidir na hora.
+     */
+    public void setTempoRealObrigatorio(boolean obrigatorio) {
+        if (tempoRealObrigatorio == obrigatorio) return;
+        tempoRealObrigatorio = obrigatorio;
+        reavaliar();
+    }
+
+    @Override
+    public void remove() {
+        removido = true;
+        estado.setOuvinte(null);
+        pararModoAtual();
+        if (proximaReavaliacao != null) {
+            proximaReavaliacao.cancelar();
+            proximaReavaliacao = null;
+        }
+    }
+
+    // =====================================================================
+    //  Escolha do modo
+    // =====================================================================
+
+    private void reavaliar() {
+        if (removido) return;
+        aplicarModo(escolherModo(getMudancasPorMinuto(), modo));
+    }
+
+    private ModoAtualizacao escolherModo(double mudancasPorMinuto, @Nullable ModoAtualizacao atual) {
+        if (tempoRealObrigatorio) return ModoAtualizacao.TEMPO_REAL;
+        return politica.decidir(estado, mudancasPorMinuto, atual);
+    }
+
+    private void agendarReavaliacao() {
+        proximaReavaliacao = agendador.agendar(() -> {
+            if (removido) return;
+            reavaliar();
+            agendarReavaliacao();
+        }, politica.reavaliacaoMillis);
+    }
+
+    private void aplicarModo(ModoAtualizacao novo) {
+        if (novo == modo) return;
+        pararModoAtual();
+        modo = novo;
+        geracao++;
+
+        switch (novo) {
+            case TEMPO_REAL:
+                registroTempoReal = fonte.ouvir(new EnqueteRepository.EnqueteListener() {
+                    @Override
+                    public void onEnqueteAtualizada(Enquete enquete) {
+                        if (!removido) entregar(enquete);
+                    }
+
+                    @Override
+                    public void onErro(@Nullable Exception e) {
+                        if (!removido) destino.onErro(e);
+                    }
+                });
+                break;
+            case CONSULTA_PERIODICA:
+                intervaloAtual = politica.intervaloBaseMillis;
+                consultar(geracao);
+                break;
+            case MANUAL:
+            default:
+                // Nada automático: só atualizarAgora()
+                break;
+        }
+        if (aoMudarModo != null) aoMudarModo.run();
+    }
+
+    private void pararModoAtual() {
+        if (registroTempoReal != null) {
+            registroTempoReal.remove();
+            registroTempoReal = null;
+        }
+        cancelarConsulta();
+    }
+
+    // =====================================================================
+    //  Consulta periódica com backoff
+    // =====================================================================
+
+    private void consultar(final int geracaoDaConsulta) {
+        fonte.buscar(new EnqueteRepository.EnqueteCarregadaCallback() {
+            @Override
+            public void onEnqueteCarregada(Enquete enquete) {
+                if (removido || geracaoDaConsulta != geracao) return;
+                boolean primeira = ultimaEnquete == null;
+                boolean mudou = entregar(enquete) || primeira;
+                // Nada mudou: espaça as consultas; houve mudança: volta ao intervalo base
+                intervaloAtual = mudou
+                        ? politica.intervaloBaseMillis
+                        : Math.min(intervaloAtual * 2, politica.intervaloMaximoMillis);
+                agendarConsulta(geracaoDaConsulta);
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                if (removido || geracaoDaConsulta != geracao) return;
+                intervaloAtual = Math.min(intervaloAtual * 2, politica.intervaloMaximoMillis);
+                destino.onErro(e);
+                agendarConsulta(geracaoDaConsulta);
+            }
+        });
+    }
+
+    private void agendarConsulta(final int geracaoDaConsulta) {
+        cancelarConsulta();
+        proximaConsulta = agendador.agendar(() -> {
+            proximaConsulta = null;
+            if (!removido && geracaoDaConsulta == geracao) consultar(geracaoDaConsulta);
+        }, intervaloAtual);
+    }
+
+    private void cancelarConsulta() {
+        if (proximaConsulta != null) {
+            proximaConsulta.cancelar();
+            proximaConsulta = null;
+        }
+    }
+
+    /**
+     * Tempo até a próxima consulta periódica (útil para testes e diagnóstico).
+     */
+    public long getIntervaloAtualMillis() {
+        return intervaloAtual;
+    }
+
+    // =====================================================================
+    //  Entrega dos dados
+    // =====================================================================
+
+    /**
+     * Registra a mudança (para a taxa) e repassa a enquete ao destino.
+     *
+     * @return true se algo mudou em relação à última enquete entregue
+     */
+    private boolean entregar(Enquete enquete) {
+        long peso = pesoDaMudanca(ultimaEnquete, enquete);
+        if (peso > 0) {
+            mudancas.addLast(new long[]{agendador.agoraMillis(), peso});
+        }
+        ultimaEnquete = enquete;
+        destino.onEnqueteAtualizada(enquete);
+        return peso > 0;
+    }
+
+    /**
+     * Quantas mudanças separam as duas versões: a variação no total de votos
+     * (cada voto seria um snapshot em tempo real), ou 1 para mudanças de texto/reset.
+     */
+    private static long pesoDaMudanca(@Nullable Enquete antes, Enquete depois) {
+        if (antes == null) return 0;
+        long votos = Math.abs(total(depois) - total(antes));
+        if (votos > 0) return votos;
+        boolean outraMudanca = antes.getRodada() != depois.getRodada()
+                || !Objects.equals(antes.getTituloEnquete(), depois.getTituloEnquete())
+                || !Objects.equals(antes.getTextoOpcaoA(), depois.getTextoOpcaoA())
+                || !Objects.equals(antes.getTextoOpcaoB(), depois.getTextoOpcaoB())
+                || !Objects.equals(antes.getTextoOpcaoC(), depois.getTextoOpcaoC())
+                || !Objects.equals(antes.getMensagemRodape(), depois.getMensagemRodape())
+                || antes.getEncerramentoMillis() != depois.getEncerramentoMillis();
+        return outraMudanca ? 1 : 0;
+    }
+
+    private static long total(Enquete enquete) {
+        return enquete.getOpcaoA() + enquete.getOpcaoB() + enquete.getOpcaoC();
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.a3_teste_paineldevotao.model.Enquete;
+
+/**
+ * Mantém o listener em tempo real da enquete ligado apenas enquanto o app
+ * está visível.
+ *
+ * - App vai para segundo plano (ON_STOP do processo): após um período de
+ *   carência configurável, o listener é removido e para de receber cada voto.
+ * - App volta (ON_START): a remoção pendente é cancelada ou o listener é
+ *   religado. O primeiro snapshot vem do cache local do Firestore, então a
+ *   tela é redesenhada na hora, e o servidor completa em seguida.
+ *
+ * Normalmente é ligado ao ciclo de vida do processo (ProcessLifecycleOwner),
+ * para que trocar de Activity dentro do app não desligue o listener.
+ *
+ * O listener também pode ser suspenso enquanto os resultados chegam por outro
+ * caminho (servidor local do professor, ver {@link #setSuspenso}). No aparelho
+ * do professor, enquanto o servidor local estiver ligado, ele é a fonte dos
+ * alunos e fica sempre ligado e em tempo real (ver {@link #setFonteDaRedeLocal}).
+ *
+ * Listeners que acompanham a enquete (ex.: contadores das turmas) seguem o mesmo
+ * estado por {@link #setAoMudarEstado}: ligados só enquanto este estiver em tempo real.
+ */
+public class ObservadorEnqueteCicloDeVida implements DefaultLifecycleObserver {
+
+    /** Carência padrão antes de desligar o listener em segundo plano. */
+    public static final long CARENCIA_PADRAO_MS = 30_000L;
+
+    private final EnqueteRepository repository;
+    private final EnqueteRepository.EnqueteListener destino;
+    private final long carenciaMillis;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable desanexarPendente = this::desanexar;
+    private final EstatisticasSegundoPlano estatisticas = new EstatisticasSegundoPlano();
+
+    @Nullable private Lifecycle lifecycle;
+    @Nullable private ObservadorAdaptativo registro;
+    private boolean emSegundoPlano;
+    private boolean suspenso;
+    private boolean fonteDaRedeLocal;
+    @Nullable private Runnable aoMudarEstado;
+
+    // Referência do momento em que o listener foi desligado (para estimar o que foi evitado)
+    @Nullable private Enquete enqueteNaPausa;
+    private boolean aguardandoServidorAposRetorno;
+    private Enquete ultimaEnquete;
+
+    public ObservadorEnqueteCicloDeVida(EnqueteRepository repository,
+                                        EnqueteRepository.EnqueteListener destino,
+                                        long carenciaMillis) {
+        this.repository = repository;
+        this.destino = destino;
+        this.carenciaMillis = carenciaMillis;
+    }
+
+    /**
+     * Passa a acompanhar o ciclo de vida informado. Se ele já estiver visível,
+     * o listener é ligado imediatamente (o próprio addObserver entrega ON_START).
+     */
+    public void iniciar(Lifecycle lifecycle) {
+        this.lifecycle = lifecycle;
+        lifecycle.addObserver(this);
+    }
+
+    /**
+     * Desliga tudo definitivamente (ex.: ViewModel.onCleared).
+     */
+    public void encerrar() {
+        handler.removeCallbacks(desanexarPendente);
+        if (lifecycle != null) {
+            lifecycle.removeObserver(this);
+            lifecycle = null;
+        }
+        if (registro != null) {
+            registro.remove();
+            registro = null;
+        }
+    }
+
+    public boolean isAtivo() {
+        return registro != null;
+    }
+
+    /**
+     * Avisado quando o listener é ligado, desligado (segundo plano, suspensão) ou
+     * troca de modo; o estado novo está em {@link #getModo}.
+     */
+    public void setAoMudarEstado(@Nullable Runnable aoMudarEstado) {
+        this.aoMudarEstado = aoMudarEstado;
+        if (registro != null) registro.setAoMudarModo(aoMudarEstado);
+    }
+
+    /**
+     * Suspende o listener (resultados vindos de outra fonte) ou o religa.
+     * Religado, volta a valer o ciclo de vida: em segundo plano ele continua desligado.
+     */
+    public void setSuspenso(boolean suspenso) {
+        if (this.suspenso == suspenso) return;
+        this.suspenso = suspenso;
+        if (suspenso) {
+            handler.removeCallbacks(desanexarPendente);
+            if (registro != null) {
+                registro.remove();
+                registro = null;
+                avisarMudanca();
+            }
+        } else if (lifecycle != null && !emSegundoPlano && registro == null) {
+            anexar();
+        }
+    }
+
+    /**
+     * Com o servidor local ligado, este listener alimenta os alunos da rede: ele não
+     * é desligado em segundo plano nem espaçado pela economia de rede/bateria.
+     * Desligado, volta a valer o ciclo de vida (em segundo plano, após a carência).
+     */
+    public void setFonteDaRedeLocal(boolean fonte) {
+        if (fonteDaRedeLocal == fonte) return;
+        fonteDaRedeLocal = fonte;
+        handler.removeCallbacks(desanexarPendente);
+        if (fonte) {
+            if (lifecycle != null && registro == null && !suspenso) {
+                anexar();
+            }
+        } else if (emSegundoPlano) {
+            handler.postDelayed(desanexarPendente, carenciaMillis);
+        }
+        if (registro != null) {
+            registro.setTempoRealObrigatorio(fonte);
+        }
+    }
+
+    /**
+     * Pede uma atualização imediata (usado principalmente no modo MANUAL).
+     */
+    public void atualizarAgora() {
+        if (registro != null) {
+            registro.atualizarAgora();
+        }
+    }
+
+    /**
+     * Modo de atualização em uso, ou null com o listener desligado.
+     */
+    @Nullable
+    public ModoAtualizacao getModo() {
+        return registro != null ? registro.getModo() : null;
+    }
+
+    public EstatisticasSegundoPlano getEstatisticas() {
+        return estatisticas;
+    }
+
+    // =====================================================================
+    //  Ciclo de vida
+    // =====================================================================
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        emSegundoPlano = false;
+        handler.removeCallbacks(desanexarPendente);
+        if (registro == null && !suspenso) {
+            anexar();
+        }
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        emSegundoPlano = true;
+        handler.removeCallbacks(desanexarPendente);
+        if (!fonteDaRedeLocal) {
+            handler.postDelayed(desanexarPendente, carenciaMillis);
+        }
+    }
+
+    // =====================================================================
+    //  Ligar / desligar o listener
+    // =====================================================================
+
+    private void anexar() {
+        // Observação adaptativa: tempo real, consulta periódica ou manual conforme rede/bateria
+        registro = repository.observarEnqueteAdaptativo(new EnqueteRepository.EnqueteListener() {
+            @Override
+            public void onEnqueteAtualizada(Enquete enquete) {
+                contabilizar(enquete);
+                ultimaEnquete = enquete;
+                destino.onEnqueteAtualizada(enquete);
+            }
+
+            @Override
+            public void onErro(@Nullable Exception e) {
+                destino.onErro(e);
+            }
+        });
+        registro.setTempoRealObrigatorio(fonteDaRedeLocal);
+        registro.setAoMudarModo(aoMudarEstado);
+        avisarMudanca();
+    }
+
+    private void desanexar() {
+        if (registro == null || fonteDaRedeLocal) return;
+        registro.remove();
+        registro = null;
+        enqueteNaPausa = ultimaEnquete;
+        aguardandoServidorAposRetorno = enqueteNaPausa != null;
+        estatisticas.registrarPausa();
+        avisarMudanca();
+    }
+
+    private void avisarMudanca() {
+        if (aoMudarEstado != null) aoMudarEstado.run();
+    }
+
+    /**
+     * Atualiza os contadores de segundo plano a cada snapshot recebido.
+     */
+    private void contabilizar(Enquete enquete) {
+        long bytes = estimarBytes(enquete);
+
+        if (emSegundoPlano) {
+            estatisticas.registrarRecebidoSegundoPlano(bytes);
+        }
+
+        // Primeiro snapshot do servidor após religar (entregue mesmo sem dado novo, o listener
+        // inclui mudanças de metadados): cada voto a mais é um snapshot que não recebemos
+        if (aguardandoServidorAposRetorno && !enquete.isDoCache() && enqueteNaPausa != null) {
+            long antes = enquete.getRodada() == enqueteNaPausa.getRodada() ? total(enqueteNaPausa) : 0;
+            estatisticas.registrarEvitados(total(enquete) - antes, bytes);
+            aguardandoServidorAposRetorno = false;
+            enqueteNaPausa = null;
+        }
+    }
+
+    private long estimarBytes(Enquete enquete) {
+        return EstatisticasSegundoPlano.estimarTamanhoDocumento(
+                repository.getCaminhoEnquete(), enquete.toMap());
+    }
+
+    private static long total(Enquete enquete) {
+        return enquete.getOpcaoA() + enquete.getOpcaoB() + enquete.getOpcaoC();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.a3_teste_paineldevotao.data;
+
+/**
+ * Parâmetros da atualização adaptativa dos resultados.
+ *
+ * Regras de escolha do modo ({@link #decidir}):
+ * - Sem conexão, ou economia de bateria em rede limitada: MANUAL.
+ * - Economia de bateria, ou rede limitada com documento "quente"
+ *   (muitas mudanças por minuto): CONSULTA_PERIODICA.
+ * - Caso contrário: TEMPO_REAL.
+ *
+ * Para não ficar alternando, em rede limitada só voltamos ao tempo real
+ * quando a taxa cai abaixo da metade do limite.
+ */
+public class PoliticaAtualizacao {
+
+    public final long intervaloBaseMillis;
+    public final long intervaloMaximoMillis;
+    public final int limiteMudancasPorMinuto;
+    public final long janelaTaxaMillis;
+    public final long reavaliacaoMillis;
+
+    /**
+     * Valores padrão usados pelo app.
+     */
+    public PoliticaAtualizacao() {
+        this(5_000L, 60_000L, 30, 60_000L, 30_000L);
+    }
+
+    /**
+     * @param intervaloBaseMillis     intervalo inicial entre consultas
+     * @param intervaloMaximoMillis   teto do backoff (dobra quando nada muda ou há erro)
+     * @param limiteMudancasPorMinuto acima disso, em rede limitada, deixamos o tempo real
+     * @param janelaTaxaMillis        janela usada para medir a taxa de mudanças
+     * @param reavaliacaoMillis       de quanto em quanto tempo o modo é reavaliado
+     */
+    public PoliticaAtualizacao(long intervaloBaseMillis,
+                               long intervaloMaximoMillis,
+                               int limiteMudancasPorMinuto,
+                               long janelaTaxaMillis,
+                               long reavaliacaoMillis) {
+        this.intervaloBaseMillis = intervaloBaseMillis;
+        this.intervaloMaximoMillis = intervaloMaximoMillis;
+        this.limiteMudancasPorMinuto = limiteMudancasPorMinuto;
+        this.janelaTaxaMillis = janelaTaxaMillis;
+        this.reavaliacaoMillis = reavaliacaoMillis;
+    }
+
+    /**
+     * Escolhe o modo de atualização para as condições atuais.
+     *
+     * @param estado             conectividade e bateria
+     * @param mudancasPorMinuto  taxa observada de mudanças no documento
+     * @param modoAtual          modo em uso (para a histerese)
+     */
+    public ModoAtualizacao decidir(EstadoAparelho estado,
+                                   double mudancasPorMinuto,
+                                   ModoAtualizacao modoAtual) {
+        boolean limitada = estado.isRedeLimitada();
+        boolean economia = estado.isEconomiaBateria();
+
+        if (!estado.isConectado() || (economia && limitada)) {
+            return ModoAtualizacao.MANUAL;
+        }
+        if (economia) {
+            return ModoAtualizacao.CONSULTA_PERIODICA;
+        }
+        if (limitada) {
+            double limite = modoAtual == ModoAtualizacao.CONSULTA_PERIODICA
+                    ? limiteMudancasPorMinuto / 2.0
+                    : limiteMudancasPorMinuto;
+            if (mudancasPorMinuto > limite) {
+                return ModoAtualizacao.CONSULTA_PERIODICA;
+            }
+        }
+        return ModoAtualizacao.TEMPO_REAL;
+    }
+}
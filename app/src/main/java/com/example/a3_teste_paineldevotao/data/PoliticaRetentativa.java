@@ -0,0 +1,70 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.util.Random;
+
+/**
+ * Quantas vezes e com que espera repetir uma escrita que falhou.
+ *
+ * A espera segue backoff exponencial com "jitter completo": na tentativa n,
+ * um valor aleatório entre 0 e min(teto, base * 2^(n-1)). Assim, vários
+ * aparelhos que falharam juntos (ex.: no último minuto da votação) não
+ * voltam todos ao mesmo tempo.
+ *
+ * Só erros transitórios do Firestore são repetidos; erros de permissão,
+ * argumento inválido etc. falham na hora.
+ */
+public class PoliticaRetentativa {
+
+    public final int maxTentativas;
+    public final long atrasoBaseMillis;
+    public final long atrasoMaximoMillis;
+
+    /**
+     * Valores padrão usados pelo app: até 4 tentativas, esperas de até 250 ms, 500 ms e 1 s.
+     */
+    public PoliticaRetentativa() {
+        this(4, 250L, 4_000L);
+    }
+
+    /**
+     * @param maxTentativas      total de tentativas, contando a primeira
+     * @param atrasoBaseMillis   teto da espera antes da segunda tentativa
+     * @param atrasoMaximoMillis teto da espera entre quaisquer tentativas
+     */
+    public PoliticaRetentativa(int maxTentativas, long atrasoBaseMillis, long atrasoMaximoMillis) {
+        this.maxTentativas = maxTentativas;
+        this.atrasoBaseMillis = atrasoBaseMillis;
+        this.atrasoMaximoMillis = atrasoMaximoMillis;
+    }
+
+    /**
+     * Espera antes da próxima tentativa.
+     *
+     * @param tentativaQueFalhou número da tentativa que acabou de falhar (1 = primeira)
+     */
+    public long calcularAtraso(int tentativaQueFalhou, Random aleatorio) {
+        int expoente = Math.min(tentativaQueFalhou - 1, 30);
+        long teto = Math.min(atrasoMaximoMillis, atrasoBaseMillis << expoente);
+        return (long) (aleatorio.nextDouble() * teto);
+    }
+
+    /**
+     * Vale a pena tentar de novo? Apenas para falhas passageiras do servidor/rede.
+     */
+    public boolean ehTransitoria(Exception erro) {
+        if (!(erro instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) erro).getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case ABORTED:
+            case RESOURCE_EXHAUSTED:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Source;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Relógio corrigido pelo horário do servidor do Firestore.
+ *
+ * O horário do aparelho do aluno pode estar adiantado ou atrasado; por isso
+ * guardamos a diferença (offset) entre o relógio local e o do servidor e
+ * usamos {@link #agora()} sempre que for preciso comparar com o horário de
+ * encerramento da enquete.
+ *
+ * A calibração grava um serverTimestamp em um documento próprio do votante
+ * e o lê de volta (uma escrita e uma leitura no servidor). O offset medido fica
+ * salvo em SharedPreferences e vale por {@link #VALIDADE_MS}: nesse prazo os
+ * próximos inícios do app não tocam no Firestore. Se o relógio do aparelho foi
+ * acertado ou o aparelho reiniciou desde a medição, o offset salvo é medido de novo.
+ *
+ * Estrutura no Firestore:
+ *   enquetes/enquete_geral/relogio/{voterId}
+ */
+public class RelogioServidor {
+
+    private static final String PREFS = "relogio_servidor";
+    private static final String CHAVE_OFFSET = "offset_ms";
+    private static final String CHAVE_MEDIDO_EM = "medido_em_ms";
+    private static final String CHAVE_BASE = "base_ms";
+
+    /** Por quanto tempo um offset medido dispensa nova calibração. */
+    public static final long VALIDADE_MS = 24 * 60 * 60 * 1000L;
+
+    // Acerto do relógio ou reinício desde a medição: desvio da base acima disto invalida o offset
+    private static final long TOLERANCIA_BASE_MS = 2_000L;
+
+    private final SharedPreferences prefs;
+    private volatile long offsetMillis;
+    private boolean calibrado;
+
+    public RelogioServidor(Context context) {
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.offsetMillis = prefs.getLong(CHAVE_OFFSET, 0L);
+    }
+
+    /**
+     * Horário atual estimado do servidor, em epoch millis.
+     */
+    public long agora() {
+        return System.currentTimeMillis() + offsetMillis;
+    }
+
+    /**
+     * Diferença (servidor - aparelho) em milissegundos.
+     */
+    public long getOffsetMillis() {
+        return offsetMillis;
+    }
+
+    /**
+     * Mede o offset usando o documento informado, se o salvo não vale mais.
+     * Chamadas repetidas são ignoradas. Em caso de falha mantemos o último
+     * offset conhecido (ou zero).
+     *
+     * @param relogioRef documento exclusivo deste votante para a medição
+     */
+    public synchronized void calibrar(DocumentReference relogioRef) {
+        if (calibrado) return;
+        calibrado = true;
+        if (offsetSalvoValido()) return;
+
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("agora", FieldValue.serverTimestamp());
+
+        final long inicio = System.currentTimeMillis();
+        relogioRef.set(dados)
+                .addOnSuccessListener(unused -> {
+                    // O servidor carimbou o horário em algum ponto entre o envio e a confirmação
+                    final long meio = (inicio + System.currentTimeMillis()) / 2;
+                    relogioRef.get(Source.SERVER)
+                            .addOnSuccessListener(snapshot -> {
+                                Timestamp ts = snapshot.getTimestamp("agora");
+                                if (ts == null) return;
+                                offsetMillis = ts.toDate().getTime() - meio;
+                                prefs.edit()
+                                        .putLong(CHAVE_OFFSET, offsetMillis)
+                                        .putLong(CHAVE_MEDIDO_EM, System.currentTimeMillis())
+                                        .putLong(CHAVE_BASE, base())
+                                        .apply();
+                            })
+                            .addOnFailureListener(e -> liberarNovaCalibracao());
+                })
+                .addOnFailureListener(e -> liberarNovaCalibracao());
+    }
+
+    /**
+     * Offset salvo ainda vale: medido há menos de {@link #VALIDADE_MS} e com o relógio
+     * do aparelho andando junto com o tempo desde o boot (ninguém o acertou).
+     */
+    private boolean offsetSalvoValido() {
+        long medidoEm = prefs.getLong(CHAVE_MEDIDO_EM, 0L);
+        if (medidoEm == 0L) return false;
+        long idade = System.currentTimeMillis() - medidoEm;
+        return idade >= 0 && idade < VALIDADE_MS
+                && Math.abs(base() - prefs.getLong(CHAVE_BASE, 0L)) < TOLERANCIA_BASE_MS;
+    }
+
+    /**
+     * Instante do boot pelo relógio do aparelho: só muda se o relógio for acertado
+     * (ou o aparelho reiniciar).
+     */
+    private static long base() {
+        return System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    }
+
+    private synchronized void liberarNovaCalibracao() {
+        calibrado = false;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Palavras mais frequentes das respostas livres em memória limitada
+ * (algoritmo Space-Saving, Metwally et al.).
+ *
+ * Guarda no máximo {@code capacidade} palavras. Uma palavra nova com o resumo
+ * cheio ocupa o lugar da menos contada e herda a contagem dela como erro:
+ * a contagem é um limite superior e (contagem - erro) um limite inferior.
+ * Palavras que aparecem mais que total/capacidade vezes nunca são perdidas.
+ *
+ * Cada registro custa O(log capacidade), qualquer que seja o número de palavras
+ * diferentes. Resumos de fragmentos diferentes são combinados por {@link #mesclar}.
+ *
+ * Classe sem dependência de Android/Firestore para poder ser testada isoladamente.
+ */
+public class ResumoPalavras {
+
+    /**
+     * Uma palavra do resumo.
+     */
+    public static class Entrada {
+        public final String palavra;
+        public final long contagem; // limite superior
+        public final long erro;     // contagem - erro é o limite inferior
+
+        public Entrada(String palavra, long contagem, long erro) {
+            this.palavra = palavra;
+            this.contagem = contagem;
+            this.erro = erro;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entrada)) return false;
+            Entrada outra = (Entrada) o;
+            return contagem == outra.contagem && erro == outra.erro && palavra.equals(outra.palavra);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(palavra, contagem, erro);
+        }
+    }
+
+    // Menor contagem primeiro; empate pela palavra, para a ordem ser total
+    private static final Comparator<Entrada> POR_CONTAGEM = (a, b) -> {
+        int c = Long.compare(a.contagem, b.contagem);
+        return c != 0 ? c : a.palavra.compareTo(b.palavra);
+    };
+
+    private final int capacidade;
+    private final Map<String, Entrada> porPalavra = new HashMap<>();
+    private final TreeSet<Entrada> ordenadas = new TreeSet<>(POR_CONTAGEM);
+    private long total;
+
+    public ResumoPalavras(int capacidade) {
+        if (capacidade <= 0) throw new IllegalArgumentException("Capacidade deve ser positiva.");
+        this.capacidade = capacidade;
+    }
+
+    /**
+     * Reconstrói um resumo salvo (ex.: fragmento no Firestore).
+     */
+    public static ResumoPalavras de(int capacidade, Map<String, Long> contagens,
+                                    Map<String, Long> erros, long total) {
+        ResumoPalavras resumo = new ResumoPalavras(capacidade);
+        for (Map.Entry<String, Long> e : contagens.entrySet()) {
+            Long erro = erros.get(e.getKey());
+            resumo.colocar(new Entrada(e.getKey(), e.getValue(), erro != null ? erro : 0));
+        }
+        // Salvo com capacidade maior: descarta os menores
+        while (resumo.ordenadas.size() > capacidade) {
+            resumo.porPalavra.remove(resumo.ordenadas.pollFirst().palavra);
+        }
+        resumo.total = total;
+        return resumo;
+    }
+
+    public void registrar(String palavra) {
+        registrar(palavra, 1);
+    }
+
+    public void registrar(String palavra, long quantidade) {
+        total += quantidade;
+        Entrada atual = porPalavra.get(palavra);
+        if (atual != null) {
+            ordenadas.remove(atual);
+            colocar(new Entrada(palavra, atual.contagem + quantidade, atual.erro));
+        } else if (porPalavra.size() < capacidade) {
+            colocar(new Entrada(palavra, quantidade, 0));
+        } else {
+            Entrada menor = ordenadas.pollFirst();
+            porPalavra.remove(menor.palavra);
+            colocar(new Entrada(palavra, menor.contagem + quantidade, menor.contagem));
+        }
+    }
+
+    private void colocar(Entrada entrada) {
+        porPalavra.put(entrada.palavra, entrada);
+        ordenadas.add(entrada);
+    }
+
+    /**
+     * As {@code n} palavras de maior contagem, da maior para a menor.
+     */
+    public List<Entrada> getMaisFrequentes(int n) {
+        List<Entrada> lista = new ArrayList<>(Math.min(n, ordenadas.size()));
+        for (Entrada e : ordenadas.descendingSet()) {
+            if (lista.size() == n) break;
+            lista.add(e);
+        }
+        return lista;
+    }
+
+    /**
+     * Contagem de qualquer palavra fora do resumo é no máximo este valor.
+     */
+    public long getMinimo() {
+        return porPalavra.size() < capacidade || ordenadas.isEmpty() ? 0 : ordenadas.first().contagem;
+    }
+
+    /**
+     * Total de registros (inclusive de palavras que já saíram do resumo).
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getTamanho() {
+        return porPalavra.size();
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public Map<String, Long> getContagens() {
+        Map<String, Long> mapa = new HashMap<>();
+        for (Entrada e : porPalavra.values()) mapa.put(e.palavra, e.contagem);
+        return mapa;
+    }
+
+    public Map<String, Long> getErros() {
+        Map<String, Long> mapa = new HashMap<>();
+        for (Entrada e : porPalavra.values()) {
+            if (e.erro > 0) mapa.put(e.palavra, e.erro);
+        }
+        return mapa;
+    }
+
+    /**
+     * Combina resumos de fluxos disjuntos (fragmentos). Uma palavra ausente de um
+     * resumo cheio pode ter até o mínimo dele naquele fragmento: esse valor entra
+     * na contagem e no erro, mantendo os limites válidos.
+     */
+    public static ResumoPalavras mesclar(Collection<ResumoPalavras> partes, int capacidade) {
+        Map<String, long[]> somas = new HashMap<>(); // palavra -> {contagem, erro}
+        long total = 0;
+        for (ResumoPalavras parte : partes) {
+            total += parte.total;
+            for (Entrada e : parte.porPalavra.values()) {
+                long[] soma = somas.get(e.palavra);
+                if (soma == null) somas.put(e.palavra, soma = new long[2]);
+                soma[0] += e.contagem;
+                soma[1] += e.erro;
+            }
+        }
+        for (ResumoPalavras parte : partes) {
+            long minimo = parte.getMinimo();
+            if (minimo == 0) continue;
+            for (Map.Entry<String, long[]> soma : somas.entrySet()) {
+                if (!parte.porPalavra.containsKey(soma.getKey())) {
+                    soma.getValue()[0] += minimo;
+                    soma.getValue()[1] += minimo;
+                }
+            }
+        }
+
+        ResumoPalavras resultado = new ResumoPalavras(capacidade);
+        for (Map.Entry<String, long[]> soma : somas.entrySet()) {
+            resultado.colocar(new Entrada(soma.getKey(), soma.getValue()[0], soma.getValue()[1]));
+        }
+        while (resultado.ordenadas.size() > capacidade) {
+            resultado.porPalavra.remove(resultado.ordenadas.pollFirst().palavra);
+        }
+        resultado.total = total;
+        return resultado;
+    }
+}
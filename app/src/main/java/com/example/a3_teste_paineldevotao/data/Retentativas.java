@@ -0,0 +1,100 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Camada de retentativa usada por todas as escritas do repositório.
+ *
+ * O fornecedor passado a {@link #executar} é chamado uma vez por tentativa e
+ * deve ser idempotente: quem chama gera a chave de idempotência da operação
+ * lógica ANTES e a reutiliza em todas as tentativas, para que uma tentativa
+ * cuja resposta se perdeu (mas que gravou no servidor) não conte duas vezes.
+ */
+public class Retentativas {
+
+    // Conclusão das tentativas tratada na própria thread de entrega da Task
+    private static final Executor DIRETO = Runnable::run;
+
+    private final PoliticaRetentativa politica;
+    private final Agendador agendador;
+    private final Random aleatorio;
+    private final MetricasRetentativa metricas = new MetricasRetentativa();
+
+    public Retentativas(PoliticaRetentativa politica, Agendador agendador, Random aleatorio) {
+        this.politica = politica;
+        this.agendador = agendador;
+        this.aleatorio = aleatorio;
+    }
+
+    public MetricasRetentativa getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * O erro é dos que a política repete (rede/servidor fora do ar, conflito, cota)?
+     */
+    public boolean ehTransitoria(@Nullable Exception erro) {
+        return erro != null && politica.ehTransitoria(erro);
+    }
+
+    /**
+     * Executa a operação, repetindo falhas transitórias conforme a política.
+     * A Task devolvida falha com o erro da última tentativa.
+     *
+     * @param operacao  nome usado nas métricas (ex.: "registrarVoto")
+     * @param tentativa cria a Task de uma tentativa
+     */
+    public <T> Task<T> executar(String operacao, Supplier<Task<T>> tentativa) {
+        TaskCompletionSource<T> resultado = new TaskCompletionSource<>();
+        metricas.registrarOperacao(operacao);
+        tentar(operacao, tentativa, 1, resultado);
+        return resultado.getTask();
+    }
+
+    private <T> void tentar(String operacao,
+                            Supplier<Task<T>> tentativa,
+                            int numero,
+                            TaskCompletionSource<T> resultado) {
+        metricas.registrarTentativa(operacao);
+
+        Task<T> task;
+        try {
+            task = tentativa.get();
+        } catch (RuntimeException e) {
+            task = Tasks.forException(e);
+        }
+
+        task.addOnCompleteListener(DIRETO, concluida -> {
+            if (concluida.isSuccessful()) {
+                if (numero > 1) metricas.registrarSucessoAposRetentativa(operacao);
+                resultado.setResult(concluida.getResult());
+                return;
+            }
+
+            Exception erro = concluida.getException();
+            if (erro == null) {
+                erro = new CancellationException(operacao + " cancelada.");
+            }
+
+            if (!politica.ehTransitoria(erro)) {
+                metricas.registrarFalhaDefinitiva(operacao);
+                resultado.setException(erro);
+            } else if (numero >= politica.maxTentativas) {
+                metricas.registrarDesistencia(operacao);
+                resultado.setException(erro);
+            } else {
+                long atraso = politica.calcularAtraso(numero, aleatorio);
+                agendador.agendar(() -> tentar(operacao, tentativa, numero + 1, resultado), atraso);
+            }
+        });
+    }
+}
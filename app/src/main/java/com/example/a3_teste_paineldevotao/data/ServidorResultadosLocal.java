@@ -0,0 +1,417 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.PlacarResultados;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servidor de resultados na rede local, rodando no aparelho do professor.
+ *
+ * Os alunos na mesma rede abrem "GET /resultados" e recebem os contadores
+ * como Server-Sent Events (text/event-stream): a primeira mensagem traz o
+ * placar completo e as seguintes só os campos que mudaram ({@link PlacarResultados}).
+ * Assim, cada voto sai uma vez pela internet (para o Firestore) e chega aos
+ * alunos pela rede local, sem um listener do Firestore por aparelho.
+ *
+ * - Uma única thread com Selector atende todas as conexões (I/O não bloqueante).
+ * - Publicações seguidas são agrupadas: no máximo uma mensagem a cada
+ *   {@link #INTERVALO_ENVIO_MS}, sempre com o placar mais recente.
+ * - Um comentário SSE a cada {@link #INTERVALO_PULSO_MS} permite ao cliente
+ *   perceber que o servidor sumiu (ver {@link ClienteResultadosLocal}).
+ * - Cliente que não consome as mensagens (buffer de saída cheio) é desconectado;
+ *   ele volta a usar o Firestore.
+ *
+ * Classe sem dependência de Android para poder ser testada pela interface de loopback.
+ */
+public class ServidorResultadosLocal {
+
+    public static final int PORTA_PADRAO = 8787;
+    public static final String CAMINHO = "/resultados";
+
+    public static final long INTERVALO_ENVIO_MS = 250L;
+    public static final long INTERVALO_PULSO_MS = 15_000L;
+
+    static final int LIMITE_CONEXOES = 1024;
+    static final int LIMITE_REQUISICAO = 4 * 1024;
+    static final int LIMITE_SAIDA = 64 * 1024;
+
+    private static final byte[] CABECALHO = ascii("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: text/event-stream\r\n"
+            + "Cache-Control: no-cache\r\n"
+            + "Connection: keep-alive\r\n"
+            + "Access-Control-Allow-Origin: *\r\n"
+            + "\r\n");
+    private static final byte[] NAO_ENCONTRADO = ascii("HTTP/1.1 404 Not Found\r\n"
+            + "Content-Length: 0\r\n"
+            + "Connection: close\r\n"
+            + "\r\n");
+    private static final byte[] PULSO = ascii(":\n\n");
+
+    /**
+     * Estado de uma conexão (acessado só pela thread do servidor).
+     */
+    private static class Conexao {
+        final SocketChannel canal;
+        final ByteBuffer entrada = ByteBuffer.allocate(LIMITE_REQUISICAO);
+        ByteBuffer saida = ByteBuffer.allocate(512); // em modo de escrita (dados em [0, position))
+        boolean inscrita;        // já respondeu ao GET e recebe as mensagens
+        boolean fecharAposEnvio;
+
+        Conexao(SocketChannel canal) {
+            this.canal = canal;
+        }
+    }
+
+    private final AtomicReference<PlacarResultados> atual = new AtomicReference<>();
+    private final AtomicInteger clientes = new AtomicInteger();
+    private final AtomicInteger mensagens = new AtomicInteger();
+
+    @Nullable private volatile Selector selector;
+    @Nullable private ServerSocketChannel servidor;
+    @Nullable private Thread thread;
+    private volatile boolean rodando;
+
+    // Só na thread do servidor
+    private final List<Conexao> inscritas = new ArrayList<>();
+    @Nullable private PlacarResultados ultimoEnviado;
+    private long proximoEnvioNanos;
+    private long proximoPulsoNanos;
+
+    /**
+     * Abre a porta e começa a atender (porta 0 escolhe uma porta livre).
+     */
+    public synchronized void iniciar(int porta) throws IOException {
+        if (rodando) return;
+        Selector novoSelector = Selector.open();
+        ServerSocketChannel canal = ServerSocketChannel.open();
+        try {
+            canal.configureBlocking(false);
+            canal.socket().setReuseAddress(true);
+            canal.socket().bind(new InetSocketAddress(porta), 256);
+            canal.register(novoSelector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            fecharSilenciosamente(canal);
+            novoSelector.close();
+            throw e;
+        }
+
+        selector = novoSelector;
+        servidor = canal;
+        rodando = true;
+        thread = new Thread(this::executar, "servidor-resultados");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Fecha a porta e todas as conexões.
+     */
+    public synchronized void parar() {
+        if (!rodando) return;
+        rodando = false;
+        Selector s = selector;
+        if (s != null) s.wakeup();
+    }
+
+    public boolean isRodando() {
+        return rodando;
+    }
+
+    /**
+     * Porta em uso (útil quando iniciado com porta 0), ou -1 se parado.
+     */
+    public int getPorta() {
+        ServerSocketChannel canal = servidor;
+        return rodando && canal != null ? canal.socket().getLocalPort() : -1;
+    }
+
+    public int getQuantidadeClientes() {
+        return clientes.get();
+    }
+
+    /**
+     * Mensagens de placar difundidas (cada uma vai para todos os clientes conectados).
+     */
+    public int getMensagensEnviadas() {
+        return mensagens.get();
+    }
+
+    /**
+     * Novo placar; pode ser chamado de qualquer thread. Placares publicados dentro do
+     * mesmo intervalo de envio são agrupados e só o último é enviado.
+     */
+    public void publicar(PlacarResultados placar) {
+        PlacarResultados anterior = atual.getAndSet(placar);
+        Selector s = selector;
+        if (s != null && !placar.equals(anterior)) s.wakeup();
+    }
+
+    /**
+     * Endereço IPv4 deste aparelho na rede local (ex.: Wi-Fi), ou null se não houver.
+     */
+    @Nullable
+    public static String enderecoNaRede() {
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            if (interfaces == null) return null;
+            for (NetworkInterface rede : Collections.list(interfaces)) {
+                if (!rede.isUp() || rede.isLoopback()) continue;
+                for (InetAddress endereco : Collections.list(rede.getInetAddresses())) {
+                    if (endereco instanceof Inet4Address && endereco.isSiteLocalAddress()) {
+                        return endereco.getHostAddress();
+                    }
+                }
+            }
+        } catch (SocketException ignored) {
+            // Sem interfaces legíveis: trata como sem rede local
+        }
+        return null;
+    }
+
+    // =====================================================================
+    //  Laço da thread do servidor
+    // =====================================================================
+
+    private void executar() {
+        Selector s = selector;
+        try {
+            ultimoEnviado = null;
+            proximoEnvioNanos = System.nanoTime();
+            proximoPulsoNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERVALO_PULSO_MS);
+            while (rodando) {
+                s.select(esperaMillis());
+                if (!rodando) break;
+
+                Iterator<SelectionKey> chaves = s.selectedKeys().iterator();
+                while (chaves.hasNext()) {
+                    SelectionKey chave = chaves.next();
+                    chaves.remove();
+                    tratar(chave);
+                }
+
+                long agora = System.nanoTime();
+                PlacarResultados placar = atual.get();
+                if (placar != null && !placar.equals(ultimoEnviado) && agora >= proximoEnvioNanos) {
+                    difundir(placar);
+                    proximoEnvioNanos = agora + TimeUnit.MILLISECONDS.toNanos(INTERVALO_ENVIO_MS);
+                }
+                if (agora >= proximoPulsoNanos) {
+                    for (Conexao conexao : new ArrayList<>(inscritas)) enfileirar(conexao, PULSO);
+                    proximoPulsoNanos = agora + TimeUnit.MILLISECONDS.toNanos(INTERVALO_PULSO_MS);
+                }
+            }
+        } catch (IOException e) {
+            rodando = false;
+        } finally {
+            for (SelectionKey chave : s.keys()) fecharSilenciosamente(chave.channel());
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // Já encerrando
+            }
+            inscritas.clear();
+            clientes.set(0);
+            if (selector == s) selector = null;
+        }
+    }
+
+    /**
+     * Quanto o select pode esperar: até o próximo envio agrupado ou o próximo pulso.
+     */
+    private long esperaMillis() {
+        long agora = System.nanoTime();
+        long limite = proximoPulsoNanos;
+        PlacarResultados placar = atual.get();
+        if (placar != null && !placar.equals(ultimoEnviado)) {
+            limite = Math.min(limite, proximoEnvioNanos);
+        }
+        // select(0) bloqueia sem prazo: espera mínima de 1 ms
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(limite - agora));
+    }
+
+    private void tratar(SelectionKey chave) {
+        if (!chave.isValid()) return;
+        try {
+            if (chave.isAcceptable()) {
+                aceitar();
+                return;
+            }
+            Conexao conexao = (Conexao) chave.attachment();
+            if (chave.isReadable()) ler(chave, conexao);
+            if (chave.isValid() && chave.isWritable()) escrever(chave, conexao);
+        } catch (IOException e) {
+            fechar(chave);
+        }
+    }
+
+    private void aceitar() throws IOException {
+        SocketChannel canal;
+        while ((canal = servidor.accept()) != null) {
+            if (selector.keys().size() > LIMITE_CONEXOES) {
+                fecharSilenciosamente(canal);
+                continue;
+            }
+            canal.configureBlocking(false);
+            canal.socket().setTcpNoDelay(true);
+            canal.register(selector, SelectionKey.OP_READ, new Conexao(canal));
+        }
+    }
+
+    private void ler(SelectionKey chave, Conexao conexao) throws IOException {
+        if (conexao.inscrita) {
+            // Depois da requisição o cliente só escuta; qualquer dado é descartado
+            ByteBuffer descarte = conexao.entrada;
+            descarte.clear();
+            if (conexao.canal.read(descarte) < 0) fechar(chave);
+            descarte.clear();
+            return;
+        }
+
+        if (conexao.canal.read(conexao.entrada) < 0) {
+            fechar(chave);
+            return;
+        }
+        String requisicao = new String(conexao.entrada.array(), 0,
+                conexao.entrada.position(), StandardCharsets.ISO_8859_1);
+        if (!requisicao.contains("\r\n\r\n")) {
+            // Cabeçalho incompleto: aguarda mais dados, a menos que já tenha passado do limite
+            if (!conexao.entrada.hasRemaining()) fechar(chave);
+            return;
+        }
+        conexao.entrada.clear();
+
+        if (CAMINHO.equals(caminho(requisicao))) {
+            conexao.inscrita = true;
+            inscritas.add(conexao);
+            clientes.incrementAndGet();
+            enfileirar(conexao, CABECALHO);
+            if (ultimoEnviado != null) enfileirar(conexao, mensagem(ultimoEnviado.delta(null)));
+        } else {
+            conexao.fecharAposEnvio = true;
+            enfileirar(conexao, NAO_ENCONTRADO);
+        }
+    }
+
+    /**
+     * Caminho de "GET /caminho?consulta HTTP/1.1", ou null para outros métodos.
+     */
+    @Nullable
+    static String caminho(String requisicao) {
+        int fimLinha = requisicao.indexOf("\r\n");
+        String[] partes = requisicao.substring(0, fimLinha).split(" ");
+        if (partes.length < 2 || !"GET".equals(partes[0])) return null;
+        String alvo = partes[1];
+        int consulta = alvo.indexOf('?');
+        return consulta >= 0 ? alvo.substring(0, consulta) : alvo;
+    }
+
+    private void escrever(SelectionKey chave, Conexao conexao) throws IOException {
+        ByteBuffer saida = conexao.saida;
+        saida.flip();
+        conexao.canal.write(saida);
+        saida.compact();
+
+        if (saida.position() > 0) {
+            chave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else if (conexao.fecharAposEnvio) {
+            fechar(chave);
+        } else {
+            chave.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    // =====================================================================
+    //  Mensagens
+    // =====================================================================
+
+    /**
+     * Envia a todos os inscritos a diferença em relação ao último placar enviado.
+     * Quem se inscreveu depois recebeu o último placar completo, então a mesma
+     * diferença vale para todos.
+     */
+    private void difundir(PlacarResultados placar) {
+        byte[] bytes = mensagem(placar.delta(ultimoEnviado));
+        ultimoEnviado = placar;
+        mensagens.incrementAndGet();
+        for (Conexao conexao : new ArrayList<>(inscritas)) enfileirar(conexao, bytes);
+    }
+
+    private static byte[] mensagem(String linha) {
+        return ascii("data: " + linha + "\n\n");
+    }
+
+    /**
+     * Coloca os bytes na saída da conexão e tenta enviar na hora; o restante sai
+     * quando o canal aceitar mais dados (OP_WRITE).
+     */
+    private void enfileirar(Conexao conexao, byte[] bytes) {
+        SelectionKey chave = conexao.canal.keyFor(selector);
+        if (chave == null || !chave.isValid()) return;
+
+        ByteBuffer saida = conexao.saida;
+        if (saida.remaining() < bytes.length) {
+            int necessario = saida.position() + bytes.length;
+            if (necessario > LIMITE_SAIDA) {
+                // Cliente lento demais: ele volta ao Firestore
+                fechar(chave);
+                return;
+            }
+            ByteBuffer maior = ByteBuffer.allocate(Math.min(LIMITE_SAIDA,
+                    Math.max(necessario, saida.capacity() * 2)));
+            saida.flip();
+            maior.put(saida);
+            conexao.saida = saida = maior;
+        }
+        saida.put(bytes);
+
+        try {
+            escrever(chave, conexao);
+        } catch (IOException e) {
+            fechar(chave);
+        }
+    }
+
+    private void fechar(SelectionKey chave) {
+        Object anexo = chave.attachment();
+        if (anexo instanceof Conexao && ((Conexao) anexo).inscrita && inscritas.remove(anexo)) {
+            clientes.decrementAndGet();
+        }
+        chave.cancel();
+        fecharSilenciosamente(chave.channel());
+    }
+
+    private static void fecharSilenciosamente(@Nullable Closeable canal) {
+        if (canal == null) return;
+        try {
+            canal.close();
+        } catch (IOException ignored) {
+            // Nada a fazer
+        }
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.a3_teste_paineldevotao.model.Cedula;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Urna do modo quiosque: um único tablet passa de mão em mão e registra
+ * várias cédulas, cada uma com id próprio.
+ *
+ * O voto é guardado localmente na hora (nenhuma espera pela rede entre um
+ * aluno e o próximo). As cédulas acumuladas são enviadas em lotes: cada lote
+ * grava todos os documentos de voto e UM incremento agregado por opção.
+ *
+ * A fila é persistida em SharedPreferences, então fechar o app não perde
+ * cédulas. Um lote interrompido é reenviado com o mesmo id, e o envio ignora
+ * lotes já aplicados (ver EnqueteRepository.enviarLoteCedulas).
+ *
+ * Falhas de envio não são registradas aqui: quem implementa {@link EnvioLote}
+ * decide como reportá-las; a urna só mantém o lote na fila e tenta de novo.
+ *
+ * Usada apenas na main thread.
+ */
+public class UrnaQuiosque {
+
+    private static final String PREFS = "urna_quiosque";
+    private static final String CHAVE_ATIVO = "modo_ativo";
+    private static final String CHAVE_CEDULAS = "cedulas_pendentes";
+
+    /** Com esta quantidade de cédulas na fila, o lote é enviado sem esperar o intervalo. */
+    public static final int TAMANHO_LOTE = 20;
+
+    /** Máximo por lote: cada cédula é uma escrita e a transação aceita até 500. */
+    public static final int LIMITE_LOTE = 400;
+
+    /** Espera máxima de uma cédula na fila antes do envio. */
+    public static final long INTERVALO_ENVIO_MS = 5_000L;
+
+    /**
+     * Quem efetivamente grava um lote no Firestore.
+     */
+    public interface EnvioLote {
+        Task<Void> enviar(String loteId, List<Cedula> cedulas);
+    }
+
+    private final SharedPreferences prefs;
+    private final LongSupplier relogio;
+    private final Agendador agendador;
+    private final EnvioLote envio;
+    private final Executor principal;
+
+    private final List<Cedula> pendentes = new ArrayList<>(); // em ordem de registro
+    @Nullable private Agendador.Tarefa envioAgendado;
+    private boolean enviando;
+    @Nullable private Runnable ouvinte;
+
+    public UrnaQuiosque(Context context, RelogioServidor relogio, Agendador agendador, EnvioLote envio) {
+        this(context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE),
+                relogio::agora, agendador, envio, ContextCompat.getMainExecutor(context));
+    }
+
+    /**
+     * Versão com dependências explícitas (usada nos testes com preferências em memória).
+     *
+     * @param relogio   horário (servidor) de registro das cédulas
+     * @param principal onde a conclusão dos envios é tratada (main thread no app)
+     */
+    UrnaQuiosque(SharedPreferences prefs, LongSupplier relogio, Agendador agendador,
+                 EnvioLote envio, Executor principal) {
+        this.prefs = prefs;
+        this.relogio = relogio;
+        this.agendador = agendador;
+        this.envio = envio;
+        this.principal = principal;
+        carregar();
+    }
+
+    // =====================================================================
+    //  Modo quiosque
+    // =====================================================================
+
+    public boolean isAtivo() {
+        return prefs.getBoolean(CHAVE_ATIVO, false);
+    }
+
+    /**
+     * Liga/desliga o modo quiosque. Ao desligar, o que estiver na fila é enviado.
+     */
+    public void setAtivo(boolean ativo) {
+        prefs.edit().putBoolean(CHAVE_ATIVO, ativo).apply();
+        if (!ativo) {
+            enviarAgora();
+        }
+        avisar();
+    }
+
+    /**
+     * Chamado (na main thread) quando a quantidade de cédulas pendentes muda.
+     */
+    public void setOuvinte(@Nullable Runnable aoMudar) {
+        this.ouvinte = aoMudar;
+    }
+
+    /**
+     * Cédulas registradas e ainda não confirmadas pelo servidor.
+     */
+    public int getPendentes() {
+        return pendentes.size();
+    }
+
+    // =====================================================================
+    //  Registro e envio
+    // =====================================================================
+
+    /**
+     * Registra uma cédula localmente e retorna na hora; o envio acontece depois, em lote.
+     *
+     * @param opcao "A", "B" ou "C"
+     */
+    public Cedula depositar(String opcao) {
+        Cedula cedula = new Cedula(UUID.randomUUID().toString(), opcao, relogio.getAsLong(), null);
+        pendentes.add(cedula);
+        salvar();
+        avisar();
+
+        if (contarSemLote() >= TAMANHO_LOTE) {
+            enviarAgora();
+        } else {
+            agendarEnvio();
+        }
+        return cedula;
+    }
+
+    /**
+     * Envia o próximo lote agora (ex.: app indo para segundo plano).
+     * Se já houver um envio em andamento, o próximo lote sai quando ele terminar.
+     */
+    public void enviarAgora() {
+        cancelarEnvioAgendado();
+        if (enviando || pendentes.isEmpty()) return;
+
+        final String loteId = montarLote();
+        List<Cedula> lote = new ArrayList<>();
+        for (Cedula cedula : pendentes) {
+            if (loteId.equals(cedula.getLote())) {
+                lote.add(cedula);
+            }
+        }
+
+        enviando = true;
+        envio.enviar(loteId, lote).addOnCompleteListener(principal, task -> {
+            enviando = false;
+            if (task.isSuccessful()) {
+                pendentes.removeIf(cedula -> loteId.equals(cedula.getLote()));
+                salvar();
+                avisar();
+                if (contarSemLote() >= TAMANHO_LOTE) {
+                    enviarAgora();
+                    return;
+                }
+            }
+            // Em caso de falha o lote continua na fila, com o mesmo id, para a próxima tentativa
+            if (!pendentes.isEmpty()) {
+                agendarEnvio();
+            }
+        });
+    }
+
+    /**
+     * Retoma o lote interrompido, se houver; senão atribui um novo lote
+     * às cédulas mais antigas da fila.
+     */
+    private String montarLote() {
+        for (Cedula cedula : pendentes) {
+            if (cedula.getLote() != null) {
+                return cedula.getLote();
+            }
+        }
+
+        String loteId = UUID.randomUUID().toString();
+        int quantidade = Math.min(LIMITE_LOTE, pendentes.size());
+        for (int i = 0; i < quantidade; i++) {
+            pendentes.set(i, pendentes.get(i).comLote(loteId));
+        }
+        // Persistido antes do envio: após reiniciar, o lote sai com o mesmo id
+        salvar();
+        return loteId;
+    }
+
+    private void agendarEnvio() {
+        if (envioAgendado != null || enviando) return;
+        envioAgendado = agendador.agendar(() -> {
+            envioAgendado = null;
+            enviarAgora();
+        }, INTERVALO_ENVIO_MS);
+    }
+
+    private void cancelarEnvioAgendado() {
+        if (envioAgendado != null) {
+            envioAgendado.cancelar();
+            envioAgendado = null;
+        }
+    }
+
+    private int contarSemLote() {
+        int total = 0;
+        for (Cedula cedula : pendentes) {
+            if (cedula.getLote() == null) total++;
+        }
+        return total;
+    }
+
+    private void avisar() {
+        if (ouvinte != null) ouvinte.run();
+    }
+
+    // =====================================================================
+    //  Persistência da fila
+    // =====================================================================
+
+    private void carregar() {
+        Set<String> salvas = prefs.getStringSet(CHAVE_CEDULAS, null);
+        if (salvas == null) return;
+        for (String texto : salvas) {
+            Cedula cedula = Cedula.desserializar(texto);
+            if (cedula != null) {
+                pendentes.add(cedula);
+            }
+        }
+        pendentes.sort(Comparator.comparingLong(Cedula::getRegistradaEmMillis));
+    }
+
+    private void salvar() {
+        Set<String> textos = new HashSet<>();
+        for (Cedula cedula : pendentes) {
+            textos.add(cedula.serializar());
+        }
+        prefs.edit().putStringSet(CHAVE_CEDULAS, textos).apply();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.a3_teste_paineldevotao.model;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Uma cédula registrada no modo quiosque (tablet compartilhado pela turma).
+ *
+ * Cada cédula tem id próprio, que vira o id do documento em "votos", então
+ * um mesmo aparelho pode registrar quantos votos forem necessários.
+ *
+ * Enquanto aguarda envio, a cédula fica guardada localmente como texto
+ * (ver {@link #serializar()}); o lote é atribuído quando ela entra em um envio.
+ */
+public class Cedula {
+
+    private final String id;
+    private final String opcao;          // "A", "B" ou "C"
+    private final long registradaEmMillis;
+    @Nullable private final String lote; // id do lote em envio, null enquanto só na fila
+
+    public Cedula(String id, String opcao, long registradaEmMillis, @Nullable String lote) {
+        this.id = id;
+        this.opcao = opcao;
+        this.registradaEmMillis = registradaEmMillis;
+        this.lote = lote;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOpcao() {
+        return opcao;
+    }
+
+    public long getRegistradaEmMillis() {
+        return registradaEmMillis;
+    }
+
+    @Nullable
+    public String getLote() {
+        return lote;
+    }
+
+    /**
+     * Cópia da cédula atribuída a um lote.
+     */
+    public Cedula comLote(String lote) {
+        return new Cedula(id, opcao, registradaEmMillis, lote);
+    }
+
+    /**
+     * Formato "id;opcao;millis;lote" (lote vazio quando ainda não atribuído).
+     */
+    public String serializar() {
+        return id + ";" + opcao + ";" + registradaEmMillis + ";" + (lote != null ? lote : "");
+    }
+
+    /**
+     * Lê o formato de {@link #serializar()}; devolve null se o texto estiver corrompido.
+     */
+    @Nullable
+    public static Cedula desserializar(String texto) {
+        String[] partes = texto.split(";", -1);
+        if (partes.length != 4) return null;
+        try {
+            String lote = partes[3].isEmpty() ? null : partes[3];
+            return new Cedula(partes[0], partes[1], Long.parseLong(partes[2]), lote);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.a3_teste_paineldevotao.model;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Votos por modelo de aparelho e por versão do Android, somados a partir dos
+ * fragmentos de estatística mantidos a cada voto (ver EnqueteRepository).
+ *
+ * Cada fragmento guarda dois mapas, "modelos" e "versoes", de nome para contagem.
+ */
+public class DistribuicaoAparelhos {
+
+    private final Map<String, Long> porModelo = new HashMap<>();
+    private final Map<String, Long> porVersao = new HashMap<>();
+
+    /**
+     * Soma um fragmento (mapas lidos do Firestore; valores ausentes são ignorados).
+     */
+    public void somarFragmento(@Nullable Map<String, Object> modelos,
+                               @Nullable Map<String, Object> versoes) {
+        somar(porModelo, modelos);
+        somar(porVersao, versoes);
+    }
+
+    /**
+     * Modelos em ordem decrescente de votos.
+     */
+    public List<Map.Entry<String, Long>> getPorModelo() {
+        return ordenar(porModelo);
+    }
+
+    /**
+     * Versões do Android em ordem decrescente de votos.
+     */
+    public List<Map.Entry<String, Long>> getPorVersao() {
+        return ordenar(porVersao);
+    }
+
+    public boolean isVazia() {
+        return porModelo.isEmpty() && porVersao.isEmpty();
+    }
+
+    private static void somar(Map<String, Long> destino, @Nullable Map<String, Object> origem) {
+        if (origem == null) return;
+        for (Map.Entry<String, Object> item : origem.entrySet()) {
+            if (item.getValue() instanceof Number) {
+                long valor = ((Number) item.getValue()).longValue();
+                if (valor > 0) {
+                    destino.merge(item.getKey(), valor, Long::sum);
+                }
+            }
+        }
+    }
+
+    private static List<Map.Entry<String, Long>> ordenar(Map<String, Long> contagens) {
+        List<Map.Entry<String, Long>> lista = new ArrayList<>(contagens.entrySet());
+        lista.sort((a, b) -> {
+            int porValor = Long.compare(b.getValue(), a.getValue());
+            return porValor != 0 ? porValor : a.getKey().compareTo(b.getKey());
+        });
+        return Collections.unmodifiableList(lista);
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.a3_teste_paineldevotao.model;
 
+import com.example.a3_teste_paineldevotao.esquema.CamposEnquete;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Modelo que representa a enquete armazenada no Firestore.
  *
  * Esta classe centraliza TODOS os campos da enquete:
- * - Textos de título e opções
+ * - Textos de título e opções (e imagens das opções, se houver)
  * - Contadores de votos
  *
  * Ela serve como “ponte” entre o Firestore e as Activities:
@@ -15,6 +23,8 @@ import java.util.Map;
  * - Cada Enquete pode ser convertida para Map ao salvar
  *
  * Mantemos simples de propósito, pois é justamente um modelo (dados puros).
+ * É imutável: cada snapshot gera uma nova Enquete, e alterações (ex.: voto
+ * otimista) geram cópias.
  */
 public class Enquete {
 
@@ -22,128 +32,270 @@ public class Enquete {
     //  Campos de configuração (textos exibidos na UI)
     // =====================================================================
 
-    private String tituloEnquete;
-    private String textoOpcaoA;
-    private String textoOpcaoB;
-    private String textoOpcaoC;
-    private String mensagemRodape;
-    private String dataHoraEncerramento; // formato sugerido: "yyyy-MM-dd HH:mm"
+    private final String tituloEnquete;
+    private final String textoOpcaoA;
+    private final String textoOpcaoB;
+    private final String textoOpcaoC;
+    private final String mensagemRodape;
+    private final String dataHoraEncerramento; // formato sugerido: "yyyy-MM-dd HH:mm"
+    private final long encerramentoMillis;     // epoch millis (0 = sem encerramento), lido de "encerramentoEm"
+    private final boolean respostaLivre;       // pergunta aberta: o aluno digita uma palavra em vez de A/B/C
+    private final ImagensOpcoes imagens;       // ids das miniaturas das opções
+    private final boolean modoQuiz;            // votos valem pontos (gabarito fica fora deste documento)
+    private final List<String> turmas;         // nomes das turmas (vazia = contagem única)
 
     // =====================================================================
     //  Contadores de votos
     // =====================================================================
 
-    private long opcaoA;
-    private long opcaoB;
-    private long opcaoC;
+    private final long opcaoA;
+    private final long opcaoB;
+    private final long opcaoC;
+
+    // Rodada da votação: incrementada a cada reset, separa votos de rodadas diferentes
+    private final long rodada;
 
     // =====================================================================
-    //  Construtores
+    //  Metadados do snapshot (não são salvos no Firestore)
     // =====================================================================
 
-    /**
-     * Construtor vazio.
-     * Necessário para o Firestore caso futuramente usemos snapshot.toObject(Enquete.class).
-     */
-    public Enquete() {
-    }
+    private final boolean doCache;            // snapshot veio do cache local, não do servidor
+    private final boolean escritasPendentes;  // há escritas locais ainda não confirmadas pelo servidor
+
+    // =====================================================================
+    //  Construtores
+    // =====================================================================
 
     /**
-     * Construtor completo, usado para criar a enquete padrão ou inicializar dados carregados.
+     * Construtor completo, usado para montar a enquete a partir de um snapshot.
      */
     public Enquete(String tituloEnquete,
                    String textoOpcaoA,
                    String textoOpcaoB,
                    String textoOpcaoC,
+                   String mensagemRodape,
+                   String dataHoraEncerramento,
+                   long encerramentoMillis,
                    long opcaoA,
                    long opcaoB,
-                   long opcaoC) {
+                   long opcaoC,
+                   long rodada,
+                   boolean respostaLivre,
+                   ImagensOpcoes imagens,
+                   boolean modoQuiz,
+                   List<String> turmas,
+                   boolean doCache,
+                   boolean escritasPendentes) {
 
         this.tituloEnquete = tituloEnquete;
         this.textoOpcaoA = textoOpcaoA;
         this.textoOpcaoB = textoOpcaoB;
         this.textoOpcaoC = textoOpcaoC;
+        this.mensagemRodape = mensagemRodape;
+        this.dataHoraEncerramento = dataHoraEncerramento;
+        this.encerramentoMillis = encerramentoMillis;
+        this.respostaLivre = respostaLivre;
+        this.imagens = imagens;
+        this.modoQuiz = modoQuiz;
+        this.turmas = Collections.unmodifiableList(new ArrayList<>(turmas));
         this.opcaoA = opcaoA;
         this.opcaoB = opcaoB;
         this.opcaoC = opcaoC;
+        this.rodada = rodada;
+        this.doCache = doCache;
+        this.escritasPendentes = escritasPendentes;
+    }
+
+    /**
+     * Enquete de opções (A/B/C) só com textos: sem resposta livre, imagens, quiz ou turmas.
+     */
+    public Enquete(String tituloEnquete,
+                   String textoOpcaoA,
+                   String textoOpcaoB,
+                   String textoOpcaoC,
+                   String mensagemRodape,
+                   String dataHoraEncerramento,
+                   long encerramentoMillis,
+                   long opcaoA,
+                   long opcaoB,
+                   long opcaoC,
+                   long rodada,
+                   boolean doCache,
+                   boolean escritasPendentes) {
+        this(tituloEnquete, textoOpcaoA, textoOpcaoB, textoOpcaoC, mensagemRodape,
+                dataHoraEncerramento, encerramentoMillis, opcaoA, opcaoB, opcaoC, rodada,
+                false, ImagensOpcoes.NENHUMA, false, Collections.emptyList(), doCache, escritasPendentes);
+    }
+
+    /**
+     * Textos e contadores apenas, usado para criar a enquete padrão.
+     */
+    public Enquete(String tituloEnquete,
+                   String textoOpcaoA,
+                   String textoOpcaoB,
+                   String textoOpcaoC,
+                   long opcaoA,
+                   long opcaoB,
+                   long opcaoC) {
+        this(tituloEnquete, textoOpcaoA, textoOpcaoB, textoOpcaoC, null, null, 0,
+                opcaoA, opcaoB, opcaoC, 0, false, false);
     }
 
     // =====================================================================
-    //  Getters e Setters
+    //  Getters
     // =====================================================================
 
-    // Mantidos simples para que o Repository manipule os valores quando carregar ou salvar.
-
     public String getTituloEnquete() {
         return tituloEnquete;
     }
 
-    public void setTituloEnquete(String tituloEnquete) {
-        this.tituloEnquete = tituloEnquete;
-    }
-
     public String getTextoOpcaoA() {
         return textoOpcaoA;
     }
 
-    public void setTextoOpcaoA(String textoOpcaoA) {
-        this.textoOpcaoA = textoOpcaoA;
-    }
-
     public String getTextoOpcaoB() {
         return textoOpcaoB;
     }
 
-    public void setTextoOpcaoB(String textoOpcaoB) {
-        this.textoOpcaoB = textoOpcaoB;
-    }
-
     public String getTextoOpcaoC() {
         return textoOpcaoC;
     }
 
-    public void setTextoOpcaoC(String textoOpcaoC) {
-        this.textoOpcaoC = textoOpcaoC;
-    }
-
     public String getMensagemRodape() {
         return mensagemRodape;
     }
 
-    public void setMensagemRodape(String mensagemRodape) {
-        this.mensagemRodape = mensagemRodape;
-    }
-
     public String getDataHoraEncerramento() {
         return dataHoraEncerramento;
     }
 
-    public void setDataHoraEncerramento(String dataHoraEncerramento) {
-        this.dataHoraEncerramento = dataHoraEncerramento;
+    /**
+     * Horário de encerramento já convertido para epoch millis (0 quando não há encerramento).
+     * É calculado uma única vez, quando o snapshot chega, para não re-interpretar a data a cada clique.
+     */
+    public long getEncerramentoMillis() {
+        return encerramentoMillis;
     }
 
-    public long getOpcaoA() {
-        return opcaoA;
+    public boolean isRespostaLivre() {
+        return respostaLivre;
     }
 
-    public void setOpcaoA(long opcaoA) {
-        this.opcaoA = opcaoA;
+    public ImagensOpcoes getImagens() {
+        return imagens;
     }
 
-    public long getOpcaoB() {
-        return opcaoB;
+    public boolean isModoQuiz() {
+        return modoQuiz;
     }
 
-    public void setOpcaoB(long opcaoB) {
-        this.opcaoB = opcaoB;
+    /**
+     * Turmas que votam nesta enquete, cada uma com os próprios contadores
+     * (ver ContagemTurmas). Vazia quando todos os votos vão para um contador só.
+     */
+    public List<String> getTurmas() {
+        return turmas;
+    }
+
+    public boolean isPorTurma() {
+        return !turmas.isEmpty();
+    }
+
+    public long getOpcaoA() {
+        return opcaoA;
+    }
+
+    public long getOpcaoB() {
+        return opcaoB;
     }
 
     public long getOpcaoC() {
         return opcaoC;
     }
 
-    public void setOpcaoC(long opcaoC) {
-        this.opcaoC = opcaoC;
+    public long getRodada() {
+        return rodada;
+    }
+
+    public boolean isDoCache() {
+        return doCache;
+    }
+
+    public boolean isEscritasPendentes() {
+        return escritasPendentes;
+    }
+
+    /**
+     * Cópia com um voto a mais na opção informada, ainda não confirmado pelo servidor
+     * (exibição otimista; marcada como escrita pendente).
+     */
+    public Enquete comVotoPendente(String opcao) {
+        return new Enquete(tituloEnquete, textoOpcaoA, textoOpcaoB, textoOpcaoC,
+                mensagemRodape, dataHoraEncerramento, encerramentoMillis,
+                opcaoA + (opcao.equals("A") ? 1 : 0),
+                opcaoB + (opcao.equals("B") ? 1 : 0),
+                opcaoC + (!opcao.equals("A") && !opcao.equals("B") ? 1 : 0),
+                rodada, respostaLivre, imagens, modoQuiz, turmas, doCache, true);
+    }
+
+    /**
+     * Cópia com os contadores e a rodada informados (ex.: recebidos do servidor
+     * local do professor ou somados das turmas), mantendo os textos.
+     */
+    public Enquete comContadores(long rodada, long opcaoA, long opcaoB, long opcaoC) {
+        return new Enquete(tituloEnquete, textoOpcaoA, textoOpcaoB, textoOpcaoC,
+                mensagemRodape, dataHoraEncerramento, encerramentoMillis,
+                opcaoA, opcaoB, opcaoC, rodada, respostaLivre, imagens, modoQuiz, turmas, false,
+                escritasPendentes);
+    }
+
+    /**
+     * Como {@link #comContadores}, para contadores que o servidor já confirmou
+     * (placar do servidor local do professor): sem marca de escrita pendente, que
+     * no documento lido por último pode estar desatualizada.
+     */
+    public Enquete comContadoresConfirmados(long rodada, long opcaoA, long opcaoB, long opcaoC) {
+        return new Enquete(tituloEnquete, textoOpcaoA, textoOpcaoB, textoOpcaoC,
+                mensagemRodape, dataHoraEncerramento, encerramentoMillis,
+                opcaoA, opcaoB, opcaoC, rodada, respostaLivre, imagens, modoQuiz, turmas, false,
+                false);
+    }
+
+    // =====================================================================
+    //  Igualdade (valor)
+    // =====================================================================
+
+    // Duas enquetes com os mesmos campos são iguais: permite à tela ignorar snapshots repetidos.
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Enquete)) return false;
+        Enquete outra = (Enquete) o;
+        return encerramentoMillis == outra.encerramentoMillis
+                && opcaoA == outra.opcaoA
+                && opcaoB == outra.opcaoB
+                && opcaoC == outra.opcaoC
+                && rodada == outra.rodada
+                && respostaLivre == outra.respostaLivre
+                && modoQuiz == outra.modoQuiz
+                && doCache == outra.doCache
+                && escritasPendentes == outra.escritasPendentes
+                && Objects.equals(tituloEnquete, outra.tituloEnquete)
+                && Objects.equals(textoOpcaoA, outra.textoOpcaoA)
+                && Objects.equals(textoOpcaoB, outra.textoOpcaoB)
+                && Objects.equals(textoOpcaoC, outra.textoOpcaoC)
+                && Objects.equals(mensagemRodape, outra.mensagemRodape)
+                && Objects.equals(dataHoraEncerramento, outra.dataHoraEncerramento)
+                && imagens.equals(outra.imagens)
+                && turmas.equals(outra.turmas);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tituloEnquete, textoOpcaoA, textoOpcaoB, textoOpcaoC, mensagemRodape,
+                dataHoraEncerramento, encerramentoMillis, opcaoA, opcaoB, opcaoC, rodada,
+                respostaLivre, imagens, modoQuiz, turmas, doCache, escritasPendentes);
     }
 
     // =====================================================================
@@ -162,16 +314,25 @@ public class Enquete {
     public Map<String, Object> toMap() {
         Map<String, Object> dados = new HashMap<>();
 
-        dados.put("tituloEnquete", tituloEnquete);
-        dados.put("textoOpcaoA", textoOpcaoA);
-        dados.put("textoOpcaoB", textoOpcaoB);
-        dados.put("textoOpcaoC", textoOpcaoC);
-        dados.put("mensagemRodape", mensagemRodape);
-        dados.put("dataHoraEncerramento", dataHoraEncerramento);
-
-        dados.put("opcaoA", opcaoA);
-        dados.put("opcaoB", opcaoB);
-        dados.put("opcaoC", opcaoC);
+        dados.put(CamposEnquete.TITULO, tituloEnquete);
+        dados.put(CamposEnquete.TEXTO_OPCAO_A, textoOpcaoA);
+        dados.put(CamposEnquete.TEXTO_OPCAO_B, textoOpcaoB);
+        dados.put(CamposEnquete.TEXTO_OPCAO_C, textoOpcaoC);
+        dados.put(CamposEnquete.MENSAGEM_RODAPE, mensagemRodape);
+        dados.put(CamposEnquete.DATA_HORA_ENCERRAMENTO, dataHoraEncerramento);
+        dados.put(CamposEnquete.ENCERRAMENTO_EM,
+                encerramentoMillis > 0 ? new Timestamp(new Date(encerramentoMillis)) : null);
+
+        dados.put(CamposEnquete.OPCAO_A, opcaoA);
+        dados.put(CamposEnquete.OPCAO_B, opcaoB);
+        dados.put(CamposEnquete.OPCAO_C, opcaoC);
+        dados.put(CamposEnquete.RODADA, rodada);
+        dados.put(CamposEnquete.RESPOSTA_LIVRE, respostaLivre);
+        dados.put(CamposEnquete.IMAGEM_OPCAO_A, imagens.opcaoA);
+        dados.put(CamposEnquete.IMAGEM_OPCAO_B, imagens.opcaoB);
+        dados.put(CamposEnquete.IMAGEM_OPCAO_C, imagens.opcaoC);
+        dados.put(CamposEnquete.MODO_QUIZ, modoQuiz);
+        dados.put(CamposEnquete.TURMAS, turmas);
 
         return dados;
     }
@@ -0,0 +1,79 @@
+package com.example.a3_teste_paineldevotao.model;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * O que a tela principal mostra de uma {@link Enquete}, já calculado:
+ * textos, contadores, porcentagens e total. Imutável e comparável por valor,
+ * para que a tela (VinculadorEnquete) atualize só o que mudou.
+ */
+public class EstadoTelaEnquete {
+
+    @Nullable public final String pergunta;     // null: mantém o texto atual da tela
+    @Nullable public final String textoBotaoA;
+    @Nullable public final String textoBotaoB;
+    @Nullable public final String textoBotaoC;
+
+    public final long votosA;
+    public final long votosB;
+    public final long votosC;
+    public final int percentualA;
+    public final int percentualB;
+    public final int percentualC;
+    public final long total;
+    public final boolean sincronizando;         // escritas locais ainda não confirmadas
+
+    public final String rodape;                 // "" quando não há mensagem
+
+    private EstadoTelaEnquete(Enquete enquete) {
+        pergunta = enquete.getTituloEnquete();
+        textoBotaoA = enquete.getTextoOpcaoA();
+        textoBotaoB = enquete.getTextoOpcaoB();
+        textoBotaoC = enquete.getTextoOpcaoC();
+
+        votosA = enquete.getOpcaoA();
+        votosB = enquete.getOpcaoB();
+        votosC = enquete.getOpcaoC();
+        total = votosA + votosB + votosC;
+        percentualA = percentual(votosA, total);
+        percentualB = percentual(votosB, total);
+        percentualC = percentual(votosC, total);
+        sincronizando = enquete.isEscritasPendentes();
+
+        String mensagem = enquete.getMensagemRodape();
+        rodape = mensagem != null && !mensagem.trim().isEmpty() ? mensagem : "";
+    }
+
+    public static EstadoTelaEnquete de(Enquete enquete) {
+        return new EstadoTelaEnquete(enquete);
+    }
+
+    private static int percentual(long votos, long total) {
+        return total > 0 ? (int) (votos * 100 / total) : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EstadoTelaEnquete)) return false;
+        EstadoTelaEnquete outro = (EstadoTelaEnquete) o;
+        return votosA == outro.votosA
+                && votosB == outro.votosB
+                && votosC == outro.votosC
+                && sincronizando == outro.sincronizando
+                && Objects.equals(pergunta, outro.pergunta)
+                && Objects.equals(textoBotaoA, outro.textoBotaoA)
+                && Objects.equals(textoBotaoB, outro.textoBotaoB)
+                && Objects.equals(textoBotaoC, outro.textoBotaoC)
+                && rodape.equals(outro.rodape);
+    }
+
+    @Override
+    public int hashCode() {
+        // Porcentagens e total derivam dos contadores
+        return Objects.hash(pergunta, textoBotaoA, textoBotaoB, textoBotaoC,
+                votosA, votosB, votosC, sincronizando, rodape);
+    }
+}
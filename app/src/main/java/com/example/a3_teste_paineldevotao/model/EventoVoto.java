@@ -0,0 +1,68 @@
+package com.example.a3_teste_paineldevotao.model;
+
+/**
+ * Um evento do histórico da enquete (coleção "eventos", somente inclusão).
+ *
+ * Os contadores da rodada atual são a soma dos eventos desde o último RESET:
+ * VOTO soma um voto, LOTE soma as cédulas de um lote do quiosque, RESET zera
+ * e avança a rodada, CONFIGURACAO só fica registrado para auditoria.
+ *
+ * O instante é o timestamp do servidor em nanossegundos, que define a ordem dos eventos.
+ */
+public class EventoVoto {
+
+    public enum Tipo {
+        VOTO, LOTE, RESET, CONFIGURACAO
+    }
+
+    private final String id;
+    private final Tipo tipo;
+    private final long votosA;
+    private final long votosB;
+    private final long votosC;
+    private final long instanteNanos;
+
+    public EventoVoto(String id, Tipo tipo, long votosA, long votosB, long votosC, long instanteNanos) {
+        this.id = id;
+        this.tipo = tipo;
+        this.votosA = votosA;
+        this.votosB = votosB;
+        this.votosC = votosC;
+        this.instanteNanos = instanteNanos;
+    }
+
+    /**
+     * Voto único na opção "A", "B" ou "C".
+     */
+    public static EventoVoto voto(String id, String opcao, long instanteNanos) {
+        return new EventoVoto(id, Tipo.VOTO,
+                "A".equals(opcao) ? 1 : 0,
+                "B".equals(opcao) ? 1 : 0,
+                "C".equals(opcao) ? 1 : 0,
+                instanteNanos);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public long getVotosA() {
+        return votosA;
+    }
+
+    public long getVotosB() {
+        return votosB;
+    }
+
+    public long getVotosC() {
+        return votosC;
+    }
+
+    public long getInstanteNanos() {
+        return instanteNanos;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.a3_teste_paineldevotao.model;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Filtro da lista de votantes, aplicado pelo próprio Firestore
+ * (ver EnqueteRepository.buscarVotantes): só os votos pedidos são baixados.
+ *
+ * Opção e período combinados usam os índices compostos de firestore.indexes.json.
+ */
+public class FiltroVotantes {
+
+    public static final int LIMITE_PADRAO = 200;
+
+    @Nullable private final String opcao;  // "A", "B", "C" ou null para todas
+    private final long desdeMillis;        // 0 = sem limite de período
+    private final boolean maisRecentesPrimeiro;
+    private final int limite;
+
+    public FiltroVotantes(@Nullable String opcao, long desdeMillis, boolean maisRecentesPrimeiro, int limite) {
+        this.opcao = opcao;
+        this.desdeMillis = desdeMillis;
+        this.maisRecentesPrimeiro = maisRecentesPrimeiro;
+        this.limite = limite;
+    }
+
+    @Nullable
+    public String getOpcao() {
+        return opcao;
+    }
+
+    public long getDesdeMillis() {
+        return desdeMillis;
+    }
+
+    public boolean isMaisRecentesPrimeiro() {
+        return maisRecentesPrimeiro;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+}
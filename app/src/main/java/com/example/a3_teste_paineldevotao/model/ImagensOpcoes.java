@@ -0,0 +1,72 @@
+package com.example.a3_teste_paineldevotao.model;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Imagens das opções A, B e C da enquete (imutável).
+ *
+ * Cada imagem é identificada pelo hash do conteúdo da miniatura, que fica em
+ * "enquetes/{id}/imagens/{hash}". Como o id muda sempre que a imagem muda, uma
+ * miniatura baixada uma vez nunca precisa ser baixada de novo.
+ */
+public class ImagensOpcoes {
+
+    public static final ImagensOpcoes NENHUMA = new ImagensOpcoes(null, null, null);
+
+    @Nullable public final String opcaoA;
+    @Nullable public final String opcaoB;
+    @Nullable public final String opcaoC;
+
+    public ImagensOpcoes(@Nullable String opcaoA, @Nullable String opcaoB, @Nullable String opcaoC) {
+        this.opcaoA = vazioParaNulo(opcaoA);
+        this.opcaoB = vazioParaNulo(opcaoB);
+        this.opcaoC = vazioParaNulo(opcaoC);
+    }
+
+    @Nullable
+    private static String vazioParaNulo(@Nullable String id) {
+        return id == null || id.isEmpty() ? null : id;
+    }
+
+    /**
+     * Id da imagem da opção ("A", "B" ou "C"), ou null se a opção não tem imagem.
+     */
+    @Nullable
+    public String getPara(String opcao) {
+        switch (opcao) {
+            case "A":
+                return opcaoA;
+            case "B":
+                return opcaoB;
+            default:
+                return opcaoC;
+        }
+    }
+
+    /**
+     * Cópia com a imagem da opção trocada (null remove).
+     */
+    public ImagensOpcoes com(String opcao, @Nullable String id) {
+        return new ImagensOpcoes(
+                opcao.equals("A") ? id : opcaoA,
+                opcao.equals("B") ? id : opcaoB,
+                !opcao.equals("A") && !opcao.equals("B") ? id : opcaoC);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ImagensOpcoes)) return false;
+        ImagensOpcoes outras = (ImagensOpcoes) o;
+        return Objects.equals(opcaoA, outras.opcaoA)
+                && Objects.equals(opcaoB, outras.opcaoB)
+                && Objects.equals(opcaoC, outras.opcaoC);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(opcaoA, opcaoB, opcaoC);
+    }
+}
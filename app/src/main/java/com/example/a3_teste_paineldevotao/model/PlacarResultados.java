@@ -0,0 +1,130 @@
+package com.example.a3_teste_paineldevotao.model;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Resultado da enquete enviado pelo servidor local do professor
+ * (ServidorResultadosLocal) aos aparelhos da mesma rede.
+ *
+ * Cada mensagem é uma linha curta só com os campos que mudaram, ex.:
+ *   "a=41 c=12"
+ * A primeira mensagem de cada conexão traz todos os campos. O campo "cfg"
+ * muda quando os textos ou os modos da enquete mudam: o cliente então relê o
+ * documento no Firestore (eles não trafegam pela rede local).
+ */
+public class PlacarResultados {
+
+    public static final PlacarResultados VAZIO = new PlacarResultados(0, 0, 0, 0, 0);
+
+    public final long rodada;
+    public final long opcaoA;
+    public final long opcaoB;
+    public final long opcaoC;
+    public final int configuracao;  // hash dos textos, imagens e modos da enquete
+
+    public PlacarResultados(long rodada, long opcaoA, long opcaoB, long opcaoC, int configuracao) {
+        this.rodada = rodada;
+        this.opcaoA = opcaoA;
+        this.opcaoB = opcaoB;
+        this.opcaoC = opcaoC;
+        this.configuracao = configuracao;
+    }
+
+    /**
+     * Placar de uma enquete; a configuração resume os textos exibidos e os campos
+     * do documento que mudam o comportamento do aluno (modo agregador, servidor local).
+     */
+    public static PlacarResultados de(Enquete enquete, boolean modoAgregador,
+                                      @Nullable String servidorLocal) {
+        int configuracao = Objects.hash(
+                enquete.getTituloEnquete(),
+                enquete.getTextoOpcaoA(),
+                enquete.getTextoOpcaoB(),
+                enquete.getTextoOpcaoC(),
+                enquete.getMensagemRodape(),
+                enquete.getEncerramentoMillis(),
+                enquete.isRespostaLivre(),
+                enquete.getImagens(),
+                enquete.isModoQuiz(),
+                enquete.getTurmas(),
+                modoAgregador,
+                servidorLocal);
+        return new PlacarResultados(enquete.getRodada(),
+                enquete.getOpcaoA(), enquete.getOpcaoB(), enquete.getOpcaoC(), configuracao);
+    }
+
+    /**
+     * Linha com os campos diferentes de {@code anterior} (todos, se anterior for null).
+     * Vazia quando nada mudou.
+     */
+    public String delta(@Nullable PlacarResultados anterior) {
+        StringBuilder linha = new StringBuilder(48);
+        if (anterior == null || rodada != anterior.rodada) campo(linha, "r", rodada);
+        if (anterior == null || opcaoA != anterior.opcaoA) campo(linha, "a", opcaoA);
+        if (anterior == null || opcaoB != anterior.opcaoB) campo(linha, "b", opcaoB);
+        if (anterior == null || opcaoC != anterior.opcaoC) campo(linha, "c", opcaoC);
+        if (anterior == null || configuracao != anterior.configuracao) campo(linha, "cfg", configuracao);
+        return linha.toString();
+    }
+
+    /**
+     * Aplica uma linha de {@link #delta}. Campos desconhecidos são ignorados
+     * (versões mais novas do servidor podem mandar outros).
+     *
+     * @throws IllegalArgumentException se a linha estiver malformada
+     */
+    public PlacarResultados aplicar(String linha) {
+        long r = rodada, a = opcaoA, b = opcaoB, c = opcaoC;
+        int cfg = configuracao;
+        for (String par : linha.trim().split(" ")) {
+            if (par.isEmpty()) continue;
+            int igual = par.indexOf('=');
+            if (igual <= 0) throw new IllegalArgumentException("Campo inválido: " + par);
+            String nome = par.substring(0, igual);
+            long valor;
+            try {
+                valor = Long.parseLong(par.substring(igual + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido: " + par, e);
+            }
+            switch (nome) {
+                case "r": r = valor; break;
+                case "a": a = valor; break;
+                case "b": b = valor; break;
+                case "c": c = valor; break;
+                case "cfg": cfg = (int) valor; break;
+                default: break;
+            }
+        }
+        return new PlacarResultados(r, a, b, c, cfg);
+    }
+
+    private static void campo(StringBuilder linha, String nome, long valor) {
+        if (linha.length() > 0) linha.append(' ');
+        linha.append(nome).append('=').append(valor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlacarResultados)) return false;
+        PlacarResultados outro = (PlacarResultados) o;
+        return rodada == outro.rodada
+                && opcaoA == outro.opcaoA
+                && opcaoB == outro.opcaoB
+                && opcaoC == outro.opcaoC
+                && configuracao == outro.configuracao;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rodada, opcaoA, opcaoB, opcaoC, configuracao);
+    }
+
+    @Override
+    public String toString() {
+        return delta(null);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.a3_teste_paineldevotao;
+
+import com.example.a3_teste_paineldevotao.model.Enquete;
+import com.example.a3_teste_paineldevotao.model.EstadoTelaEnquete;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do vinculador da tela principal: só as Views cujo texto mudou são tocadas.
+ */
+public class VinculadorEnqueteTest {
+
+    /**
+     * View falsa: guarda o texto atual e quantas vezes foi alterada.
+     */
+    private static class TextoFalso implements VinculadorEnquete.Texto {
+        final List<String> definidos = new ArrayList<>();
+
+        @Override
+        public void definir(CharSequence texto) {
+            definidos.add(texto.toString());
+        }
+
+        String atual() {
+            return definidos.isEmpty() ? null : definidos.get(definidos.size() - 1);
+        }
+    }
+
+    private TextoFalso pergunta, botaoA, botaoB, botaoC, totalA, totalB, totalC, totalGeral, rodape;
+    private VinculadorEnquete vinculador;
+
+    @Before
+    public void setUp() {
+        pergunta = new TextoFalso();
+        botaoA = new TextoFalso();
+        botaoB = new TextoFalso();
+        botaoC = new TextoFalso();
+        totalA = new TextoFalso();
+        totalB = new TextoFalso();
+        totalC = new TextoFalso();
+        totalGeral = new TextoFalso();
+        rodape = new TextoFalso();
+        vinculador = new VinculadorEnquete(pergunta, botaoA, botaoB, botaoC,
+                totalA, totalB, totalC, totalGeral, rodape);
+    }
+
+    private static Enquete enquete(long a, long b, long c, boolean pendente) {
+        return new Enquete("Pergunta", "Sim", "Não", "Talvez", "Rodapé", null, 0,
+                a, b, c, 0, false, pendente);
+    }
+
+    @Test
+    public void primeiraAplicacao_preencheTodasAsViews() {
+        int alteradas = vinculador.aplicar(EstadoTelaEnquete.de(enquete(2, 1, 1, false)));
+
+        assertEquals(9, alteradas);
+        assertEquals("Pergunta", pergunta.atual());
+        assertEquals("Sim", botaoA.atual());
+        assertEquals("Opção A: 2 votos (50%)", totalA.atual());
+        assertEquals("Opção B: 1 votos (25%)", totalB.atual());
+        assertEquals("Total de votos: 4", totalGeral.atual());
+        assertEquals("Rodapé", rodape.atual());
+    }
+
+    @Test
+    public void estadoIgual_naoTocaEmNenhumaView() {
+        vinculador.aplicar(EstadoTelaEnquete.de(enquete(2, 1, 1, false)));
+
+        assertEquals(0, vinculador.aplicar(EstadoTelaEnquete.de(enquete(2, 1, 1, false))));
+        assertEquals(1, totalA.definidos.size());
+        assertEquals(1, pergunta.definidos.size());
+    }
+
+    @Test
+    public void umVotoAMais_tocaSoNasLinhasQueMudaram() {
+        vinculador.aplicar(EstadoTelaEnquete.de(enquete(5, 5, 0, false)));
+
+        // A: 5 -> 6 (50% -> 54%), B: 5 (50% -> 45%), C: 0 (0%) inalterada
+        int alteradas = vinculador.aplicar(EstadoTelaEnquete.de(enquete(6, 5, 0, false)));
+
+        assertEquals(3, alteradas);
+        assertEquals("Opção A: 6 votos (54%)", totalA.atual());
+        assertEquals("Opção B: 5 votos (45%)", totalB.atual());
+        assertEquals("Total de votos: 11", totalGeral.atual());
+        assertEquals(1, totalC.definidos.size());
+        assertEquals(1, botaoA.definidos.size());
+        assertEquals(1, rodape.definidos.size());
+    }
+
+    @Test
+    public void escritaPendente_mudaSoOTotal() {
+        vinculador.aplicar(EstadoTelaEnquete.de(enquete(1, 0, 0, false)));
+
+        assertEquals(1, vinculador.aplicar(EstadoTelaEnquete.de(enquete(1, 0, 0, true))));
+        assertEquals("Total de votos: 1 (sincronizando…)", totalGeral.atual());
+    }
+
+    @Test
+    public void textoNulo_mantemOQueEstaNaTela() {
+        vinculador.aplicar(EstadoTelaEnquete.de(enquete(0, 0, 0, false)));
+        Enquete semTitulo = new Enquete(null, "Sim", "Não", "Talvez", 0, 0, 0);
+
+        vinculador.aplicar(EstadoTelaEnquete.de(semTitulo));
+
+        assertEquals(1, pergunta.definidos.size());
+        assertEquals("Pergunta", pergunta.atual());
+        assertEquals("", rodape.atual());
+    }
+
+    @Test
+    public void enquete_igualdadePorValor() {
+        assertEquals(enquete(1, 2, 3, false), enquete(1, 2, 3, false));
+        assertEquals(enquete(1, 2, 3, false).hashCode(), enquete(1, 2, 3, false).hashCode());
+        assertNotEquals(enquete(1, 2, 3, false), enquete(1, 2, 3, true));
+        assertEquals(enquete(2, 2, 3, true), enquete(1, 2, 3, false).comVotoPendente("A"));
+    }
+}
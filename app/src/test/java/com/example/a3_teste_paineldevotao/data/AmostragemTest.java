@@ -0,0 +1,29 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do cálculo de amostragem e do tamanho das miniaturas.
+ */
+public class AmostragemTest {
+
+    @Test
+    public void fatorDeAmostragemNaoDeixaAImagemMenorQueOAlvo() {
+        assertEquals(1, Amostragem.fator(100, 100, 200, 200));
+        assertEquals(1, Amostragem.fator(300, 300, 200, 200));
+        assertEquals(2, Amostragem.fator(400, 400, 200, 200));
+        assertEquals(8, Amostragem.fator(4000, 3000, 300, 300));
+        // A menor dimensão relativa manda
+        assertEquals(2, Amostragem.fator(4000, 500, 200, 200));
+        assertEquals(1, Amostragem.fator(0, 0, 200, 200));
+    }
+
+    @Test
+    public void caberMantemAProporcao() {
+        assertArrayEquals(new int[]{256, 192}, Amostragem.caber(4000, 3000, 256));
+        assertArrayEquals(new int[]{144, 256}, Amostragem.caber(900, 1600, 256));
+        assertArrayEquals(new int[]{100, 50}, Amostragem.caber(100, 50, 256));
+    }
+}
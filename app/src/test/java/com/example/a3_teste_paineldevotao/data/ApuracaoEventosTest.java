@@ -0,0 +1,113 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.example.a3_teste_paineldevotao.model.EventoVoto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da reconstrução pelo histórico, com e sem compactação.
+ */
+public class ApuracaoEventosTest {
+
+    private static EventoVoto lote(String id, long a, long b, long c, long instante) {
+        return new EventoVoto(id, EventoVoto.Tipo.LOTE, a, b, c, instante);
+    }
+
+    private static EventoVoto reset(String id, long instante) {
+        return new EventoVoto(id, EventoVoto.Tipo.RESET, 0, 0, 0, instante);
+    }
+
+    private static EventoVoto configuracao(String id, long instante) {
+        return new EventoVoto(id, EventoVoto.Tipo.CONFIGURACAO, 0, 0, 0, instante);
+    }
+
+    @Test
+    public void votosLotesEResetDefinemARodadaAtual() {
+        ApuracaoEventos apuracao = new ApuracaoEventos();
+        apuracao.iniciar(null);
+
+        apuracao.aplicar(EventoVoto.voto("v1", "A", 10));
+        apuracao.aplicar(EventoVoto.voto("v2", "B", 20));
+        apuracao.aplicar(reset("r1", 30));
+        apuracao.aplicar(EventoVoto.voto("v3", "C", 40));
+        apuracao.aplicar(lote("l1", 2, 1, 0, 50));
+        apuracao.aplicar(configuracao("c1", 60));
+
+        assertEquals(1, apuracao.getRodada());
+        assertEquals(2, apuracao.getOpcaoA());
+        assertEquals(1, apuracao.getOpcaoB());
+        assertEquals(1, apuracao.getOpcaoC());
+        assertEquals(6, apuracao.getEventosDesdeCompactacao());
+    }
+
+    @Test
+    public void eventoSemTimestampNaoEAplicado() {
+        ApuracaoEventos apuracao = new ApuracaoEventos();
+        apuracao.iniciar(null);
+
+        assertFalse(apuracao.aplicar(EventoVoto.voto("v1", "A", ApuracaoEventos.SEM_LIMITE)));
+        assertEquals(0, apuracao.getOpcaoA());
+        assertEquals(ApuracaoEventos.SEM_LIMITE, apuracao.getLimiteNanos());
+    }
+
+    @Test
+    public void retomadaDaCompactacao_igualAReproduzirTudo() {
+        List<EventoVoto> historico = Arrays.asList(
+                EventoVoto.voto("v1", "A", 100),
+                EventoVoto.voto("v2", "B", 200),
+                EventoVoto.voto("v3", "A", 200),   // mesmo instante do limite
+                reset("r1", 300),
+                lote("l1", 3, 0, 2, 400),
+                EventoVoto.voto("v4", "B", 400),
+                EventoVoto.voto("v5", "C", 500));
+
+        ApuracaoEventos completa = new ApuracaoEventos();
+        completa.iniciar(null);
+        for (EventoVoto evento : historico) completa.aplicar(evento);
+
+        // Compacta depois dos três primeiros eventos
+        ApuracaoEventos parcial = new ApuracaoEventos();
+        parcial.iniciar(null);
+        for (EventoVoto evento : historico.subList(0, 3)) parcial.aplicar(evento);
+        ApuracaoEventos.Compactacao compactacao = parcial.compactar();
+        assertEquals(200, compactacao.limiteNanos);
+        assertEquals(2, compactacao.idsNoLimite.size());
+        assertEquals(3, compactacao.eventos);
+
+        // A consulta "timestamp >= 200" reentrega v2 e v3, que não contam de novo
+        ApuracaoEventos retomada = new ApuracaoEventos();
+        retomada.iniciar(compactacao);
+        int aplicados = 0;
+        for (EventoVoto evento : historico.subList(1, historico.size())) {
+            if (retomada.aplicar(evento)) aplicados++;
+        }
+
+        assertEquals(4, aplicados);
+        assertEquals(4, retomada.getEventosDesdeCompactacao());
+        assertEquals(completa.getRodada(), retomada.getRodada());
+        assertEquals(completa.getOpcaoA(), retomada.getOpcaoA());
+        assertEquals(completa.getOpcaoB(), retomada.getOpcaoB());
+        assertEquals(completa.getOpcaoC(), retomada.getOpcaoC());
+        assertEquals(7, retomada.compactar().eventos);
+    }
+
+    @Test
+    public void eventosAnterioresAoLimiteSaoIgnorados() {
+        ApuracaoEventos apuracao = new ApuracaoEventos();
+        apuracao.iniciar(new ApuracaoEventos.Compactacao(2, 5, 1, 0, 1_000,
+                Collections.singleton("v9"), 40));
+
+        assertFalse(apuracao.aplicar(EventoVoto.voto("v8", "A", 900)));
+        assertFalse(apuracao.aplicar(EventoVoto.voto("v9", "A", 1_000)));
+        assertTrue(apuracao.aplicar(EventoVoto.voto("v10", "A", 1_000)));
+
+        assertEquals(2, apuracao.getRodada());
+        assertEquals(6, apuracao.getOpcaoA());
+    }
+}
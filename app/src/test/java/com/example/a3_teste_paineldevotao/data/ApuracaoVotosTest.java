@@ -0,0 +1,148 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da contagem do agregador, principalmente a retomada a partir do checkpoint.
+ */
+public class ApuracaoVotosTest {
+
+    @Test
+    public void contaVotosRemocoesEMudancaDeOpcao() {
+        ApuracaoVotos apuracao = new ApuracaoVotos();
+        apuracao.iniciar(0, null);
+
+        assertTrue(apuracao.aplicar("v1", "A", 10));
+        assertTrue(apuracao.aplicar("v2", "B", 20));
+        assertTrue(apuracao.aplicar("v3", "A", 30));
+        assertFalse(apuracao.aplicar("v3", "A", 30)); // mesmo voto entregue de novo
+        assertTrue(apuracao.aplicar("v2", "C", 20));
+        assertTrue(apuracao.remover("v1"));
+        assertFalse(apuracao.remover("inexistente"));
+
+        assertEquals(1, apuracao.getTotalA());
+        assertEquals(0, apuracao.getTotalB());
+        assertEquals(1, apuracao.getTotalC());
+    }
+
+    @Test
+    public void reinicioNoCheckpoint_naoContaDuasVezesNemPerdeVotos() {
+        ApuracaoVotos original = new ApuracaoVotos(50);
+        original.iniciar(3, null);
+        original.aplicar("v0", "B", 100);
+        original.aplicar("v1", "A", 160);
+        original.aplicar("v2", "B", 200);
+        original.aplicar("v3", "A", 200); // mesmo instante do limite
+
+        ApuracaoVotos.Checkpoint checkpoint = original.gerarCheckpoint();
+        assertNotNull(checkpoint);
+        assertEquals(200, checkpoint.limiteNanos);
+        // Só o que está na janela [150, 200] precisa dos ids
+        assertEquals(new HashSet<>(Arrays.asList("v1", "v2", "v3")),
+                checkpoint.contadosNaJanela.keySet());
+
+        // Reinício: a consulta "timestamp >= 150" reentrega v1..v3, e chegam votos novos
+        ApuracaoVotos retomada = new ApuracaoVotos(50);
+        retomada.iniciar(3, checkpoint);
+        assertEquals(150, retomada.getInicioConsultaNanos());
+        assertFalse(retomada.aplicar("v1", "A", 160));
+        assertFalse(retomada.aplicar("v2", "B", 200));
+        assertFalse(retomada.aplicar("v3", "A", 200));
+        assertFalse(retomada.aplicar("v0", "B", 100)); // antes da janela: já na base
+        assertTrue(retomada.aplicar("v4", "A", 200)); // chegou no mesmo instante, depois do checkpoint
+        assertTrue(retomada.aplicar("v5", "C", 300));
+
+        assertEquals(3, retomada.getTotalA());
+        assertEquals(2, retomada.getTotalB());
+        assertEquals(1, retomada.getTotalC());
+
+        // Checkpoint seguinte, e nova retomada, continuam consistentes
+        ApuracaoVotos.Checkpoint segundo = retomada.gerarCheckpoint();
+        assertNotNull(segundo);
+        assertEquals(300, segundo.limiteNanos);
+        assertEquals(Collections.singleton("v5"), segundo.contadosNaJanela.keySet());
+        assertEquals(3, segundo.opcaoA);
+    }
+
+    @Test
+    public void votoConfirmadoDepoisDoCheckpointComInstanteAnterior_eContado() {
+        ApuracaoVotos original = new ApuracaoVotos(50);
+        original.iniciar(1, null);
+        original.aplicar("v1", "A", 200);
+        ApuracaoVotos.Checkpoint checkpoint = original.gerarCheckpoint();
+
+        // v2 recebeu o timestamp 180, mas só foi confirmado depois do checkpoint em 200
+        ApuracaoVotos retomada = new ApuracaoVotos(50);
+        retomada.iniciar(1, checkpoint);
+        assertTrue(retomada.aplicar("v2", "B", 180));
+        assertFalse(retomada.aplicar("v1", "A", 200));
+
+        assertEquals(1, retomada.getTotalA());
+        assertEquals(1, retomada.getTotalB());
+
+        // O próximo checkpoint continua sabendo que v1 e v2 já foram contados
+        ApuracaoVotos.Checkpoint segundo = retomada.gerarCheckpoint();
+        assertNotNull(segundo);
+        assertEquals(200, segundo.limiteNanos);
+        assertEquals(new HashSet<>(Arrays.asList("v1", "v2")), segundo.contadosNaJanela.keySet());
+    }
+
+    @Test
+    public void checkpointDeOutraRodada_recomecaDoZero() {
+        ApuracaoVotos antiga = new ApuracaoVotos();
+        antiga.iniciar(1, null);
+        antiga.aplicar("v1", "A", 100);
+        ApuracaoVotos.Checkpoint checkpoint = antiga.gerarCheckpoint();
+
+        ApuracaoVotos nova = new ApuracaoVotos();
+        nova.iniciar(2, checkpoint); // houve reset
+
+        assertEquals(ApuracaoVotos.SEM_LIMITE, nova.getLimiteNanos());
+        assertEquals(0, nova.getTotalA());
+    }
+
+    @Test
+    public void votoSemTimestampDoServidor_adiaCheckpoint() {
+        ApuracaoVotos apuracao = new ApuracaoVotos();
+        apuracao.iniciar(0, null);
+        apuracao.aplicar("v1", "A", 100);
+        apuracao.aplicar("v2", "B", ApuracaoVotos.SEM_LIMITE);
+
+        assertNull(apuracao.gerarCheckpoint());
+
+        apuracao.aplicar("v2", "B", 150);
+        assertNotNull(apuracao.gerarCheckpoint());
+        assertEquals(1, apuracao.getTotalB());
+    }
+
+    @Test
+    public void agregadorNumaEnquetePorTurma_naoContaDuasVezesOsVotosDasTurmas() {
+        // Antes do agregador: v0 (sem turma) no documento da enquete, v1 e v2 na turma
+        ContagemTurmas turmas = new ContagemTurmas();
+        turmas.atualizar("t1", "T1", 1, 1, 0);
+
+        // Agregador ligado: recontagem da rodada inteira
+        ApuracaoVotos apuracao = new ApuracaoVotos();
+        apuracao.iniciar(0, null);
+        assertTrue(apuracao.aplicar("v0", "A", null, 10));
+        assertFalse(apuracao.aplicar("v1", "A", "t1", 20));
+        assertFalse(apuracao.aplicar("v2", "B", "t1", 30));
+
+        // Voto novo com turma: o aluno continua somando no documento da turma
+        assertFalse(apuracao.aplicar("v3", "C", "t1", 40));
+        turmas.atualizar("t1", "T1", 1, 1, 1);
+        // Voto novo sem turma: só o agregador conta
+        assertTrue(apuracao.aplicar("v4", "B", null, 50));
+
+        // Total exibido = documento da enquete (gravado pelo agregador) + turmas
+        assertEquals(2, apuracao.getTotalA() + turmas.getTotalA());
+        assertEquals(2, apuracao.getTotalB() + turmas.getTotalB());
+        assertEquals(1, apuracao.getTotalC() + turmas.getTotalC());
+    }
+}
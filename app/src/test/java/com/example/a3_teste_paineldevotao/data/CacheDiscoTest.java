@@ -0,0 +1,89 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do cache em disco das miniaturas.
+ */
+public class CacheDiscoTest {
+
+    private File pasta;
+
+    @Before
+    public void criarPasta() throws Exception {
+        pasta = Files.createTempDirectory("cache-disco").toFile();
+    }
+
+    @After
+    public void apagarPasta() {
+        File[] arquivos = pasta.listFiles();
+        if (arquivos != null) {
+            for (File arquivo : arquivos) arquivo.delete();
+        }
+        pasta.delete();
+    }
+
+    @Test
+    public void gravaELeArquivo() throws Exception {
+        CacheDisco cache = new CacheDisco(pasta, 1_000);
+        assertNull(cache.obter("abc"));
+
+        cache.gravar("abc", new byte[100]);
+        File arquivo = cache.obter("abc");
+        assertNotNull(arquivo);
+        assertEquals(100, arquivo.length());
+        assertEquals(100, cache.getTamanhoTotal());
+    }
+
+    @Test
+    public void passandoDoLimiteApagaOMenosUsado() throws Exception {
+        CacheDisco cache = new CacheDisco(pasta, 250);
+        cache.gravar("a", new byte[100]);
+        cache.gravar("b", new byte[100]);
+        assertNotNull(cache.obter("a")); // "a" passa a ser o mais recente
+
+        cache.gravar("c", new byte[100]);
+        assertTrue(cache.contem("a"));
+        assertFalse(cache.contem("b"));
+        assertTrue(cache.contem("c"));
+        assertFalse(new File(pasta, "b").exists());
+        assertEquals(200, cache.getTamanhoTotal());
+    }
+
+    @Test
+    public void indiceReconstruidoDaPasta() throws Exception {
+        CacheDisco primeiro = new CacheDisco(pasta, 1_000);
+        primeiro.gravar("x", new byte[10]);
+        primeiro.gravar("y", new byte[20]);
+        // Gravação interrompida de outra execução
+        Files.write(new File(pasta, "z.parcial").toPath(), new byte[5]);
+
+        CacheDisco segundo = new CacheDisco(pasta, 1_000);
+        assertTrue(segundo.contem("x"));
+        assertTrue(segundo.contem("y"));
+        assertEquals(30, segundo.getTamanhoTotal());
+        assertFalse(new File(pasta, "z.parcial").exists());
+    }
+
+    @Test
+    public void arquivoApagadoPorForaSaiDoIndice() throws Exception {
+        CacheDisco cache = new CacheDisco(pasta, 1_000);
+        cache.gravar("a", new byte[50]);
+        assertTrue(new File(pasta, "a").delete());
+
+        assertNull(cache.obter("a"));
+        assertEquals(0, cache.getTamanhoTotal());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chaveComCaminhoERecusada() throws Exception {
+        new CacheDisco(pasta, 1_000).gravar("../fora", new byte[1]);
+    }
+}
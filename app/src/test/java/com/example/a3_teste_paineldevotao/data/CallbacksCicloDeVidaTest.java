@@ -0,0 +1,265 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da entrega de callbacks ligada ao ciclo de vida da tela.
+ *
+ * A "rotação" é simulada como no Android: a tela antiga é destruída e uma nova
+ * é criada enquanto a chamada ao backend (lento) ainda não respondeu.
+ */
+public class CallbacksCicloDeVidaTest {
+
+    private static final int ROTACOES = 20;
+
+    /**
+     * Callback no formato dos do repositório.
+     */
+    interface Resposta {
+        void onResposta(String valor);
+    }
+
+    /**
+     * Callback com progresso antes do resultado, como ExportacaoVotos.Ouvinte.
+     */
+    interface Andamento {
+        @CallbacksCicloDeVida.Parcial
+        void onProgresso(int feitos);
+
+        void onConcluido();
+    }
+
+    /**
+     * Sobrecarga no formato das de EnqueteRepository: a versão com dono vincula o
+     * callback e chama a versão sem dono, que guarda o callback até responder.
+     */
+    private static class RepositorioFalso {
+        final List<EnqueteRepository.OperacaoCallback> pendentes = new ArrayList<>();
+
+        void salvar(LifecycleOwner dono, EnqueteRepository.OperacaoCallback callback) {
+            salvar(CallbacksCicloDeVida.vincular(dono, EnqueteRepository.OperacaoCallback.class, callback));
+        }
+
+        void salvar(EnqueteRepository.OperacaoCallback callback) {
+            pendentes.add(callback);
+        }
+    }
+
+    /**
+     * Tela simulada: como uma Activity, segura bastante memória (views, bitmaps).
+     */
+    private static class TelaFalsa implements LifecycleOwner {
+        final int numero;
+        final LifecycleRegistry lifecycle = LifecycleRegistry.createUnsafe(this);
+        final byte[] views = new byte[512 * 1024];
+
+        TelaFalsa(int numero) {
+            this.numero = numero;
+            lifecycle.setCurrentState(Lifecycle.State.RESUMED);
+        }
+
+        void destruir() {
+            lifecycle.setCurrentState(Lifecycle.State.DESTROYED);
+        }
+
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+
+    /**
+     * Backend lento: guarda os callbacks (como uma Task pendente) até responder.
+     */
+    private static class BackendLento {
+        final List<Resposta> pendentes = new ArrayList<>();
+
+        void chamar(Resposta callback) {
+            pendentes.add(callback);
+        }
+
+        void responder(String valor) {
+            for (Resposta callback : pendentes) callback.onResposta(valor);
+            pendentes.clear();
+        }
+    }
+
+    @Test
+    public void entregaEnquantoATelaExiste() {
+        TelaFalsa tela = new TelaFalsa(1);
+        List<String> recebidas = new ArrayList<>();
+        BackendLento backend = new BackendLento();
+
+        backend.chamar(CallbacksCicloDeVida.vincular(tela, Resposta.class, recebidas::add));
+        backend.responder("ok");
+
+        assertEquals(1, recebidas.size());
+        assertEquals("ok", recebidas.get(0));
+    }
+
+    @Test
+    public void descartaDepoisDoOnDestroy() {
+        TelaFalsa tela = new TelaFalsa(1);
+        List<String> recebidas = new ArrayList<>();
+        BackendLento backend = new BackendLento();
+
+        backend.chamar(CallbacksCicloDeVida.vincular(tela, Resposta.class, recebidas::add));
+        tela.destruir();
+        backend.responder("tarde demais");
+
+        assertTrue(recebidas.isEmpty());
+    }
+
+    @Test
+    public void telaJaDestruidaNaoRecebeNada() {
+        TelaFalsa tela = new TelaFalsa(1);
+        tela.destruir();
+        List<String> recebidas = new ArrayList<>();
+
+        Resposta callback = CallbacksCicloDeVida.vincular(tela, Resposta.class, recebidas::add);
+        callback.onResposta("x");
+
+        assertTrue(recebidas.isEmpty());
+    }
+
+    @Test
+    public void resultadoEntregueSoltaOVinculoSemEsperarODestroy() {
+        TelaFalsa tela = new TelaFalsa(1);
+        RepositorioFalso repositorio = new RepositorioFalso();
+        int[] sucessos = {0};
+
+        repositorio.salvar(tela, new EnqueteRepository.OperacaoCallback() {
+            @Override
+            public void onSucesso() {
+                sucessos[0]++;
+            }
+
+            @Override
+            public void onErro(Exception e) {
+                fail("Não deveria falhar");
+            }
+        });
+        assertEquals(1, tela.lifecycle.getObserverCount());
+
+        EnqueteRepository.OperacaoCallback vinculado = repositorio.pendentes.get(0);
+        vinculado.onSucesso();
+
+        assertEquals(1, sucessos[0]);
+        assertEquals(0, tela.lifecycle.getObserverCount());
+        // Resultado é único: uma segunda entrega não chega à tela
+        vinculado.onErro(new IllegalStateException("repetido"));
+        assertEquals(1, sucessos[0]);
+    }
+
+    @Test
+    public void progressoNaoSoltaOVinculo() {
+        TelaFalsa tela = new TelaFalsa(1);
+        List<String> recebidas = new ArrayList<>();
+
+        Andamento andamento = CallbacksCicloDeVida.vincular(tela, Andamento.class, new Andamento() {
+            @Override
+            public void onProgresso(int feitos) {
+                recebidas.add("progresso " + feitos);
+            }
+
+            @Override
+            public void onConcluido() {
+                recebidas.add("concluido");
+            }
+        });
+        andamento.onProgresso(1);
+        andamento.onProgresso(2);
+        assertEquals(1, tela.lifecycle.getObserverCount());
+
+        andamento.onConcluido();
+
+        assertEquals(Arrays.asList("progresso 1", "progresso 2", "concluido"), recebidas);
+        assertEquals(0, tela.lifecycle.getObserverCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void erroNoCallbackChegaAoChamador() {
+        TelaFalsa tela = new TelaFalsa(1);
+        Resposta callback = CallbacksCicloDeVida.vincular(tela, Resposta.class, valor -> {
+            throw new IllegalStateException(valor);
+        });
+        callback.onResposta("falhou");
+    }
+
+    @Test
+    public void rotacoesDuranteChamadaLentaNaoRetemTelas() throws Exception {
+        BackendLento backend = new BackendLento();
+        List<Integer> entregues = new ArrayList<>();
+        List<WeakReference<TelaFalsa>> destruidas = new ArrayList<>();
+
+        TelaFalsa atual = null;
+        for (int i = 0; i < ROTACOES; i++) {
+            if (atual != null) {
+                atual.destruir(); // rotação: a tela antiga morre com a chamada ainda pendente
+                destruidas.add(new WeakReference<>(atual));
+            }
+            atual = new TelaFalsa(i);
+            final TelaFalsa tela = atual;
+            // Callback anônimo que, como na Activity, referencia a tela
+            backend.chamar(CallbacksCicloDeVida.vincular(tela, Resposta.class,
+                    valor -> entregues.add(tela.numero)));
+        }
+
+        // Backend ainda não respondeu: as telas destruídas não podem estar presas a ele
+        assertEquals(ROTACOES, backend.pendentes.size());
+        assertTrue("Telas destruídas retidas pelos callbacks pendentes", coletarTodas(destruidas));
+
+        backend.responder("resultado");
+        assertEquals(1, entregues.size());
+        assertEquals(ROTACOES - 1, (int) entregues.get(0));
+    }
+
+    @Test
+    public void semVinculoAsTelasFicamPresas() throws Exception {
+        // Controle: o mesmo cenário com o callback passado direto mostra o vazamento
+        BackendLento backend = new BackendLento();
+        List<Integer> entregues = new ArrayList<>();
+        List<WeakReference<TelaFalsa>> destruidas = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            TelaFalsa tela = new TelaFalsa(i);
+            backend.chamar(valor -> entregues.add(tela.numero));
+            tela.destruir();
+            destruidas.add(new WeakReference<>(tela));
+        }
+
+        assertFalse(coletarTodas(destruidas));
+        backend.responder("resultado");
+        assertEquals(3, entregues.size()); // e todas as telas mortas recebem o resultado
+    }
+
+    /**
+     * Pede coleta de lixo algumas vezes até todas as referências sumirem.
+     */
+    private static boolean coletarTodas(List<WeakReference<TelaFalsa>> referencias) throws InterruptedException {
+        for (int tentativa = 0; tentativa < 20; tentativa++) {
+            System.gc();
+            boolean todas = true;
+            for (WeakReference<TelaFalsa> referencia : referencias) {
+                if (referencia.get() != null) {
+                    todas = false;
+                    break;
+                }
+            }
+            if (todas) return true;
+            Thread.sleep(20);
+        }
+        return false;
+    }
+}
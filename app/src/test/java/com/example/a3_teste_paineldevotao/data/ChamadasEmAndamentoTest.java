@@ -0,0 +1,149 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da deduplicação de chamadas em andamento (single-flight).
+ *
+ * O "backend" aqui é simulado: cada operação de voto faz a mesma sequência
+ * do repositório (verifica se já votou -> incrementa contador), com uma
+ * janela de corrida entre a verificação e a escrita.
+ */
+public class ChamadasEmAndamentoTest {
+
+    private static final int CHAMADORES = 64;
+
+    @Test
+    public void votosConcorrentes_incrementamContadorUmaUnicaVez() throws Exception {
+        ChamadasEmAndamento chamadas = new ChamadasEmAndamento();
+        AtomicInteger contador = new AtomicInteger();
+        AtomicBoolean jaVotou = new AtomicBoolean();
+        AtomicInteger operacoesIniciadas = new AtomicInteger();
+
+        ExecutorService backend = Executors.newSingleThreadExecutor();
+        ExecutorService alunos = Executors.newFixedThreadPool(16);
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch todosChamaram = new CountDownLatch(CHAMADORES);
+        CountDownLatch todosReceberam = new CountDownLatch(CHAMADORES);
+        List<Task<String>> tarefas = new ArrayList<>();
+
+        for (int i = 0; i < CHAMADORES; i++) {
+            alunos.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                Task<String> tarefa = chamadas.executar("voto:registrar:votos/aluno", () -> {
+                    operacoesIniciadas.incrementAndGet();
+                    return votoSimulado(backend, todosChamaram, jaVotou, contador);
+                });
+                synchronized (tarefas) {
+                    tarefas.add(tarefa);
+                }
+                tarefa.addOnCompleteListener(Runnable::run, t -> todosReceberam.countDown());
+                todosChamaram.countDown();
+            });
+        }
+
+        largada.countDown();
+        assertTrue(todosReceberam.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1, contador.get());
+        assertEquals(1, operacoesIniciadas.get());
+        for (Task<String> tarefa : tarefas) {
+            assertTrue(tarefa.isSuccessful());
+            assertEquals("A", tarefa.getResult());
+        }
+        assertEquals(0, chamadas.getQuantidadeEmAndamento());
+
+        alunos.shutdownNow();
+        backend.shutdownNow();
+    }
+
+    @Test
+    public void aposConclusao_novaChamadaIniciaNovaOperacao() {
+        ChamadasEmAndamento chamadas = new ChamadasEmAndamento();
+        TaskCompletionSource<String> primeira = new TaskCompletionSource<>();
+        TaskCompletionSource<String> segunda = new TaskCompletionSource<>();
+
+        Task<String> t1 = chamadas.executar("enquete:ler", primeira::getTask);
+        Task<String> t1Repetida = chamadas.executar("enquete:ler", segunda::getTask);
+        assertSame(t1, t1Repetida);
+
+        primeira.setResult("ok");
+        assertEquals(0, chamadas.getQuantidadeEmAndamento());
+
+        Task<String> t2 = chamadas.executar("enquete:ler", segunda::getTask);
+        assertNotSame(t1, t2);
+    }
+
+    @Test
+    public void erro_eEntregueATodosEChaveELiberada() {
+        ChamadasEmAndamento chamadas = new ChamadasEmAndamento();
+        TaskCompletionSource<String> fonte = new TaskCompletionSource<>();
+
+        Task<String> a = chamadas.executar("voto", fonte::getTask);
+        Task<String> b = chamadas.executar("voto", fonte::getTask);
+
+        IllegalStateException erro = new IllegalStateException("falhou");
+        fonte.setException(erro);
+
+        assertSame(erro, a.getException());
+        assertSame(erro, b.getException());
+        assertEquals(0, chamadas.getQuantidadeEmAndamento());
+    }
+
+    @Test
+    public void chavesDiferentes_naoSaoCompartilhadas() {
+        ChamadasEmAndamento chamadas = new ChamadasEmAndamento();
+        TaskCompletionSource<String> fonteA = new TaskCompletionSource<>();
+        TaskCompletionSource<String> fonteB = new TaskCompletionSource<>();
+
+        Task<String> a = chamadas.executar("voto:aluno1", fonteA::getTask);
+        Task<String> b = chamadas.executar("voto:aluno2", fonteB::getTask);
+
+        assertNotSame(a, b);
+        assertEquals(2, chamadas.getQuantidadeEmAndamento());
+    }
+
+    /**
+     * Simula o registro de voto: espera todos os alunos tocarem no botão
+     * (maximizando a janela de corrida), verifica e só então incrementa.
+     */
+    private static Task<String> votoSimulado(ExecutorService backend,
+                                             CountDownLatch todosChamaram,
+                                             AtomicBoolean jaVotou,
+                                             AtomicInteger contador) {
+        TaskCompletionSource<String> fonte = new TaskCompletionSource<>();
+        backend.execute(() -> {
+            boolean votou = jaVotou.get();
+            try {
+                todosChamaram.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!votou) {
+                contador.incrementAndGet();
+                jaVotou.set(true);
+            }
+            fonte.setResult("A");
+        });
+        return fonte.getTask();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da classificação incremental do quiz.
+ */
+public class ClassificacaoTest {
+
+    @Test
+    public void ordenaPorPontosEDepoisPorId() {
+        Classificacao c = new Classificacao(3);
+        assertTrue(c.atualizar("b", "Bia", 2));
+        assertTrue(c.atualizar("a", "Ana", 2));
+        assertTrue(c.atualizar("c", "Caio", 5));
+
+        List<Classificacao.Entrada> lista = c.getEntradas();
+        assertEquals("c", lista.get(0).id);
+        assertEquals("a", lista.get(1).id);
+        assertEquals("b", lista.get(2).id);
+    }
+
+    @Test
+    public void abaixoDoUltimoNaoMudaALista() {
+        Classificacao c = new Classificacao(2);
+        c.atualizar("a", "Ana", 5);
+        c.atualizar("b", "Bia", 3);
+
+        assertFalse(c.atualizar("z", "Zeca", 3)); // empata e perde no id
+        assertFalse(c.atualizar("d", "Davi", 1));
+        assertTrue(c.atualizar("e", "Edu", 4));
+        assertEquals(-1, c.posicao("b"));
+        assertEquals(1, c.posicao("e"));
+        assertEquals(2, c.getEntradas().size());
+    }
+
+    @Test
+    public void mesmaPontuacaoNaoRegrava() {
+        Classificacao c = new Classificacao(2);
+        c.atualizar("a", "Ana", 5);
+        assertFalse(c.atualizar("a", "Ana", 5));
+        assertTrue(c.atualizar("a", "Ana Maria", 5)); // apelido novo
+        assertTrue(c.atualizar("a", "Ana Maria", 6));
+    }
+
+    @Test
+    public void pontuacaoAtrasadaNaoRebaixaOAluno() {
+        Classificacao c = new Classificacao(3);
+        c.atualizar("a", "Ana", 4);
+
+        assertFalse(c.atualizar("a", "Ana", 3));
+        assertEquals(4, c.getEntradas().get(0).pontos);
+    }
+
+    @Test
+    public void alunoEmDoisFragmentosContaUmaVezComMaisPontos() {
+        Classificacao antigo = new Classificacao(3);
+        antigo.atualizar("a", "Ana", 2);
+        antigo.atualizar("b", "Bia", 1);
+        Classificacao novo = new Classificacao(3);
+        novo.atualizar("a", "Ana", 5);
+
+        List<Classificacao.Entrada> mescladas =
+                Classificacao.mesclar(Arrays.asList(antigo, novo), 3).getEntradas();
+
+        assertEquals(2, mescladas.size());
+        assertEquals(new Classificacao.Entrada("a", "Ana", 5), mescladas.get(0));
+        assertEquals("b", mescladas.get(1).id);
+    }
+
+    @Test
+    public void fragmentosMescladosIguaisAoCalculoCompleto() {
+        int tamanho = 10;
+        int fragmentos = 8;
+        List<Classificacao> partes = new ArrayList<>();
+        for (int i = 0; i < fragmentos; i++) partes.add(new Classificacao(tamanho));
+        Map<String, Long> pontos = new HashMap<>();
+        Random aleatorio = new Random(3);
+
+        // 300 alunos, 20 perguntas: cada acerto só mexe no fragmento do aluno
+        for (int pergunta = 0; pergunta < 20; pergunta++) {
+            for (int aluno = 0; aluno < 300; aluno++) {
+                if (aleatorio.nextInt(3) != 0) continue;
+                String id = "aluno" + aluno;
+                long novo = pontos.merge(id, 1L, Long::sum);
+                partes.get(Math.floorMod(id.hashCode(), fragmentos)).atualizar(id, id, novo);
+            }
+        }
+
+        List<Map.Entry<String, Long>> todos = new ArrayList<>(pontos.entrySet());
+        todos.sort(Comparator.<Map.Entry<String, Long>>comparingLong(Map.Entry::getValue).reversed()
+                .thenComparing(Map.Entry::getKey));
+        List<Classificacao.Entrada> esperada = new ArrayList<>();
+        for (int i = 0; i < tamanho; i++) {
+            esperada.add(new Classificacao.Entrada(todos.get(i).getKey(), todos.get(i).getKey(),
+                    todos.get(i).getValue()));
+        }
+
+        assertEquals(esperada, Classificacao.mesclar(partes, tamanho).getEntradas());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes dos contadores por turma e do total combinado incremental.
+ */
+public class ContagemTurmasTest {
+
+    @Test
+    public void idIgnoraAcentoCaixaEEspacos() {
+        assertEquals("1_a", ContagemTurmas.idDaTurma("1º A"));
+        assertEquals(ContagemTurmas.idDaTurma("Turma Manhã"), ContagemTurmas.idDaTurma("  turma   MANHA "));
+        assertNull(ContagemTurmas.idDaTurma(" - "));
+    }
+
+    @Test
+    public void lerNomesSeparaEIgnoraRepetidas() {
+        assertEquals(Arrays.asList("3A", "3B", "Noturno"),
+                ContagemTurmas.lerNomes("3A, 3B;\n3a ,, Noturno\n"));
+        assertTrue(ContagemTurmas.lerNomes(null).isEmpty());
+        assertTrue(ContagemTurmas.lerNomes(" , ; ").isEmpty());
+    }
+
+    @Test
+    public void atualizarSomaSoADiferenca() {
+        ContagemTurmas c = new ContagemTurmas();
+        assertTrue(c.atualizar("3a", "3A", 2, 1, 0));
+        assertTrue(c.atualizar("3b", "3B", 0, 4, 1));
+        assertEquals(2, c.getTotalA());
+        assertEquals(5, c.getTotalB());
+        assertEquals(1, c.getTotalC());
+
+        assertFalse(c.atualizar("3a", "3A", 2, 1, 0)); // mesmo documento de novo
+        assertTrue(c.atualizar("3a", "3A", 3, 1, 2));
+        assertEquals(3, c.getTotalA());
+        assertEquals(3, c.getTotalC());
+        assertEquals(11, c.getTotal());
+
+        assertTrue(c.remover("3b"));
+        assertFalse(c.remover("3b"));
+        assertEquals(6, c.getTotal());
+        assertNull(c.getTurma("3b"));
+    }
+
+    @Test
+    public void copiaNaoMudaComAsProximasAtualizacoes() {
+        ContagemTurmas c = new ContagemTurmas();
+        c.atualizar("3a", "3A", 1, 0, 0);
+        ContagemTurmas foto = new ContagemTurmas(c);
+        c.atualizar("3a", "3A", 5, 0, 0);
+
+        assertEquals(1, foto.getTotalA());
+        assertEquals(1, foto.getTurma("3a").opcaoA);
+        assertEquals(5, c.getTotalA());
+    }
+
+    @Test
+    public void totalIncrementalIgualAoCalculoCompleto() {
+        int quantidade = 12;
+        long[][] contadores = new long[quantidade][3];
+        ContagemTurmas c = new ContagemTurmas();
+        Random aleatorio = new Random(7);
+
+        // Votos espalhados pelas turmas; cada voto gera um snapshot só da turma dele
+        for (int voto = 0; voto < 5000; voto++) {
+            int turma = aleatorio.nextInt(quantidade);
+            contadores[turma][aleatorio.nextInt(3)]++;
+            long[] t = contadores[turma];
+            c.atualizar("t" + turma, "Turma " + turma, t[0], t[1], t[2]);
+        }
+
+        long a = 0, b = 0, cc = 0;
+        for (long[] t : contadores) {
+            a += t[0];
+            b += t[1];
+            cc += t[2];
+        }
+        assertEquals(a, c.getTotalA());
+        assertEquals(b, c.getTotalB());
+        assertEquals(cc, c.getTotalC());
+        assertEquals(5000, c.getTotal());
+        assertEquals(quantidade, c.getTurmas().size());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da exportação CSV paginada: escape dos campos, encadeamento dos cursores e cancelamento.
+ */
+public class ExportadorCsvTest {
+
+    /**
+     * Gera "total" linhas numeradas; o cursor é o índice da próxima linha.
+     */
+    private static class PaginadorFalso implements ExportadorCsv.Paginador {
+        final int total;
+        final List<Object> cursoresRecebidos = new ArrayList<>();
+
+        PaginadorFalso(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public Task<ExportadorCsv.Pagina> buscar(Object cursor, int tamanho) {
+            cursoresRecebidos.add(cursor);
+            int inicio = cursor == null ? 0 : (Integer) cursor;
+            int fim = Math.min(total, inicio + tamanho);
+            List<String[]> linhas = new ArrayList<>();
+            for (int i = inicio; i < fim; i++) {
+                linhas.add(new String[]{"v" + i, "A"});
+            }
+            return Tasks.forResult(new ExportadorCsv.Pagina(linhas, fim < total ? fim : null));
+        }
+    }
+
+    @Test
+    public void percorreTodasAsPaginasComCursor() throws Exception {
+        PaginadorFalso paginador = new PaginadorFalso(7);
+        ExportadorCsv exportador = new ExportadorCsv(new String[]{"id", "opcao"}, paginador, 3);
+        List<Long> progresso = new ArrayList<>();
+        StringWriter saida = new StringWriter();
+
+        long total = exportador.exportar(saida, progresso::add);
+
+        assertEquals(7, total);
+        assertEquals(3, paginador.cursoresRecebidos.size());
+        assertNull(paginador.cursoresRecebidos.get(0));
+        assertEquals(3, paginador.cursoresRecebidos.get(1));
+        assertEquals(6, paginador.cursoresRecebidos.get(2));
+        assertEquals(3, progresso.size());
+        assertEquals(Long.valueOf(7), progresso.get(2));
+
+        String[] linhas = saida.toString().split("\r\n");
+        assertEquals(8, linhas.length);
+        assertEquals("id,opcao", linhas[0]);
+        assertEquals("v6,A", linhas[7]);
+    }
+
+    @Test
+    public void camposComVirgulaAspasOuQuebraVaoEntreAspas() throws Exception {
+        ExportadorCsv.Paginador paginador = (cursor, tamanho) -> {
+            List<String[]> linhas = new ArrayList<>();
+            linhas.add(new String[]{"Moto G, 5G", "diz \"oi\"", "linha\nnova", null, "simples"});
+            return Tasks.forResult(new ExportadorCsv.Pagina(linhas, null));
+        };
+        StringWriter saida = new StringWriter();
+        new ExportadorCsv(new String[]{"a"}, paginador, 10).exportar(saida, null);
+
+        assertEquals("a\r\n\"Moto G, 5G\",\"diz \"\"oi\"\"\",\"linha\nnova\",,simples\r\n",
+                saida.toString());
+    }
+
+    @Test
+    public void cancelarInterrompeAntesDaProximaPagina() throws Exception {
+        PaginadorFalso paginador = new PaginadorFalso(100);
+        ExportadorCsv exportador = new ExportadorCsv(new String[]{"id", "opcao"}, paginador, 10);
+        StringWriter saida = new StringWriter();
+
+        try {
+            exportador.exportar(saida, linhas -> {
+                if (linhas >= 20) exportador.cancelar();
+            });
+            fail("Deveria ter sido cancelada");
+        } catch (CancellationException esperado) {
+            // ok
+        }
+        assertEquals(2, paginador.cursoresRecebidos.size());
+        assertEquals(21, saida.toString().split("\r\n").length);
+    }
+
+    @Test
+    public void esperaPaginaEntregueDepoisPorOutraThread() throws Exception {
+        ExportadorCsv.Paginador paginador = (cursor, tamanho) -> {
+            TaskCompletionSource<ExportadorCsv.Pagina> origem = new TaskCompletionSource<>();
+            new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignorada) {
+                    // segue e entrega a página
+                }
+                List<String[]> linhas = new ArrayList<>();
+                linhas.add(new String[]{"v0", "B"});
+                origem.setResult(new ExportadorCsv.Pagina(linhas, null));
+            }).start();
+            return origem.getTask();
+        };
+        StringWriter saida = new StringWriter();
+
+        long total = new ExportadorCsv(new String[]{"id", "opcao"}, paginador, 10).exportar(saida, null);
+
+        assertEquals(1, total);
+        assertEquals("id,opcao\r\nv0,B\r\n", saida.toString());
+    }
+
+    @Test
+    public void falhaDaPaginaChegaComoExecutionException() throws Exception {
+        IOException erro = new IOException("sem rede");
+        ExportadorCsv.Paginador paginador = (cursor, tamanho) -> Tasks.forException(erro);
+
+        try {
+            new ExportadorCsv(new String[]{"id"}, paginador, 10).exportar(new StringWriter(), null);
+            fail("Deveria ter falhado");
+        } catch (ExecutionException e) {
+            assertSame(erro, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da conversão Task -> CompletableFuture, do desembrulho de erros e do prazo.
+ */
+public class FuturosTest {
+
+    // Executor direto: o future completa na thread que completou a Task
+    private static final Executor DIRETO = Runnable::run;
+
+    @Test
+    public void sucessoDaTaskCompletaOFuture() throws Exception {
+        TaskCompletionSource<String> origem = new TaskCompletionSource<>();
+        CompletableFuture<String> futuro = Futuros.deTask(origem.getTask(), DIRETO);
+        assertFalse(futuro.isDone());
+
+        origem.setResult("ok");
+
+        assertEquals("ok", futuro.get());
+    }
+
+    @Test
+    public void falhaDaTaskChegaComAExcecaoOriginal() {
+        TaskCompletionSource<String> origem = new TaskCompletionSource<>();
+        CompletableFuture<String> futuro = Futuros.deTask(origem.getTask(), DIRETO);
+        IOException erro = new IOException("sem rede");
+
+        origem.setException(erro);
+
+        assertTrue(futuro.isCompletedExceptionally());
+        try {
+            futuro.join();
+            fail("Deveria ter falhado");
+        } catch (CompletionException e) {
+            assertSame(erro, Futuros.causa(e));
+        }
+    }
+
+    @Test
+    public void cancelamentoDaTaskCancelaOFuture() {
+        CancellationTokenSource cancelamento = new CancellationTokenSource();
+        TaskCompletionSource<String> origem = new TaskCompletionSource<>(cancelamento.getToken());
+        CompletableFuture<String> futuro = Futuros.deTask(origem.getTask(), DIRETO);
+
+        cancelamento.cancel();
+
+        assertTrue(futuro.isCancelled());
+    }
+
+    @Test
+    public void futureCanceladoIgnoraResultadoQueChegaDepois() {
+        TaskCompletionSource<String> origem = new TaskCompletionSource<>();
+        CompletableFuture<String> futuro = Futuros.deTask(origem.getTask(), DIRETO);
+
+        futuro.cancel(false);
+        origem.setResult("tarde demais");
+
+        assertTrue(futuro.isCancelled());
+    }
+
+    @Test
+    public void causaDesembrulhaCamadasDeCompletionEExecution() {
+        IllegalStateException original = new IllegalStateException("x");
+        Throwable embrulhada = new CompletionException(new ExecutionException(original));
+
+        assertSame(original, Futuros.causa(embrulhada));
+        assertSame(original, Futuros.causa(original));
+    }
+
+    @Test
+    public void causaConverteErroQueNaoEExcecao() {
+        AssertionError erro = new AssertionError("falhou");
+
+        Exception causa = Futuros.causa(new CompletionException(erro));
+
+        assertTrue(causa instanceof RuntimeException);
+        assertSame(erro, causa.getCause());
+    }
+
+    @Test
+    public void prazoEstouradoFalhaComTimeout() throws Exception {
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CompletableFuture<String> futuro = Futuros.comPrazo(
+                    new CompletableFuture<>(), 10, TimeUnit.MILLISECONDS, agendador);
+            try {
+                futuro.get(2, TimeUnit.SECONDS);
+                fail("Deveria ter estourado o prazo");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+        } finally {
+            agendador.shutdownNow();
+        }
+    }
+
+    @Test
+    public void terminarAntesDoPrazoCancelaODisparo() throws Exception {
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CompletableFuture<String> futuro = Futuros.comPrazo(
+                    new CompletableFuture<>(), 50, TimeUnit.MILLISECONDS, agendador);
+            futuro.complete("a tempo");
+            Thread.sleep(100);
+
+            assertEquals("a tempo", futuro.get());
+            assertFalse(futuro.isCompletedExceptionally());
+        } finally {
+            agendador.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.Enquete;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da observação adaptativa com rede, bateria, relógio e Firestore falsos.
+ */
+public class ObservadorAdaptativoTest {
+
+    private EstadoFalso estado;
+    private AgendadorFalso agendador;
+    private FonteFalsa fonte;
+    private List<Enquete> entregues;
+    private PoliticaAtualizacao politica;
+
+    @Before
+    public void setUp() {
+        estado = new EstadoFalso();
+        agendador = new AgendadorFalso();
+        fonte = new FonteFalsa();
+        entregues = new ArrayList<>();
+        // base 5 s, teto 40 s, limite 30 mudanças/min, janela 60 s, reavaliação 10 s
+        politica = new PoliticaAtualizacao(5_000L, 40_000L, 30, 60_000L, 10_000L);
+    }
+
+    private ObservadorAdaptativo iniciar() {
+        return new ObservadorAdaptativo(fonte, estado, agendador, politica,
+                new EnqueteRepository.EnqueteListener() {
+                    @Override
+                    public void onEnqueteAtualizada(Enquete enquete) {
+                        entregues.add(enquete);
+                    }
+
+                    @Override
+                    public void onErro(@Nullable Exception e) {
+                    }
+                }).iniciar();
+    }
+
+    @Test
+    public void redeLivre_usaTempoReal() {
+        ObservadorAdaptativo obs = iniciar();
+
+        assertEquals(ModoAtualizacao.TEMPO_REAL, obs.getModo());
+        assertTrue(fonte.ouvindo());
+        assertEquals(0, fonte.buscas);
+    }
+
+    @Test
+    public void redeLimitadaComDocumentoQuente_passaParaConsultaPeriodica() {
+        estado.limitada = true;
+        ObservadorAdaptativo obs = iniciar();
+        assertEquals(ModoAtualizacao.TEMPO_REAL, obs.getModo());
+
+        // 40 votos em ~8 s: bem acima de 30 por minuto
+        for (int i = 0; i <= 40; i++) {
+            agendador.avancar(200);
+            fonte.emitir(enquete(i));
+        }
+        agendador.avancar(10_000); // reavaliação periódica
+
+        assertEquals(ModoAtualizacao.CONSULTA_PERIODICA, obs.getModo());
+        assertFalse(fonte.ouvindo());
+        assertEquals(1, fonte.buscas);
+    }
+
+    @Test
+    public void consultaPeriodica_dobraIntervaloQuandoNadaMuda() {
+        estado.economia = true;
+        ObservadorAdaptativo obs = iniciar();
+        assertEquals(ModoAtualizacao.CONSULTA_PERIODICA, obs.getModo());
+
+        fonte.responder(enquete(3));             // primeira resposta: intervalo base
+        assertEquals(5_000L, obs.getIntervaloAtualMillis());
+
+        agendador.avancar(5_000);
+        fonte.responder(enquete(3));             // sem mudança: 10 s
+        assertEquals(10_000L, obs.getIntervaloAtualMillis());
+
+        agendador.avancar(10_000);
+        fonte.responder(enquete(3));             // sem mudança: 20 s
+        assertEquals(20_000L, obs.getIntervaloAtualMillis());
+
+        agendador.avancar(20_000);
+        fonte.responder(enquete(3));             // sem mudança: teto de 40 s
+        agendador.avancar(40_000);
+        fonte.responder(enquete(3));
+        assertEquals(40_000L, obs.getIntervaloAtualMillis());
+
+        agendador.avancar(40_000);
+        fonte.responder(enquete(9));             // mudou: volta ao intervalo base
+        assertEquals(5_000L, obs.getIntervaloAtualMillis());
+        assertEquals(6, entregues.size());
+    }
+
+    @Test
+    public void economiaEmRedeLimitada_ficaManualEAtualizaSoQuandoPedido() {
+        estado.economia = true;
+        estado.limitada = true;
+        ObservadorAdaptativo obs = iniciar();
+
+        assertEquals(ModoAtualizacao.MANUAL, obs.getModo());
+        agendador.avancar(120_000);
+        assertEquals(0, fonte.buscas);
+        assertFalse(fonte.ouvindo());
+
+        obs.atualizarAgora();
+        fonte.responder(enquete(5));
+        assertEquals(1, fonte.buscas);
+        assertEquals(1, entregues.size());
+    }
+
+    @Test
+    public void mudancaDeRede_reavaliaNaHora() {
+        estado.economia = true;
+        ObservadorAdaptativo obs = iniciar();
+        assertEquals(ModoAtualizacao.CONSULTA_PERIODICA, obs.getModo());
+
+        estado.economia = false;
+        estado.avisar();
+
+        assertEquals(ModoAtualizacao.TEMPO_REAL, obs.getModo());
+        assertTrue(fonte.ouvindo());
+
+        // Resposta atrasada da consulta do modo anterior é descartada
+        fonte.responder(enquete(1));
+        assertTrue(entregues.isEmpty());
+    }
+
+    @Test
+    public void tempoRealObrigatorio_ignoraEconomiaAteSerDesligado() {
+        estado.economia = true;
+        estado.limitada = true;
+        ObservadorAdaptativo obs = iniciar();
+        assertEquals(ModoAtualizacao.MANUAL, obs.getModo());
+
+        obs.setTempoRealObrigatorio(true);
+        assertEquals(ModoAtualizacao.TEMPO_REAL, obs.getModo());
+        assertTrue(fonte.ouvindo());
+
+        // Nem a reavaliação periódica nem a mudança de rede tiram do tempo real
+        agendador.avancar(30_000);
+        estado.avisar();
+        assertEquals(ModoAtualizacao.TEMPO_REAL, obs.getModo());
+
+        obs.setTempoRealObrigatorio(false);
+        assertEquals(ModoAtualizacao.MANUAL, obs.getModo());
+        assertFalse(fonte.ouvindo());
+    }
+
+    @Test
+    public void trocaDeModo_avisaQuemAcompanha() {
+        estado.economia = true;
+        ObservadorAdaptativo obs = iniciar();
+        List<ModoAtualizacao> avisos = new ArrayList<>();
+        obs.setAoMudarModo(() -> avisos.add(obs.getModo()));
+
+        estado.economia = false;
+        estado.avisar();
+        estado.avisar(); // mesmo modo: sem aviso
+
+        assertEquals(Collections.singletonList(ModoAtualizacao.TEMPO_REAL), avisos);
+    }
+
+    @Test
+    public void remove_paraTudo() {
+        ObservadorAdaptativo obs = iniciar();
+        obs.remove();
+
+        assertFalse(fonte.ouvindo());
+        assertNull(estado.ouvinte);
+        assertEquals(0, agendador.pendentes());
+    }
+
+    private static Enquete enquete(long votosA) {
+        return new Enquete("Pergunta", "A", "B", "C", votosA, 0, 0);
+    }
+
+    // =====================================================================
+    //  Falsos
+    // =====================================================================
+
+    private static class EstadoFalso implements EstadoAparelho {
+        boolean conectado = true;
+        boolean limitada;
+        boolean economia;
+        Runnable ouvinte;
+
+        @Override
+        public boolean isConectado() {
+            return conectado;
+        }
+
+        @Override
+        public boolean isRedeLimitada() {
+            return limitada;
+        }
+
+        @Override
+        public boolean isEconomiaBateria() {
+            return economia;
+        }
+
+        @Override
+        public void setOuvinte(@Nullable Runnable aoMudar) {
+            ouvinte = aoMudar;
+        }
+
+        void avisar() {
+            if (ouvinte != null) ouvinte.run();
+        }
+    }
+
+    private static class AgendadorFalso implements Agendador {
+        private long agora;
+        private final List<long[]> instantes = new ArrayList<>();
+        private final List<Runnable> tarefas = new ArrayList<>();
+
+        @Override
+        public long agoraMillis() {
+            return agora;
+        }
+
+        @Override
+        public Tarefa agendar(Runnable tarefa, long atrasoMillis) {
+            long[] quando = {agora + atrasoMillis};
+            instantes.add(quando);
+            tarefas.add(tarefa);
+            return () -> {
+                int i = instantes.indexOf(quando);
+                if (i >= 0) {
+                    instantes.remove(i);
+                    tarefas.remove(i);
+                }
+            };
+        }
+
+        void avancar(long millis) {
+            long fim = agora + millis;
+            while (true) {
+                int proxima = -1;
+                for (int i = 0; i < instantes.size(); i++) {
+                    if (instantes.get(i)[0] <= fim
+                            && (proxima < 0 || instantes.get(i)[0] < instantes.get(proxima)[0])) {
+                        proxima = i;
+                    }
+                }
+                if (proxima < 0) break;
+                agora = instantes.remove(proxima)[0];
+                tarefas.remove(proxima).run();
+            }
+            agora = fim;
+        }
+
+        int pendentes() {
+            return instantes.size();
+        }
+    }
+
+    private static class FonteFalsa implements ObservadorAdaptativo.FonteEnquete {
+        private EnqueteRepository.EnqueteListener ouvinte;
+        private final List<EnqueteRepository.EnqueteCarregadaCallback> pendentes = new ArrayList<>();
+        int buscas;
+
+        @Override
+        public ListenerRegistration ouvir(EnqueteRepository.EnqueteListener listener) {
+            ouvinte = listener;
+            return () -> {
+                if (ouvinte == listener) ouvinte = null;
+            };
+        }
+
+        @Override
+        public void buscar(EnqueteRepository.EnqueteCarregadaCallback callback) {
+            buscas++;
+            pendentes.add(callback);
+        }
+
+        boolean ouvindo() {
+            return ouvinte != null;
+        }
+
+        void emitir(Enquete enquete) {
+            ouvinte.onEnqueteAtualizada(enquete);
+        }
+
+        /** Responde todas as buscas pendentes. */
+        void responder(Enquete enquete) {
+            List<EnqueteRepository.EnqueteCarregadaCallback> atuais = new ArrayList<>(pendentes);
+            pendentes.clear();
+            for (EnqueteRepository.EnqueteCarregadaCallback callback : atuais) {
+                callback.onEnqueteCarregada(enquete);
+            }
+        }
+    }
+}
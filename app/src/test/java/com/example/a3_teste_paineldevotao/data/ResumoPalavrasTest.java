@@ -0,0 +1,108 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do resumo Space-Saving das respostas livres e da normalização.
+ */
+public class ResumoPalavrasTest {
+
+    @Test
+    public void normalizaCaixaAcentosEPontuacao() {
+        assertEquals("cafe", NormalizadorResposta.normalizar("  Café!"));
+        assertEquals("cafe", NormalizadorResposta.normalizar("CAFÉ"));
+        assertEquals("sao paulo", NormalizadorResposta.normalizar("São   Paulo..."));
+        assertEquals("agua de coco", NormalizadorResposta.normalizar("água-de-coco"));
+        assertNull(NormalizadorResposta.normalizar(" ?! "));
+        assertNull(NormalizadorResposta.normalizar(null));
+        assertEquals(NormalizadorResposta.MAXIMO_CARACTERES,
+                NormalizadorResposta.normalizar(new String(new char[100]).replace('\0', 'a')).length());
+    }
+
+    @Test
+    public void abaixoDaCapacidadeAsContagensSaoExatas() {
+        ResumoPalavras resumo = new ResumoPalavras(10);
+        for (String p : Arrays.asList("sol", "mar", "sol", "lua", "sol", "mar")) resumo.registrar(p);
+
+        List<ResumoPalavras.Entrada> topo = resumo.getMaisFrequentes(3);
+        assertEquals("sol", topo.get(0).palavra);
+        assertEquals(3, topo.get(0).contagem);
+        assertEquals("mar", topo.get(1).palavra);
+        assertEquals(2, topo.get(1).contagem);
+        assertEquals(0, topo.get(0).erro);
+        assertEquals(6, resumo.getTotal());
+        assertEquals(0, resumo.getMinimo());
+    }
+
+    @Test
+    public void memoriaLimitadaMantemAsPalavrasFrequentes() {
+        ResumoPalavras resumo = new ResumoPalavras(20);
+        Map<String, Long> exatas = new HashMap<>();
+        Random aleatorio = new Random(7);
+
+        // 5 palavras frequentes no meio de 10 mil palavras diferentes
+        for (int i = 0; i < 20_000; i++) {
+            String palavra = i % 2 == 0
+                    ? "frequente" + aleatorio.nextInt(5)
+                    : "rara" + aleatorio.nextInt(10_000);
+            resumo.registrar(palavra);
+            exatas.merge(palavra, 1L, Long::sum);
+        }
+
+        assertEquals(20, resumo.getTamanho());
+        List<ResumoPalavras.Entrada> topo = resumo.getMaisFrequentes(5);
+        for (ResumoPalavras.Entrada e : topo) {
+            assertTrue(e.palavra, e.palavra.startsWith("frequente"));
+            long exata = exatas.get(e.palavra);
+            assertTrue(e.contagem >= exata);
+            assertTrue(e.contagem - e.erro <= exata);
+        }
+    }
+
+    @Test
+    public void resumoSalvoEReconstruidoIgual() {
+        ResumoPalavras original = new ResumoPalavras(3);
+        for (String p : Arrays.asList("a", "b", "c", "d", "a", "a")) original.registrar(p);
+
+        ResumoPalavras lido = ResumoPalavras.de(3, original.getContagens(), original.getErros(),
+                original.getTotal());
+        assertEquals(original.getMaisFrequentes(3), lido.getMaisFrequentes(3));
+        assertEquals(original.getMinimo(), lido.getMinimo());
+        assertEquals(6, lido.getTotal());
+    }
+
+    @Test
+    public void mesclarFragmentosMantemLimites() {
+        List<ResumoPalavras> fragmentos = new ArrayList<>();
+        Map<String, Long> exatas = new HashMap<>();
+        Random aleatorio = new Random(11);
+        for (int f = 0; f < 4; f++) fragmentos.add(new ResumoPalavras(10));
+
+        for (int i = 0; i < 8_000; i++) {
+            String palavra = aleatorio.nextInt(3) == 0
+                    ? "top" + aleatorio.nextInt(3)
+                    : "cauda" + aleatorio.nextInt(500);
+            fragmentos.get(aleatorio.nextInt(4)).registrar(palavra);
+            exatas.merge(palavra, 1L, Long::sum);
+        }
+
+        ResumoPalavras mesclado = ResumoPalavras.mesclar(fragmentos, 10);
+        assertEquals(8_000, mesclado.getTotal());
+        List<ResumoPalavras.Entrada> topo = mesclado.getMaisFrequentes(3);
+        for (ResumoPalavras.Entrada e : topo) {
+            assertTrue(e.palavra, e.palavra.startsWith("top"));
+            long exata = exatas.get(e.palavra);
+            assertTrue(e.contagem >= exata);
+            assertTrue(e.contagem - e.erro <= exata);
+        }
+    }
+}
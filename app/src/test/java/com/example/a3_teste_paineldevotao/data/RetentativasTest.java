@@ -0,0 +1,171 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da camada de retentativa com backoff e jitter.
+ *
+ * O "servidor" simulado guarda as chaves de idempotência já aplicadas, como o
+ * documento de voto faz no Firestore.
+ */
+public class RetentativasTest {
+
+    private static final String OPERACAO = "registrarVoto";
+
+    private AgendadorFalso agendador;
+    private Retentativas retentativas;
+
+    @Before
+    public void setUp() {
+        agendador = new AgendadorFalso();
+        retentativas = new Retentativas(new PoliticaTeste(), agendador, new Random(42));
+    }
+
+    @Test
+    public void falhasTransitorias_saoRepetidasAteDarCerto() {
+        AtomicInteger chamadas = new AtomicInteger();
+        Task<String> tarefa = retentativas.executar(OPERACAO, () ->
+                chamadas.incrementAndGet() < 3
+                        ? Tasks.forException(new ErroTransitorio())
+                        : Tasks.forResult("ok"));
+
+        agendador.executarTudo();
+
+        assertTrue(tarefa.isSuccessful());
+        assertEquals("ok", tarefa.getResult());
+        assertEquals(3, chamadas.get());
+        MetricasRetentativa m = retentativas.getMetricas();
+        assertEquals(1, m.getOperacoes(OPERACAO));
+        assertEquals(3, m.getTentativas(OPERACAO));
+        assertEquals(1, m.getSucessosAposRetentativa(OPERACAO));
+        assertEquals(0, m.getDesistencias(OPERACAO));
+    }
+
+    @Test
+    public void esgotouTentativas_desisteComUltimoErro() {
+        AtomicInteger chamadas = new AtomicInteger();
+        Task<String> tarefa = retentativas.executar(OPERACAO, () -> {
+            chamadas.incrementAndGet();
+            return Tasks.forException(new ErroTransitorio());
+        });
+
+        agendador.executarTudo();
+
+        assertTrue(tarefa.isComplete());
+        assertTrue(tarefa.getException() instanceof ErroTransitorio);
+        assertEquals(4, chamadas.get());
+        assertEquals(1, retentativas.getMetricas().getDesistencias(OPERACAO));
+        assertEquals(4, retentativas.getMetricas().getTentativas(OPERACAO));
+    }
+
+    @Test
+    public void erroDefinitivo_naoRepete() {
+        AtomicInteger chamadas = new AtomicInteger();
+        Task<String> tarefa = retentativas.executar(OPERACAO, () -> {
+            chamadas.incrementAndGet();
+            return Tasks.forException(new IllegalStateException("sem permissão"));
+        });
+
+        agendador.executarTudo();
+
+        assertTrue(tarefa.getException() instanceof IllegalStateException);
+        assertEquals(1, chamadas.get());
+        assertTrue(agendador.atrasos.isEmpty());
+        assertEquals(1, retentativas.getMetricas().getFalhasDefinitivas(OPERACAO));
+    }
+
+    @Test
+    public void atrasos_respeitamTetoExponencialEVariam() {
+        PoliticaRetentativa politica = new PoliticaRetentativa(10, 100L, 1_000L);
+        Random aleatorio = new Random(7);
+        Set<Long> distintos = new HashSet<>();
+
+        for (int i = 0; i < 200; i++) {
+            for (int tentativa = 1; tentativa < 10; tentativa++) {
+                long teto = Math.min(1_000L, 100L << (tentativa - 1));
+                long atraso = politica.calcularAtraso(tentativa, aleatorio);
+                assertTrue(atraso >= 0 && atraso <= teto);
+                if (tentativa == 1) distintos.add(atraso);
+            }
+        }
+        // Com jitter, aparelhos que falharam juntos não voltam no mesmo instante
+        assertTrue(distintos.size() > 50);
+    }
+
+    @Test
+    public void respostaPerdida_chaveDeIdempotenciaEvitaContagemDupla() {
+        Set<String> chavesAplicadas = new HashSet<>();
+        AtomicInteger contador = new AtomicInteger();
+        AtomicInteger tentativa = new AtomicInteger();
+        String chave = "voto-123"; // gerada uma vez por operação lógica
+
+        Task<Boolean> tarefa = retentativas.executar(OPERACAO, () -> {
+            // Servidor: aplica o incremento uma única vez por chave
+            boolean jaAplicada = !chavesAplicadas.add(chave);
+            if (!jaAplicada) contador.incrementAndGet();
+            // A primeira resposta "se perde" na rede, mesmo com a escrita aplicada
+            if (tentativa.incrementAndGet() == 1) {
+                return Tasks.forException(new ErroTransitorio());
+            }
+            return Tasks.forResult(jaAplicada);
+        });
+
+        agendador.executarTudo();
+
+        assertTrue(tarefa.isSuccessful());
+        assertTrue(tarefa.getResult());
+        assertEquals(2, tentativa.get());
+        assertEquals(1, contador.get());
+    }
+
+    // =====================================================================
+    //  Falsos
+    // =====================================================================
+
+    private static class ErroTransitorio extends RuntimeException {
+    }
+
+    /** Política padrão, reconhecendo o erro falso como transitório. */
+    private static class PoliticaTeste extends PoliticaRetentativa {
+        @Override
+        public boolean ehTransitoria(Exception erro) {
+            return erro instanceof ErroTransitorio;
+        }
+    }
+
+    private static class AgendadorFalso implements Agendador {
+        final List<Long> atrasos = new ArrayList<>();
+        private final List<Runnable> pendentes = new ArrayList<>();
+
+        @Override
+        public long agoraMillis() {
+            return 0;
+        }
+
+        @Override
+        public Tarefa agendar(Runnable tarefa, long atrasoMillis) {
+            atrasos.add(atrasoMillis);
+            pendentes.add(tarefa);
+            return () -> pendentes.remove(tarefa);
+        }
+
+        void executarTudo() {
+            while (!pendentes.isEmpty()) {
+                pendentes.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import com.example.a3_teste_paineldevotao.model.PlacarResultados;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do servidor local de resultados pela interface de loopback.
+ */
+public class ServidorResultadosLocalTest {
+
+    private static final long PRAZO_MS = 5_000;
+
+    private final ServidorResultadosLocal servidor = new ServidorResultadosLocal();
+    private final List<ClienteResultadosLocal> clientes = new ArrayList<>();
+
+    @Before
+    public void iniciar() throws Exception {
+        servidor.iniciar(0);
+    }
+
+    @After
+    public void parar() {
+        for (ClienteResultadosLocal cliente : clientes) cliente.desconectar();
+        servidor.parar();
+    }
+
+    /**
+     * Ouvinte que guarda o que recebeu, entregue na própria thread do cliente.
+     */
+    private static class Recebidos implements ClienteResultadosLocal.Ouvinte {
+        final BlockingQueue<PlacarResultados> placares = new LinkedBlockingQueue<>();
+        final BlockingQueue<Object> desconexoes = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onPlacar(PlacarResultados placar) {
+            placares.add(placar);
+        }
+
+        @Override
+        public void onDesconectado(Exception erro) {
+            desconexoes.add(erro != null ? erro : "sem erro");
+        }
+
+        PlacarResultados esperar(PlacarResultados esperado) throws InterruptedException {
+            long limite = System.currentTimeMillis() + PRAZO_MS;
+            PlacarResultados ultimo = null;
+            while (System.currentTimeMillis() < limite) {
+                PlacarResultados p = placares.poll(100, TimeUnit.MILLISECONDS);
+                if (p != null) ultimo = p;
+                if (esperado.equals(ultimo)) return ultimo;
+            }
+            fail("Esperado " + esperado + ", último recebido " + ultimo);
+            return null;
+        }
+    }
+
+    private Recebidos conectar() throws InterruptedException {
+        Recebidos recebidos = new Recebidos();
+        ClienteResultadosLocal cliente =
+                new ClienteResultadosLocal("127.0.0.1", servidor.getPorta(), Runnable::run, recebidos);
+        clientes.add(cliente);
+        int antes = servidor.getQuantidadeClientes();
+        cliente.conectar();
+        esperarClientes(antes + 1);
+        return recebidos;
+    }
+
+    private void esperarClientes(int quantidade) throws InterruptedException {
+        long limite = System.currentTimeMillis() + PRAZO_MS;
+        while (servidor.getQuantidadeClientes() < quantidade && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(quantidade, servidor.getQuantidadeClientes());
+    }
+
+    @Test
+    public void deltaSoTrazCamposAlterados() {
+        PlacarResultados antes = new PlacarResultados(2, 10, 5, 0, 77);
+        PlacarResultados depois = new PlacarResultados(2, 11, 5, 3, 77);
+
+        assertEquals("a=11 c=3", depois.delta(antes));
+        assertEquals("", depois.delta(depois));
+        assertEquals(depois, antes.aplicar(depois.delta(antes)));
+        assertEquals(depois, PlacarResultados.VAZIO.aplicar(depois.delta(null)));
+        // Campos desconhecidos são ignorados
+        assertEquals(depois, depois.aplicar("x=9"));
+    }
+
+    @Test
+    public void clienteRecebePlacarCompletoEDepoisAsMudancas() throws Exception {
+        servidor.publicar(new PlacarResultados(1, 3, 0, 0, 9));
+        Recebidos recebidos = conectar();
+        recebidos.esperar(new PlacarResultados(1, 3, 0, 0, 9));
+
+        servidor.publicar(new PlacarResultados(1, 3, 4, 0, 9));
+        recebidos.esperar(new PlacarResultados(1, 3, 4, 0, 9));
+    }
+
+    @Test
+    public void publicacoesSeguidasSaoAgrupadas() throws Exception {
+        Recebidos recebidos = conectar();
+        servidor.publicar(new PlacarResultados(0, 0, 0, 0, 1));
+        recebidos.esperar(new PlacarResultados(0, 0, 0, 0, 1));
+        int antes = servidor.getMensagensEnviadas();
+
+        // Dentro do intervalo de envio: só o último placar deve sair
+        for (int i = 1; i <= 100; i++) {
+            servidor.publicar(new PlacarResultados(0, i, 0, 0, 1));
+        }
+        recebidos.esperar(new PlacarResultados(0, 100, 0, 0, 1));
+        assertTrue(servidor.getMensagensEnviadas() - antes <= 3);
+    }
+
+    @Test
+    public void variosClientesRecebemOMesmoPlacar() throws Exception {
+        List<Recebidos> todos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) todos.add(conectar());
+
+        PlacarResultados placar = new PlacarResultados(4, 20, 30, 40, 5);
+        servidor.publicar(placar);
+        for (Recebidos recebidos : todos) recebidos.esperar(placar);
+    }
+
+    @Test
+    public void caminhoDesconhecidoRecebe404() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", servidor.getPorta())) {
+            socket.setSoTimeout((int) PRAZO_MS);
+            OutputStream saida = socket.getOutputStream();
+            saida.write("GET /outro HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            saida.flush();
+            BufferedReader entrada = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals("HTTP/1.1 404 Not Found", entrada.readLine());
+        }
+        assertEquals(0, servidor.getQuantidadeClientes());
+    }
+
+    @Test
+    public void clienteAvisaQuandoOServidorPara() throws Exception {
+        Recebidos recebidos = conectar();
+        servidor.parar();
+        assertNotNull(recebidos.desconexoes.poll(PRAZO_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void clienteAvisaQuandoNaoHaServidor() throws Exception {
+        int porta = servidor.getPorta();
+        servidor.parar();
+        Thread.sleep(100);
+
+        Recebidos recebidos = new Recebidos();
+        ClienteResultadosLocal cliente =
+                new ClienteResultadosLocal("127.0.0.1", porta, Runnable::run, recebidos);
+        clientes.add(cliente);
+        cliente.conectar();
+        assertNotNull(recebidos.desconexoes.poll(PRAZO_MS, TimeUnit.MILLISECONDS));
+        assertTrue(recebidos.placares.isEmpty());
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.a3_teste_paineldevotao.data;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import com.example.a3_teste_paineldevotao.model.Cedula;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da urna do quiosque: fila persistida, envio por tamanho/intervalo e reenvio do lote.
+ */
+public class UrnaQuiosqueTest {
+
+    private PreferenciasEmMemoria prefs;
+    private AgendadorFalso agendador;
+    private EnvioFalso envio;
+    private long relogio;
+
+    @Before
+    public void setUp() {
+        prefs = new PreferenciasEmMemoria();
+        agendador = new AgendadorFalso();
+        envio = new EnvioFalso();
+        relogio = 1_000L;
+    }
+
+    private UrnaQuiosque criar() {
+        // Executor direto: a conclusão do envio é tratada na hora, como se já estivesse na main thread
+        return new UrnaQuiosque(prefs, () -> relogio++, agendador, envio, Runnable::run);
+    }
+
+    @Test
+    public void depositarGuardaNaHoraESoEnviaDepoisDoIntervalo() {
+        UrnaQuiosque urna = criar();
+
+        Cedula cedula = urna.depositar("B");
+
+        assertEquals("B", cedula.getOpcao());
+        assertEquals(1_000L, cedula.getRegistradaEmMillis());
+        assertEquals(1, urna.getPendentes());
+        assertTrue(envio.lotes.isEmpty());
+
+        agendador.avancar(UrnaQuiosque.INTERVALO_ENVIO_MS - 1);
+        assertTrue(envio.lotes.isEmpty());
+        agendador.avancar(1);
+        assertEquals(1, envio.lotes.size());
+        assertEquals(cedula.getId(), envio.lotes.get(0).cedulas.get(0).getId());
+    }
+
+    @Test
+    public void filaSobreviveAoReinicio() {
+        UrnaQuiosque urna = criar();
+        urna.depositar("A");
+        urna.depositar("C");
+
+        UrnaQuiosque recriada = criar();
+
+        assertEquals(2, recriada.getPendentes());
+        recriada.enviarAgora();
+        List<Cedula> enviadas = envio.lotes.get(0).cedulas;
+        assertEquals("A", enviadas.get(0).getOpcao());
+        assertEquals("C", enviadas.get(1).getOpcao());
+    }
+
+    @Test
+    public void atingirTamanhoDoLoteEnviaSemEsperar() {
+        UrnaQuiosque urna = criar();
+        for (int i = 0; i < UrnaQuiosque.TAMANHO_LOTE - 1; i++) {
+            urna.depositar("A");
+        }
+        assertTrue(envio.lotes.isEmpty());
+
+        urna.depositar("A");
+
+        assertEquals(1, envio.lotes.size());
+        assertEquals(UrnaQuiosque.TAMANHO_LOTE, envio.lotes.get(0).cedulas.size());
+    }
+
+    @Test
+    public void sucessoTiraOLoteDaFila() {
+        UrnaQuiosque urna = criar();
+        int[] avisos = {0};
+        urna.setOuvinte(() -> avisos[0]++);
+        urna.depositar("A");
+        urna.enviarAgora();
+
+        envio.lotes.get(0).origem.setResult(null);
+
+        assertEquals(0, urna.getPendentes());
+        assertEquals(0, criar().getPendentes());
+        assertEquals(2, avisos[0]); // depósito + confirmação
+        agendador.avancar(UrnaQuiosque.INTERVALO_ENVIO_MS);
+        assertEquals(1, envio.lotes.size()); // nada mais a enviar
+    }
+
+    @Test
+    public void falhaReenviaOMesmoLoteDepoisDoIntervalo() {
+        UrnaQuiosque urna = criar();
+        urna.depositar("A");
+        urna.enviarAgora();
+        String loteId = envio.lotes.get(0).loteId;
+
+        // Cédula registrada durante o envio fica fora do lote em andamento
+        urna.depositar("B");
+        envio.lotes.get(0).origem.setException(new IOException("sem rede"));
+
+        assertEquals(2, urna.getPendentes());
+        agendador.avancar(UrnaQuiosque.INTERVALO_ENVIO_MS);
+        assertEquals(2, envio.lotes.size());
+        EnvioFalso.Lote reenvio = envio.lotes.get(1);
+        assertEquals(loteId, reenvio.loteId);
+        assertEquals(1, reenvio.cedulas.size());
+        assertEquals("A", reenvio.cedulas.get(0).getOpcao());
+
+        // Confirmado o lote, a cédula restante vai em um lote novo
+        reenvio.origem.setResult(null);
+        agendador.avancar(UrnaQuiosque.INTERVALO_ENVIO_MS);
+        assertEquals(3, envio.lotes.size());
+        assertNotEquals(loteId, envio.lotes.get(2).loteId);
+        assertEquals("B", envio.lotes.get(2).cedulas.get(0).getOpcao());
+    }
+
+    @Test
+    public void loteInterrompidoSaiComOMesmoIdAposReinicio() {
+        UrnaQuiosque urna = criar();
+        urna.depositar("A");
+        urna.enviarAgora();
+        String loteId = envio.lotes.get(0).loteId;
+        // App encerrado com o envio ainda em andamento
+
+        UrnaQuiosque recriada = criar();
+        recriada.enviarAgora();
+
+        assertEquals(2, envio.lotes.size());
+        assertEquals(loteId, envio.lotes.get(1).loteId);
+    }
+
+    @Test
+    public void umEnvioPorVezELoteLimitado() {
+        UrnaQuiosque urna = criar();
+        int total = UrnaQuiosque.TAMANHO_LOTE + UrnaQuiosque.LIMITE_LOTE + 30;
+        for (int i = 0; i < total; i++) {
+            urna.depositar("C");
+        }
+        // Só o primeiro lote saiu; os demais esperam a resposta dele
+        assertEquals(1, envio.lotes.size());
+        assertEquals(UrnaQuiosque.TAMANHO_LOTE, envio.lotes.get(0).cedulas.size());
+
+        envio.lotes.get(0).origem.setResult(null);
+
+        assertEquals(2, envio.lotes.size());
+        assertEquals(UrnaQuiosque.LIMITE_LOTE, envio.lotes.get(1).cedulas.size());
+        assertEquals(total - UrnaQuiosque.TAMANHO_LOTE, urna.getPendentes());
+    }
+
+    @Test
+    public void desligarOModoEnviaOQueEstiverNaFila() {
+        UrnaQuiosque urna = criar();
+        urna.setAtivo(true);
+        urna.depositar("A");
+        assertTrue(urna.isAtivo());
+
+        urna.setAtivo(false);
+
+        assertFalse(urna.isAtivo());
+        assertEquals(1, envio.lotes.size());
+    }
+
+    // =====================================================================
+    //  Falsos
+    // =====================================================================
+
+    private static class EnvioFalso implements UrnaQuiosque.EnvioLote {
+        final List<Lote> lotes = new ArrayList<>();
+
+        @Override
+        public Task<Void> enviar(String loteId, List<Cedula> cedulas) {
+            Lote lote = new Lote(loteId, new ArrayList<>(cedulas));
+            lotes.add(lote);
+            return lote.origem.getTask();
+        }
+
+        static class Lote {
+            final String loteId;
+            final List<Cedula> cedulas;
+            final TaskCompletionSource<Void> origem = new TaskCompletionSource<>();
+
+            Lote(String loteId, List<Cedula> cedulas) {
+                this.loteId = loteId;
+                this.cedulas = cedulas;
+            }
+        }
+    }
+
+    private static class AgendadorFalso implements Agendador {
+        private long agora;
+        private final List<long[]> instantes = new ArrayList<>();
+        private final List<Runnable> tarefas = new ArrayList<>();
+
+        @Override
+        public long agoraMillis() {
+            return agora;
+        }
+
+        @Override
+        public Tarefa agendar(Runnable tarefa, long atrasoMillis) {
+            long[] quando = {agora + atrasoMillis};
+            instantes.add(quando);
+            tarefas.add(tarefa);
+            return () -> {
+                int i = instantes.indexOf(quando);
+                if (i >= 0) {
+                    instantes.remove(i);
+                    tarefas.remove(i);
+                }
+            };
+        }
+
+        void avancar(long millis) {
+            long fim = agora + millis;
+            while (true) {
+                int proxima = -1;
+                for (int i = 0; i < instantes.size(); i++) {
+                    if (instantes.get(i)[0] <= fim
+                            && (proxima < 0 || instantes.get(i)[0] < instantes.get(proxima)[0])) {
+                        proxima = i;
+                    }
+                }
+                if (proxima < 0) break;
+                agora = instantes.remove(proxima)[0];
+                tarefas.remove(proxima).run();
+            }
+            agora = fim;
+        }
+    }
+
+    /**
+     * SharedPreferences em memória; apply() grava na hora.
+     */
+    private static class PreferenciasEmMemoria implements SharedPreferences {
+        private final Map<String, Object> valores = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(valores);
+        }
+
+        @Nullable
+        @Override
+        public String getString(String key, @Nullable String defValue) {
+            Object v = valores.get(key);
+            return v != null ? (String) v : defValue;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        @Override
+        public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+            Object v = valores.get(key);
+            return v != null ? new HashSet<>((Set<String>) v) : defValues;
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            Object v = valores.get(key);
+            return v != null ? (Integer) v : defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            Object v = valores.get(key);
+            return v != null ? (Long) v : defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            Object v = valores.get(key);
+            return v != null ? (Float) v : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            Object v = valores.get(key);
+            return v != null ? (Boolean) v : defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return valores.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new Edicao();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        private class Edicao implements Editor {
+            private final Map<String, Object> alteracoes = new HashMap<>();
+            private final Set<String> remocoes = new HashSet<>();
+            private boolean limpar;
+
+            private Editor colocar(String key, @Nullable Object valor) {
+                if (valor == null) {
+                    remocoes.add(key);
+                } else {
+                    alteracoes.put(key, valor);
+                }
+                return this;
+            }
+
+            @Override
+            public Editor putString(String key, @Nullable String value) {
+                return colocar(key, value);
+            }
+
+            @Override
+            public Editor putStringSet(String key, @Nullable Set<String> values) {
+                return colocar(key, values != null ? new HashSet<>(values) : null);
+            }
+
+            @Override
+            public Editor putInt(String key, int value) {
+                return colocar(key, value);
+            }
+
+            @Override
+            public Editor putLong(String key, long value) {
+                return colocar(key, value);
+            }
+
+            @Override
+            public Editor putFloat(String key, float value) {
+                return colocar(key, value);
+            }
+
+            @Override
+            public Editor putBoolean(String key, boolean value) {
+                return colocar(key, value);
+            }
+
+            @Override
+            public Editor remove(String key) {
+                remocoes.add(key);
+                return this;
+            }
+
+            @Override
+            public Editor clear() {
+                limpar = true;
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                if (limpar) valores.clear();
+                for (String key : remocoes) valores.remove(key);
+                valores.putAll(alteracoes);
+                return true;
+            }
+
+            @Override
+            public void apply() {
+                commit();
+            }
+        }
+    }
+}
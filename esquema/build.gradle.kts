@@ -0,0 +1,14 @@
+// Nomes dos campos gravados no Firestore, compartilhados pelo app e pelo semeador.
+// Java puro (sem Android nem Firebase) para o semeador, que roda na JVM, poder usar.
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
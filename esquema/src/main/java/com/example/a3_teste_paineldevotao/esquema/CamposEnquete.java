@@ -0,0 +1,33 @@
+package com.example.a3_teste_paineldevotao.esquema;
+
+/**
+ * Campos do documento da enquete (enquetes/enquete_geral).
+ *
+ * Usados por Enquete.toMap() e pela leitura do documento no app, e pelo
+ * semeador: quem grava a enquete fora do app não fica com um esquema à parte.
+ */
+public final class CamposEnquete {
+
+    public static final String TITULO = "tituloEnquete";
+    public static final String TEXTO_OPCAO_A = "textoOpcaoA";
+    public static final String TEXTO_OPCAO_B = "textoOpcaoB";
+    public static final String TEXTO_OPCAO_C = "textoOpcaoC";
+    public static final String MENSAGEM_RODAPE = "mensagemRodape";
+    public static final String DATA_HORA_ENCERRAMENTO = "dataHoraEncerramento";
+    public static final String ENCERRAMENTO_EM = "encerramentoEm";
+
+    public static final String OPCAO_A = "opcaoA";
+    public static final String OPCAO_B = "opcaoB";
+    public static final String OPCAO_C = "opcaoC";
+    public static final String RODADA = "rodada";
+
+    public static final String RESPOSTA_LIVRE = "respostaLivre";
+    public static final String IMAGEM_OPCAO_A = "imagemOpcaoA";
+    public static final String IMAGEM_OPCAO_B = "imagemOpcaoB";
+    public static final String IMAGEM_OPCAO_C = "imagemOpcaoC";
+    public static final String MODO_QUIZ = "modoQuiz";
+    public static final String TURMAS = "turmas";
+
+    private CamposEnquete() {
+    }
+}
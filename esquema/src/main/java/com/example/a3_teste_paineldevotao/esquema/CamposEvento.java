@@ -0,0 +1,26 @@
+package com.example.a3_teste_paineldevotao.esquema;
+
+/**
+ * Campos e tipos dos eventos do histórico (enquetes/enquete_geral/eventos/{tipo}-{chave}).
+ */
+public final class CamposEvento {
+
+    public static final String TIPO = "tipo";
+    public static final String TIMESTAMP = "timestamp";
+    public static final String OPCAO = "opcao";
+    public static final String APARELHO = "aparelho";
+    // Somas por opção de um lote do quiosque
+    public static final String OPCAO_A = "opcaoA";
+    public static final String OPCAO_B = "opcaoB";
+    public static final String OPCAO_C = "opcaoC";
+    // Campos gravados por uma alteração de configuração
+    public static final String DADOS = "dados";
+
+    public static final String TIPO_VOTO = "voto";
+    public static final String TIPO_LOTE = "lote";
+    public static final String TIPO_RESET = "reset";
+    public static final String TIPO_CONFIGURACAO = "configuracao";
+
+    private CamposEvento() {
+    }
+}
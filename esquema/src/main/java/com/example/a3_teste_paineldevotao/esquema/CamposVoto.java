@@ -0,0 +1,24 @@
+package com.example.a3_teste_paineldevotao.esquema;
+
+/**
+ * Campos de um documento de voto (enquetes/enquete_geral/votos/{id}).
+ */
+public final class CamposVoto {
+
+    public static final String OPCAO_ESCOLHIDA = "opcaoEscolhida";
+    public static final String TIMESTAMP = "timestamp";
+    public static final String CHAVE_IDEMPOTENCIA = "chaveIdempotencia";
+    public static final String APARELHO = "aparelho";
+    public static final String TURMA = "turma";
+
+    // Só nas cédulas do modo quiosque
+    public static final String REGISTRADA_EM = "registradaEm";
+    public static final String LOTE = "lote";
+
+    // Só nos votos do modo quiz (corrigidos pelo aparelho do professor)
+    public static final String APELIDO = "apelido";
+    public static final String RODADA = "rodada";
+
+    private CamposVoto() {
+    }
+}
@@ -0,0 +1,33 @@
+// Ferramenta de linha de comando que popula o emulador do Firestore com votos
+// realistas (benchmarks da lista de votantes, exportação e reset).
+//
+// Uso:
+//   firebase emulators:start --only firestore
+//   ./gradlew :semeador:run --args="--votos 100000 --distribuicao 50,30,20"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Fontes e mensagens em português: não depender da codificação padrão da máquina
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    // Mesmos nomes de campos gravados pelo app
+    implementation(project(":esquema"))
+}
+
+application {
+    mainClass.set("com.example.a3_teste_paineldevotao.semeador.SemeadorVotos")
+}
+
+tasks.named<JavaExec>("run") {
+    // Caminhos relativos (ex.: google-services.json) a partir da raiz do projeto
+    workingDir = rootProject.projectDir
+}
@@ -0,0 +1,173 @@
+package com.example.a3_teste_paineldevotao.semeador;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cliente mínimo da API REST do emulador do Firestore (sem SDK).
+ *
+ * Cada {@link #gravar} é um commit atômico de até 500 escritas. O cabeçalho
+ * "Authorization: Bearer owner" faz o emulador ignorar as regras de segurança.
+ *
+ * Valores aceitos nos documentos: String, Long/Integer, Double, Boolean,
+ * Instant (timestamp), Map (campo aninhado), List (array) e null.
+ */
+class ClienteEmulador {
+
+    /** Limite de escritas por commit do Firestore. */
+    static final int MAXIMO_ESCRITAS = 500;
+
+    /**
+     * Documento a gravar (substitui o existente, como set() sem merge).
+     */
+    static class Escrita {
+        final String caminho; // ex.: "enquetes/enquete_geral/votos/abc"
+        final Map<String, Object> campos;
+
+        Escrita(String caminho, Map<String, Object> campos) {
+            this.caminho = caminho;
+            this.campos = campos;
+        }
+    }
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final String raizDocumentos;
+
+    ClienteEmulador(String host, String projeto) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.baseUrl = "http://" + host;
+        this.raizDocumentos = "projects/" + projeto + "/databases/(default)/documents";
+    }
+
+    /**
+     * Grava as escritas em um único commit.
+     */
+    void gravar(List<Escrita> escritas) throws IOException, InterruptedException {
+        StringBuilder corpo = new StringBuilder(escritas.size() * 256);
+        corpo.append("{\"writes\":[");
+        for (int i = 0; i < escritas.size(); i++) {
+            if (i > 0) corpo.append(',');
+            Escrita escrita = escritas.get(i);
+            corpo.append("{\"update\":{\"name\":");
+            texto(corpo, raizDocumentos + "/" + escrita.caminho);
+            corpo.append(",\"fields\":");
+            campos(corpo, escrita.campos);
+            corpo.append("}}");
+        }
+        corpo.append("]}");
+
+        enviar("POST", "/v1/" + raizDocumentos + ":commit", corpo.toString());
+    }
+
+    /**
+     * Apaga TODOS os documentos do projeto no emulador (endpoint exclusivo do emulador).
+     */
+    void limparTudo() throws IOException, InterruptedException {
+        enviar("DELETE", "/emulator/v1/" + raizDocumentos, null);
+    }
+
+    private void enviar(String metodo, String caminho, String corpo)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create(baseUrl + caminho))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer owner")
+                .header("Content-Type", "application/json");
+        requisicao.method(metodo, corpo != null
+                ? HttpRequest.BodyPublishers.ofString(corpo, StandardCharsets.UTF_8)
+                : HttpRequest.BodyPublishers.noBody());
+
+        HttpResponse<String> resposta = http.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() / 100 != 2) {
+            throw new IOException(metodo + " " + caminho + " falhou (" + resposta.statusCode() + "): "
+                    + resposta.body());
+        }
+    }
+
+    // =====================================================================
+    //  Conversão para o formato JSON de valores do Firestore
+    // =====================================================================
+
+    private static void campos(StringBuilder json, Map<String, Object> campos) {
+        json.append('{');
+        boolean primeiro = true;
+        for (Map.Entry<String, Object> campo : campos.entrySet()) {
+            if (!primeiro) json.append(',');
+            primeiro = false;
+            texto(json, campo.getKey());
+            json.append(':');
+            valor(json, campo.getValue());
+        }
+        json.append('}');
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void valor(StringBuilder json, Object valor) {
+        if (valor == null) {
+            json.append("{\"nullValue\":null}");
+        } else if (valor instanceof String) {
+            json.append("{\"stringValue\":");
+            texto(json, (String) valor);
+            json.append('}');
+        } else if (valor instanceof Long || valor instanceof Integer) {
+            // int64 vai como texto no JSON da API
+            json.append("{\"integerValue\":\"").append(valor).append("\"}");
+        } else if (valor instanceof Double) {
+            json.append("{\"doubleValue\":").append(valor).append('}');
+        } else if (valor instanceof Boolean) {
+            json.append("{\"booleanValue\":").append(valor).append('}');
+        } else if (valor instanceof Instant) {
+            json.append("{\"timestampValue\":\"")
+                    .append(DateTimeFormatter.ISO_INSTANT.format((Instant) valor))
+                    .append("\"}");
+        } else if (valor instanceof Map) {
+            json.append("{\"mapValue\":{\"fields\":");
+            campos(json, (Map<String, Object>) valor);
+            json.append("}}");
+        } else if (valor instanceof List) {
+            json.append("{\"arrayValue\":{\"values\":[");
+            boolean primeiro = true;
+            for (Object item : (List<Object>) valor) {
+                if (!primeiro) json.append(',');
+                primeiro = false;
+                valor(json, item);
+            }
+            json.append("]}}");
+        } else {
+            throw new IllegalArgumentException("Tipo não suportado: " + valor.getClass());
+        }
+    }
+
+    private static void texto(StringBuilder json, String texto) {
+        json.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,464 @@
+package com.example.a3_teste_paineldevotao.semeador;
+
+import com.example.a3_teste_paineldevotao.esquema.CamposEnquete;
+import com.example.a3_teste_paineldevotao.esquema.CamposEvento;
+import com.example.a3_teste_paineldevotao.esquema.CamposVoto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Popula o emulador do Firestore com uma enquete e uma massa realista de votos,
+ * no mesmo esquema gravado pelo app:
+ *
+ *   enquetes/enquete_geral                        (campos de Enquete.toMap() + contadores)
+ *   enquetes/enquete_geral/votos/{id}             (opcaoEscolhida, timestamp, aparelho, ...)
+ *   enquetes/enquete_geral/eventos/{tipo}-{chave} (histórico: voto-{chave} e lote-{lote})
+ *   enquetes/enquete_geral/estatisticas/aparelhos_{n}
+ *   aparelhos/{id}                                (deviceModel, androidVersion)
+ *
+ * Os votos são gravados em commits de até 500 documentos, vários em paralelo.
+ * Os contadores da enquete e as estatísticas por aparelho são somados durante
+ * a geração e gravados no fim, coerentes com os votos. Cada lote de votos grava
+ * em seguida os eventos do histórico correspondentes, para a recontagem pelo
+ * histórico chegar aos mesmos totais. Ao final é exibida a vazão.
+ *
+ * O modelo Enquete do app depende do Timestamp do SDK Android do Firebase, que
+ * não existe na JVM: os nomes dos campos vêm do módulo "esquema", o mesmo usado
+ * pelo app, e a enquete é montada aqui com os mesmos valores de Enquete.toMap().
+ *
+ * Parâmetros (todos opcionais):
+ *   --host localhost:8080          endereço do emulador do Firestore
+ *   --projeto ID                   padrão: project_id de app/google-services.json
+ *   --votos 10000                  quantidade de documentos de voto
+ *   --distribuicao 50,30,20        pesos das opções A, B e C
+ *   --espalhamento-min 30          intervalo dos timestamps, terminando agora
+ *   --forma uniforme|rajada        rajada: maioria dos votos logo no início
+ *   --aparelhos N                  aparelhos distintos (padrão: um por voto);
+ *                                  votos excedentes viram cédulas de quiosque
+ *   --modelos "Moto G84=30,..."    mistura de modelos (nome=peso)
+ *   --versoes "14=45,13=30,..."    mistura de versões do Android (nome=peso)
+ *   --lote 500                     documentos por commit
+ *   --paralelismo 8                commits simultâneos
+ *   --semente 42                   mesma semente, mesma massa de dados
+ *   --limpar                       apaga tudo no emulador antes de popular
+ */
+public class SemeadorVotos {
+
+    private static final String ENQUETE = "enquetes/enquete_geral";
+
+    // Mesma quantidade de fragmentos de estatísticas usada pelo EnqueteRepository
+    private static final int FRAGMENTOS_ESTATISTICAS = 4;
+
+    private static final String MODELOS_PADRAO =
+            "Moto G84=22,Galaxy A15=20,Galaxy A54=14,Redmi Note 13=16,Moto E13=10,Pixel 7a=6,"
+                    + "Redmi 12C=8,Galaxy S23=4";
+    private static final String VERSOES_PADRAO = "14=40,13=28,12=16,11=10,10=6";
+
+    private static class Aparelho {
+        final String id;
+        final String modelo;
+        final String versao;
+
+        Aparelho(String id, String modelo, String versao) {
+            this.id = id;
+            this.modelo = modelo;
+            this.versao = versao;
+        }
+    }
+
+    private final Map<String, String> parametros;
+    private final ClienteEmulador cliente;
+    private final int votos;
+    private final double[] pesosOpcoes;
+    private final long espalhamentoMillis;
+    private final boolean rajada;
+    private final int tamanhoLote;
+    private final int paralelismo;
+    private final long semente;
+    private final Instant fim = Instant.now();
+
+    // Totais acumulados pelos lotes (gravados no fim)
+    private final LongAdder[] totaisOpcoes = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final List<Map<String, LongAdder>> modelosPorFragmento = new ArrayList<>();
+    private final List<Map<String, LongAdder>> versoesPorFragmento = new ArrayList<>();
+
+    // Medição
+    private final AtomicLong documentosGravados = new AtomicLong();
+    private final AtomicLong votosGravados = new AtomicLong();
+    private final ConcurrentLinkedQueue<Long> latenciasCommitNanos = new ConcurrentLinkedQueue<>();
+
+    private SemeadorVotos(Map<String, String> parametros) throws IOException {
+        this.parametros = parametros;
+        this.cliente = new ClienteEmulador(
+                parametros.getOrDefault("host", "localhost:8080"), lerProjeto(parametros));
+        this.votos = Integer.parseInt(parametros.getOrDefault("votos", "10000"));
+        this.pesosOpcoes = lerPesosOpcoes(parametros.getOrDefault("distribuicao", "50,30,20"));
+        this.espalhamentoMillis =
+                TimeUnit.MINUTES.toMillis(Long.parseLong(parametros.getOrDefault("espalhamento-min", "30")));
+        this.rajada = "rajada".equals(parametros.getOrDefault("forma", "uniforme"));
+        this.tamanhoLote = Math.min(ClienteEmulador.MAXIMO_ESCRITAS,
+                Integer.parseInt(parametros.getOrDefault("lote", "500")));
+        this.paralelismo = Integer.parseInt(parametros.getOrDefault("paralelismo", "8"));
+        this.semente = Long.parseLong(parametros.getOrDefault("semente", "42"));
+        for (int i = 0; i < FRAGMENTOS_ESTATISTICAS; i++) {
+            modelosPorFragmento.add(new ConcurrentHashMap<>());
+            versoesPorFragmento.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new SemeadorVotos(lerArgumentos(args)).executar();
+    }
+
+    private void executar() throws Exception {
+        if (parametros.containsKey("limpar")) {
+            cliente.limparTudo();
+            System.out.println("Emulador limpo.");
+        }
+
+        List<Aparelho> aparelhos = gerarAparelhos(
+                Integer.parseInt(parametros.getOrDefault("aparelhos", String.valueOf(votos))));
+        System.out.printf(Locale.US, "Gravando %d votos de %d aparelhos (lote %d, paralelismo %d)...%n",
+                votos, aparelhos.size(), tamanhoLote, paralelismo);
+
+        ExecutorService executor = Executors.newFixedThreadPool(paralelismo);
+        ScheduledExecutorService relatorio = Executors.newSingleThreadScheduledExecutor();
+        long inicio = System.nanoTime();
+        relatorio.scheduleAtFixedRate(() -> {
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            long feitos = votosGravados.get();
+            System.out.printf(Locale.US, "  %d/%d votos (%.0f docs/s)%n", feitos, votos, feitos / segundos);
+        }, 2, 2, TimeUnit.SECONDS);
+
+        try {
+            // Votos: um commit por lote, vários em paralelo; os eventos do lote vão no
+            // commit seguinte (nunca passam do número de votos, cabem no limite)
+            List<Future<?>> lotes = new ArrayList<>();
+            for (int primeiro = 0; primeiro < votos; primeiro += tamanhoLote) {
+                final int de = primeiro;
+                final int ate = Math.min(votos, primeiro + tamanhoLote);
+                lotes.add(executor.submit(() -> {
+                    List<ClienteEmulador.Escrita> eventos = new ArrayList<>();
+                    gravarLote(montarLoteVotos(de, ate, aparelhos, eventos));
+                    votosGravados.addAndGet(ate - de);
+                    gravarLote(eventos);
+                    return null;
+                }));
+            }
+            for (Future<?> lote : lotes) {
+                lote.get();
+            }
+            long nanosVotos = System.nanoTime() - inicio;
+
+            // Cadastro de aparelhos, também em paralelo
+            lotes.clear();
+            for (int primeiro = 0; primeiro < aparelhos.size(); primeiro += tamanhoLote) {
+                List<Aparelho> bloco =
+                        aparelhos.subList(primeiro, Math.min(aparelhos.size(), primeiro + tamanhoLote));
+                lotes.add(executor.submit(() -> {
+                    gravarLote(montarLoteAparelhos(bloco));
+                    return null;
+                }));
+            }
+            for (Future<?> lote : lotes) {
+                lote.get();
+            }
+
+            // Enquete e estatísticas por último, já com os totais
+            gravarLote(montarEnqueteEEstatisticas());
+            long nanosTotal = System.nanoTime() - inicio;
+
+            relatorio.shutdownNow();
+            imprimirResumo(nanosVotos, nanosTotal, aparelhos.size());
+        } finally {
+            relatorio.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    private void gravarLote(List<ClienteEmulador.Escrita> escritas) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        cliente.gravar(escritas);
+        latenciasCommitNanos.add(System.nanoTime() - inicio);
+        documentosGravados.addAndGet(escritas.size());
+    }
+
+    // =====================================================================
+    //  Geração dos documentos
+    // =====================================================================
+
+    private List<Aparelho> gerarAparelhos(int quantidade) {
+        Map<String, Double> modelos = lerMistura(parametros.getOrDefault("modelos", MODELOS_PADRAO));
+        Map<String, Double> versoes = lerMistura(parametros.getOrDefault("versoes", VERSOES_PADRAO));
+        Random random = new Random(semente);
+        List<Aparelho> aparelhos = new ArrayList<>(quantidade);
+        for (int i = 0; i < Math.max(1, quantidade); i++) {
+            // Mesmo formato do ANDROID_ID: 16 dígitos hexadecimais
+            String id = String.format("%016x", random.nextLong());
+            aparelhos.add(new Aparelho(id, sortear(modelos, random), sortear(versoes, random)));
+        }
+        return aparelhos;
+    }
+
+    /**
+     * Votos [de, ate). Os primeiros votos (um por aparelho) são votos comuns, com o
+     * id do aparelho como id do documento; os excedentes são cédulas de quiosque.
+     *
+     * Em "eventos" ficam os eventos do histórico, como o app grava: um "voto-{chave}"
+     * por voto comum e um único "lote-{lote}" com a soma das cédulas de quiosque.
+     */
+    private List<ClienteEmulador.Escrita> montarLoteVotos(int de, int ate, List<Aparelho> aparelhos,
+                                                          List<ClienteEmulador.Escrita> eventos) {
+        Random random = new Random(semente * 31 + de);
+        String loteQuiosque = "semeador-" + de;
+        long[] cedulasQuiosque = new long[3];
+        Instant ultimaCedula = null;
+        String quiosque = null;
+        List<ClienteEmulador.Escrita> escritas = new ArrayList<>(ate - de);
+        for (int i = de; i < ate; i++) {
+            Aparelho aparelho = aparelhos.get(i % aparelhos.size());
+            String opcao = sortearOpcao(random);
+            Instant instante = sortearInstante(random);
+
+            Map<String, Object> voto = new LinkedHashMap<>();
+            voto.put(CamposVoto.OPCAO_ESCOLHIDA, opcao);
+            voto.put(CamposVoto.TIMESTAMP, instante);
+            voto.put(CamposVoto.APARELHO, aparelho.id);
+            String id;
+            if (i < aparelhos.size()) {
+                id = aparelho.id;
+                String chave = new UUID(random.nextLong(), random.nextLong()).toString();
+                voto.put(CamposVoto.CHAVE_IDEMPOTENCIA, chave);
+
+                Map<String, Object> evento = new LinkedHashMap<>();
+                evento.put(CamposEvento.TIPO, CamposEvento.TIPO_VOTO);
+                evento.put(CamposEvento.TIMESTAMP, instante);
+                evento.put(CamposEvento.OPCAO, opcao);
+                evento.put(CamposEvento.APARELHO, aparelho.id);
+                eventos.add(new ClienteEmulador.Escrita(ENQUETE + "/eventos/voto-" + chave, evento));
+            } else {
+                id = new UUID(random.nextLong(), random.nextLong()).toString();
+                voto.put(CamposVoto.REGISTRADA_EM, instante.minusMillis(random.nextInt(5_000)));
+                voto.put(CamposVoto.LOTE, loteQuiosque);
+
+                cedulasQuiosque[opcao.charAt(0) - 'A']++;
+                if (ultimaCedula == null || instante.isAfter(ultimaCedula)) ultimaCedula = instante;
+                if (quiosque == null) quiosque = aparelho.id;
+            }
+            escritas.add(new ClienteEmulador.Escrita(ENQUETE + "/votos/" + id, voto));
+
+            totaisOpcoes[opcao.charAt(0) - 'A'].increment();
+            int fragmento = Math.floorMod(aparelho.id.hashCode(), FRAGMENTOS_ESTATISTICAS);
+            modelosPorFragmento.get(fragmento).computeIfAbsent(aparelho.modelo, k -> new LongAdder()).increment();
+            versoesPorFragmento.get(fragmento).computeIfAbsent(aparelho.versao, k -> new LongAdder()).increment();
+        }
+
+        if (ultimaCedula != null) {
+            // No app o evento do lote leva o horário do servidor na gravação: aqui, o da última cédula
+            Map<String, Object> evento = new LinkedHashMap<>();
+            evento.put(CamposEvento.TIPO, CamposEvento.TIPO_LOTE);
+            evento.put(CamposEvento.TIMESTAMP, ultimaCedula);
+            evento.put(CamposEvento.OPCAO_A, cedulasQuiosque[0]);
+            evento.put(CamposEvento.OPCAO_B, cedulasQuiosque[1]);
+            evento.put(CamposEvento.OPCAO_C, cedulasQuiosque[2]);
+            evento.put(CamposEvento.APARELHO, quiosque);
+            eventos.add(new ClienteEmulador.Escrita(ENQUETE + "/eventos/lote-" + loteQuiosque, evento));
+        }
+        return escritas;
+    }
+
+    private static List<ClienteEmulador.Escrita> montarLoteAparelhos(List<Aparelho> aparelhos) {
+        List<ClienteEmulador.Escrita> escritas = new ArrayList<>(aparelhos.size());
+        Instant agora = Instant.now();
+        for (Aparelho aparelho : aparelhos) {
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("deviceModel", aparelho.modelo);
+            dados.put("androidVersion", aparelho.versao);
+            dados.put("atualizadoEm", agora);
+            escritas.add(new ClienteEmulador.Escrita("aparelhos/" + aparelho.id, dados));
+        }
+        return escritas;
+    }
+
+    private List<ClienteEmulador.Escrita> montarEnqueteEEstatisticas() {
+        List<ClienteEmulador.Escrita> escritas = new ArrayList<>();
+
+        // Mesmos campos de Enquete.toMap(), com a enquete padrão do app
+        Map<String, Object> enquete = new LinkedHashMap<>();
+        enquete.put(CamposEnquete.TITULO, "Em qual opção você deseja votar?");
+        enquete.put(CamposEnquete.TEXTO_OPCAO_A, "Opção A");
+        enquete.put(CamposEnquete.TEXTO_OPCAO_B, "Opção B");
+        enquete.put(CamposEnquete.TEXTO_OPCAO_C, "Opção C");
+        enquete.put(CamposEnquete.MENSAGEM_RODAPE, null);
+        enquete.put(CamposEnquete.DATA_HORA_ENCERRAMENTO, null);
+        enquete.put(CamposEnquete.ENCERRAMENTO_EM, null);
+        enquete.put(CamposEnquete.OPCAO_A, totaisOpcoes[0].sum());
+        enquete.put(CamposEnquete.OPCAO_B, totaisOpcoes[1].sum());
+        enquete.put(CamposEnquete.OPCAO_C, totaisOpcoes[2].sum());
+        enquete.put(CamposEnquete.RODADA, 0L);
+        enquete.put(CamposEnquete.RESPOSTA_LIVRE, false);
+        enquete.put(CamposEnquete.IMAGEM_OPCAO_A, null);
+        enquete.put(CamposEnquete.IMAGEM_OPCAO_B, null);
+        enquete.put(CamposEnquete.IMAGEM_OPCAO_C, null);
+        enquete.put(CamposEnquete.MODO_QUIZ, false);
+        enquete.put(CamposEnquete.TURMAS, Collections.emptyList());
+        escritas.add(new ClienteEmulador.Escrita(ENQUETE, enquete));
+
+        for (int i = 0; i < FRAGMENTOS_ESTATISTICAS; i++) {
+            Map<String, Object> fragmento = new HashMap<>();
+            fragmento.put("modelos", somas(modelosPorFragmento.get(i)));
+            fragmento.put("versoes", somas(versoesPorFragmento.get(i)));
+            escritas.add(new ClienteEmulador.Escrita(ENQUETE + "/estatisticas/aparelhos_" + i, fragmento));
+        }
+        return escritas;
+    }
+
+    private String sortearOpcao(Random random) {
+        double total = pesosOpcoes[0] + pesosOpcoes[1] + pesosOpcoes[2];
+        double sorteio = random.nextDouble() * total;
+        if (sorteio < pesosOpcoes[0]) return "A";
+        if (sorteio < pesosOpcoes[0] + pesosOpcoes[1]) return "B";
+        return "C";
+    }
+
+    /**
+     * Instante dentro do espalhamento, terminando agora. Na forma "rajada" o atraso
+     * desde a abertura segue uma exponencial (média de 1/5 do espalhamento).
+     */
+    private Instant sortearInstante(Random random) {
+        Instant abertura = fim.minusMillis(espalhamentoMillis);
+        double fracao = rajada
+                ? Math.min(1.0, -Math.log(1.0 - random.nextDouble()) / 5.0)
+                : random.nextDouble();
+        return abertura.plusMillis((long) (fracao * espalhamentoMillis))
+                .plusNanos(random.nextInt(1_000) * 1_000L);
+    }
+
+    private static String sortear(Map<String, Double> mistura, Random random) {
+        double total = 0;
+        for (double peso : mistura.values()) total += peso;
+        double sorteio = random.nextDouble() * total;
+        String escolhido = null;
+        for (Map.Entry<String, Double> item : mistura.entrySet()) {
+            escolhido = item.getKey();
+            sorteio -= item.getValue();
+            if (sorteio < 0) break;
+        }
+        return escolhido;
+    }
+
+    private static Map<String, Object> somas(Map<String, LongAdder> contagens) {
+        Map<String, Object> resultado = new HashMap<>();
+        for (Map.Entry<String, LongAdder> item : contagens.entrySet()) {
+            resultado.put(item.getKey(), item.getValue().sum());
+        }
+        return resultado;
+    }
+
+    // =====================================================================
+    //  Relatório
+    // =====================================================================
+
+    private void imprimirResumo(long nanosVotos, long nanosTotal, int aparelhos) {
+        List<Long> latencias = new ArrayList<>(latenciasCommitNanos);
+        Collections.sort(latencias);
+        long totalDocumentos = documentosGravados.get();
+
+        System.out.println();
+        System.out.printf(Locale.US, "Votos:      %d (A=%d, B=%d, C=%d)%n", votos,
+                totaisOpcoes[0].sum(), totaisOpcoes[1].sum(), totaisOpcoes[2].sum());
+        System.out.printf(Locale.US, "Aparelhos:  %d%n", aparelhos);
+        System.out.printf(Locale.US, "Documentos: %d em %d commits%n", totalDocumentos, latencias.size());
+        System.out.printf(Locale.US, "Tempo:      %.2f s (votos: %.2f s)%n", nanosTotal / 1e9, nanosVotos / 1e9);
+        System.out.printf(Locale.US, "Vazão:      %.0f docs/s (votos: %.0f votos/s)%n",
+                totalDocumentos / (nanosTotal / 1e9), votos / (nanosVotos / 1e9));
+        if (!latencias.isEmpty()) {
+            System.out.printf(Locale.US, "Commit:     p50 %.0f ms, p95 %.0f ms, máx %.0f ms%n",
+                    percentil(latencias, 0.50) / 1e6, percentil(latencias, 0.95) / 1e6,
+                    latencias.get(latencias.size() - 1) / 1e6);
+        }
+    }
+
+    private static long percentil(List<Long> ordenadas, double fracao) {
+        int indice = (int) Math.ceil(fracao * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(0, Math.min(ordenadas.size() - 1, indice)));
+    }
+
+    // =====================================================================
+    //  Parâmetros
+    // =====================================================================
+
+    private static Map<String, String> lerArgumentos(String[] args) {
+        Map<String, String> parametros = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Parâmetro inesperado: " + args[i]);
+            }
+            String nome = args[i].substring(2);
+            boolean temValor = i + 1 < args.length && !args[i + 1].startsWith("--");
+            parametros.put(nome, temValor ? args[++i] : "");
+        }
+        return parametros;
+    }
+
+    private static String lerProjeto(Map<String, String> parametros) throws IOException {
+        if (parametros.containsKey("projeto")) {
+            return parametros.get("projeto");
+        }
+        Path configuracao = Paths.get("app", "google-services.json");
+        if (Files.exists(configuracao)) {
+            Matcher matcher = Pattern.compile("\"project_id\"\\s*:\\s*\"([^\"]+)\"")
+                    .matcher(new String(Files.readAllBytes(configuracao), StandardCharsets.UTF_8));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return "demo-painel";
+    }
+
+    private static double[] lerPesosOpcoes(String texto) {
+        double[] pesos = Arrays.stream(texto.split(",")).mapToDouble(Double::parseDouble).toArray();
+        if (pesos.length != 3) {
+            throw new IllegalArgumentException("--distribuicao espera três pesos (A,B,C): " + texto);
+        }
+        return pesos;
+    }
+
+    private static Map<String, Double> lerMistura(String texto) {
+        Map<String, Double> mistura = new LinkedHashMap<>();
+        for (String item : texto.split(",")) {
+            int igual = item.lastIndexOf('=');
+            if (igual <= 0) {
+                throw new IllegalArgumentException("Esperado nome=peso: " + item);
+            }
+            mistura.put(item.substring(0, igual).trim(), Double.parseDouble(item.substring(igual + 1)));
+        }
+        return mistura;
+    }
+}
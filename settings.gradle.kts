@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "3 - TESTE - Painel de Votação"
 include(":app")
+include(":semeador")
+include(":esquema")
  
\ No newline at end of file